@@ -23,6 +23,21 @@ public class McpSessionProperties {
      */
     private String instanceId;
 
+    /**
+     * SSE 心跳配置
+     */
+    private Heartbeat heartbeat = new Heartbeat();
+
+    /**
+     * SSE 出站队列配置
+     */
+    private Outbound outbound = new Outbound();
+
+    /**
+     * SSE 断线续传（Last-Event-ID）配置
+     */
+    private Replay replay = new Replay();
+
     public String getRedisPrefix() {
         return redisPrefix;
     }
@@ -50,4 +65,345 @@ public class McpSessionProperties {
     public void setInstanceId(String instanceId) {
         this.instanceId = instanceId;
     }
+
+    public Heartbeat getHeartbeat() {
+        return heartbeat;
+    }
+
+    public void setHeartbeat(Heartbeat heartbeat) {
+        if (heartbeat != null) {
+            this.heartbeat = heartbeat;
+        }
+    }
+
+    public Outbound getOutbound() {
+        return outbound;
+    }
+
+    public void setOutbound(Outbound outbound) {
+        if (outbound != null) {
+            this.outbound = outbound;
+        }
+    }
+
+    public Replay getReplay() {
+        return replay;
+    }
+
+    public void setReplay(Replay replay) {
+        if (replay != null) {
+            this.replay = replay;
+        }
+    }
+
+    /**
+     * SSE 心跳（keepalive）配置，WebMVC 与 WebFlux 两种传输共享
+     */
+    public static class Heartbeat {
+
+        /**
+         * 心跳基准间隔，默认 15 秒（与 mcp-router-v3 保持一致）
+         */
+        private Duration interval = Duration.ofSeconds(15);
+
+        /**
+         * 抖动比例（0 ~ 0.5），实际间隔在 interval * (1 ± jitter) 之间随机，避免所有会话同时发送心跳
+         */
+        private double jitter = 0.2;
+
+        /**
+         * 时间轮刻度，决定心跳触发精度
+         */
+        private Duration tickDuration = Duration.ofMillis(500);
+
+        /**
+         * 时间轮槽位数
+         */
+        private int ticksPerWheel = 512;
+
+        /**
+         * 失效连接批量清理间隔
+         */
+        private Duration reapInterval = Duration.ofSeconds(5);
+
+        /**
+         * 心跳发送线程数（发送可能阻塞，不能在时间轮线程上执行）
+         */
+        private int senderThreads = 4;
+
+        /**
+         * 心跳发送队列容量，队列满时本轮心跳跳过
+         */
+        private int senderQueueCapacity = 10000;
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            if (interval != null && !interval.isZero() && !interval.isNegative()) {
+                this.interval = interval;
+            }
+        }
+
+        public double getJitter() {
+            return jitter;
+        }
+
+        public void setJitter(double jitter) {
+            this.jitter = Math.max(0, Math.min(0.5, jitter));
+        }
+
+        public Duration getTickDuration() {
+            return tickDuration;
+        }
+
+        public void setTickDuration(Duration tickDuration) {
+            if (tickDuration != null && !tickDuration.isZero() && !tickDuration.isNegative()) {
+                this.tickDuration = tickDuration;
+            }
+        }
+
+        public int getTicksPerWheel() {
+            return ticksPerWheel;
+        }
+
+        public void setTicksPerWheel(int ticksPerWheel) {
+            if (ticksPerWheel > 0) {
+                this.ticksPerWheel = ticksPerWheel;
+            }
+        }
+
+        public Duration getReapInterval() {
+            return reapInterval;
+        }
+
+        public void setReapInterval(Duration reapInterval) {
+            if (reapInterval != null && !reapInterval.isZero() && !reapInterval.isNegative()) {
+                this.reapInterval = reapInterval;
+            }
+        }
+
+        public int getSenderThreads() {
+            return senderThreads;
+        }
+
+        public void setSenderThreads(int senderThreads) {
+            if (senderThreads > 0) {
+                this.senderThreads = senderThreads;
+            }
+        }
+
+        public int getSenderQueueCapacity() {
+            return senderQueueCapacity;
+        }
+
+        public void setSenderQueueCapacity(int senderQueueCapacity) {
+            if (senderQueueCapacity > 0) {
+                this.senderQueueCapacity = senderQueueCapacity;
+            }
+        }
+    }
+
+    /**
+     * 慢消费者处理策略
+     */
+    public enum SlowConsumerPolicy {
+        /**
+         * 队列超限时先丢弃通知类消息（心跳、list_changed 等），仍然超限再断开连接
+         */
+        DROP_NOTIFICATIONS_THEN_DISCONNECT,
+        /**
+         * 队列超限立即断开连接
+         */
+        DISCONNECT
+    }
+
+    /**
+     * 每会话出站队列配置：按字节限制队列大小，每个会话只有一个写线程
+     */
+    public static class Outbound {
+
+        /**
+         * 单个会话排队的最大字节数，默认 4MB
+         */
+        private long maxQueueBytes = 4L * 1024 * 1024;
+
+        /**
+         * 单个会话排队的最大消息数
+         */
+        private int maxQueueMessages = 1000;
+
+        /**
+         * 队列超限时的处理策略
+         */
+        private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.DROP_NOTIFICATIONS_THEN_DISCONNECT;
+
+        /**
+         * 写线程数（所有会话共享，同一会话同一时刻只占用一个线程）
+         */
+        private int writerThreads = 16;
+
+        /**
+         * 队列有积压但写入持续无进展超过该时间，认为客户端卡死并断开连接
+         */
+        private Duration stallTimeout = Duration.ofSeconds(30);
+
+        /**
+         * WebFlux Sink 缓冲区满时的重试间隔
+         */
+        private Duration retryDelay = Duration.ofMillis(50);
+
+        /**
+         * WebFlux Sink 缓冲区大小（事件数），超过后由出站队列承接积压
+         */
+        private int sinkBufferSize = 256;
+
+        public long getMaxQueueBytes() {
+            return maxQueueBytes;
+        }
+
+        public void setMaxQueueBytes(long maxQueueBytes) {
+            if (maxQueueBytes > 0) {
+                this.maxQueueBytes = maxQueueBytes;
+            }
+        }
+
+        public int getMaxQueueMessages() {
+            return maxQueueMessages;
+        }
+
+        public void setMaxQueueMessages(int maxQueueMessages) {
+            if (maxQueueMessages > 0) {
+                this.maxQueueMessages = maxQueueMessages;
+            }
+        }
+
+        public SlowConsumerPolicy getSlowConsumerPolicy() {
+            return slowConsumerPolicy;
+        }
+
+        public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+            if (slowConsumerPolicy != null) {
+                this.slowConsumerPolicy = slowConsumerPolicy;
+            }
+        }
+
+        public int getWriterThreads() {
+            return writerThreads;
+        }
+
+        public void setWriterThreads(int writerThreads) {
+            if (writerThreads > 0) {
+                this.writerThreads = writerThreads;
+            }
+        }
+
+        public Duration getStallTimeout() {
+            return stallTimeout;
+        }
+
+        public void setStallTimeout(Duration stallTimeout) {
+            if (stallTimeout != null && !stallTimeout.isZero() && !stallTimeout.isNegative()) {
+                this.stallTimeout = stallTimeout;
+            }
+        }
+
+        public Duration getRetryDelay() {
+            return retryDelay;
+        }
+
+        public void setRetryDelay(Duration retryDelay) {
+            if (retryDelay != null && !retryDelay.isZero() && !retryDelay.isNegative()) {
+                this.retryDelay = retryDelay;
+            }
+        }
+
+        public int getSinkBufferSize() {
+            return sinkBufferSize;
+        }
+
+        public void setSinkBufferSize(int sinkBufferSize) {
+            if (sinkBufferSize > 0) {
+                this.sinkBufferSize = sinkBufferSize;
+            }
+        }
+    }
+
+    /**
+     * SSE 断线续传配置：每个会话保留最近的事件，客户端携带 Last-Event-ID 重连时补发
+     */
+    public static class Replay {
+
+        /**
+         * 是否启用断线续传
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每个会话保留的事件数（环形缓冲区大小）
+         */
+        private int capacity = 128;
+
+        /**
+         * 单个事件超过该字节数时不进入缓冲区（仍然分配事件 ID）
+         */
+        private int maxEventBytes = 256 * 1024;
+
+        /**
+         * 连接断开后缓冲区保留时间，超过后不可续传
+         */
+        private Duration retention = Duration.ofMinutes(5);
+
+        /**
+         * 是否将缓冲区异步写入 Redis，用于跨节点续传
+         */
+        private boolean redisSpill = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            if (capacity > 0) {
+                this.capacity = capacity;
+            }
+        }
+
+        public int getMaxEventBytes() {
+            return maxEventBytes;
+        }
+
+        public void setMaxEventBytes(int maxEventBytes) {
+            if (maxEventBytes > 0) {
+                this.maxEventBytes = maxEventBytes;
+            }
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            if (retention != null && !retention.isZero() && !retention.isNegative()) {
+                this.retention = retention;
+            }
+        }
+
+        public boolean isRedisSpill() {
+            return redisSpill;
+        }
+
+        public void setRedisSpill(boolean redisSpill) {
+            this.redisSpill = redisSpill;
+        }
+    }
 }
@@ -0,0 +1,56 @@
+package com.pajk.mcpmetainfo.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MCP WebSocket 传输配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "mcp.websocket")
+public class McpWebSocketProperties {
+
+    /**
+     * 单个连接同时处理的最大请求数（in-flight 窗口），超过后新请求返回 SERVER_BUSY
+     */
+    private int maxInFlight = 32;
+
+    /**
+     * in-flight 窗口已满时新请求的最长等待时间(毫秒)，超时返回 SERVER_BUSY 错误
+     * 等待发生在容器的 WebSocket 读取线程上，会阻塞该连接后续消息的读取；默认 0 立即拒绝，
+     * 大于 0 时最多等待 100ms
+     */
+    private long acquireTimeoutMs = 0;
+
+    /**
+     * 请求分发线程数上限（所有连接共享）
+     */
+    private int dispatchThreads = 64;
+
+    /**
+     * 请求分发排队上限（所有连接共享）
+     */
+    private int dispatchQueueCapacity = 10000;
+
+    /**
+     * 单次发送最长耗时(毫秒)，超过后关闭连接（慢客户端保护）
+     */
+    private int sendTimeLimitMs = 10000;
+
+    /**
+     * 单个连接发送缓冲区上限(字节)，超过后关闭连接
+     */
+    private int sendBufferSizeLimit = 4 * 1024 * 1024;
+
+    /**
+     * 单条文本消息最大字节数（大工具列表）
+     */
+    private int maxTextMessageBufferSize = 1024 * 1024;
+
+    /**
+     * 是否启用 permessage-deflate 压缩（客户端请求时协商）
+     */
+    private boolean perMessageDeflate = true;
+}
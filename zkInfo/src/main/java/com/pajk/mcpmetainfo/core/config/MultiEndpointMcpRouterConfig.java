@@ -1,15 +1,16 @@
 package com.pajk.mcpmetainfo.core.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.alibaba.nacos.api.naming.NamingService;
-import com.alibaba.nacos.api.naming.pojo.Instance;
 import com.pajk.mcpmetainfo.core.model.Project;
 import com.pajk.mcpmetainfo.core.service.EndpointResolver;
 import com.pajk.mcpmetainfo.core.service.McpExecutorService;
 import com.pajk.mcpmetainfo.core.service.McpSessionManager;
+import com.pajk.mcpmetainfo.core.service.McpToolCatalogService;
 import com.pajk.mcpmetainfo.core.service.NacosMcpRegistrationService;
+import com.pajk.mcpmetainfo.core.service.NacosMcpReplicaService;
 import com.pajk.mcpmetainfo.core.service.ProjectManagementService;
-import com.pajk.mcpmetainfo.core.service.VirtualProjectRegistrationService;
+import com.pajk.mcpmetainfo.core.service.SseKeepaliveService;
+import com.pajk.mcpmetainfo.core.service.SseOutboundService;
 import com.pajk.mcpmetainfo.core.service.VirtualProjectService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -52,11 +53,14 @@ public class MultiEndpointMcpRouterConfig {
     private final EndpointResolver endpointResolver;
     private final McpSessionManager sessionManager;
     private final ObjectMapper objectMapper;
-    private final VirtualProjectRegistrationService virtualProjectRegistrationService;
     private final VirtualProjectService virtualProjectService;
     private final McpExecutorService mcpExecutorService;
     private final ProjectManagementService projectManagementService;
     private final NacosMcpRegistrationService nacosMcpRegistrationService;
+    private final SseKeepaliveService keepaliveService;
+    private final McpSessionProperties sessionProperties;
+    private final McpToolCatalogService toolCatalogService;
+    private final NacosMcpReplicaService nacosMcpReplicaService;
     
     /**
      * 创建多Endpoint路由函数
@@ -138,74 +142,18 @@ public class MultiEndpointMcpRouterConfig {
     
     /**
      * 从 Nacos 查询服务名称（根据请求的 IP 和端口匹配服务实例）
-     * 优化：使用缓存，避免每次都查询 Nacos
+     * 实例列表来自本地副本（Nacos 订阅推送），不在请求路径上访问 Nacos
      */
-    private final Map<String, String> serviceNameCache = new java.util.concurrent.ConcurrentHashMap<>();
-    private volatile long lastCacheUpdate = 0;
-    private static final long CACHE_TTL_MS = 5000; // 缓存5秒
-    
     private String resolveServiceNameFromNacos(ServerRequest request) {
-        // 检查缓存
-        long now = System.currentTimeMillis();
-        if (now - lastCacheUpdate < CACHE_TTL_MS && !serviceNameCache.isEmpty()) {
-            // 从缓存中查找匹配的服务
-            String localIp = nacosMcpRegistrationService.getLocalIp();
-            int localPort = nacosMcpRegistrationService.getServerPort();
-            String cacheKey = localIp + ":" + localPort;
-            String cachedServiceName = serviceNameCache.get(cacheKey);
-            if (cachedServiceName != null) {
-                log.debug("✅ Found serviceName from cache: {}", cachedServiceName);
-                return cachedServiceName;
-            }
-        }
-        
-        try {
-            // 获取本机 IP（zkInfo 服务运行的 IP）
-            String localIp = nacosMcpRegistrationService.getLocalIp();
-            int localPort = nacosMcpRegistrationService.getServerPort();
-            
-            log.debug("🔍 Trying to resolve serviceName from Nacos: localIp={}, localPort={}", 
-                    localIp, localPort);
-            
-            // 从 Nacos 查询所有 MCP 服务
-            NamingService namingService = nacosMcpRegistrationService.getNamingService();
-            String serviceGroup = nacosMcpRegistrationService.getServiceGroup();
-            
-            // 查询指定 group 下的所有服务（限制查询数量，避免超时）
-            com.alibaba.nacos.api.naming.pojo.ListView<String> servicesList = 
-                    namingService.getServicesOfServer(1, 100, serviceGroup); // 限制最多100个服务
-            
-            if (servicesList != null && servicesList.getData() != null) {
-                String cacheKey = localIp + ":" + localPort;
-                for (String serviceName : servicesList.getData()) {
-                    try {
-                        // 查询服务的所有实例（只查询健康的实例）
-                        List<Instance> instances = namingService.selectInstances(serviceName, serviceGroup, true);
-                        if (instances != null) {
-                            for (Instance instance : instances) {
-                                // 匹配 IP 和端口
-                                if (localIp.equals(instance.getIp()) && localPort == instance.getPort()) {
-                                    log.info("✅ Found matching service from Nacos: {} (IP: {}, Port: {})", 
-                                            serviceName, instance.getIp(), instance.getPort());
-                                    // 更新缓存
-                                    serviceNameCache.put(cacheKey, serviceName);
-                                    lastCacheUpdate = now;
-                                    return serviceName;
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.debug("Failed to get instances for service: {}", serviceName, e);
-                    }
-                }
-            }
-            
+        String localIp = nacosMcpRegistrationService.getLocalIp();
+        int localPort = nacosMcpRegistrationService.getServerPort();
+        String serviceName = nacosMcpReplicaService.findServiceByInstance(localIp, localPort).orElse(null);
+        if (serviceName != null) {
+            log.debug("✅ Found serviceName from Nacos replica: {}", serviceName);
+        } else {
             log.debug("⚠️ No matching service found in Nacos for IP: {}, Port: {}", localIp, localPort);
-            return null;
-        } catch (Exception e) {
-            log.warn("Failed to resolve serviceName from Nacos", e);
-            return null;
         }
+        return serviceName;
     }
     
     /**
@@ -284,12 +232,16 @@ public class MultiEndpointMcpRouterConfig {
      * 构建 SSE 响应（共享逻辑）
      */
     private Mono<ServerResponse> buildSseResponse(ServerRequest request, String endpoint, String mcpServiceName) {
-        // 生成sessionId
-        String sessionId = UUID.randomUUID().toString();
+        // 生成sessionId（携带 Last-Event-ID 重连时续用原会话，补发断开期间的事件）
+        String lastEventId = request.headers().firstHeader("Last-Event-ID");
+        String resumedSessionId = sessionManager.resolveResumableSessionId(lastEventId);
+        String sessionId = resumedSessionId != null ? resumedSessionId : UUID.randomUUID().toString();
         
-        // 创建SSE Sink
-        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().multicast().onBackpressureBuffer();
+        // 创建SSE Sink（有界缓冲区，超出部分由会话出站队列承接，慢消费者按策略丢弃通知或断开）
+        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().multicast()
+                .onBackpressureBuffer(sessionProperties.getOutbound().getSinkBufferSize(), false);
         sessionManager.registerSink(sessionId, endpoint, sink);
+        sessionManager.openOutbound(sessionId, endpoint, sink, () -> sessionManager.removeSession(sessionId, sink));
         
         // 构建消息端点URL
         // 注意：WebFluxSseClientTransport 期望的标准格式是：/mcp/message?sessionId=xxx
@@ -302,31 +254,32 @@ public class MultiEndpointMcpRouterConfig {
         // 注意：WebFluxSseClientTransport 期望的格式是：event:endpoint\ndata:<messageEndpoint URL>\n\n
         // 其中 messageEndpoint 应该是完整的 URL，例如：http://localhost:9091/mcp/message?sessionId=xxx
         ServerSentEvent<String> endpointEvent = ServerSentEvent.<String>builder()
+                .id(resumedSessionId != null ? lastEventId : sessionManager.currentEventId(sessionId))
                 .event("endpoint")
                 .data(messageEndpoint)  // 直接发送 URL，而不是 JSON 对象
                 .build();
+        if (resumedSessionId != null) {
+            // 补发的事件先进入 sink 缓冲区，在 endpoint 事件之后发出
+            sessionManager.replayMissedEvents(sessionId, lastEventId);
+        }
         
-        // 心跳事件
-        Flux<ServerSentEvent<String>> heartbeatFlux = Flux.interval(Duration.ofSeconds(15))
-                .map(tick -> ServerSentEvent.<String>builder()
-                        .event("heartbeat")
-                        .data("{\"type\":\"heartbeat\",\"timestamp\":" + System.currentTimeMillis() + "}")
-                        .build());
+        // 心跳事件：由共享时间轮（SseKeepaliveService）驱动，经出站队列写入同一个 sink，不再为每个会话创建 Flux.interval
+        keepaliveService.register(sessionId, () -> {
+            // 更新会话活跃时间
+            sessionManager.touch(sessionId);
+            SseOutboundService.OfferResult heartbeatResult = sessionManager.sendEvent(sessionId,
+                    SseOutboundService.OutboundEvent.heartbeatEvent("heartbeat",
+                            "{\"type\":\"heartbeat\",\"timestamp\":" + System.currentTimeMillis() + "}"));
+            return heartbeatResult == SseOutboundService.OfferResult.QUEUED
+                    || heartbeatResult == SseOutboundService.OfferResult.DROPPED;
+        }, () -> sessionManager.removeSession(sessionId, sink));
         
         // 合并事件流
         // 注意：WebFluxSseClientTransport 通过 HTTP POST /mcp/message 发送消息，而不是通过 SSE 流
-        // 所以这里只需要处理从 sink 发送的响应消息
+        // 所以这里只需要处理从 sink 发送的响应消息（包括心跳）
         Flux<ServerSentEvent<String>> eventFlux = Flux.concat(
                 Flux.just(endpointEvent),
-                Flux.merge(
-                        sink.asFlux().onBackpressureBuffer(1000),
-                        heartbeatFlux
-                                .doOnNext(tick -> {
-                                    // 更新会话活跃时间
-                                    sessionManager.touch(sessionId);
-                                })
-                                .onBackpressureBuffer(100)
-                )
+                sink.asFlux()
         )
         .share()
         .doOnSubscribe(subscription -> log.info("✅ Connection subscribed: sessionId={}, endpoint={}, mcpServiceName={}", 
@@ -334,11 +287,11 @@ public class MultiEndpointMcpRouterConfig {
         .doOnCancel(() -> {
             log.warn("❌ Connection cancelled: sessionId={}, endpoint={}, reason=client_disconnect", 
                     sessionId, endpoint);
-            sessionManager.removeSession(sessionId);
+            sessionManager.removeSession(sessionId, sink);
         })
         .doOnError(error -> {
             log.error("❌ Connection error: sessionId={}, endpoint={}", sessionId, endpoint, error);
-            sessionManager.removeSession(sessionId);
+            sessionManager.removeSession(sessionId, sink);
         })
         .doOnComplete(() -> log.info("✅ Connection completed: sessionId={}, endpoint={}", sessionId, endpoint));
         
@@ -557,12 +510,12 @@ public class MultiEndpointMcpRouterConfig {
             if ("initialize".equals(method)) {
                 return handleInitialize(sessionId, id, mcpServiceName, sink);
             } else if ("tools/list".equals(method)) {
-                return handleToolsList(sessionId, id, endpoint, sink);
+                return handleToolsList(sessionId, id, endpoint, extractCursor(message), sink);
             } else if ("tools/call".equals(method)) {
                 return handleToolCall(sessionId, id, endpoint, message, sink);
             } else {
                 // 其他方法
-                return sendResponseViaSse(sink, id, "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"result\":{\"status\":\"received\",\"method\":\"" + method + "\"}}");
+                return sendResponseViaSse(sessionId, sink, id, "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"result\":{\"status\":\"received\",\"method\":\"" + method + "\"}}");
             }
         } catch (Exception e) {
             log.error("❌ Error processing MCP message", e);
@@ -603,7 +556,7 @@ public class MultiEndpointMcpRouterConfig {
                     .data(responseJson)
                     .build();
             
-            Sinks.EmitResult emitResult = sink.tryEmitNext(sseEvent);
+            Sinks.EmitResult emitResult = emitEvent(sessionId, sink, sseEvent);
             if (emitResult.isSuccess()) {
                 log.info("✅ Successfully sent initialize response via SSE: sessionId={}", sessionId);
             } else {
@@ -615,6 +568,17 @@ public class MultiEndpointMcpRouterConfig {
         }
     }
     
+    /**
+     * 从 JSON-RPC 请求中提取分页游标（params.cursor）
+     */
+    private String extractCursor(Map<String, Object> message) {
+        Object params = message.get("params");
+        if (params instanceof Map<?, ?> paramsMap && paramsMap.get("cursor") instanceof String cursor) {
+            return cursor;
+        }
+        return null;
+    }
+    
     /**
      * 通过 SSE 流处理 tools/list 请求
      */
@@ -631,26 +595,18 @@ public class MultiEndpointMcpRouterConfig {
                 actualEndpoint = endpoint.substring("virtual-".length());
             }
             
-            List<Map<String, Object>> tools = virtualProjectRegistrationService.getVirtualProjectToolsByEndpointName(actualEndpoint);
-            
-            // 构建响应
-            Map<String, Object> response = new HashMap<>();
-            response.put("jsonrpc", "2.0");
-            response.put("id", id);
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("tools", tools);
-            response.put("result", result);
-            
-            String responseJson = objectMapper.writeValueAsString(response);
-            log.info("📤 Sending tools/list response via SSE: sessionId={}, toolsCount={}", sessionId, tools.size());
+            // 预构建的工具目录：内存读取并拼接预序列化的工具数组（首页）
+            McpToolCatalogService.ToolPage page = toolCatalogService.getToolsPage(actualEndpoint, null);
+            String responseJson = toolCatalogService.toToolsListResponse(page, id);
+            log.info("📤 Sending tools/list response via SSE: sessionId={}, toolsCount={}, version={}", 
+                    sessionId, page.size(), page.getCatalog().getVersion());
             
             // 通过 SSE sink 发送响应
             ServerSentEvent<String> sseEvent = ServerSentEvent.<String>builder()
                     .data(responseJson)
                     .build();
             
-            Sinks.EmitResult emitResult = sink.tryEmitNext(sseEvent);
+            Sinks.EmitResult emitResult = emitEvent(sessionId, sink, sseEvent);
             if (emitResult.isSuccess()) {
                 log.info("✅ Successfully sent tools/list response via SSE: sessionId={}", sessionId);
             } else {
@@ -701,7 +657,7 @@ public class MultiEndpointMcpRouterConfig {
                     .data(responseJson)
                     .build();
             
-            Sinks.EmitResult emitResult = sink.tryEmitNext(sseEvent);
+            Sinks.EmitResult emitResult = emitEvent(sessionId, sink, sseEvent);
             if (emitResult.isSuccess()) {
                 log.info("✅ Successfully sent tools/call response via SSE: sessionId={}", sessionId);
             } else {
@@ -725,7 +681,7 @@ public class MultiEndpointMcpRouterConfig {
                 ServerSentEvent<String> errorEvent = ServerSentEvent.<String>builder()
                         .data(errorJson)
                         .build();
-                sink.tryEmitNext(errorEvent);
+                emitEvent(sessionId, sink, errorEvent);
             } catch (Exception ex) {
                 log.error("❌ Failed to send error response via SSE", ex);
             }
@@ -755,7 +711,7 @@ public class MultiEndpointMcpRouterConfig {
         ServerSentEvent<String> sseEvent = ServerSentEvent.<String>builder()
                 .data(response)
                 .build();
-        Sinks.EmitResult emitResult = sink.tryEmitNext(sseEvent);
+        Sinks.EmitResult emitResult = emitEvent(sessionId, sink, sseEvent);
         if (emitResult.isSuccess()) {
             log.info("✅ Successfully sent initialize response via SSE: sessionId={}, id={}", sessionId, id);
         } else {
@@ -776,7 +732,7 @@ public class MultiEndpointMcpRouterConfig {
      * 处理tools/list请求
      * 参考 mcp-router-v3：通过 SSE sink 发送响应，HTTP 返回 202 Accepted
      */
-    private Mono<ServerResponse> handleToolsList(String sessionId, String id, String endpoint, 
+    private Mono<ServerResponse> handleToolsList(String sessionId, String id, String endpoint, String cursor,
                                                  Sinks.Many<ServerSentEvent<String>> sink) {
         // 等待 SSE sink 就绪
         Mono<Sinks.Many<ServerSentEvent<String>>> sinkMono = sessionManager.waitForSseSink(sessionId, 0)
@@ -793,40 +749,20 @@ public class MultiEndpointMcpRouterConfig {
                             actualEndpoint = endpoint.substring("virtual-".length());
                         }
                         
-                        List<Map<String, Object>> tools = virtualProjectRegistrationService.getVirtualProjectToolsByEndpointName(actualEndpoint);
-                        
-                        // 转换为 MCP 格式
-                        Map<String, Object> result = new java.util.HashMap<>();
-                        result.put("tools", tools);
-                        result.put("toolsMeta", new java.util.HashMap<>());
-                        
-                        Map<String, Object> response = new java.util.HashMap<>();
-                        response.put("jsonrpc", "2.0");
-                        response.put("id", id);
-                        response.put("result", result);
-                        
-                        return objectMapper.writeValueAsString(response);
+                        // 预构建的工具目录：首次访问或失效后才构建，之后只读内存；按游标分页
+                        McpToolCatalogService.ToolPage page = toolCatalogService.getToolsPage(actualEndpoint, cursor);
+                        return reactor.util.function.Tuples.of(page.size(), toolCatalogService.toToolsListResponse(page, id));
                     })
                     .subscribeOn(Schedulers.boundedElastic())
-                    .flatMap(responseJson -> {
+                    .flatMap(toolsResponse -> {
                         // 通过 SSE sink 发送响应
                         ServerSentEvent<String> sseEvent = ServerSentEvent.<String>builder()
-                                .data(responseJson)
+                                .data(toolsResponse.getT2())
                                 .build();
-                        Sinks.EmitResult emitResult = sseSink.tryEmitNext(sseEvent);
+                        Sinks.EmitResult emitResult = emitEvent(sessionId, sseSink, sseEvent);
                         if (emitResult.isSuccess()) {
-                            try {
-                                @SuppressWarnings("unchecked")
-                                Map<String, Object> responseMap = objectMapper.readValue(responseJson, Map.class);
-                                @SuppressWarnings("unchecked")
-                                Map<String, Object> resultMap = (Map<String, Object>) responseMap.get("result");
-                                @SuppressWarnings("unchecked")
-                                List<?> toolsList = (List<?>) resultMap.get("tools");
-                                log.info("✅ Successfully sent tools/list response via SSE: sessionId={}, tools={}", 
-                                        sessionId, toolsList != null ? toolsList.size() : 0);
-                            } catch (Exception e) {
-                                log.debug("Failed to parse response JSON for logging: {}", e.getMessage());
-                            }
+                            log.info("✅ Successfully sent tools/list response via SSE: sessionId={}, tools={}", 
+                                    sessionId, toolsResponse.getT1());
                         } else {
                             log.warn("⚠️ Failed to emit SSE event: sessionId={}, result={}", sessionId, emitResult);
                         }
@@ -836,13 +772,22 @@ public class MultiEndpointMcpRouterConfig {
                                 .contentType(MediaType.APPLICATION_JSON)
                                 .body(BodyInserters.fromValue("{\"status\":\"accepted\",\"message\":\"Request accepted, response will be sent via SSE\"}"));
                     })
+                    .onErrorResume(IllegalArgumentException.class, error -> {
+                        // 游标无效或已过期
+                        log.warn("⚠️ Invalid tools/list cursor: sessionId={}, cursor={}, error={}", sessionId, cursor, error.getMessage());
+                        String errorResponse = String.format(
+                                "{\"jsonrpc\":\"2.0\",\"id\":%s,\"error\":{\"code\":-32602,\"message\":\"%s\"}}",
+                                id, error.getMessage()
+                        );
+                        return sendErrorResponseViaSse(sessionId, sseSink, errorResponse);
+                    })
                     .onErrorResume(error -> {
                         log.error("❌ Error handling tools/list: sessionId={}, endpoint={}", sessionId, endpoint, error);
                         String errorResponse = String.format(
                                 "{\"jsonrpc\":\"2.0\",\"id\":%s,\"error\":{\"code\":-32603,\"message\":\"%s\"}}",
                                 id, error.getMessage()
                         );
-                        return sendErrorResponseViaSse(sseSink, errorResponse);
+                        return sendErrorResponseViaSse(sessionId, sseSink, errorResponse);
                     });
                 });
     }
@@ -915,7 +860,7 @@ public class MultiEndpointMcpRouterConfig {
                         ServerSentEvent<String> sseEvent = ServerSentEvent.<String>builder()
                                 .data(responseJson)
                                 .build();
-                        Sinks.EmitResult emitResult = sseSink.tryEmitNext(sseEvent);
+                        Sinks.EmitResult emitResult = emitEvent(sessionId, sseSink, sseEvent);
                         if (emitResult.isSuccess()) {
                             log.info("✅ Successfully sent tools/call response via SSE: sessionId={}, tool={}", sessionId, toolName);
                         } else {
@@ -933,7 +878,7 @@ public class MultiEndpointMcpRouterConfig {
                                 "{\"jsonrpc\":\"2.0\",\"id\":%s,\"error\":{\"code\":-32603,\"message\":\"%s\"}}",
                                 id, error.getMessage()
                         );
-                        return sendErrorResponseViaSse(sseSink, errorResponse);
+                        return sendErrorResponseViaSse(sessionId, sseSink, errorResponse);
                     });
                 });
     }
@@ -941,11 +886,12 @@ public class MultiEndpointMcpRouterConfig {
     /**
      * 通过 SSE sink 发送响应
      */
-    private Mono<ServerResponse> sendResponseViaSse(Sinks.Many<ServerSentEvent<String>> sink, String id, String responseJson) {
+    private Mono<ServerResponse> sendResponseViaSse(String sessionId, Sinks.Many<ServerSentEvent<String>> sink,
+                                                    String id, String responseJson) {
         ServerSentEvent<String> sseEvent = ServerSentEvent.<String>builder()
                 .data(responseJson)
                 .build();
-        Sinks.EmitResult emitResult = sink.tryEmitNext(sseEvent);
+        Sinks.EmitResult emitResult = emitEvent(sessionId, sink, sseEvent);
         if (emitResult.isSuccess()) {
             log.debug("✅ Successfully sent response via SSE: id={}", id);
         } else {
@@ -957,14 +903,35 @@ public class MultiEndpointMcpRouterConfig {
                 .body(BodyInserters.fromValue("{\"status\":\"accepted\",\"message\":\"Request accepted, response will be sent via SSE\"}"));
     }
     
+    /**
+     * 经会话出站队列发送事件，会话没有出站队列时直接写入 sink
+     * 出站队列结果映射为 EmitResult，保持调用方原有的成功/失败判断
+     */
+    private Sinks.EmitResult emitEvent(String sessionId, Sinks.Many<ServerSentEvent<String>> sink,
+                                       ServerSentEvent<String> event) {
+        SseOutboundService.OfferResult result = sessionManager.sendEvent(sessionId,
+                SseOutboundService.OutboundEvent.named(event.id(), event.event(), event.data()));
+        switch (result) {
+            case QUEUED:
+                return Sinks.EmitResult.OK;
+            case DROPPED:
+                return Sinks.EmitResult.FAIL_OVERFLOW;
+            case DISCONNECTED:
+                return Sinks.EmitResult.FAIL_TERMINATED;
+            default:
+                return sink.tryEmitNext(event);
+        }
+    }
+    
     /**
      * 通过 SSE sink 发送错误响应
      */
-    private Mono<ServerResponse> sendErrorResponseViaSse(Sinks.Many<ServerSentEvent<String>> sink, String errorResponse) {
+    private Mono<ServerResponse> sendErrorResponseViaSse(String sessionId, Sinks.Many<ServerSentEvent<String>> sink,
+                                                         String errorResponse) {
         ServerSentEvent<String> errorEvent = ServerSentEvent.<String>builder()
                 .data(errorResponse)
                 .build();
-        Sinks.EmitResult emitResult = sink.tryEmitNext(errorEvent);
+        Sinks.EmitResult emitResult = emitEvent(sessionId, sink, errorEvent);
         if (!emitResult.isSuccess() && emitResult != Sinks.EmitResult.FAIL_TERMINATED && emitResult != Sinks.EmitResult.FAIL_CANCELLED) {
             log.warn("⚠️ Failed to emit SSE error event: result={}", emitResult);
         }
@@ -4,31 +4,43 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pajk.mcpmetainfo.core.controller.McpController;
 import com.pajk.mcpmetainfo.core.service.McpProtocolService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * WebSocket配置
  * 为MCP协议提供WebSocket支持
  */
+@Slf4j
 @Configuration
 @EnableWebSocket
 @RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
     private final McpProtocolService mcpProtocolService;
     private final ObjectMapper objectMapper;
+    private final McpWebSocketProperties webSocketProperties;
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(mcpWebSocketHandler(), "/mcp/ws")
+                .setHandshakeHandler(mcpHandshakeHandler())
                 .addInterceptors(new HttpSessionHandshakeInterceptor())
                 .setAllowedOrigins("*"); // 生产环境应该限制域名
     }
@@ -36,9 +48,10 @@ public class WebSocketConfig implements WebSocketConfigurer {
     @Bean
     public McpController.McpWebSocketHandler mcpWebSocketHandler() {
         return new McpController.McpWebSocketHandler(
-            mcpProtocolService, 
-            objectMapper, 
-            webSocketSessions()
+            mcpProtocolService,
+            objectMapper,
+            webSocketSessions(),
+            webSocketProperties
         );
     }
 
@@ -46,9 +59,37 @@ public class WebSocketConfig implements WebSocketConfigurer {
     public ConcurrentHashMap<String, WebSocketSession> webSocketSessions() {
         return new ConcurrentHashMap<>();
     }
-}
-
-
-
 
+    /**
+     * 容器级 WebSocket 配置：放大文本消息缓冲区，支持大工具列表
+     */
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(webSocketProperties.getMaxTextMessageBufferSize());
+        return container;
+    }
 
+    /**
+     * 握手处理器：按配置协商 permessage-deflate 扩展
+     * Tomcat 容器内置该扩展，客户端请求时启用压缩；关闭配置时从协商结果中移除
+     */
+    private DefaultHandshakeHandler mcpHandshakeHandler() {
+        return new DefaultHandshakeHandler() {
+            @Override
+            protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                                                                         List<WebSocketExtension> requestedExtensions,
+                                                                         List<WebSocketExtension> supportedExtensions) {
+                List<WebSocketExtension> negotiated = new ArrayList<>(
+                        super.filterRequestedExtensions(request, requestedExtensions, supportedExtensions));
+                if (!webSocketProperties.isPerMessageDeflate()) {
+                    negotiated.removeIf(extension -> PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName()));
+                } else if (requestedExtensions.stream().anyMatch(e -> PERMESSAGE_DEFLATE.equalsIgnoreCase(e.getName()))
+                        && negotiated.stream().noneMatch(e -> PERMESSAGE_DEFLATE.equalsIgnoreCase(e.getName()))) {
+                    log.debug("Client requested {}, but the WebSocket container does not support it", PERMESSAGE_DEFLATE);
+                }
+                return negotiated;
+            }
+        };
+    }
+}
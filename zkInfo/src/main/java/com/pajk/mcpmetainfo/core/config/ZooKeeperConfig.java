@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * ZooKeeper配置类
  */
@@ -34,11 +37,65 @@ public class ZooKeeperConfig {
      */
     private String basePath = "/dubbo";
     
+    /**
+     * 主注册中心 id（上面 connect-string 指向的集群）
+     */
+    private String registryId = "default";
+    
+    /**
+     * 本机房注册中心 id，选择 Provider 时优先；为空时不区分注册中心
+     */
+    private String localRegistry;
+    
+    /**
+     * 额外接入的注册中心（按机房/业务线），各自独立的客户端、缓存和事件管道；
+     * 会话超时、重试、管道和启动拉取配置与主注册中心相同
+     */
+    private List<Registry> registries = new ArrayList<>();
+    
     /**
      * 重试配置
      */
     private Retry retry = new Retry();
     
+    /**
+     * 注册中心事件处理管道配置
+     */
+    private Pipeline pipeline = new Pipeline();
+    
+    /**
+     * 启动时全量拉取配置
+     */
+    private Bootstrap bootstrap = new Bootstrap();
+    
+    /**
+     * 会话恢复后的差量重同步配置
+     */
+    private Resync resync = new Resync();
+    
+    @Data
+    public static class Registry {
+        /**
+         * 注册中心 id，作为该注册中心 Provider 路径的前缀，不能与主注册中心 id 重复
+         */
+        private String id;
+        
+        /**
+         * 是否接入
+         */
+        private boolean enabled = true;
+        
+        /**
+         * ZooKeeper连接字符串
+         */
+        private String connectString;
+        
+        /**
+         * 基础路径
+         */
+        private String basePath = "/dubbo";
+    }
+    
     @Data
     public static class Retry {
         /**
@@ -53,4 +110,68 @@ public class ZooKeeperConfig {
          */
         private int baseSleepTime = 3000;
     }
+    
+    @Data
+    public static class Pipeline {
+        /**
+         * 是否异步处理Provider事件（关闭时在Curator事件线程上同步处理）
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 事件队列容量，队列满时阻塞Curator事件线程（背压）
+         */
+        private int queueCapacity = 10000;
+        
+        /**
+         * 合并窗口(毫秒)，窗口内同一节点只保留最新状态
+         */
+        private long batchWindowMs = 200;
+        
+        /**
+         * 单批最大事件数，达到后不等窗口结束立即提交
+         */
+        private int batchSize = 500;
+        
+        /**
+         * Nacos同步队列容量，队列满时由数据库阶段线程直接执行
+         */
+        private int nacosQueueCapacity = 5000;
+    }
+    
+    @Data
+    public static class Bootstrap {
+        /**
+         * 同时在途的异步 getChildren 请求数（含已返回但尚未入库的结果）
+         */
+        private int maxInFlight = 1000;
+        
+        /**
+         * 每累计多少个接口的 Provider 批量入库一次
+         */
+        private int persistChunkServices = 100;
+        
+        /**
+         * 进度日志间隔(毫秒)
+         */
+        private long progressIntervalMs = 5000;
+        
+        /**
+         * 连续多久没有任何读取结果时放弃本次拉取(毫秒)
+         */
+        private long idleTimeoutMs = 120000;
+    }
+    
+    @Data
+    public static class Resync {
+        /**
+         * 是否在连接恢复后以差量方式重同步（关闭时缓存重放的事件逐条处理）
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 连接恢复后等待缓存重放事件的时间(毫秒)，之后读取注册中心快照做差量
+         */
+        private long settleMs = 2000;
+    }
 }
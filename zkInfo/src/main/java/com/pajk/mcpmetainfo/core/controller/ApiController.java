@@ -6,8 +6,12 @@ import com.pajk.mcpmetainfo.core.model.ProviderInfo;
 import com.pajk.mcpmetainfo.core.service.DubboToMcpAutoRegistrationService;
 import com.pajk.mcpmetainfo.core.service.McpConverterService;
 import com.pajk.mcpmetainfo.core.service.McpExecutorService;
+import com.pajk.mcpmetainfo.core.service.McpToolCatalogService;
 import com.pajk.mcpmetainfo.core.service.NacosMcpRegistrationService;
 import com.pajk.mcpmetainfo.core.service.ProviderService;
+import com.pajk.mcpmetainfo.core.service.RegistryIngestionService;
+import com.pajk.mcpmetainfo.core.service.ZkInfoNodeDiscoveryService;
+import com.pajk.mcpmetainfo.core.service.ZkInfoNodeRingService;
 import com.pajk.mcpmetainfo.core.service.ZooKeeperService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -54,6 +58,15 @@ public class ApiController {
     @Autowired(required = false)
     private NacosMcpRegistrationService nacosMcpRegistrationService;
     
+    @Autowired
+    private ZkInfoNodeRingService nodeRingService;
+    
+    @Autowired
+    private McpToolCatalogService toolCatalogService;
+    
+    @Autowired(required = false)
+    private RegistryIngestionService registryIngestionService;
+    
     /**
      * 获取所有应用信息
      * 
@@ -255,6 +268,9 @@ public class ApiController {
             
             // ZooKeeper连接状态
             stats.put("zkConnected", zooKeeperService.isConnected());
+            if (registryIngestionService != null) {
+                stats.put("registries", registryIngestionService.getRegistryStatus());
+            }
             
             // MCP元数据
             McpResponse.McpMetadata mcpMetadata = mcpConverterService.getGlobalMcpMetadata();
@@ -267,6 +283,45 @@ public class ApiController {
         }
     }
     
+    /**
+     * 获取 endpoint 工具 Schema 尺寸报告
+     * 
+     * @param endpoint endpoint 名称
+     * @return 当前输出模式，以及全部内联、$defs 去重、共享定义表三种方式下的字节数
+     */
+    @GetMapping("/mcp/catalog/{endpoint}/schema-size")
+    public ResponseEntity<Map<String, Object>> getSchemaSizeReport(@PathVariable String endpoint) {
+        try {
+            Map<String, Object> result = new HashMap<>();
+            result.put("endpoint", endpoint);
+            result.put("mode", toolCatalogService.getSchemaRefsMode());
+            result.put("report", toolCatalogService.getSchemaSizeReport(endpoint));
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error("获取 Schema 尺寸报告失败: {}", endpoint, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * 查询 sessionId / endpoint 的归属 zkInfo 节点（一致性哈希）
+     * 供前置代理按 key 路由，避免经过重定向
+     * 
+     * @param key sessionId 或 endpoint
+     * @return 归属节点地址及当前环成员
+     */
+    @GetMapping("/placement/owner")
+    public ResponseEntity<Map<String, Object>> getPlacementOwner(@RequestParam String key) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("key", key);
+        result.put("enabled", nodeRingService.isPlacementEnabled());
+        ZkInfoNodeDiscoveryService.ZkInfoNode owner = nodeRingService.getOwner(key);
+        result.put("owner", owner != null ? owner.getAddress() : nodeRingService.getLocalAddress());
+        result.put("local", owner == null || nodeRingService.isLocal(owner));
+        result.put("members", nodeRingService.getMembers());
+        return ResponseEntity.ok(result);
+    }
+    
     /**
      * 根据应用名获取 MCP 格式的服务信息
      * 
@@ -537,10 +537,8 @@ public class DubboServiceController {
                     for (String providerNode : providerNodes) {
                         try {
                             String providerPath = providersPath + "/" + providerNode;
-                            String providerUrl = java.net.URLDecoder.decode(providerNode, java.nio.charset.StandardCharsets.UTF_8);
-                            
                             // 解析Provider URL
-                            com.pajk.mcpmetainfo.core.model.ProviderInfo providerInfo = parseProviderUrl(providerUrl, service.getInterfaceName());
+                            com.pajk.mcpmetainfo.core.model.ProviderInfo providerInfo = zooKeeperService.parseProviderNode(providerNode, service.getInterfaceName());
                             if (providerInfo != null) {
                                 providerInfo.setZkPath(providerPath);
                                 
@@ -571,93 +569,6 @@ public class DubboServiceController {
         }
     }
     
-    /**
-     * 解析Provider URL
-     * 
-     * @param providerUrl Provider URL字符串
-     * @param serviceName 服务名称
-     * @return ProviderInfo对象
-     */
-    private com.pajk.mcpmetainfo.core.model.ProviderInfo parseProviderUrl(String providerUrl, String serviceName) {
-        try {
-            // Dubbo Provider URL格式: dubbo://192.168.1.100:20880/com.example.Service?version=1.0.0&group=default&...
-            if (!providerUrl.startsWith("dubbo://")) {
-                log.warn("不支持的Provider URL格式: {}", providerUrl);
-                return null;
-            }
-            
-            com.pajk.mcpmetainfo.core.model.ProviderInfo provider = new com.pajk.mcpmetainfo.core.model.ProviderInfo();
-            provider.setInterfaceName(serviceName);
-            provider.setOnline(true);
-            
-            // 解析URL
-            String[] parts = providerUrl.split("\\?");
-            String baseUrl = parts[0];
-            
-            // 提取协议、地址和接口
-            String[] urlParts = baseUrl.split("://");
-            provider.setProtocol(urlParts[0]);
-            
-            String[] addressAndInterface = urlParts[1].split("/");
-            provider.setAddress(addressAndInterface[0]);
-            
-            if (addressAndInterface.length > 1) {
-                provider.setInterfaceName(addressAndInterface[1]);
-            }
-            
-            // 解析参数
-            java.util.Map<String, String> parameters = new java.util.HashMap<>();
-            if (parts.length > 1) {
-                String[] params = parts[1].split("&");
-                for (String param : params) {
-                    String[] kv = param.split("=");
-                    if (kv.length == 2) {
-                        String key = java.net.URLDecoder.decode(kv[0], java.nio.charset.StandardCharsets.UTF_8);
-                        String value = java.net.URLDecoder.decode(kv[1], java.nio.charset.StandardCharsets.UTF_8);
-                        
-                        // 保存所有参数到 parameters Map
-                        parameters.put(key, value);
-                        
-                        switch (key) {
-                            case "version":
-                                provider.setVersion(value);
-                                break;
-                            case "group":
-                                provider.setGroup(value);
-                                break;
-                            case "application":
-                                provider.setApplication(value);
-                                break;
-                            case "methods":
-                                provider.setMethods(value);
-                                break;
-                        }
-                    }
-                }
-            }
-            
-            // 如果 application 为空，尝试从 parameters 中获取
-            if ((provider.getApplication() == null || provider.getApplication().isEmpty()) && !parameters.isEmpty()) {
-                String app = parameters.get("application") != null ? parameters.get("application") :
-                            parameters.get("dubbo.application.name") != null ? parameters.get("dubbo.application.name") :
-                            parameters.get("application.name") != null ? parameters.get("application.name") :
-                            null;
-                if (app != null && !app.isEmpty()) {
-                    provider.setApplication(app);
-                }
-            }
-            
-            // 保存所有参数
-            provider.setParameters(parameters);
-            
-            return provider;
-            
-        } catch (Exception e) {
-            log.error("解析Provider URL失败: {}", providerUrl, e);
-            return null;
-        }
-    }
-    
     /**
      * 下线服务（将服务状态设为已下线）
      * 
@@ -744,10 +655,8 @@ public class DubboServiceController {
                         for (String providerNode : providerNodes) {
                             try {
                                 String providerPath = providersPath + "/" + providerNode;
-                                String providerUrl = java.net.URLDecoder.decode(providerNode, java.nio.charset.StandardCharsets.UTF_8);
-                                
                                 // 解析Provider URL
-                                com.pajk.mcpmetainfo.core.model.ProviderInfo providerInfo = parseProviderUrl(providerUrl, service.getInterfaceName());
+                                com.pajk.mcpmetainfo.core.model.ProviderInfo providerInfo = zooKeeperService.parseProviderNode(providerNode, service.getInterfaceName());
                                 if (providerInfo != null) {
                                     providerInfo.setZkPath(providerPath);
                                     
@@ -1,6 +1,7 @@
 package com.pajk.mcpmetainfo.core.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpmetainfo.core.config.McpWebSocketProperties;
 import com.pajk.mcpmetainfo.core.mcp.McpProtocol;
 import com.pajk.mcpmetainfo.core.service.McpProtocolService;
 import com.pajk.mcpmetainfo.core.service.McpResourcesService;
@@ -12,14 +13,19 @@ import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
 
 import java.util.List;
 import java.util.Map;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -96,29 +102,48 @@ public class McpController {
 
     /**
      * WebSocket处理器
+     * 同一连接上的请求并发分发（受 in-flight 窗口限制），响应按完成顺序写回，客户端按 id 关联
      */
     @org.springframework.stereotype.Component
     public static class McpWebSocketHandler implements WebSocketHandler {
         
+        private static final String SESSION_ID_ATTR = "sessionId";
+        private static final String IN_FLIGHT_ATTR = "mcpInFlight";
+        private static final String OUTBOUND_ATTR = "mcpOutbound";
+        // 窗口已满时在读取线程上等待的上限，避免长时间占用容器的 WebSocket 读取线程
+        private static final long MAX_ACQUIRE_WAIT_MS = 100;
+        
         private final McpProtocolService mcpProtocolService;
         private final ObjectMapper objectMapper;
         private final ConcurrentHashMap<String, WebSocketSession> sessions;
+        private final McpWebSocketProperties properties;
+        private final Scheduler dispatchScheduler;
         
         public McpWebSocketHandler(McpProtocolService mcpProtocolService, 
                                  ObjectMapper objectMapper,
-                                 ConcurrentHashMap<String, WebSocketSession> sessions) {
+                                 ConcurrentHashMap<String, WebSocketSession> sessions,
+                                 McpWebSocketProperties properties) {
             this.mcpProtocolService = mcpProtocolService;
             this.objectMapper = objectMapper;
             this.sessions = sessions;
+            this.properties = properties;
+            this.dispatchScheduler = Schedulers.newBoundedElastic(
+                    properties.getDispatchThreads(), properties.getDispatchQueueCapacity(), "mcp-ws-dispatch");
         }
 
         @Override
         public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-            String sessionId = "ws_" + System.currentTimeMillis();
-            session.getAttributes().put("sessionId", sessionId);
-            sessions.put(sessionId, session);
+            String sessionId = "ws_" + session.getId();
+            session.getAttributes().put(SESSION_ID_ATTR, sessionId);
+            // 并发写保护：多个请求同时完成时由装饰器串行发送，超过时间/缓冲上限关闭慢客户端
+            WebSocketSession outbound = new ConcurrentWebSocketSessionDecorator(
+                    session, properties.getSendTimeLimitMs(), properties.getSendBufferSizeLimit());
+            session.getAttributes().put(OUTBOUND_ATTR, outbound);
+            session.getAttributes().put(IN_FLIGHT_ATTR, new Semaphore(properties.getMaxInFlight()));
+            sessions.put(sessionId, outbound);
             
-            log.info("WebSocket连接建立: sessionId={}", sessionId);
+            log.info("WebSocket连接建立: sessionId={}, maxInFlight={}, extensions={}", 
+                    sessionId, properties.getMaxInFlight(), session.getExtensions());
             
             // 发送欢迎消息
             McpProtocol.JsonRpcResponse welcome = McpProtocol.JsonRpcResponse.builder()
@@ -130,55 +155,75 @@ public class McpController {
                     ))
                     .build();
             
-            sendMessage(session, welcome);
+            sendMessage(outbound, welcome);
         }
 
         @Override
         public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+            WebSocketSession outbound = outbound(session);
+            McpProtocol.JsonRpcRequest request;
             try {
                 String payload = message.getPayload().toString();
-                log.info("收到WebSocket消息: {}", payload);
-                
-                McpProtocol.JsonRpcRequest request = objectMapper.readValue(payload, McpProtocol.JsonRpcRequest.class);
-                
-                // 处理请求
-                mcpProtocolService.handleRequest(request)
-                        .subscribe(
-                            response -> {
-                                try {
-                                    sendMessage(session, response);
-                                } catch (Exception e) {
-                                    log.error("发送WebSocket响应失败", e);
-                                }
-                            },
-                            error -> log.error("处理WebSocket请求失败", error)
-                        );
-                        
+                log.debug("收到WebSocket消息: {}", payload);
+                request = objectMapper.readValue(payload, McpProtocol.JsonRpcRequest.class);
             } catch (Exception e) {
                 log.error("处理WebSocket消息失败", e);
-                
-                McpProtocol.JsonRpcResponse errorResponse = McpProtocol.JsonRpcResponse.builder()
-                        .id("error")
-                        .error(McpProtocol.JsonRpcError.builder()
-                            .code(McpProtocol.ErrorCodes.PARSE_ERROR)
-                            .message("消息解析失败: " + e.getMessage())
-                            .build())
-                        .build();
-                
-                sendMessage(session, errorResponse);
+                sendMessage(outbound, errorResponse("error", McpProtocol.ErrorCodes.PARSE_ERROR,
+                        "消息解析失败: " + e.getMessage()));
+                return;
+            }
+            
+            // in-flight 窗口：窗口满时默认立即返回 SERVER_BUSY；配置了 acquireTimeoutMs 时在读取线程上
+            // 短暂等待（最多 MAX_ACQUIRE_WAIT_MS），不长时间阻塞容器的读取线程
+            Semaphore window = (Semaphore) session.getAttributes().get(IN_FLIGHT_ATTR);
+            if (window != null && !tryAcquire(window)) {
+                log.warn("⚠️ WebSocket in-flight window full: sessionId={}, method={}, id={}", 
+                        session.getAttributes().get(SESSION_ID_ATTR), request.getMethod(), request.getId());
+                sendMessage(outbound, errorResponse(request.getId(), McpProtocol.ErrorCodes.SERVER_BUSY,
+                        "服务繁忙: 同一连接并发请求数超过 " + properties.getMaxInFlight()));
+                return;
             }
+            
+            // 请求分发到共享线程池，慢的 tools/call 不再阻塞同一连接上的其它请求
+            Mono.defer(() -> mcpProtocolService.handleRequest(request))
+                    .subscribeOn(dispatchScheduler)
+                    .doFinally(signal -> {
+                        if (window != null) {
+                            window.release();
+                        }
+                    })
+                    .subscribe(
+                        response -> {
+                            try {
+                                sendMessage(outbound, response);
+                            } catch (Exception e) {
+                                log.error("发送WebSocket响应失败: id={}", request.getId(), e);
+                            }
+                        },
+                        error -> {
+                            log.error("处理WebSocket请求失败: method={}, id={}", request.getMethod(), request.getId(), error);
+                            try {
+                                sendMessage(outbound, errorResponse(request.getId(), McpProtocol.ErrorCodes.INTERNAL_ERROR,
+                                        "内部错误: " + error.getMessage()));
+                            } catch (Exception e) {
+                                log.debug("发送WebSocket错误响应失败: id={}", request.getId(), e);
+                            }
+                        }
+                    );
         }
 
         @Override
         public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
-            String sessionId = (String) session.getAttributes().get("sessionId");
+            String sessionId = (String) session.getAttributes().get(SESSION_ID_ATTR);
             log.error("WebSocket传输错误: sessionId={}", sessionId, exception);
         }
 
         @Override
         public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
-            String sessionId = (String) session.getAttributes().get("sessionId");
-            sessions.remove(sessionId);
+            String sessionId = (String) session.getAttributes().get(SESSION_ID_ATTR);
+            if (sessionId != null) {
+                sessions.remove(sessionId);
+            }
             log.info("WebSocket连接关闭: sessionId={}, status={}", sessionId, closeStatus);
         }
 
@@ -187,6 +232,31 @@ public class McpController {
             return false;
         }
         
+        @jakarta.annotation.PreDestroy
+        public void shutdown() {
+            dispatchScheduler.dispose();
+        }
+        
+        private boolean tryAcquire(Semaphore window) throws InterruptedException {
+            long waitMs = Math.min(properties.getAcquireTimeoutMs(), MAX_ACQUIRE_WAIT_MS);
+            return waitMs > 0 ? window.tryAcquire(waitMs, TimeUnit.MILLISECONDS) : window.tryAcquire();
+        }
+
+        private WebSocketSession outbound(WebSocketSession session) {
+            Object outbound = session.getAttributes().get(OUTBOUND_ATTR);
+            return outbound instanceof WebSocketSession ? (WebSocketSession) outbound : session;
+        }
+        
+        private McpProtocol.JsonRpcResponse errorResponse(String id, int code, String message) {
+            return McpProtocol.JsonRpcResponse.builder()
+                    .id(id)
+                    .error(McpProtocol.JsonRpcError.builder()
+                        .code(code)
+                        .message(message)
+                        .build())
+                    .build();
+        }
+        
         private void sendMessage(WebSocketSession session, Object message) throws Exception {
             if (session.isOpen()) {
                 String json = objectMapper.writeValueAsString(message);
@@ -4,11 +4,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pajk.mcpmetainfo.core.service.EndpointResolver;
 import com.pajk.mcpmetainfo.core.service.McpExecutorService;
 import com.pajk.mcpmetainfo.core.service.McpSessionManager;
+import com.pajk.mcpmetainfo.core.service.McpToolCatalogService;
 import com.pajk.mcpmetainfo.core.service.VirtualProjectRegistrationService;
-import com.pajk.mcpmetainfo.core.service.ProjectManagementService;
-import com.pajk.mcpmetainfo.core.model.ProjectService;
-import com.pajk.mcpmetainfo.core.service.ProviderService;
-import com.pajk.mcpmetainfo.core.model.ProviderInfo;
 import com.pajk.mcpmetainfo.core.util.McpToolSchemaGenerator;
 import com.pajk.mcpmetainfo.core.service.McpResourcesService;
 import com.pajk.mcpmetainfo.core.service.McpPromptsService;
@@ -29,6 +26,8 @@ import java.util.List;
 import java.util.Map;
 import com.pajk.mcpmetainfo.core.service.McpProtocolService;
 import com.pajk.mcpmetainfo.core.service.McpLoggingService;
+import com.pajk.mcpmetainfo.core.service.SseKeepaliveService;
+import com.pajk.mcpmetainfo.core.service.SseOutboundService;
 
 
 /**
@@ -47,14 +46,14 @@ public class McpMessageController {
     private final ObjectMapper objectMapper;
     private final VirtualProjectRegistrationService virtualProjectRegistrationService;
     private final EndpointResolver endpointResolver;
-    private final ProjectManagementService projectManagementService;
-    private final ProviderService providerService;
     private final McpResourcesService mcpResourcesService;
     private final McpPromptsService mcpPromptsService;
     private final McpToolSchemaGenerator mcpToolSchemaGenerator;
+    private final McpToolCatalogService toolCatalogService;
     private final VirtualProjectService virtualProjectService;
     private final McpLoggingService mcpLoggingService;
     private final McpProtocolService mcpProtocolService;
+    private final SseKeepaliveService keepaliveService;
 
     
     /**
@@ -260,11 +259,11 @@ public class McpMessageController {
             if ("initialize".equals(method)) {
                 handleInitialize(emitter, request, id, sessionId);
             } else if ("tools/list".equals(method)) {
-                handleToolsList(emitter, endpoint, id, sessionId);
+                handleToolsList(emitter, endpoint, id, sessionId, extractCursor(request));
             } else if ("tools/call".equals(method)) {
                 handleToolCall(emitter, request, endpoint, id, sessionId);
             } else if ("resources/list".equals(method)) {
-                handleResourcesList(emitter, endpoint, id, sessionId);
+                handleResourcesList(emitter, endpoint, id, sessionId, extractCursor(request));
             } else if ("resources/read".equals(method)) {
                 handleResourceRead(emitter, request, id, sessionId);
             } else if ("resources/subscribe".equals(method)) {
@@ -378,16 +377,9 @@ public class McpMessageController {
         
         // 立即发送响应（不等待）
         // 参考 mcp-router-v3：不设置 event 名称，使用默认 event（符合 MCP 标准）
-        try {
-            emitter.send(SseEmitter.event()
-                    .data(responseJson));
-            log.info("✅ Initialize response sent via SSE: sessionId={}, id={}, serviceName={}", 
-                    sessionId, id, serviceName);
-        } catch (IOException e) {
-            log.error("❌ Failed to send initialize response via SSE: sessionId={}, id={}", 
-                    sessionId, id, e);
-            throw e;
-        }
+        sendSseEventSafe(emitter, responseJson, "initialize", sessionId);
+        log.info("✅ Initialize response sent via SSE: sessionId={}, id={}, serviceName={}", 
+                sessionId, id, serviceName);
     }
     
     /**
@@ -494,175 +486,51 @@ public class McpMessageController {
     }
 
     /**
-     * 获取 endpoint 的工具列表（内部方法，供 SSE 和 RESTful 调用复用）
+     * 获取 endpoint 工具列表的一页（内部方法，供 SSE 和 RESTful 调用复用）
+     * 从预构建的工具目录读取（内存读取，变化时由 McpToolCatalogService 增量重建）
+     *
+     * @throws IllegalArgumentException 游标无效或已过期
      */
-    private List<Map<String, Object>> getToolsForEndpointInternal(String endpoint) {
-        log.info("📨 Getting tools for endpoint: {}", endpoint);
-        
-        // 解析 endpoint 获取工具列表
-        List<Map<String, Object>> tools = new ArrayList<>();
-        
-        try {
-            // 如果 endpoint 为 null，尝试从所有虚拟项目中查找
-            if (endpoint == null || endpoint.isEmpty()) {
-                log.warn("⚠️ Endpoint is null or empty, trying to find from virtual projects");
-                List<VirtualProjectService.VirtualProjectInfo> virtualProjects = virtualProjectService.getAllVirtualProjects();
-                if (virtualProjects != null && virtualProjects.size() == 1) {
-                    VirtualProjectService.VirtualProjectInfo vp = virtualProjects.get(0);
-                    if (vp.getEndpoint() != null) {
-                        endpoint = vp.getEndpoint().getEndpointName();
-                        log.info("📝 Using single virtual project endpoint: {}", endpoint);
-                    }
-                } else if (virtualProjects != null && virtualProjects.size() > 1) {
-                    log.warn("⚠️ Multiple virtual projects found ({}), cannot auto-select endpoint", virtualProjects.size());
+    private McpToolCatalogService.ToolPage getToolsPageInternal(String endpoint, String cursor) {
+        log.info("📨 Getting tools for endpoint: {}, cursor: {}", endpoint, cursor);
+        
+        // 如果 endpoint 为 null，尝试从所有虚拟项目中查找
+        if (endpoint == null || endpoint.isEmpty()) {
+            log.warn("⚠️ Endpoint is null or empty, trying to find from virtual projects");
+            List<VirtualProjectService.VirtualProjectInfo> virtualProjects = virtualProjectService.getAllVirtualProjects();
+            if (virtualProjects != null && virtualProjects.size() == 1) {
+                VirtualProjectService.VirtualProjectInfo vp = virtualProjects.get(0);
+                if (vp.getEndpoint() != null) {
+                    endpoint = vp.getEndpoint().getEndpointName();
+                    log.info("📝 Using single virtual project endpoint: {}", endpoint);
                 }
+            } else if (virtualProjects != null && virtualProjects.size() > 1) {
+                log.warn("⚠️ Multiple virtual projects found ({}), cannot auto-select endpoint", virtualProjects.size());
             }
-            
-            // 保持原始 endpoint，由 resolver 决定如何查找
-            String actualEndpoint = endpoint;
-            
-            java.util.Optional<EndpointResolver.EndpointInfo> endpointInfoOpt = endpointResolver.resolveEndpoint(actualEndpoint);
-            if (endpointInfoOpt.isPresent()) {
-                EndpointResolver.EndpointInfo endpointInfo = endpointInfoOpt.get();
-                log.info("✅ Resolved endpoint '{}' to EndpointInfo: isVirtualProject={}, projectId={}", 
-                        actualEndpoint, endpointInfo.isVirtualProject(), endpointInfo.getProjectId());
-                
-                if (endpointInfo.isVirtualProject()) {
-                    // 虚拟项目：优先从 Nacos Config 获取工具
-                    tools = virtualProjectRegistrationService.getVirtualProjectToolsByEndpointName(actualEndpoint);
-                    log.info("✅ Got {} tools from virtual project Nacos Config (endpointName: {})", tools.size(), actualEndpoint);
-                    
-                    // 如果 Nacos Config 中没有工具，但有 projectId，尝试从 DB 生成 (Fallback)
-                    if (tools.isEmpty() && endpointInfo.getProjectId() != null) {
-                        log.warn("⚠️ No tools found in Nacos Config for virtual project '{}', falling back to DB generation", actualEndpoint);
-                        tools = generateToolsFromProjectId(endpointInfo.getProjectId());
-                        log.info("✅ Generated {} tools from virtual project DB definition (projectId: {})", tools.size(), endpointInfo.getProjectId());
-                    }
-                } else {
-                    // 实际项目：从 ProviderService 获取工具
-                    Long projectId = endpointInfo.getProjectId();
-                    if (projectId != null) {
-                        tools = generateToolsFromProjectId(projectId);
-                        log.info("✅ Generated {} tools from real project (projectId: {})", tools.size(), projectId);
-                    } else {
-                        log.warn("⚠️ Real project endpoint found but projectId is null: {}", actualEndpoint);
-                    }
-                }
-            } else {
-                log.warn("⚠️ Endpoint not resolved: {}. Available endpoints may need to be checked.", actualEndpoint);
-                // 尝试列出所有可用的虚拟项目 endpoint，帮助调试
-                try {
-                    List<VirtualProjectService.VirtualProjectInfo> allVirtualProjects = virtualProjectService.getAllVirtualProjects();
-                    if (allVirtualProjects != null && !allVirtualProjects.isEmpty()) {
-                        log.info("📋 Available virtual project endpoints:");
-                        for (VirtualProjectService.VirtualProjectInfo vp : allVirtualProjects) {
-                            if (vp.getEndpoint() != null) {
-                                log.info("   - {}", vp.getEndpoint().getEndpointName());
-                            }
-                        }
-                    } else {
-                        log.warn("⚠️ No virtual projects found in the system");
-                    }
-                } catch (Exception e) {
-                    log.debug("Failed to list virtual projects for debugging: {}", e.getMessage());
-                }
-            }
-        } catch (Exception e) {
-            log.warn("Failed to get tools for endpoint: {}", endpoint, e);
         }
         
-        return tools;
+        // 保持原始 endpoint，由 catalog 中的 resolver 决定如何查找
+        McpToolCatalogService.ToolPage page = toolCatalogService.getToolsPage(endpoint, cursor);
+        log.info("✅ Got {}/{} tools for endpoint '{}' from catalog (version: {})", 
+                page.size(), page.getCatalog().size(), endpoint, page.getCatalog().getVersion());
+        return page;
     }
     
     /**
-     * 根据项目 ID 生成工具列表 (从 DB 和 ProviderService)
+     * 从 JSON-RPC 请求中提取分页游标（params.cursor）
      */
-    private List<Map<String, Object>> generateToolsFromProjectId(Long projectId) {
-        List<Map<String, Object>> tools = new ArrayList<>();
-        try {
-            // 获取项目关联的服务
-            List<ProjectService> projectServices = 
-                    projectManagementService.getProjectServices(projectId);
-            
-            log.info("📋 Found {} services in project (projectId: {})", projectServices.size(), projectId);
-            
-            // 从每个服务获取工具
-            for (ProjectService projectService : projectServices) {
-                String serviceInterface = projectService.getServiceInterface();
-                String version = projectService.getServiceVersion();
-                String group = projectService.getServiceGroup();
-                
-                log.debug("Processing service: {}:{}:{}", serviceInterface, version, group);
-                
-                // 从 ProviderService 获取该服务的 Provider，然后生成工具
-                try {
-                    List<ProviderInfo> providers = providerService.getProvidersByInterface(serviceInterface);
-                    
-                    // 过滤版本和分组
-                    providers = providers.stream()
-                            .filter(p -> (version == null || version.isEmpty() || version.equals(p.getVersion())) &&
-                                    (group == null || group.isEmpty() || group.equals(p.getGroup())))
-                            .collect(java.util.stream.Collectors.toList());
-                    
-                    log.debug("Found {} providers for service {}:{}:{}", providers.size(), serviceInterface, version, group);
-                    
-                    // 生成工具
-                    if (!providers.isEmpty()) {
-                        // 使用 Set 去重，避免同一个接口的多个 Provider 生成重复的工具
-                        java.util.Set<String> processedMethods = new java.util.HashSet<>();
-                        
-                        for (ProviderInfo provider : providers) {
-                            if (provider.getMethods() != null && !provider.getMethods().isEmpty()) {
-                                String[] methods = provider.getMethods().split(",");
-                                for (String method : methods) {
-                                    String methodTrimmed = method.trim();
-                                    String toolKey = provider.getInterfaceName() + "." + methodTrimmed;
-                                    
-                                    if (processedMethods.contains(toolKey)) {
-                                        continue;
-                                    }
-                                    processedMethods.add(toolKey);
-                                    
-                                    Map<String, Object> tool = new java.util.HashMap<>();
-                                    
-                                    // 工具名称：接口名.方法名
-                                    tool.put("name", toolKey);
-                                    
-                                    // 工具描述
-                                    String dbDesc = mcpToolSchemaGenerator.getMethodDescriptionFromDb(provider.getInterfaceName(), methodTrimmed);
-                                    tool.put("description", (dbDesc != null && !dbDesc.isBlank()) 
-                                            ? dbDesc 
-                                            : String.format("调用 %s 服务的 %s 方法", provider.getInterfaceName(), methodTrimmed));
-                                    
-                                    // 根据实际方法参数生成 inputSchema
-                                    Map<String, Object> inputSchema = mcpToolSchemaGenerator.createInputSchemaFromMethod(
-                                            provider.getInterfaceName(), methodTrimmed);
-                                    tool.put("inputSchema", inputSchema);
-                                    
-                                    tools.add(tool);
-                                }
-                            } else {
-                                log.warn("⚠️ Provider {}:{} has no methods", provider.getInterfaceName(), provider.getVersion());
-                            }
-                        }
-                    } else {
-                        log.warn("⚠️ No providers found for service {}:{}:{}", serviceInterface, version, group);
-                    }
-                } catch (Exception e) {
-                    log.warn("Failed to get tools for service: {}:{}:{}", 
-                            serviceInterface, version, group, e);
-                }
-            }
-        } catch (Exception e) {
-            log.error("Failed to generate tools from project ID: {}", projectId, e);
+    private String extractCursor(Map<String, Object> request) {
+        Object params = request.get("params");
+        if (params instanceof Map<?, ?> paramsMap && paramsMap.get("cursor") instanceof String cursor) {
+            return cursor;
         }
-        return tools;
+        return null;
     }
     
     /**
      * 处理 tools/list 请求
      */
-    private void handleToolsList(SseEmitter emitter, String endpoint, String id, String sessionId) throws IOException {
+    private void handleToolsList(SseEmitter emitter, String endpoint, String id, String sessionId, String cursor) throws IOException {
         log.info("📨 Handling tools/list request: endpoint={}, id={}, sessionId={}", endpoint, id, sessionId);
         
         // 如果 endpoint 为 null，尝试从 session 中获取（多节点环境下，endpoint 存储在 Redis）
@@ -718,25 +586,30 @@ public class McpMessageController {
         
         // 保持原始名称，不再强制剥离前缀。后续 resolver 会根据全名查找。
         log.info("🔍 Using endpoint for tools/list: {}", actualEndpoint);
-        List<Map<String, Object>> tools = getToolsForEndpointInternal(actualEndpoint);
-        log.info("✅ Got {} tools for endpoint: {}", tools.size(), actualEndpoint);
+        McpToolCatalogService.ToolPage page;
+        try {
+            page = getToolsPageInternal(actualEndpoint, cursor);
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Invalid tools/list cursor: sessionId={}, cursor={}, error={}", sessionId, cursor, e.getMessage());
+            sendErrorResponseSafe(emitter, id, -32602, e.getMessage(), sessionId);
+            return;
+        }
         
-        Map<String, Object> result = new java.util.LinkedHashMap<>();
-        result.put("tools", tools);
+        // 直接拼接预序列化的工具 JSON，不再逐次序列化
         // Removed toolsMeta to comply with MCP spec
-        
-        Map<String, Object> response = new java.util.LinkedHashMap<>();
-        response.put("jsonrpc", "2.0");
-        response.put("id", id != null ? id : "null");
-        response.put("result", result);
-        
-        String responseJson = objectMapper.writeValueAsString(response);
-        log.debug("📤 Sending tools/list response: {}", responseJson);
+        String responseJson;
+        try {
+            responseJson = toolCatalogService.toToolsListResponse(page, id != null ? id : "null");
+        } catch (Exception e) {
+            throw new IOException("Failed to build tools/list response", e);
+        }
+        log.debug("📤 Sending tools/list response: {} bytes", responseJson.length());
         
         // 使用 sendSseEventSafe 确保错误处理一致
         sendSseEventSafe(emitter, responseJson, "tools/list", sessionId);
         
-        log.info("✅ Tools/list response sent via SSE: tools count={}, sessionId={}", tools.size(), sessionId);
+        log.info("✅ Tools/list response sent via SSE: tools count={}, hasMore={}, sessionId={}", 
+                page.size(), page.getNextCursor() != null, sessionId);
     }
     
     /**
@@ -976,7 +849,7 @@ public class McpMessageController {
      * 处理 resources/list 请求
      * 参考 tools/list 的实现，先解析 endpoint，然后返回资源列表
      */
-    private void handleResourcesList(SseEmitter emitter, String endpoint, String id, String sessionId) throws IOException {
+    private void handleResourcesList(SseEmitter emitter, String endpoint, String id, String sessionId, String cursor) throws IOException {
         log.info("📨 Handling resources/list request: endpoint={}, sessionId={}", endpoint, sessionId);
         
         // 如果 endpoint 为 null，尝试从 session 中获取（多节点环境下，endpoint 存储在 Redis）
@@ -1045,6 +918,7 @@ public class McpMessageController {
         
         // 调用 McpResourcesService 获取资源列表（异步执行，避免阻塞）
         McpProtocol.ListResourcesParams params = new McpProtocol.ListResourcesParams();
+        params.setCursor(cursor);
         mcpResourcesService.listResources(params)
                 .timeout(java.time.Duration.ofSeconds(5)) // 5秒超时
                 .subscribe(
@@ -1078,6 +952,12 @@ public class McpMessageController {
                             }
                         },
                         error -> {
+                            if (error instanceof IllegalArgumentException) {
+                                // 游标无效或已过期
+                                log.warn("⚠️ Invalid resources/list cursor: sessionId={}, cursor={}, error={}", sessionId, cursor, error.getMessage());
+                                sendErrorResponseSafe(emitter, id, -32602, error.getMessage(), sessionId);
+                                return;
+                            }
                             log.error("❌ Error handling resources/list: sessionId={}", sessionId, error);
                             sendErrorResponseSafe(emitter, id, -32603, "Internal error: " + error.getMessage(), sessionId);
                         }
@@ -1221,6 +1101,19 @@ public class McpMessageController {
      * 参考 mcp-router-v3 的实现，优雅处理客户端断开连接的情况
      */
     private void sendSseEventSafe(SseEmitter emitter, String data, String method, String sessionId) {
+        // 优先进入会话出站队列，由该会话唯一的写线程发出，业务线程不阻塞在慢客户端上
+        SseOutboundService.OfferResult result = sessionManager.sendEvent(sessionId,
+                SseOutboundService.OutboundEvent.response(data));
+        if (result == SseOutboundService.OfferResult.QUEUED) {
+            log.info("✅ Queued SSE event '{}' for session: {} (data length: {})", 
+                    method, sessionId, data != null ? data.length() : 0);
+            return;
+        }
+        if (result != SseOutboundService.OfferResult.NO_CHANNEL) {
+            log.warn("⚠️ SSE event '{}' not delivered, session outbound queue {}: sessionId={}", 
+                    method, result, sessionId);
+            return;
+        }
         if (emitter == null) {
             log.warn("⚠️ Cannot send SSE event, emitter is null: method={}, sessionId={}", method, sessionId);
             return;
@@ -1229,6 +1122,8 @@ public class McpMessageController {
             // 参考 mcp-router-v3：不设置 event 名称，使用默认 event（符合 MCP 标准）
             emitter.send(SseEmitter.event()
                     .data(data));
+            // 有业务数据发出，顺延该会话的下一次心跳
+            keepaliveService.recordActivity(sessionId);
             log.info("✅ Successfully sent SSE event '{}' for session: {} (data length: {})", 
                     method, sessionId, data != null ? data.length() : 0);
         } catch (IllegalStateException e) {
@@ -1350,14 +1245,22 @@ public class McpMessageController {
             response.put("id", id != null ? id : "null");
             
             if ("tools/list".equals(method)) {
-                // 处理 tools/list
-                List<Map<String, Object>> tools = getToolsForEndpointInternal(endpoint);
-                log.info("✅ Got {} tools for endpoint: {}", tools.size(), endpoint);
+                // 处理 tools/list（按游标分页）
+                McpToolCatalogService.ToolPage page;
+                try {
+                    page = getToolsPageInternal(endpoint, extractCursor(request));
+                } catch (IllegalArgumentException e) {
+                    response.put("error", Map.of("code", -32602, "message", e.getMessage()));
+                    return ResponseEntity.ok(response);
+                }
                 Map<String, Object> result = new java.util.LinkedHashMap<>();
-                result.put("tools", tools);
+                result.put("tools", page.getTools());
+                if (page.getNextCursor() != null) {
+                    result.put("nextCursor", page.getNextCursor());
+                }
                 // Removed toolsMeta to comply with MCP spec
                 response.put("result", result);
-                log.info("✅ Returning tools/list response: tools count={}", tools.size());
+                log.info("✅ Returning tools/list response: tools count={}", page.size());
                 
             } else if ("tools/call".equals(method)) {
                 // ... (tools/call handling remains same) ...
@@ -1423,14 +1326,20 @@ public class McpMessageController {
             } else if ("resources/list".equals(method)) {
                 // 处理 resources/list
                 List<McpProtocol.McpResource> resources = new ArrayList<>();
+                String nextCursor = null;
                 try {
-                    McpProtocol.ListResourcesResult listResult = mcpResourcesService.listResources(
-                            new McpProtocol.ListResourcesParams())
+                    McpProtocol.ListResourcesParams listParams = new McpProtocol.ListResourcesParams();
+                    listParams.setCursor(extractCursor(request));
+                    McpProtocol.ListResourcesResult listResult = mcpResourcesService.listResources(listParams)
                             .timeout(java.time.Duration.ofSeconds(5))
                             .block();
                     if (listResult != null && listResult.getResources() != null) {
                         resources.addAll(listResult.getResources());
+                        nextCursor = listResult.getNextCursor();
                     }
+                } catch (IllegalArgumentException e) {
+                    response.put("error", Map.of("code", -32602, "message", e.getMessage()));
+                    return ResponseEntity.ok(response);
                 } catch (Exception e) {
                     log.error("❌ Failed to retrieve resources: {}", e.getMessage());
                     response.put("error", Map.of("code", -32603, "message", "Failed to retrieve resources: " + e.getMessage()));
@@ -1439,6 +1348,9 @@ public class McpMessageController {
                 
                 Map<String, Object> result = new java.util.LinkedHashMap<>();
                 result.put("resources", resources);
+                if (nextCursor != null) {
+                    result.put("nextCursor", nextCursor);
+                }
                 // Removed resourcesMeta
                 response.put("result", result);
                 
@@ -7,25 +7,28 @@ import com.pajk.mcpmetainfo.core.service.McpExecutorService;
 import com.pajk.mcpmetainfo.core.service.ProjectManagementService;
 import com.pajk.mcpmetainfo.core.service.VirtualProjectService;
 import com.pajk.mcpmetainfo.core.service.NacosMcpRegistrationService;
+import com.pajk.mcpmetainfo.core.service.SseKeepaliveService;
+import com.pajk.mcpmetainfo.core.service.SseOutboundService;
+import com.pajk.mcpmetainfo.core.service.ZkInfoNodeDiscoveryService;
+import com.pajk.mcpmetainfo.core.service.ZkInfoNodeRingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 /**
  * SSE Controller for WebMVC
@@ -45,17 +48,21 @@ public class SseController {
     private final VirtualProjectService virtualProjectService;
     private final NacosMcpRegistrationService nacosMcpRegistrationService;
     private final Environment environment;
+    // 共享的时间轮心跳服务（与 WebFlux 传输共用），不再为每个会话创建定时任务
+    private final SseKeepaliveService keepaliveService;
+    // 一致性哈希：同一 endpoint 的 SSE 连接固定到同一 zkInfo 节点
+    private final ZkInfoNodeRingService nodeRingService;
+    
+    /**
+     * 重定向回环保护参数：已被重定向过的请求不再重定向
+     */
+    private static final String ROUTED_PARAM = "zkRouted";
     
-    // 使用共享的线程池，避免每个连接都创建新的线程池
-    private static final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(10);
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     // WebMVC 模式下存储 SseEmitter
     private final Map<String, SseEmitter> sseEmitterMap = new ConcurrentHashMap<>();
     
-    // 存储每个 session 的心跳任务，用于在连接关闭时取消
-    private final Map<String, java.util.concurrent.ScheduledFuture<?>> heartbeatTasks = new ConcurrentHashMap<>();
-    
     /**
      * 获取 SseEmitter（供 McpMessageController 使用）
      */
@@ -74,7 +81,8 @@ public class SseController {
     public ResponseEntity<SseEmitter> sseStandard(
             @RequestParam(required = false) String serviceName,
             @RequestHeader(value = "X-Service-Name", required = false) String serviceNameHeader,
-            @RequestHeader(value = "Host", required = false) String hostHeader) {
+            @RequestHeader(value = "Host", required = false) String hostHeader,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
 
         String actualServiceName = serviceName != null ? serviceName : serviceNameHeader;
         
@@ -167,14 +175,14 @@ public class SseController {
                 if (vp.getEndpoint() != null) {
                     String endpoint = vp.getEndpoint().getEndpointName();
                     log.info("📝 Using single virtual project endpoint: {}", endpoint);
-                    return handleSse(endpoint);
+                    return handleSse(endpoint, lastEventId);
                 }
             } else if (virtualProjects != null && virtualProjects.size() > 1) {
                 log.warn("⚠️ Multiple virtual projects found ({}), cannot auto-select endpoint", virtualProjects.size());
             }
             // 不返回 400，而是尝试使用默认处理（允许后续通过 endpoint 事件指定）
             // 返回一个通用的 SSE 连接，让客户端通过后续的 endpoint 事件来指定服务
-            return handleSseWithoutEndpoint();
+            return handleSseWithoutEndpoint(lastEventId);
         }
         
         log.info("📡 Standard SSE connection request with serviceName: {}", actualServiceName);
@@ -188,25 +196,27 @@ public class SseController {
             endpoint = tryServiceName;
         }
         
-        return handleSse(endpoint);
+        return handleSse(endpoint, lastEventId);
     }
     
     /**
      * 处理没有明确 endpoint 的 SSE 连接
      * 返回一个通用的 SSE 连接，等待客户端通过后续消息指定 endpoint
      */
-    private ResponseEntity<SseEmitter> handleSseWithoutEndpoint() {
+    private ResponseEntity<SseEmitter> handleSseWithoutEndpoint(String lastEventId) {
         log.info("📡 SSE connection request without explicit endpoint, creating generic connection");
         
         // 创建 SseEmitter（超时时间 10 分钟，与 mcp-router-v3 保持一致）
         // 注意：实际会话超时由 SessionCleanupService 定期清理，这里设置较长的超时时间以避免过早断开
         // 但会话在 Redis 中的 TTL 是 10 分钟，超过 10 分钟未活跃会被清理
         SseEmitter emitter = new SseEmitter(10 * 60 * 1000L);
-        String sessionId = UUID.randomUUID().toString();
+        // 携带 Last-Event-ID 重连时续用原会话，补发断开期间的事件
+        String resumedSessionId = sessionManager.resolveResumableSessionId(lastEventId);
+        String sessionId = resumedSessionId != null ? resumedSessionId : UUID.randomUUID().toString();
         
         // 注册 session（使用临时 endpoint）
         String tempEndpoint = "temp-" + sessionId;
-        sseEmitterMap.put(sessionId, emitter);
+        replaceEmitter(sessionId, emitter);
         sessionManager.registerSseEmitter(sessionId, tempEndpoint, emitter);
         
         // 构建消息端点 URL（从请求头动态构建，参考 mcp-router-v3）
@@ -214,49 +224,44 @@ public class SseController {
         String baseUrl = buildBaseUrlFromRequestForMessageEndpoint();
         String messageEndpoint = String.format("%s/mcp/message?sessionId=%s", baseUrl, sessionId);
         
-        try {
-            // 发送 endpoint 事件
-            // 注意：使用 id() 避免空行，确保 SSE 格式正确
-            emitter.send(SseEmitter.event()
-                    .name("endpoint")
-                    .id(sessionId)
-                    .data(messageEndpoint));
-            
-            // 启动心跳并保存任务引用（传递 sessionId 用于日志和清理）
-            java.util.concurrent.ScheduledFuture<?> heartbeatTask = startHeartbeat(emitter, sessionId);
-            heartbeatTasks.put(sessionId, heartbeatTask);
-            
-            // 设置完成和超时回调
-            emitter.onCompletion(() -> {
-                log.info("SSE connection completed for session: {}", sessionId);
-                cleanupSession(sessionId);
-            });
-            
-            emitter.onTimeout(() -> {
-                log.warn("SSE connection timeout for session: {}", sessionId);
-                cleanupSession(sessionId);
-            });
-            
-            emitter.onError((ex) -> {
-                // Broken pipe、Connection reset 和 already completed 是正常的客户端断开情况，降级为 DEBUG
-                String errorMsg = ex.getMessage();
-                if (ex instanceof IOException && errorMsg != null && 
-                    (errorMsg.contains("Broken pipe") || errorMsg.contains("Connection reset"))) {
-                    log.debug("ℹ️ Client disconnected ({}) for session: {}", errorMsg, sessionId);
-                } else if (ex instanceof IllegalStateException && errorMsg != null && errorMsg.contains("already completed")) {
-                    log.debug("ℹ️ SSE emitter already completed for session: {}", sessionId);
-                } else {
-                    log.error("SSE connection error for session: {}", sessionId, ex);
-                }
-                cleanupSession(sessionId);
-            });
-            
-        } catch (IOException e) {
-            log.error("Failed to send initial SSE event", e);
-            emitter.completeWithError(e);
-            return ResponseEntity.internalServerError().build();
+        // 创建出站队列：之后 endpoint 事件、响应和心跳都由该会话唯一的写线程发出，慢消费者按策略丢弃通知或断开
+        sessionManager.openOutbound(sessionId, tempEndpoint, emitter, () -> cleanupSession(sessionId, emitter));
+
+        // 发送 endpoint 事件
+        // 注意：使用 id() 避免空行，确保 SSE 格式正确
+        sessionManager.sendEndpointEvent(sessionId, messageEndpoint, resumedSessionId != null ? lastEventId : null);
+        if (resumedSessionId != null) {
+            sessionManager.replayMissedEvents(sessionId, lastEventId);
         }
         
+        // 注册心跳（共享时间轮，传递 sessionId 用于日志和清理）
+        startHeartbeat(emitter, sessionId);
+        
+        // 设置完成和超时回调
+        emitter.onCompletion(() -> {
+            log.info("SSE connection completed for session: {}", sessionId);
+            cleanupSession(sessionId, emitter);
+        });
+        
+        emitter.onTimeout(() -> {
+            log.warn("SSE connection timeout for session: {}", sessionId);
+            cleanupSession(sessionId, emitter);
+        });
+        
+        emitter.onError((ex) -> {
+            // Broken pipe、Connection reset 和 already completed 是正常的客户端断开情况，降级为 DEBUG
+            String errorMsg = ex.getMessage();
+            if (ex instanceof IOException && errorMsg != null && 
+                (errorMsg.contains("Broken pipe") || errorMsg.contains("Connection reset"))) {
+                log.debug("ℹ️ Client disconnected ({}) for session: {}", errorMsg, sessionId);
+            } else if (ex instanceof IllegalStateException && errorMsg != null && errorMsg.contains("already completed")) {
+                log.debug("ℹ️ SSE emitter already completed for session: {}", sessionId);
+            } else {
+                log.error("SSE connection error for session: {}", sessionId, ex);
+            }
+            cleanupSession(sessionId, emitter);
+        });
+        
         // 设置 SSE 响应头（参考 mcp-router-v3）
         return ResponseEntity.ok()
                 .header("Cache-Control", "no-cache, no-transform")
@@ -269,15 +274,22 @@ public class SseController {
      * SSE 端点：GET /sse/{endpoint}
      */
     @GetMapping(value = "/sse/{endpoint}")
-    public ResponseEntity<SseEmitter> sse(@PathVariable String endpoint) {
+    public ResponseEntity<SseEmitter> sse(@PathVariable String endpoint,
+                                          @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
         log.info("📡 SSE connection request for endpoint: {}", endpoint);
-        return handleSse(endpoint);
+        return handleSse(endpoint, lastEventId);
     }
     
     /**
      * 处理 SSE 连接
      */
-    private ResponseEntity<SseEmitter> handleSse(String endpoint) {
+    private ResponseEntity<SseEmitter> handleSse(String endpoint, String lastEventId) {
+        // 归属节点不是本节点时重定向过去，使该 endpoint 的会话集中在一个节点
+        ResponseEntity<SseEmitter> redirect = redirectToOwnerIfRemote(endpoint);
+        if (redirect != null) {
+            return redirect;
+        }
+
         // 解析 endpoint
         EndpointResolver.EndpointInfo endpointInfo = endpointResolver.resolveEndpoint(endpoint)
                 .orElse(null);
@@ -299,11 +311,13 @@ public class SseController {
         // 注意：实际会话超时由 SessionCleanupService 定期清理，这里设置较长的超时时间以避免过早断开
         // 但会话在 Redis 中的 TTL 是 10 分钟，超过 10 分钟未活跃会被清理
         SseEmitter emitter = new SseEmitter(10 * 60 * 1000L);
-        String sessionId = UUID.randomUUID().toString();
+        // 携带 Last-Event-ID 重连时续用原会话，补发断开期间的事件
+        String resumedSessionId = sessionManager.resolveResumableSessionId(lastEventId);
+        String sessionId = resumedSessionId != null ? resumedSessionId : UUID.randomUUID().toString();
 
         // 注册 session（WebMVC 模式使用 SseEmitter）
         // 参考 mcp-router-v3 的 initializeSession：先注册 serviceName，再注册 emitter
-        sseEmitterMap.put(sessionId, emitter);
+        replaceEmitter(sessionId, emitter);
         sessionManager.registerSseEmitter(sessionId, endpoint, emitter);
 
         // 注册 serviceName（参考 mcp-router-v3 的 registerSessionService）
@@ -333,48 +347,43 @@ public class SseController {
         }
         log.info("📡 Generated message endpoint: serviceName={}, messageEndpoint={}", mcpServiceName, messageEndpoint);
 
-        try {
-            // 发送 endpoint 事件（客户端收到后会通过 POST /mcp/message 发送 initialize 和 tools/list 请求）
-            // 注意：使用 id() 避免空行，确保 SSE 格式正确
-            emitter.send(SseEmitter.event()
-                    .name("endpoint")
-                    .id(sessionId)
-                    .data(messageEndpoint));
+        // 创建出站队列：之后 endpoint 事件、响应和心跳都由该会话唯一的写线程发出，慢消费者按策略丢弃通知或断开
+        sessionManager.openOutbound(sessionId, endpoint, emitter, () -> cleanupSession(sessionId, emitter));
 
-            // 启动心跳并保存任务引用（传递 sessionId 用于日志和清理）
-            java.util.concurrent.ScheduledFuture<?> heartbeatTask = startHeartbeat(emitter, sessionId);
-            heartbeatTasks.put(sessionId, heartbeatTask);
+        // 发送 endpoint 事件（客户端收到后会通过 POST /mcp/message 发送 initialize 和 tools/list 请求）
+        // 注意：使用 id() 避免空行，确保 SSE 格式正确
+        sessionManager.sendEndpointEvent(sessionId, messageEndpoint, resumedSessionId != null ? lastEventId : null);
+        if (resumedSessionId != null) {
+            sessionManager.replayMissedEvents(sessionId, lastEventId);
+        }
 
-            // 设置完成和超时回调
-            emitter.onCompletion(() -> {
-                log.info("SSE connection completed for session: {}", sessionId);
-                cleanupSession(sessionId);
-            });
+        // 注册心跳（共享时间轮，传递 sessionId 用于日志和清理）
+        startHeartbeat(emitter, sessionId);
 
-            emitter.onTimeout(() -> {
-                log.warn("SSE connection timeout for session: {}", sessionId);
-                cleanupSession(sessionId);
-            });
+        // 设置完成和超时回调
+        emitter.onCompletion(() -> {
+            log.info("SSE connection completed for session: {}", sessionId);
+            cleanupSession(sessionId, emitter);
+        });
 
-            emitter.onError((ex) -> {
-                // Broken pipe、Connection reset 和 already completed 是正常的客户端断开情况，降级为 DEBUG
-                String errorMsg = ex.getMessage();
-                if (ex instanceof IOException && errorMsg != null &&
-                    (errorMsg.contains("Broken pipe") || errorMsg.contains("Connection reset"))) {
-                    log.debug("ℹ️ Client disconnected ({}) for session: {}", errorMsg, sessionId);
-                } else if (ex instanceof IllegalStateException && errorMsg != null && errorMsg.contains("already completed")) {
-                    log.debug("ℹ️ SSE emitter already completed for session: {}", sessionId);
-                } else {
-                    log.error("SSE connection error for session: {}", sessionId, ex);
-                }
-                cleanupSession(sessionId);
-            });
+        emitter.onTimeout(() -> {
+            log.warn("SSE connection timeout for session: {}", sessionId);
+            cleanupSession(sessionId, emitter);
+        });
 
-        } catch (IOException e) {
-            log.error("Failed to send initial SSE event", e);
-            emitter.completeWithError(e);
-            return ResponseEntity.internalServerError().build();
-        }
+        emitter.onError((ex) -> {
+            // Broken pipe、Connection reset 和 already completed 是正常的客户端断开情况，降级为 DEBUG
+            String errorMsg = ex.getMessage();
+            if (ex instanceof IOException && errorMsg != null &&
+                (errorMsg.contains("Broken pipe") || errorMsg.contains("Connection reset"))) {
+                log.debug("ℹ️ Client disconnected ({}) for session: {}", errorMsg, sessionId);
+            } else if (ex instanceof IllegalStateException && errorMsg != null && errorMsg.contains("already completed")) {
+                log.debug("ℹ️ SSE emitter already completed for session: {}", sessionId);
+            } else {
+                log.error("SSE connection error for session: {}", sessionId, ex);
+            }
+            cleanupSession(sessionId, emitter);
+        });
 
         // 设置 SSE 响应头（参考 mcp-router-v3）
         return ResponseEntity.ok()
@@ -386,31 +395,29 @@ public class SseController {
     
     /**
      * 启动心跳
-     * 参考 mcp-router-v3 的实现，每15秒发送心跳事件并更新会话活跃时间
+     * 参考 mcp-router-v3 的实现，默认每15秒（带抖动）发送心跳并更新会话活跃时间；
+     * 调度由 SseKeepaliveService 的共享时间轮完成，发送失败的连接会被批量清理
      */
-    private java.util.concurrent.ScheduledFuture<?> startHeartbeat(SseEmitter emitter, String sessionId) {
-        // 每15秒发送一次心跳，参考 mcp-router-v3 的实现
-        return executorService.scheduleAtFixedRate(() -> {
-            try {
-                // 检查 emitter 是否仍然有效
-                if (sseEmitterMap.containsKey(sessionId) && emitter != null) {
-                    // 更新会话活跃时间
-                    sessionManager.touch(sessionId);
+    private void startHeartbeat(SseEmitter emitter, String sessionId) {
+        keepaliveService.register(sessionId, () -> {
+            // 检查 emitter 是否仍然有效
+            if (emitter == null || sseEmitterMap.get(sessionId) != emitter) {
+                return false;
+            }
+            // 更新会话活跃时间
+            sessionManager.touch(sessionId);
 
-                    // 发送一个注释 (comment) 作为心跳
-                    // SSE 规范规定以冒号 : 开头的行是注释，客户端会忽略但在传输层能保持连接
-                    // 这样比发送 "heartbeat" 事件更安全，不会引起 client 的处理逻辑报错
-                    emitter.send(SseEmitter.event().comment("ping"));
+            // 发送一个注释 (comment) 作为心跳
+            // SSE 规范规定以冒号 : 开头的行是注释，客户端会忽略但在传输层能保持连接
+            // 这样比发送 "heartbeat" 事件更安全，不会引起 client 的处理逻辑报错
+            // 心跳走出站队列（可丢弃），不会与业务响应并发写同一个 emitter
+            SseOutboundService.OfferResult result = sessionManager.sendEvent(sessionId,
+                    SseOutboundService.OutboundEvent.heartbeatComment("ping"));
 
-                    log.trace("💓 Heartbeat (comment sent): sessionId={}", sessionId);
-                }
-                // 移除无效心跳的日志，减少日志输出
-            } catch (Exception e) {
-                // 由于不再发送心跳事件，不会抛出 IOException
-                // 只捕获通用异常，记录日志即可（降低日志级别）
-                log.debug("⚠️ Heartbeat error: sessionId={}, error={}", sessionId, e.getMessage());
-            }
-        }, 15, 15, TimeUnit.SECONDS); // 初始延迟15秒，之后每15秒执行一次
+            log.trace("💓 Heartbeat (comment queued): sessionId={}, result={}", sessionId, result);
+            return result == SseOutboundService.OfferResult.QUEUED
+                    || result == SseOutboundService.OfferResult.DROPPED;
+        }, () -> cleanupSession(sessionId, emitter));
     }
     
     /**
@@ -449,6 +456,43 @@ public class SseController {
         return null;
     }
     
+    /**
+     * 按一致性哈希计算 endpoint 的归属节点，非本节点时返回 307 重定向
+     * 直接访问节点 IP:Port，保留原始路径与查询参数，追加 zkRouted=1 防止成员视图不一致时循环重定向
+     *
+     * @return 重定向响应；本节点处理时返回 null
+     */
+    private ResponseEntity<SseEmitter> redirectToOwnerIfRemote(String endpoint) {
+        if (!nodeRingService.isSseRedirectEnabled()) {
+            return null;
+        }
+        try {
+            org.springframework.web.context.request.RequestAttributes requestAttributes =
+                    org.springframework.web.context.request.RequestContextHolder.getRequestAttributes();
+            if (!(requestAttributes instanceof org.springframework.web.context.request.ServletRequestAttributes servletRequestAttributes)) {
+                return null;
+            }
+            jakarta.servlet.http.HttpServletRequest request = servletRequestAttributes.getRequest();
+            if (request.getParameter(ROUTED_PARAM) != null) {
+                return null;
+            }
+            ZkInfoNodeDiscoveryService.ZkInfoNode owner = nodeRingService.getRemoteOwner(endpoint).orElse(null);
+            if (owner == null) {
+                return null;
+            }
+            String query = request.getQueryString();
+            String location = "http://" + owner.getAddress() + request.getRequestURI()
+                    + "?" + (query != null && !query.isEmpty() ? query + "&" : "") + ROUTED_PARAM + "=1";
+            log.info("🔁 Redirect SSE connection for endpoint {} to owner node {}", endpoint, owner.getAddress());
+            return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                    .location(URI.create(location))
+                    .build();
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to build placement redirect for endpoint {}, serving locally: {}", endpoint, e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * 为 message endpoint 构建 Base URL
      * 根据请求类型（IP vs 域名）决定是否包含 context-path：
@@ -670,6 +714,34 @@ public class SseController {
         return baseUrl;
     }
     
+    /**
+     * 注册新的 emitter
+     * 只有原连接已断开的会话才能续传（见 {@link McpSessionManager#resolveResumableSessionId}），
+     * 这里遇到的旧 emitter 只会是尚未清理完的失效连接，直接关闭（其回调因 emitter 不匹配不会清理会话）
+     */
+    private void replaceEmitter(String sessionId, SseEmitter emitter) {
+        SseEmitter previous = sseEmitterMap.put(sessionId, emitter);
+        if (previous != null && previous != emitter) {
+            log.info("🔁 Resuming SSE session on new connection: sessionId={}", sessionId);
+            try {
+                previous.complete();
+            } catch (Exception e) {
+                log.debug("Failed to complete replaced emitter for session: {}, error: {}", sessionId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 清理指定 emitter 对应的会话；会话已续传到新连接时只关闭旧 emitter
+     */
+    private void cleanupSession(String sessionId, SseEmitter emitter) {
+        if (!sseEmitterMap.remove(sessionId, emitter)) {
+            log.debug("Skip cleanup for replaced emitter: sessionId={}", sessionId);
+            return;
+        }
+        cleanupSession(sessionId);
+    }
+
     /**
      * 清理 session
      * 参考 mcp-router-v3 的实现，完善清理逻辑
@@ -677,12 +749,8 @@ public class SseController {
     private void cleanupSession(String sessionId) {
         log.info("🧹 Cleaning up session: {}", sessionId);
         
-        // 取消心跳任务
-        java.util.concurrent.ScheduledFuture<?> heartbeatTask = heartbeatTasks.remove(sessionId);
-        if (heartbeatTask != null && !heartbeatTask.isCancelled()) {
-            heartbeatTask.cancel(false);
-            log.debug("Cancelled heartbeat task for session: {}", sessionId);
-        }
+        // 取消心跳
+        keepaliveService.unregister(sessionId);
         
         // 移除 SSE emitter
         SseEmitter emitter = sseEmitterMap.remove(sessionId);
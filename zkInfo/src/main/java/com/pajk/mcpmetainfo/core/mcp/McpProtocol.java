@@ -613,5 +613,6 @@ public class McpProtocol {
         public static final int SUBSCRIPTION_FAILED = -32008;
         public static final int LOGGING_ERROR = -32009;
         public static final int CAPABILITY_NOT_SUPPORTED = -32010;
+        public static final int SERVER_BUSY = -32011;
     }
 }
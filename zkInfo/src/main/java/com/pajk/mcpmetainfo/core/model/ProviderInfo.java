@@ -1,6 +1,7 @@
 package com.pajk.mcpmetainfo.core.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.pajk.mcpmetainfo.core.util.RegistryPaths;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -133,6 +134,13 @@ public class ProviderInfo {
         return null;
     }
     
+    /**
+     * 所属注册中心 id（由 zkPath 前缀得出），主注册中心返回 null
+     */
+    public String getRegistryId() {
+        return RegistryPaths.registryOf(zkPath);
+    }
+    
     /**
      * 获取服务唯一标识
      */
@@ -0,0 +1,237 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.persistence.entity.DubboMethodParameterEntity;
+import com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity;
+import com.pajk.mcpmetainfo.persistence.entity.DubboServiceMethodEntity;
+import com.pajk.mcpmetainfo.persistence.mapper.DubboMethodParameterMapper;
+import com.pajk.mcpmetainfo.persistence.mapper.DubboServiceMapper;
+import com.pajk.mcpmetainfo.persistence.mapper.DubboServiceMethodMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * Dubbo 方法元数据批量加载器
+ *
+ * <p>按服务一次性加载全部方法和参数：方法、参数各一条集合查询，在内存中组装签名，
+ * 替代逐方法 findByServiceIdAndMethodName + findByMethodId 的 N+1 查询。
+ * 按接口名的查询结果会缓存，工具数据变化事件到达后失效。</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DubboMethodMetadataLoader {
+
+    /**
+     * IN 查询每批最多的 id 数
+     */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * 接口元数据缓存时间（兜底其他节点写库等收不到事件的场景）
+     */
+    private static final long CACHE_TTL_MS = 60_000;
+
+    private final DubboServiceMapper dubboServiceMapper;
+    private final DubboServiceMethodMapper dubboServiceMethodMapper;
+    private final DubboMethodParameterMapper dubboMethodParameterMapper;
+
+    /**
+     * 缓存的接口数上限，超出按 LRU 淘汰
+     */
+    @Value("${mcp.signature.cache.max-interfaces:5000}")
+    private int maxInterfaces = 5000;
+
+    // interfaceName -> 接口方法元数据（接口不存在时缓存空结果，避免反复查询）
+    private final Map<String, InterfaceMetadata> interfaceCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, InterfaceMetadata>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, InterfaceMetadata> eldest) {
+                    return size() > maxInterfaces;
+                }
+            });
+
+    /**
+     * 批量加载服务的方法及参数
+     *
+     * @return serviceId -> (methodName -> 方法元数据)，无方法的服务不出现在结果中
+     */
+    public Map<Long, Map<String, MethodMetadata>> loadByServiceIds(Collection<Long> serviceIds) {
+        Map<Long, Map<String, MethodMetadata>> result = new HashMap<>();
+        if (serviceIds == null || serviceIds.isEmpty()) {
+            return result;
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(serviceIds));
+        ids.removeIf(Objects::isNull);
+
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+
+            List<DubboServiceMethodEntity> methods = dubboServiceMethodMapper.findByServiceIds(batch);
+            if (methods == null || methods.isEmpty()) {
+                continue;
+            }
+            Map<Long, List<DubboMethodParameterEntity>> paramsByMethodId = new HashMap<>();
+            List<DubboMethodParameterEntity> parameters = dubboMethodParameterMapper.findByServiceIds(batch);
+            if (parameters != null) {
+                for (DubboMethodParameterEntity parameter : parameters) {
+                    paramsByMethodId.computeIfAbsent(parameter.getMethodId(), k -> new ArrayList<>()).add(parameter);
+                }
+            }
+
+            for (DubboServiceMethodEntity method : methods) {
+                List<DubboMethodParameterEntity> methodParams = paramsByMethodId.getOrDefault(method.getId(), Collections.emptyList());
+                result.computeIfAbsent(method.getServiceId(), k -> new LinkedHashMap<>())
+                        .put(method.getMethodName(), new MethodMetadata(method, methodParams));
+            }
+        }
+        log.debug("✅ Bulk loaded method metadata for {} services ({} with methods)", ids.size(), result.size());
+        return result;
+    }
+
+    /**
+     * 获取接口下的单个方法元数据；接口未缓存时按接口整体加载
+     */
+    public MethodMetadata getMethod(String interfaceName, String methodName) {
+        if (interfaceName == null || methodName == null) {
+            return null;
+        }
+        return getMethods(interfaceName).get(methodName);
+    }
+
+    /**
+     * 获取接口下全部方法元数据（methodName -> 方法元数据）
+     */
+    public Map<String, MethodMetadata> getMethods(String interfaceName) {
+        if (interfaceName == null) {
+            return Collections.emptyMap();
+        }
+        InterfaceMetadata cached = interfaceCache.get(interfaceName);
+        if (cached != null && !cached.isExpired()) {
+            return cached.methods;
+        }
+        preload(Collections.singleton(interfaceName));
+        InterfaceMetadata loaded = interfaceCache.get(interfaceName);
+        return loaded != null ? loaded.methods : Collections.emptyMap();
+    }
+
+    /**
+     * 预加载一组接口的元数据：未缓存的接口合并为三条集合查询（服务、方法、参数）
+     * 工具生成前调用，生成过程中的逐方法查找全部命中缓存
+     */
+    public void preload(Collection<String> interfaceNames) {
+        if (interfaceNames == null || interfaceNames.isEmpty()) {
+            return;
+        }
+        List<String> missing = new ArrayList<>();
+        for (String interfaceName : new LinkedHashSet<>(interfaceNames)) {
+            if (interfaceName == null) {
+                continue;
+            }
+            InterfaceMetadata cached = interfaceCache.get(interfaceName);
+            if (cached == null || cached.isExpired()) {
+                missing.add(interfaceName);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        try {
+            // 与 findByInterfaceName 一致：同名接口取第一条服务记录
+            Map<String, Long> serviceIdByInterface = new HashMap<>();
+            for (int from = 0; from < missing.size(); from += BATCH_SIZE) {
+                List<DubboServiceEntity> services = dubboServiceMapper.findByInterfaceNames(
+                        missing.subList(from, Math.min(from + BATCH_SIZE, missing.size())));
+                if (services != null) {
+                    for (DubboServiceEntity service : services) {
+                        serviceIdByInterface.putIfAbsent(service.getInterfaceName(), service.getId());
+                    }
+                }
+            }
+
+            Map<Long, Map<String, MethodMetadata>> methodsByService = loadByServiceIds(serviceIdByInterface.values());
+            for (String interfaceName : missing) {
+                Long serviceId = serviceIdByInterface.get(interfaceName);
+                Map<String, MethodMetadata> methods = serviceId != null ? methodsByService.get(serviceId) : null;
+                interfaceCache.put(interfaceName, new InterfaceMetadata(
+                        methods != null ? Collections.unmodifiableMap(methods) : Collections.emptyMap()));
+            }
+            log.debug("✅ Preloaded method metadata for {} interfaces ({} found in database)",
+                    missing.size(), serviceIdByInterface.size());
+        } catch (Exception e) {
+            // 加载失败不缓存，下次重试
+            log.warn("⚠️ Failed to preload method metadata for {} interfaces: {}", missing.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 工具数据变化：失效对应接口的元数据（提交后执行，避免缓存未提交的数据）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onToolsChanged(McpToolCatalogService.ToolsChangedEvent event) {
+        switch (event.getScope()) {
+            case INTERFACE -> invalidate(event.getKey());
+            case ALL -> clear();
+            default -> {
+                // SERVICE 范围是 Nacos 配置变化，不影响数据库中的方法元数据
+            }
+        }
+    }
+
+    public void invalidate(String interfaceName) {
+        if (interfaceName != null) {
+            interfaceCache.remove(interfaceName);
+        }
+    }
+
+    public void clear() {
+        interfaceCache.clear();
+    }
+
+    /**
+     * 方法元数据：方法实体及按 parameterOrder 排序的参数实体
+     */
+    public static final class MethodMetadata {
+        private final DubboServiceMethodEntity method;
+        private final List<DubboMethodParameterEntity> parameters;
+
+        MethodMetadata(DubboServiceMethodEntity method, List<DubboMethodParameterEntity> parameters) {
+            this.method = method;
+            this.parameters = Collections.unmodifiableList(parameters);
+        }
+
+        public DubboServiceMethodEntity getMethod() {
+            return method;
+        }
+
+        public String getMethodName() {
+            return method.getMethodName();
+        }
+
+        public String getReturnType() {
+            return method.getReturnType();
+        }
+
+        public List<DubboMethodParameterEntity> getParameters() {
+            return parameters;
+        }
+    }
+
+    private static final class InterfaceMetadata {
+        private final Map<String, MethodMetadata> methods;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private InterfaceMetadata(Map<String, MethodMetadata> methods) {
+            this.methods = methods;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() - loadedAt > CACHE_TTL_MS;
+        }
+    }
+}
@@ -3,18 +3,28 @@ package com.pajk.mcpmetainfo.core.service;
 import com.pajk.mcpmetainfo.persistence.mapper.DubboServiceMapper;
 import com.pajk.mcpmetainfo.persistence.mapper.DubboServiceNodeMapper;
 import com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity;
+import com.pajk.mcpmetainfo.persistence.entity.DubboMethodParameterEntity;
 import com.pajk.mcpmetainfo.persistence.entity.DubboServiceMethodEntity;
 import com.pajk.mcpmetainfo.persistence.entity.DubboServiceNodeEntity;
-import com.pajk.mcpmetainfo.persistence.mapper.DubboMethodParameterMapper;
 import com.pajk.mcpmetainfo.core.model.ProviderInfo;
 import com.pajk.mcpmetainfo.core.model.PageResult;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Dubbo服务信息数据库服务类
@@ -30,6 +40,11 @@ import java.util.Optional;
 @Service
 public class DubboServiceDbService {
     
+    /**
+     * 单条多行 SQL 的最大行数，避免语句超过 max_allowed_packet
+     */
+    private static final int BATCH_CHUNK_SIZE = 500;
+    
     @Autowired
     private DubboServiceMapper dubboServiceMapper;
     
@@ -40,7 +55,7 @@ public class DubboServiceDbService {
     private DubboServiceMethodService dubboServiceMethodService;
     
     @Autowired(required = false)
-    private com.pajk.mcpmetainfo.persistence.mapper.DubboMethodParameterMapper dubboMethodParameterMapper;
+    private DubboMethodMetadataLoader methodMetadataLoader;
     
     /**
      * 保存或更新Dubbo服务信息到数据库
@@ -465,19 +480,15 @@ public class DubboServiceDbService {
     /**
      * 保存或更新Dubbo服务及节点信息到数据库
      * 
+     * 内部直接调用 saveOrUpdateServicesWithNodes 不经过 Spring 代理，其 @Transactional 不生效，
+     * 因此事务声明在本方法上。
+     * 
      * @param providerInfo Provider信息
      */
+    @Transactional
     public void saveOrUpdateServiceWithNode(ProviderInfo providerInfo) {
         try {
-            // 保存或更新服务信息
-            DubboServiceEntity serviceEntity = saveOrUpdateService(providerInfo);
-            
-            // 保存或更新节点信息
-            saveServiceNode(providerInfo, serviceEntity.getId());
-            
-            // 保存或更新服务方法信息
-            dubboServiceMethodService.saveOrUpdateServiceMethods(providerInfo, serviceEntity.getId());
-            
+            saveOrUpdateServicesWithNodes(Collections.singletonList(providerInfo));
             log.debug("成功保存或更新Dubbo服务及节点信息: {}", providerInfo.getZkPath());
         } catch (Exception e) {
             log.error("保存或更新Dubbo服务及节点信息失败: {}", providerInfo.getZkPath(), e);
@@ -485,6 +496,127 @@ public class DubboServiceDbService {
         }
     }
     
+    /**
+     * 批量保存或更新Dubbo服务、节点及方法信息
+     * 
+     * 先按接口名、服务ID批量查出已有服务和节点做差异比较，只对新增或有变化的行执行多行
+     * INSERT ... ON DUPLICATE KEY UPDATE。服务唯一键即全部业务字段，已存在的服务不再更新；
+     * 节点只在接口名、版本、在线/健康状态变化时写入（心跳时间由 updateLastHeartbeat 单独维护）。
+     * 
+     * @param providers Provider信息列表
+     * @return 实际写入的节点数
+     */
+    @Transactional
+    public int saveOrUpdateServicesWithNodes(Collection<ProviderInfo> providers) {
+        // 1. 服务：缺失的多行插入，随后重新查询获取ID
+        Map<List<String>, ProviderInfo> providerByServiceKey = new LinkedHashMap<>();
+        for (ProviderInfo providerInfo : providers) {
+            if (providerInfo.getInterfaceName() != null) {
+                providerByServiceKey.putIfAbsent(serviceKey(providerInfo), providerInfo);
+            }
+        }
+        if (providerByServiceKey.isEmpty()) {
+            return 0;
+        }
+        Map<List<String>, DubboServiceEntity> services = findServicesByInterfaceNames(providerByServiceKey.values());
+        List<DubboServiceEntity> missing = new ArrayList<>();
+        for (Map.Entry<List<String>, ProviderInfo> entry : providerByServiceKey.entrySet()) {
+            if (!services.containsKey(entry.getKey())) {
+                missing.add(new DubboServiceEntity(entry.getValue()));
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (int i = 0; i < missing.size(); i += BATCH_CHUNK_SIZE) {
+                dubboServiceMapper.batchInsert(missing.subList(i, Math.min(i + BATCH_CHUNK_SIZE, missing.size())));
+            }
+            services = findServicesByInterfaceNames(providerByServiceKey.values());
+        }
+        
+        // 2. 节点：与已有节点比较，只写入新增或变化的节点（同一批内同一节点以最后一条为准）
+        Map<Long, Map<String, DubboServiceNodeEntity>> existingNodes = findNodesByServiceIds(
+                services.values().stream().map(DubboServiceEntity::getId).collect(Collectors.toList()));
+        Map<String, DubboServiceNodeEntity> changedNodes = new LinkedHashMap<>();
+        Map<Long, ProviderInfo> providerByServiceId = new LinkedHashMap<>();
+        for (ProviderInfo providerInfo : providers) {
+            DubboServiceEntity service = providerInfo.getInterfaceName() == null ? null : services.get(serviceKey(providerInfo));
+            if (service == null || service.getId() == null) {
+                log.warn("服务插入后仍无法获取ID，跳过节点: {}", providerInfo.getZkPath());
+                continue;
+            }
+            providerByServiceId.putIfAbsent(service.getId(), providerInfo);
+            DubboServiceNodeEntity node = existingNodes.getOrDefault(service.getId(), Collections.emptyMap())
+                    .get(providerInfo.getAddress());
+            if (node != null && !isNodeChanged(node, providerInfo, service.getVersion())) {
+                continue;
+            }
+            if (node == null) {
+                node = new DubboServiceNodeEntity(providerInfo, service.getId(), service.getVersion());
+            } else {
+                node.updateFromProviderInfo(providerInfo, service.getVersion());
+            }
+            changedNodes.put(service.getId() + "|" + providerInfo.getAddress(), node);
+        }
+        List<DubboServiceNodeEntity> nodes = new ArrayList<>(changedNodes.values());
+        for (int i = 0; i < nodes.size(); i += BATCH_CHUNK_SIZE) {
+            dubboServiceNodeMapper.batchInsert(nodes.subList(i, Math.min(i + BATCH_CHUNK_SIZE, nodes.size())));
+        }
+        
+        // 3. 方法及参数
+        dubboServiceMethodService.saveOrUpdateServiceMethods(providerByServiceId);
+        
+        log.info("✅ 批量保存Dubbo服务及节点信息: providers={}, services={}(新增{}), nodes={}",
+                providers.size(), providerByServiceKey.size(), missing.size(), nodes.size());
+        return nodes.size();
+    }
+    
+    /**
+     * 服务唯一标识（与唯一键 uk_service 一致，group 为空时按 "default" 处理）
+     */
+    private static List<String> serviceKey(ProviderInfo providerInfo) {
+        String group = providerInfo.getGroup();
+        return Arrays.asList(providerInfo.getInterfaceName(), providerInfo.getProtocol(), providerInfo.getVersion(),
+                group == null || group.trim().isEmpty() ? "default" : group, providerInfo.getApplication());
+    }
+    
+    private static List<String> serviceKey(DubboServiceEntity entity) {
+        return Arrays.asList(entity.getInterfaceName(), entity.getProtocol(), entity.getVersion(),
+                entity.getGroup(), entity.getApplication());
+    }
+    
+    private Map<List<String>, DubboServiceEntity> findServicesByInterfaceNames(Collection<ProviderInfo> providers) {
+        List<String> interfaceNames = providers.stream()
+                .map(ProviderInfo::getInterfaceName)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<List<String>, DubboServiceEntity> result = new HashMap<>();
+        for (int i = 0; i < interfaceNames.size(); i += BATCH_CHUNK_SIZE) {
+            for (DubboServiceEntity entity : dubboServiceMapper.findByInterfaceNames(
+                    interfaceNames.subList(i, Math.min(i + BATCH_CHUNK_SIZE, interfaceNames.size())))) {
+                result.putIfAbsent(serviceKey(entity), entity);
+            }
+        }
+        return result;
+    }
+    
+    private Map<Long, Map<String, DubboServiceNodeEntity>> findNodesByServiceIds(List<Long> serviceIds) {
+        Map<Long, Map<String, DubboServiceNodeEntity>> result = new HashMap<>();
+        for (int i = 0; i < serviceIds.size(); i += BATCH_CHUNK_SIZE) {
+            for (DubboServiceNodeEntity node : dubboServiceNodeMapper.findByServiceIds(
+                    serviceIds.subList(i, Math.min(i + BATCH_CHUNK_SIZE, serviceIds.size())))) {
+                result.computeIfAbsent(node.getServiceId(), k -> new HashMap<>()).putIfAbsent(node.getAddress(), node);
+            }
+        }
+        return result;
+    }
+    
+    private static boolean isNodeChanged(DubboServiceNodeEntity node, ProviderInfo providerInfo, String version) {
+        boolean online = providerInfo.getOnline() == null || providerInfo.getOnline();
+        return !Objects.equals(node.getInterfaceName(), providerInfo.getInterfaceName())
+                || !Objects.equals(node.getVersion(), version)
+                || !Objects.equals(node.getIsOnline(), online)
+                || (providerInfo.getHealthy() != null && !providerInfo.getHealthy().equals(node.getIsHealthy()));
+    }
+    
     /**
      * 根据ZooKeeper路径移除服务
      * 
@@ -798,9 +930,10 @@ public class DubboServiceDbService {
             // 这样可以避免因心跳未及时更新导致节点被误判为离线而无法调用
             List<ProviderInfo> onlineProviders = new java.util.ArrayList<>();
             List<ProviderInfo> allProviders = new java.util.ArrayList<>();
+            java.util.Map<String, DubboMethodMetadataLoader.MethodMetadata> methods = loadMethods(service);
             
             for (DubboServiceNodeEntity node : nodes) {
-                ProviderInfo providerInfo = convertToProviderInfo(service, node);
+                ProviderInfo providerInfo = convertToProviderInfo(service, node, methods);
                 if (providerInfo != null) {
                     allProviders.add(providerInfo);
                     if (providerInfo.isOnline()) {
@@ -859,16 +992,22 @@ public class DubboServiceDbService {
                 return providers;
             }
             
-            // 2. 对每个服务，查询其所有节点
+            // 2. 批量加载所有服务的方法及参数（两条集合查询）
+            java.util.Map<Long, java.util.Map<String, DubboMethodMetadataLoader.MethodMetadata>> methodsByService = 
+                loadMethods(services);
+            
+            // 3. 对每个服务，查询其所有节点
             for (DubboServiceEntity service : services) {
                 List<DubboServiceNodeEntity> nodes = dubboServiceNodeMapper.findByServiceId(service.getId());
                 if (nodes == null || nodes.isEmpty()) {
                     continue;
                 }
                 
-                // 3. 对每个节点，查询对应的 Provider 信息（在线状态、心跳等）
+                // 4. 对每个节点，查询对应的 Provider 信息（在线状态、心跳等）
+                java.util.Map<String, DubboMethodMetadataLoader.MethodMetadata> methods = 
+                    methodsByService.getOrDefault(service.getId(), java.util.Collections.emptyMap());
                 for (DubboServiceNodeEntity node : nodes) {
-                    ProviderInfo providerInfo = convertToProviderInfo(service, node);
+                    ProviderInfo providerInfo = convertToProviderInfo(service, node, methods);
                     if (providerInfo != null) {
                         providers.add(providerInfo);
                     }
@@ -938,6 +1077,16 @@ public class DubboServiceDbService {
      * @return ProviderInfo
      */
     public ProviderInfo convertToProviderInfo(DubboServiceEntity service, DubboServiceNodeEntity node) {
+        return convertToProviderInfo(service, node, loadMethods(service));
+    }
+    
+    /**
+     * 将 DubboServiceEntity 和 DubboServiceNodeEntity 转换为 ProviderInfo（方法元数据已批量加载）
+     * 
+     * @param methods 该服务的方法元数据（methodName -> 方法及参数）
+     */
+    private ProviderInfo convertToProviderInfo(DubboServiceEntity service, DubboServiceNodeEntity node,
+                                               java.util.Map<String, DubboMethodMetadataLoader.MethodMetadata> methods) {
         try {
             ProviderInfo providerInfo = new ProviderInfo();
             
@@ -957,39 +1106,25 @@ public class DubboServiceDbService {
             providerInfo.setOnline(true);
             providerInfo.setHealthy(node.getIsHealthy() != null ? node.getIsHealthy() : true);
             
-            // 从 zk_dubbo_service_method 查询方法信息
-            try {
-                List<DubboServiceMethodEntity> methods = dubboServiceMethodService.findMethodsByServiceId(service.getId());
-                if (methods != null && !methods.isEmpty()) {
-                    String methodsStr = methods.stream()
-                        .map(DubboServiceMethodEntity::getMethodName)
-                        .collect(java.util.stream.Collectors.joining(","));
-                    providerInfo.setMethods(methodsStr);
-                    
-                    // 构建参数映射（从 zk_dubbo_method_parameter 查询）
-                    java.util.Map<String, String> paramsMap = new java.util.HashMap<>();
-                    for (DubboServiceMethodEntity method : methods) {
-                        if (method.getReturnType() != null && !method.getReturnType().isEmpty()) {
-                            paramsMap.put(method.getMethodName() + ".return", method.getReturnType());
-                        }
-                        
-                        // 查询方法的参数
-                        List<com.pajk.mcpmetainfo.persistence.entity.DubboMethodParameterEntity> methodParams = 
-                            dubboMethodParameterMapper.findByMethodId(method.getId());
-                        if (methodParams != null && !methodParams.isEmpty()) {
-                            for (com.pajk.mcpmetainfo.persistence.entity.DubboMethodParameterEntity param : methodParams) {
-                                String paramKey = method.getMethodName() + ".param." + 
-                                    (param.getParameterName() != null && !param.getParameterName().isEmpty() 
-                                        ? param.getParameterName() 
-                                        : String.valueOf(param.getParameterOrder()));
-                                paramsMap.put(paramKey, param.getParameterType());
-                            }
-                        }
+            // 方法信息来自批量加载的 zk_dubbo_service_method / zk_dubbo_method_parameter
+            if (methods != null && !methods.isEmpty()) {
+                providerInfo.setMethods(String.join(",", methods.keySet()));
+                
+                // 构建参数映射
+                java.util.Map<String, String> paramsMap = new java.util.HashMap<>();
+                for (DubboMethodMetadataLoader.MethodMetadata method : methods.values()) {
+                    if (method.getReturnType() != null && !method.getReturnType().isEmpty()) {
+                        paramsMap.put(method.getMethodName() + ".return", method.getReturnType());
+                    }
+                    for (DubboMethodParameterEntity param : method.getParameters()) {
+                        String paramKey = method.getMethodName() + ".param." + 
+                            (param.getParameterName() != null && !param.getParameterName().isEmpty() 
+                                ? param.getParameterName() 
+                                : String.valueOf(param.getParameterOrder()));
+                        paramsMap.put(paramKey, param.getParameterType());
                     }
-                    providerInfo.setParameters(paramsMap);
                 }
-            } catch (Exception e) {
-                log.warn("查询方法信息失败: serviceId={}", service.getId(), e);
+                providerInfo.setParameters(paramsMap);
             }
             
             // 构建 zkPath（用于兼容性）
@@ -1007,6 +1142,33 @@ public class DubboServiceDbService {
         }
     }
     
+    /**
+     * 加载单个服务的方法元数据（方法、参数各一条查询）
+     */
+    private java.util.Map<String, DubboMethodMetadataLoader.MethodMetadata> loadMethods(DubboServiceEntity service) {
+        if (service == null || service.getId() == null) {
+            return java.util.Collections.emptyMap();
+        }
+        return loadMethods(java.util.Collections.singletonList(service))
+                .getOrDefault(service.getId(), java.util.Collections.emptyMap());
+    }
+    
+    /**
+     * 批量加载多个服务的方法元数据（serviceId -> methodName -> 方法及参数）
+     */
+    private java.util.Map<Long, java.util.Map<String, DubboMethodMetadataLoader.MethodMetadata>> loadMethods(
+            List<DubboServiceEntity> services) {
+        if (methodMetadataLoader == null) {
+            return java.util.Collections.emptyMap();
+        }
+        try {
+            return methodMetadataLoader.loadByServiceIds(services.stream().map(DubboServiceEntity::getId).toList());
+        } catch (Exception e) {
+            log.warn("查询方法信息失败: {} services", services.size(), e);
+            return java.util.Collections.emptyMap();
+        }
+    }
+    
     /**
      * 构建 zkPath（用于兼容性）
      */
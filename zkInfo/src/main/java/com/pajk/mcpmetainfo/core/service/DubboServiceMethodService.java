@@ -11,6 +11,7 @@ import com.pajk.mcpmetainfo.core.model.ProviderInfo;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -19,11 +20,15 @@ import org.springframework.transaction.annotation.Transactional;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -52,8 +57,16 @@ public class DubboServiceMethodService {
     @Lazy
     private ZooKeeperService zooKeeperService;
     
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    /**
+     * 单条多行 SQL 的最大行数，避免语句超过 max_allowed_packet
+     */
+    private static final int BATCH_CHUNK_SIZE = 500;
+    
     /**
      * 保存或更新Dubbo服务方法信息到数据库
      * 
@@ -62,112 +75,145 @@ public class DubboServiceMethodService {
      */
     @Transactional
     public void saveOrUpdateServiceMethods(ProviderInfo providerInfo, Long serviceId) {
+        saveOrUpdateServiceMethods(Collections.singletonMap(serviceId, providerInfo));
+    }
+    
+    /**
+     * 批量保存或更新多个服务的方法信息
+     * 
+     * 先批量查询已有方法做差异比较，接口名、版本都未变化的方法直接跳过；
+     * 其余方法用多行 INSERT ... ON DUPLICATE KEY UPDATE 写入，
+     * 参数只为尚无参数记录的新增/变化方法解析并批量写入。
+     * 已不存在的方法为保护用户数据暂不删除。
+     * 
+     * @param providersByServiceId 服务ID -> 该服务的代表Provider
+     */
+    @Transactional
+    public void saveOrUpdateServiceMethods(Map<Long, ProviderInfo> providersByServiceId) {
+        if (providersByServiceId == null || providersByServiceId.isEmpty()) {
+            return;
+        }
         try {
-            // 获取当前服务下已有的方法信息
-            List<DubboServiceMethodEntity> existingMethods = dubboServiceMethodMapper.findByServiceId(serviceId);
-            
-            // 创建现有方法名到方法实体的映射，便于快速查找
-            Map<String, DubboServiceMethodEntity> existingMethodMap = new HashMap<>();
-            for (DubboServiceMethodEntity method : existingMethods) {
-                existingMethodMap.put(method.getMethodName(), method);
-            }
+            Map<Long, Map<String, DubboServiceMethodEntity>> existing = loadMethods(providersByServiceId.keySet());
             
-            // 解析并处理方法信息
-            Set<String> currentMethodNames = new HashSet<>();
-            if (providerInfo.getMethods() != null && !providerInfo.getMethods().isEmpty()) {
-                String[] methods = providerInfo.getMethods().split(",");
-                for (int i = 0; i < methods.length; i++) {
-                    String methodName = methods[i].trim();
-                    if (!methodName.isEmpty()) {
-                        currentMethodNames.add(methodName);
-                        
-                        // 从 zk_dubbo_service 获取 version
-                        DubboServiceEntity service = dubboServiceMapper.findById(serviceId);
-                        String version = service != null ? service.getVersion() : null;
-                        
-                        // 检查方法是否已存在
-                        DubboServiceMethodEntity methodEntity;
-                        if (existingMethodMap.containsKey(methodName)) {
-                            // 方法已存在，更新 interface_name、version 和时间戳
-                            methodEntity = existingMethodMap.get(methodName);
-                            methodEntity.setInterfaceName(providerInfo.getInterfaceName());
-                            methodEntity.setVersion(version);
-                            methodEntity.setUpdatedAt(LocalDateTime.now());
-                            dubboServiceMethodMapper.update(methodEntity);
-                            log.debug("更新已存在的Dubbo服务方法信息: {} (ID: {})", methodName, methodEntity.getId());
-                        } else {
-                            // 新方法，创建并保存（使用 ON DUPLICATE KEY UPDATE 避免并发问题）
-                            methodEntity = new DubboServiceMethodEntity(
-                                serviceId, providerInfo.getInterfaceName(), version, methodName, "java.lang.Object");
-                            
-                            // 保存方法信息（如果已存在则更新，否则插入）
-                            try {
-                                dubboServiceMethodMapper.insert(methodEntity);
-                                // 如果插入后 id 仍为 null，说明是更新操作，需要查询获取 id
-                                if (methodEntity.getId() == null) {
-                                    DubboServiceMethodEntity found = dubboServiceMethodMapper.findByServiceIdAndMethodName(serviceId, methodName);
-                                    if (found != null) {
-                                        methodEntity.setId(found.getId());
-                                    }
-                                }
-                                log.debug("保存新的Dubbo服务方法信息: {} (ID: {})", methodName, methodEntity.getId());
-                            } catch (Exception e) {
-                                // 如果插入失败（可能是并发插入），尝试查询已存在的记录
-                                log.warn("插入方法失败，尝试查询已存在的记录: methodName={}, error={}", methodName, e.getMessage());
-                                DubboServiceMethodEntity found = dubboServiceMethodMapper.findByServiceIdAndMethodName(serviceId, methodName);
-                                if (found != null) {
-                                    methodEntity = found;
-                                    methodEntity.setInterfaceName(providerInfo.getInterfaceName());
-                                    methodEntity.setVersion(version);
-                                    methodEntity.setUpdatedAt(LocalDateTime.now());
-                                    dubboServiceMethodMapper.update(methodEntity);
-                                    log.debug("更新已存在的Dubbo服务方法信息（从异常恢复）: {} (ID: {})", methodName, methodEntity.getId());
-                                } else {
-                                    throw e; // 如果查询不到，重新抛出异常
-                                }
-                            }
-                        }
-                        
-                        // 尝试从 ZooKeeper 元数据中获取方法参数信息（仅对新插入的方法或需要更新参数的方法）
-                        if (methodEntity.getId() != null) {
-                            log.info("开始解析方法参数: methodId={}, methodName={}, interface={}", 
-                                    methodEntity.getId(), methodName, providerInfo.getInterfaceName());
-                            
-                            List<DubboMethodParameterEntity> methodParameters = parseMethodParametersFromMetadata(
-                                methodEntity.getId(), providerInfo.getInterfaceName(), version, methodName, providerInfo);
-                            
-                            // 保存参数信息（如果有参数则保存，否则跳过）
-                            if (!methodParameters.isEmpty()) {
-                                saveMethodParameters(methodEntity.getId(), providerInfo.getInterfaceName(), version, methodParameters);
-                                log.info("✅ 成功保存方法 {} 的 {} 个参数到数据库", methodName, methodParameters.size());
-                            } else {
-                                log.warn("⚠️ 方法 {} 没有参数信息，跳过参数保存。请检查：1) Provider是否配置了metadata-report 2) ZooKeeper中是否存在元数据路径", methodName);
-                            }
-                        } else {
-                            log.warn("⚠️ 方法ID为null，无法保存参数信息: methodName={}", methodName);
-                        }
+            // 1. 差异比较：只保留新增或接口名/版本变化的方法
+            LocalDateTime now = LocalDateTime.now();
+            List<DubboServiceMethodEntity> upserts = new ArrayList<>();
+            Set<Long> changedServiceIds = new LinkedHashSet<>();
+            for (Map.Entry<Long, ProviderInfo> entry : providersByServiceId.entrySet()) {
+                Long serviceId = entry.getKey();
+                ProviderInfo providerInfo = entry.getValue();
+                if (providerInfo.getMethods() == null || providerInfo.getMethods().isEmpty()) {
+                    continue;
+                }
+                Map<String, DubboServiceMethodEntity> serviceMethods =
+                        existing.getOrDefault(serviceId, Collections.emptyMap());
+                Set<String> seen = new HashSet<>();
+                for (String method : providerInfo.getMethods().split(",")) {
+                    String methodName = method.trim();
+                    if (methodName.isEmpty() || !seen.add(methodName)) {
+                        continue;
                     }
+                    DubboServiceMethodEntity methodEntity = serviceMethods.get(methodName);
+                    if (methodEntity == null) {
+                        methodEntity = new DubboServiceMethodEntity(serviceId, providerInfo.getInterfaceName(),
+                                providerInfo.getVersion(), methodName, "java.lang.Object");
+                    } else if (Objects.equals(methodEntity.getInterfaceName(), providerInfo.getInterfaceName())
+                            && Objects.equals(methodEntity.getVersion(), providerInfo.getVersion())) {
+                        continue;
+                    } else {
+                        methodEntity.setInterfaceName(providerInfo.getInterfaceName());
+                        methodEntity.setVersion(providerInfo.getVersion());
+                        methodEntity.setUpdatedAt(now);
+                    }
+                    upserts.add(methodEntity);
+                    changedServiceIds.add(serviceId);
                 }
             }
+            if (upserts.isEmpty()) {
+                log.debug("Dubbo服务方法信息无变化，跳过写入: services={}", providersByServiceId.size());
+                return;
+            }
             
-            // 可选：删除已不存在的方法（为了保护用户数据，这里暂不删除，仅记录）
-            for (DubboServiceMethodEntity existingMethod : existingMethods) {
-                if (!currentMethodNames.contains(existingMethod.getMethodName())) {
-                    log.info("检测到已不存在的方法: {} (ID: {})，为保护用户数据暂不删除", 
-                             existingMethod.getMethodName(), existingMethod.getId());
-                    // 如果需要真正删除已不存在的方法，取消下面的注释
-                    // dubboMethodParameterMapper.deleteByMethodId(existingMethod.getId());
-                    // dubboServiceMethodMapper.deleteById(existingMethod.getId());
+            // 2. 多行写入方法
+            for (int i = 0; i < upserts.size(); i += BATCH_CHUNK_SIZE) {
+                dubboServiceMethodMapper.batchUpsert(upserts.subList(i, Math.min(i + BATCH_CHUNK_SIZE, upserts.size())));
+            }
+            
+            // 3. 重新查询获取方法ID，只为尚无参数记录的方法解析参数
+            Map<Long, Map<String, DubboServiceMethodEntity>> saved = loadMethods(changedServiceIds);
+            Set<Long> methodIdsWithParameters = new HashSet<>();
+            List<Long> changedIds = new ArrayList<>(changedServiceIds);
+            for (int i = 0; i < changedIds.size(); i += BATCH_CHUNK_SIZE) {
+                for (DubboMethodParameterEntity parameter : dubboMethodParameterMapper.findByServiceIds(
+                        changedIds.subList(i, Math.min(i + BATCH_CHUNK_SIZE, changedIds.size())))) {
+                    methodIdsWithParameters.add(parameter.getMethodId());
+                }
+            }
+            List<DubboMethodParameterEntity> parameters = new ArrayList<>();
+            for (DubboServiceMethodEntity upsert : upserts) {
+                DubboServiceMethodEntity methodEntity = saved.getOrDefault(upsert.getServiceId(), Collections.emptyMap())
+                        .get(upsert.getMethodName());
+                if (methodEntity == null || methodIdsWithParameters.contains(methodEntity.getId())) {
+                    continue;
+                }
+                ProviderInfo providerInfo = providersByServiceId.get(upsert.getServiceId());
+                List<DubboMethodParameterEntity> methodParameters = parseMethodParametersFromMetadata(
+                        methodEntity.getId(), providerInfo.getInterfaceName(), providerInfo.getVersion(),
+                        methodEntity.getMethodName(), providerInfo);
+                for (DubboMethodParameterEntity parameter : methodParameters) {
+                    parameter.setMethodId(methodEntity.getId());
+                    parameter.setInterfaceName(providerInfo.getInterfaceName());
+                    parameter.setVersion(providerInfo.getVersion());
+                    if (parameter.getCreatedAt() == null) {
+                        parameter.setCreatedAt(now);
+                    }
+                    if (parameter.getUpdatedAt() == null) {
+                        parameter.setUpdatedAt(now);
+                    }
                 }
+                parameters.addAll(methodParameters);
+            }
+            for (int i = 0; i < parameters.size(); i += BATCH_CHUNK_SIZE) {
+                dubboMethodParameterMapper.batchInsert(parameters.subList(i, Math.min(i + BATCH_CHUNK_SIZE, parameters.size())));
             }
             
-            log.info("成功保存或更新Dubbo服务方法信息: serviceId={}", serviceId);
+            log.info("✅ 批量保存Dubbo服务方法信息: services={}, changedServices={}, methods={}, parameters={}",
+                    providersByServiceId.size(), changedServiceIds.size(), upserts.size(), parameters.size());
+            changedServiceIds.stream()
+                    .map(id -> providersByServiceId.get(id).getInterfaceName())
+                    .distinct()
+                    .forEach(this::publishToolsChanged);
         } catch (Exception e) {
-            log.error("保存或更新Dubbo服务方法信息到数据库失败: serviceId={}", serviceId, e);
+            log.error("批量保存或更新Dubbo服务方法信息到数据库失败: serviceIds={}", providersByServiceId.keySet(), e);
             throw new RuntimeException("保存或更新Dubbo服务方法信息失败", e);
         }
     }
     
+    /**
+     * 分批查询服务下的已有方法：服务ID -> 方法名 -> 方法
+     */
+    private Map<Long, Map<String, DubboServiceMethodEntity>> loadMethods(Collection<Long> serviceIds) {
+        Map<Long, Map<String, DubboServiceMethodEntity>> result = new HashMap<>();
+        List<Long> ids = new ArrayList<>(serviceIds);
+        for (int i = 0; i < ids.size(); i += BATCH_CHUNK_SIZE) {
+            for (DubboServiceMethodEntity method : dubboServiceMethodMapper.findByServiceIds(
+                    ids.subList(i, Math.min(i + BATCH_CHUNK_SIZE, ids.size())))) {
+                result.computeIfAbsent(method.getServiceId(), k -> new HashMap<>()).put(method.getMethodName(), method);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 通知工具目录：接口的方法/参数数据已变化（事务提交后生效）
+     */
+    private void publishToolsChanged(String interfaceName) {
+        if (eventPublisher != null && interfaceName != null) {
+            eventPublisher.publishEvent(McpToolCatalogService.ToolsChangedEvent.forInterface(interfaceName));
+        }
+    }
+    
     /**
      * 根据服务ID删除方法信息
      * 
@@ -186,6 +232,9 @@ public class DubboServiceMethodService {
             }
             
             log.debug("成功删除Dubbo服务方法信息: serviceId={}", serviceId);
+            if (!methods.isEmpty()) {
+                publishToolsChanged(methods.get(0).getInterfaceName());
+            }
         } catch (Exception e) {
             log.error("删除Dubbo服务方法信息失败: serviceId={}", serviceId, e);
             throw new RuntimeException("删除Dubbo服务方法信息失败", e);
@@ -247,6 +296,10 @@ public class DubboServiceMethodService {
         if (updated <= 0) {
             throw new IllegalArgumentException("未找到方法，methodId=" + methodId);
         }
+        DubboServiceMethodEntity method = dubboServiceMethodMapper.findById(methodId);
+        if (method != null) {
+            publishToolsChanged(method.getInterfaceName());
+        }
     }
     
     /**
@@ -291,6 +344,7 @@ public class DubboServiceMethodService {
                 log.debug("保存Dubbo方法参数信息: methodId={}, parameterName={}, parameterType={} (ID: {})", 
                         methodId, parameter.getParameterName(), parameter.getParameterType(), parameter.getId());
             }
+            publishToolsChanged(interfaceName);
         } catch (Exception e) {
             log.error("保存Dubbo方法参数信息失败: methodId={}", methodId, e);
             throw new RuntimeException("保存Dubbo方法参数信息失败", e);
@@ -218,6 +218,11 @@ public class DubboToMcpRegistrationService {
         // 去重：同一个接口的多个provider可能有相同的方法
         Set<String> toolNames = new HashSet<>();
         
+        // 批量预加载方法签名，避免逐方法查询数据库
+        mcpToolSchemaGenerator.preloadMethodSignatures(providers.stream()
+                .map(ProviderInfo::getInterfaceName)
+                .collect(Collectors.toList()));
+        
         for (ProviderInfo provider : providers) {
             if (provider.getMethods() != null && !provider.getMethods().isEmpty()) {
                 String[] methods = provider.getMethods().split(",");
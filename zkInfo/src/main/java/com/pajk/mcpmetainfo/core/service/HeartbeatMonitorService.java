@@ -1,19 +1,21 @@
 package com.pajk.mcpmetainfo.core.service;
 
 import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.core.util.TcpConnectProber;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.net.Socket;
-import java.net.SocketTimeoutException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -24,10 +26,13 @@ import java.util.concurrent.TimeUnit;
  * 负责定期检测所有注册的 Dubbo 服务提供者的可用性，通过 TCP 连接测试
  * 来判断服务提供者是否在线。支持并发检测、智能重试、离线判断和自动清理等功能。
  * 
+ * <p>一个 Dubbo 进程通常暴露多个接口，探测按地址（ip:port）去重，结果作用于该地址上的所有 Provider；
+ * 探测由单线程 Selector 非阻塞完成，并在检测间隔内随机错开发起。</p>
+ * 
  * <p>核心功能：</p>
  * <ul>
  *   <li>定时心跳检测：定期检测所有服务提供者的连通性</li>
- *   <li>并发检测：使用线程池并发执行心跳检测，提高效率</li>
+ *   <li>并发检测：单个 Selector 线程非阻塞探测所有地址</li>
  *   <li>智能判断：基于连接超时和响应时间判断服务状态</li>
  *   <li>状态更新：实时更新服务提供者的在线/离线状态</li>
  *   <li>自动清理：清理长期离线的服务提供者记录</li>
@@ -58,12 +63,33 @@ public class HeartbeatMonitorService {
     @Autowired
     private NacosMcpHttpApiService nacosMcpHttpApiService;
     
+    /**
+     * 离线清理（数据库、Nacos）执行线程，不占用探测线程
+     */
     private ExecutorService executorService;
     
+    private TcpConnectProber prober;
+    
+    /**
+     * 心跳检测间隔(毫秒)，本轮探测在间隔的 80% 内随机错开
+     */
+    @Value("${monitor.heartbeat.interval:30000}")
+    private long heartbeatIntervalMs;
+    
     /**
      * 连接超时时间(毫秒)
      */
-    private static final int CONNECTION_TIMEOUT = 3000;
+    @Value("${monitor.heartbeat.timeout:3000}")
+    private int connectionTimeoutMs;
+    
+    /**
+     * 同时进行中的探测连接上限
+     */
+    @Value("${monitor.heartbeat.max-in-flight:256}")
+    private int maxInFlight;
+    
+    @Value("${monitor.heartbeat.thread-pool-size:2}")
+    private int cleanupThreads;
     
     /**
      * 离线阈值(分钟) - 超过此时间未响应的Provider将被标记为离线
@@ -76,44 +102,34 @@ public class HeartbeatMonitorService {
     private static final int CLEANUP_THRESHOLD_MINUTES = 30;
     
     @PostConstruct
-    public void init() {
-        // 创建线程池用于并发心跳检测
-        int threadCount = Math.max(4, Runtime.getRuntime().availableProcessors());
-        executorService = Executors.newFixedThreadPool(threadCount);
+    public void init() throws IOException {
+        executorService = Executors.newFixedThreadPool(Math.max(1, cleanupThreads), runnable -> {
+            Thread thread = new Thread(runnable, "heartbeat-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prober = new TcpConnectProber(connectionTimeoutMs, maxInFlight, this::applyProbeResult);
         
-        log.info("心跳监控服务已启动，线程池大小: {}", threadCount);
+        log.info("心跳监控服务已启动，探测间隔: {}ms，连接超时: {}ms，并发连接上限: {}",
+                heartbeatIntervalMs, connectionTimeoutMs, maxInFlight);
     }
     
     /**
-     * 定时心跳检测 - 每30秒执行一次
+     * 定时心跳检测：按地址去重后交给探测器，在本轮间隔内错开发起，不等待结果
      */
-    @Scheduled(fixedRate = 30000, initialDelay = 10000)
+    @Scheduled(fixedRateString = "${monitor.heartbeat.interval:30000}", initialDelay = 10000)
     public void performHeartbeatCheck() {
         try {
-            List<ProviderInfo> providers = providerService.getAllProviders();
-            if (providers.isEmpty()) {
+            List<String> addresses = providerService.getAllAddresses();
+            if (addresses.isEmpty()) {
                 log.debug("没有Provider需要进行心跳检测");
                 return;
             }
             
-            log.debug("开始心跳检测，Provider数量: {}", providers.size());
-            
-            // 并发执行心跳检测
-            CompletableFuture<?>[] futures = providers.stream()
-                    .map(provider -> CompletableFuture.runAsync(() -> checkProviderHeartbeat(provider), executorService))
-                    .toArray(CompletableFuture[]::new);
-            
-            // 等待所有心跳检测完成，最多等待30秒
-            try {
-                CompletableFuture.allOf(futures).get(30, TimeUnit.SECONDS);
-            } catch (Exception e) {
-                log.warn("心跳检测超时或异常", e);
-            }
-            
-            // 统计结果
-            int onlineCount = providerService.getOnlineProviderCount();
-            int totalCount = providerService.getTotalProviderCount();
-            log.debug("心跳检测完成，在线: {}/{}", onlineCount, totalCount);
+            int scheduled = prober.schedule(addresses, heartbeatIntervalMs * 4 / 5);
+            log.debug("开始心跳检测，地址数: {}，本轮排队: {}，上轮未完成: {}，在线: {}/{}",
+                    addresses.size(), scheduled, addresses.size() - scheduled,
+                    providerService.getOnlineProviderCount(), providerService.getTotalProviderCount());
             
         } catch (Exception e) {
             log.error("心跳检测失败", e);
@@ -121,38 +137,55 @@ public class HeartbeatMonitorService {
     }
     
     /**
-     * 检测单个Provider的心跳
+     * 应用探测结果到该地址上的所有Provider（探测线程中执行，只做内存更新，清理动作交给清理线程）
      */
-    private void checkProviderHeartbeat(ProviderInfo provider) {
+    void applyProbeResult(String address, boolean isOnline) {
         try {
-            String address = provider.getAddress();
-            if (address == null || address.isEmpty()) {
-                log.warn("Provider地址为空: {}", provider.getInterfaceName());
+            List<ProviderInfo> providers = providerService.getProvidersByAddress(address);
+            if (providers.isEmpty()) {
                 return;
             }
             
-            boolean isOnline = isProviderReachable(address);
-            boolean wasOnline = provider.isOnline();
+            List<ProviderInfo> wentOffline = new ArrayList<>();
+            boolean changed = false;
+            for (ProviderInfo provider : providers) {
+                if (provider.isOnline() != isOnline) {
+                    changed = true;
+                    if (!isOnline) {
+                        wentOffline.add(provider);
+                    }
+                }
+            }
             
-            // 更新Provider状态
-            if (isOnline != wasOnline) {
+            if (changed) {
+                // 在线时同时刷新最后心跳时间
                 providerService.updateProviderStatus(address, isOnline);
-                log.info("Provider状态变化: {} {} -> {}", 
-                        address, 
-                        wasOnline ? "在线" : "离线", 
-                        isOnline ? "在线" : "离线");
+                log.info("Provider状态变化: {} -> {}（{} 个Provider）", 
+                        address, isOnline ? "在线" : "离线", providers.size());
+            } else if (isOnline) {
+                LocalDateTime now = LocalDateTime.now();
+                for (ProviderInfo provider : providers) {
+                    provider.setLastHeartbeat(now);
+                }
             }
             
-            // 如果在线，更新最后心跳时间
-            if (isOnline) {
-                provider.setLastHeartbeat(LocalDateTime.now());
-            } else {
-                // 如果离线（超时），执行清理逻辑
-                handleOfflineProvider(provider);
+            // 如果离线（超时），执行清理逻辑
+            if (!wentOffline.isEmpty()) {
+                executorService.execute(() -> handleOfflineProviders(wentOffline));
             }
             
         } catch (Exception e) {
-            log.error("检测Provider心跳失败: {}", provider.getAddress(), e);
+            log.error("检测Provider心跳失败: {}", address, e);
+        }
+    }
+    
+    /**
+     * 处理同一地址上刚离线的Provider，同一应用只请求一次 Nacos 移除
+     */
+    private void handleOfflineProviders(List<ProviderInfo> providers) {
+        Set<String> removedApps = new HashSet<>();
+        for (ProviderInfo provider : providers) {
+            handleOfflineProvider(provider, removedApps);
         }
     }
 
@@ -161,12 +194,14 @@ public class HeartbeatMonitorService {
      * 1. 从数据库移除节点
      * 2. 从 Nacos 移除服务
      */
-    private void handleOfflineProvider(ProviderInfo provider) {
+    private void handleOfflineProvider(ProviderInfo provider, Set<String> removedApps) {
         try {
             log.warn("Provider心跳超时，开始清理: {} (App: {})", provider.getAddress(), provider.getApplication());
             
-            // 1. 从数据库移除
-            if (provider.getZkPath() != null) {
+            // 1. 从数据库移除（其他注册中心仍上报同一服务+地址时保留共用的节点行）
+            if (provider.getZkPath() != null && providerService.isReportedByOtherNode(provider, provider.getZkPath())) {
+                log.info("Provider 仍由其他节点上报，保留数据库节点: {}", provider.getZkPath());
+            } else if (provider.getZkPath() != null) {
                 dubboServiceDbService.removeServiceByZkPath(provider.getZkPath());
                 log.info("已从数据库移除 Provider: {}", provider.getZkPath());
             }
@@ -174,7 +209,7 @@ public class HeartbeatMonitorService {
             // 2. 从 Nacos 移除对应的机器/服务
             // 注意：这里假设 Application Name 对应 Nacos 中的 MCP Server Name
             String appName = provider.getApplication();
-            if (appName != null && !appName.isEmpty() && !"unknown".equals(appName)) {
+            if (appName != null && !appName.isEmpty() && !"unknown".equals(appName) && removedApps.add(appName)) {
                 nacosMcpHttpApiService.deleteMcpServer(appName);
                 log.info("已请求 Nacos 移除 MCP Server: {}", appName);
             }
@@ -184,44 +219,6 @@ public class HeartbeatMonitorService {
         }
     }
     
-    /**
-     * 检测Provider是否可达
-     */
-    private boolean isProviderReachable(String address) {
-        try {
-            String[] parts = address.split(":");
-            if (parts.length != 2) {
-                log.warn("无效的Provider地址格式: {}", address);
-                return false;
-            }
-            
-            String host = parts[0];
-            int port;
-            try {
-                port = Integer.parseInt(parts[1]);
-            } catch (NumberFormatException e) {
-                log.warn("无效的端口号: {}", parts[1]);
-                return false;
-            }
-            
-            // 使用Socket连接测试可达性
-            try (Socket socket = new Socket()) {
-                socket.connect(new InetSocketAddress(host, port), CONNECTION_TIMEOUT);
-                return true;
-            }
-            
-        } catch (SocketTimeoutException e) {
-            log.debug("Provider连接超时: {}", address);
-            return false;
-        } catch (IOException e) {
-            log.debug("Provider连接失败: {} - {}", address, e.getMessage());
-            return false;
-        } catch (Exception e) {
-            log.warn("检测Provider可达性异常: {}", address, e);
-            return false;
-        }
-    }
-    
     /**
      * 定时清理长时间离线的Provider - 每10分钟执行一次
      */
@@ -281,7 +278,11 @@ public class HeartbeatMonitorService {
      */
     public void triggerHeartbeatCheck() {
         log.info("手动触发心跳检测");
-        CompletableFuture.runAsync(this::performHeartbeatCheck, executorService);
+        try {
+            prober.schedule(providerService.getAllAddresses(), 0);
+        } catch (Exception e) {
+            log.error("心跳检测失败", e);
+        }
     }
     
     /**
@@ -289,8 +290,8 @@ public class HeartbeatMonitorService {
      */
     public boolean checkSpecificProvider(String address) {
         try {
-            boolean isOnline = isProviderReachable(address);
-            providerService.updateProviderStatus(address, isOnline);
+            // 结果由探测回调应用到该地址上的所有Provider
+            boolean isOnline = prober.probe(address).get(connectionTimeoutMs + 1000L, TimeUnit.MILLISECONDS);
             
             log.info("检测Provider: {} -> {}", address, isOnline ? "在线" : "离线");
             return isOnline;
@@ -355,7 +356,11 @@ public class HeartbeatMonitorService {
     /**
      * 销毁资源
      */
+    @PreDestroy
     public void destroy() {
+        if (prober != null) {
+            prober.close();
+        }
         if (executorService != null && !executorService.isShutdown()) {
             executorService.shutdown();
             try {
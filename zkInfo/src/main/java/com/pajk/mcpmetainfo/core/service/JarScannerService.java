@@ -81,6 +81,23 @@ public class JarScannerService {
         return interfaces;
     }
     
+    /**
+     * 从 JAR 包中读取单个接口的方法信息（只读取该 class 文件，不加载类）
+     *
+     * @param jarFile JAR 文件
+     * @param interfaceName 接口全限定名
+     * @return Dubbo 接口信息，类不存在或不是接口时返回 null
+     */
+    public DubboInterfaceInfo scanInterface(File jarFile, String interfaceName) {
+        try (JarFile jar = new JarFile(jarFile)) {
+            JarEntry entry = jar.getJarEntry(interfaceName.replace('.', '/') + ".class");
+            return entry != null ? analyzeClassFile(jar, entry, jarFile.getName()) : null;
+        } catch (Exception e) {
+            log.debug("分析接口失败: {} in {} - {}", interfaceName, jarFile.getName(), e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 分析单个 class 文件
      *
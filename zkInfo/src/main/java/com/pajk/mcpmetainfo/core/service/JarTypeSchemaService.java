@@ -0,0 +1,568 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpmetainfo.core.model.wizard.DubboInterfaceInfo;
+import com.pajk.mcpmetainfo.core.model.wizard.MethodInfo;
+import com.pajk.mcpmetainfo.core.model.wizard.ParameterInfo;
+import com.pajk.mcpmetainfo.persistence.entity.TypeSchemaCacheEntity;
+import com.pajk.mcpmetainfo.persistence.mapper.TypeSchemaCacheMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * 基于字节码的参数类型 Schema 服务
+ *
+ * <p>用 ASM 直接读取 Provider API JAR 中的 class 文件构建参数 POJO 的嵌套 JSON Schema，
+ * 不加载类：zkInfo 不再需要把 Provider API 放到 classpath 上，堆内存也不会随学习到的接口增长。
+ * 字段泛型从 Signature 属性解析（List&lt;Item&gt;、Map&lt;String, Item&gt;），父类字段一并展开，
+ * 枚举输出 enum 取值，循环引用和超过最大深度的嵌套只输出 type=object。</p>
+ *
+ * <p>结果按 类名 + JAR 校验和 写入 zk_type_schema_cache，JAR 更新后校验和变化自动失效；
+ * 内存中只保留有界的 LRU 副本。</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JarTypeSchemaService {
+
+    private static final int MEMORY_CACHE_SIZE = 512;
+
+    private static final Set<String> COLLECTION_TYPES = Set.of(
+            "java.util.Collection", "java.util.List", "java.util.ArrayList", "java.util.LinkedList",
+            "java.util.Set", "java.util.HashSet", "java.util.LinkedHashSet", "java.util.TreeSet",
+            "java.util.SortedSet", "java.util.Queue", "java.util.Deque", "java.lang.Iterable");
+
+    private static final Set<String> MAP_TYPES = Set.of(
+            "java.util.Map", "java.util.HashMap", "java.util.LinkedHashMap", "java.util.TreeMap",
+            "java.util.SortedMap", "java.util.concurrent.ConcurrentHashMap", "java.util.concurrent.ConcurrentMap");
+
+    private final JarScannerService jarScannerService;
+    private final TypeSchemaCacheMapper typeSchemaCacheMapper;
+    private final ObjectMapper objectMapper;
+
+    @Value("${mcp.schema.jar-paths:}")
+    private String jarPaths;
+
+    @Value("${mcp.schema.max-depth:5}")
+    private int maxDepth = 5;
+
+    // className -> 所在 JAR（只记录路径和校验和，不持有字节码）
+    private final Map<String, JarRef> classIndex = new ConcurrentHashMap<>();
+
+    // className@checksum -> Schema
+    private final Map<String, Map<String, Object>> schemaCache = lruCache();
+
+    // interfaceName@checksum -> 接口方法信息
+    private final Map<String, DubboInterfaceInfo> interfaceCache = lruCache();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (jarPaths == null || jarPaths.isBlank()) {
+            return;
+        }
+        for (String path : jarPaths.split(",")) {
+            if (!path.isBlank()) {
+                registerPath(Paths.get(path.trim()));
+            }
+        }
+        log.info("✅ Type schema class index ready: {} classes", classIndex.size());
+    }
+
+    /**
+     * 注册 JAR 文件或目录（目录下所有 .jar）
+     */
+    public void registerPath(Path path) {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                files.filter(file -> file.toString().endsWith(".jar")).forEach(file -> registerJar(file.toFile()));
+            } catch (IOException e) {
+                log.warn("⚠️ Failed to list jar directory {}: {}", path, e.getMessage());
+            }
+        } else if (Files.isRegularFile(path)) {
+            registerJar(path.toFile());
+        }
+    }
+
+    /**
+     * 注册 JAR：计算校验和并登记其中的类名，同名类以最后注册的 JAR 为准
+     */
+    public void registerJar(File jarFile) {
+        try (JarFile jar = new JarFile(jarFile)) {
+            JarRef ref = new JarRef(jarFile.getAbsolutePath(), checksum(jarFile));
+            int count = 0;
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(".class") && !name.endsWith("module-info.class")) {
+                    classIndex.put(name.substring(0, name.length() - ".class".length()).replace('/', '.'), ref);
+                    count++;
+                }
+            }
+            log.debug("✅ Registered {} classes from {} (md5={})", count, jarFile.getName(), ref.checksum);
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to register jar {}: {}", jarFile, e.getMessage());
+        }
+    }
+
+    public boolean contains(String className) {
+        return className != null && classIndex.containsKey(className);
+    }
+
+    /**
+     * 获取类的对象 Schema（type/properties/additionalProperties，枚举为 type/enum）
+     *
+     * @return Schema 副本；类不在已注册的 JAR 中时返回 null
+     */
+    public Map<String, Object> getSchema(String className) {
+        JarRef ref = className != null ? classIndex.get(className) : null;
+        if (ref == null) {
+            return null;
+        }
+        String cacheKey = className + "@" + ref.checksum;
+        Map<String, Object> schema = schemaCache.get(cacheKey);
+        if (schema == null) {
+            schema = loadFromDatabase(className, ref.checksum);
+            if (schema == null) {
+                schema = extract(className);
+                if (schema == null) {
+                    return null;
+                }
+                saveToDatabase(className, ref.checksum, schema);
+            }
+            schemaCache.put(cacheKey, schema);
+        }
+        return deepCopy(schema);
+    }
+
+    /**
+     * 从 JAR 中读取接口方法的参数（参数名来自 MethodParameters / LocalVariableTable）
+     *
+     * @return 参数列表；接口或方法不在已注册的 JAR 中时返回 null
+     */
+    public List<ParameterInfo> getMethodParameters(String interfaceName, String methodName) {
+        JarRef ref = interfaceName != null ? classIndex.get(interfaceName) : null;
+        if (ref == null) {
+            return null;
+        }
+        String cacheKey = interfaceName + "@" + ref.checksum;
+        DubboInterfaceInfo info = interfaceCache.get(cacheKey);
+        if (info == null) {
+            info = jarScannerService.scanInterface(new File(ref.path), interfaceName);
+            if (info == null) {
+                return null;
+            }
+            interfaceCache.put(cacheKey, info);
+        }
+        for (MethodInfo method : info.getMethods()) {
+            if (method.getMethodName().equals(methodName)) {
+                return method.getParameters();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解析类型 Schema；同一次解析内打开的 JAR 复用，结束后关闭
+     */
+    Map<String, Object> extract(String className) {
+        try (ExtractionContext context = new ExtractionContext()) {
+            return buildClassSchema(className, context, 0);
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to extract schema for {}: {}", className, e.getMessage());
+            return null;
+        }
+    }
+
+    private Map<String, Object> buildClassSchema(String className, ExtractionContext context, int depth) throws IOException {
+        ClassModel model = context.load(className);
+        if (model == null) {
+            return null;
+        }
+        if (model.isEnum()) {
+            Map<String, Object> schema = new LinkedHashMap<>();
+            schema.put("type", "string");
+            schema.put("enum", new ArrayList<>(model.enumConstants));
+            return schema;
+        }
+
+        context.visiting.add(className);
+        try {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            ClassModel current = model;
+            while (current != null) {
+                for (FieldModel field : current.fields) {
+                    if (!properties.containsKey(field.name)) {
+                        Map<String, Object> property = typeSchema(field.type, context, depth + 1);
+                        property.put("description", field.name + " (" + simpleName(field.type) + ")");
+                        properties.put(field.name, property);
+                    }
+                }
+                current = current.superName != null ? context.load(current.superName) : null;
+            }
+
+            Map<String, Object> schema = new LinkedHashMap<>();
+            schema.put("type", "object");
+            // title 为类的简单名，工具目录去重时用作 $defs 名称
+            schema.put("title", className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1));
+            schema.put("properties", properties);
+            schema.put("additionalProperties", false);
+            return schema;
+        } finally {
+            context.visiting.remove(className);
+        }
+    }
+
+    private Map<String, Object> typeSchema(TypeRef type, ExtractionContext context, int depth) throws IOException {
+        Map<String, Object> schema = new LinkedHashMap<>();
+        if (type.component != null) {
+            schema.put("type", "array");
+            schema.put("items", typeSchema(type.component, context, depth));
+            return schema;
+        }
+
+        String name = type.name;
+        switch (name) {
+            case "boolean", "java.lang.Boolean" -> schema.put("type", "boolean");
+            case "int", "java.lang.Integer", "short", "java.lang.Short", "byte", "java.lang.Byte" -> {
+                schema.put("type", "integer");
+                schema.put("format", "int32");
+            }
+            case "long", "java.lang.Long" -> {
+                schema.put("type", "integer");
+                schema.put("format", "int64");
+            }
+            case "java.math.BigInteger" -> schema.put("type", "integer");
+            case "float", "java.lang.Float" -> {
+                schema.put("type", "number");
+                schema.put("format", "float");
+            }
+            case "double", "java.lang.Double" -> {
+                schema.put("type", "number");
+                schema.put("format", "double");
+            }
+            case "java.math.BigDecimal" -> schema.put("type", "number");
+            case "char", "java.lang.Character", "java.lang.String", "java.lang.CharSequence" -> schema.put("type", "string");
+            case "java.time.LocalDate" -> {
+                schema.put("type", "string");
+                schema.put("format", "date");
+            }
+            case "java.util.Date", "java.sql.Timestamp", "java.time.LocalDateTime",
+                 "java.time.OffsetDateTime", "java.time.ZonedDateTime", "java.time.Instant" -> {
+                schema.put("type", "string");
+                schema.put("format", "date-time");
+            }
+            default -> {
+                if (COLLECTION_TYPES.contains(name)) {
+                    schema.put("type", "array");
+                    schema.put("items", type.args.isEmpty()
+                            ? new LinkedHashMap<>(Map.of("type", "object"))
+                            : typeSchema(type.args.get(0), context, depth));
+                } else if (MAP_TYPES.contains(name)) {
+                    schema.put("type", "object");
+                    if (type.args.size() == 2) {
+                        schema.put("additionalProperties", typeSchema(type.args.get(1), context, depth));
+                    }
+                } else if (name.startsWith("java.") || name.startsWith("javax.")
+                        || depth > maxDepth || context.visiting.contains(name)) {
+                    schema.put("type", "object");
+                } else {
+                    Map<String, Object> nested = buildClassSchema(name, context, depth);
+                    if (nested != null) {
+                        return nested;
+                    }
+                    schema.put("type", "object");
+                }
+            }
+        }
+        return schema;
+    }
+
+    private Map<String, Object> loadFromDatabase(String className, String checksum) {
+        try {
+            TypeSchemaCacheEntity entity = typeSchemaCacheMapper.findByClassNameAndChecksum(className, checksum);
+            if (entity != null && entity.getSchemaJson() != null) {
+                return objectMapper.readValue(entity.getSchemaJson(), new TypeReference<LinkedHashMap<String, Object>>() {});
+            }
+        } catch (Exception e) {
+            log.debug("⚠️ Failed to load cached schema for {}: {}", className, e.getMessage());
+        }
+        return null;
+    }
+
+    private void saveToDatabase(String className, String checksum, Map<String, Object> schema) {
+        try {
+            TypeSchemaCacheEntity entity = new TypeSchemaCacheEntity();
+            entity.setClassName(className);
+            entity.setJarChecksum(checksum);
+            entity.setSchemaJson(objectMapper.writeValueAsString(schema));
+            entity.setCreatedAt(LocalDateTime.now());
+            entity.setUpdatedAt(LocalDateTime.now());
+            typeSchemaCacheMapper.insertOrUpdate(entity);
+        } catch (Exception e) {
+            // 缓存写入失败不影响本次结果
+            log.debug("⚠️ Failed to save schema cache for {}: {}", className, e.getMessage());
+        }
+    }
+
+    private static String simpleName(TypeRef type) {
+        if (type.component != null) {
+            return simpleName(type.component) + "[]";
+        }
+        String name = type.name.substring(type.name.lastIndexOf('.') + 1);
+        name = name.substring(name.lastIndexOf('$') + 1);
+        if (type.args.isEmpty()) {
+            return name;
+        }
+        StringJoiner args = new StringJoiner(", ", name + "<", ">");
+        type.args.forEach(arg -> args.add(simpleName(arg)));
+        return args.toString();
+    }
+
+    private static String checksum(File file) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("MD5");
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                md.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : md.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T deepCopy(T value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            map.forEach((k, v) -> copy.put((String) k, deepCopy(v)));
+            return (T) copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(v -> copy.add(deepCopy(v)));
+            return (T) copy;
+        }
+        return value;
+    }
+
+    private static <V> Map<String, V> lruCache() {
+        return Collections.synchronizedMap(new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > MEMORY_CACHE_SIZE;
+            }
+        });
+    }
+
+    private static final class JarRef {
+        private final String path;
+        private final String checksum;
+
+        private JarRef(String path, String checksum) {
+            this.path = path;
+            this.checksum = checksum;
+        }
+    }
+
+    /**
+     * 单次解析上下文：打开的 JAR、已读取的类模型、当前递归路径（检测循环引用）
+     */
+    private final class ExtractionContext implements AutoCloseable {
+        private final Map<String, JarFile> openJars = new HashMap<>();
+        private final Map<String, Optional<ClassModel>> models = new HashMap<>();
+        private final Set<String> visiting = new HashSet<>();
+
+        private ClassModel load(String className) throws IOException {
+            Optional<ClassModel> cached = models.get(className);
+            if (cached != null) {
+                return cached.orElse(null);
+            }
+            ClassModel model = null;
+            JarRef ref = classIndex.get(className);
+            if (ref != null) {
+                JarFile jar = openJars.get(ref.path);
+                if (jar == null) {
+                    jar = new JarFile(ref.path);
+                    openJars.put(ref.path, jar);
+                }
+                JarEntry entry = jar.getJarEntry(className.replace('.', '/') + ".class");
+                if (entry != null) {
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        ClassModelVisitor visitor = new ClassModelVisitor();
+                        new ClassReader(in).accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+                        model = visitor.model;
+                    }
+                }
+            }
+            models.put(className, Optional.ofNullable(model));
+            return model;
+        }
+
+        @Override
+        public void close() {
+            for (JarFile jar : openJars.values()) {
+                try {
+                    jar.close();
+                } catch (IOException ignored) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private static final class ClassModel {
+        private String superName;
+        private boolean enumType;
+        private final List<FieldModel> fields = new ArrayList<>();
+        private final List<String> enumConstants = new ArrayList<>();
+
+        private boolean isEnum() {
+            return enumType;
+        }
+    }
+
+    private static final class FieldModel {
+        private final String name;
+        private final TypeRef type;
+
+        private FieldModel(String name, TypeRef type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    /**
+     * 收集类的父类、实例字段（含泛型签名）和枚举常量
+     */
+    private static final class ClassModelVisitor extends ClassVisitor {
+        private final ClassModel model = new ClassModel();
+
+        private ClassModelVisitor() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            model.enumType = (access & Opcodes.ACC_ENUM) != 0 && "java/lang/Enum".equals(superName);
+            if (superName != null && !"java/lang/Object".equals(superName) && !"java/lang/Enum".equals(superName)) {
+                model.superName = superName.replace('/', '.');
+            }
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            if ((access & Opcodes.ACC_ENUM) != 0) {
+                model.enumConstants.add(name);
+            } else if ((access & (Opcodes.ACC_STATIC | Opcodes.ACC_TRANSIENT | Opcodes.ACC_SYNTHETIC)) == 0) {
+                model.fields.add(new FieldModel(name, TypeRef.parse(signature != null ? signature : descriptor)));
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 字段类型：类名 + 泛型参数，或数组元素类型
+     */
+    static final class TypeRef {
+        private final String name;
+        private final List<TypeRef> args = new ArrayList<>();
+        private final TypeRef component;
+
+        private TypeRef(String name, TypeRef component) {
+            this.name = name;
+            this.component = component;
+        }
+
+        /**
+         * 解析字段描述符或泛型签名（描述符本身就是合法的类型签名）
+         */
+        static TypeRef parse(String signature) {
+            TypeRef[] result = new TypeRef[1];
+            new SignatureReader(signature).acceptType(new TypeRefVisitor(type -> result[0] = type));
+            return result[0] != null ? result[0] : new TypeRef("java.lang.Object", null);
+        }
+    }
+
+    private static final class TypeRefVisitor extends SignatureVisitor {
+        private final Consumer<TypeRef> sink;
+        private TypeRef current;
+
+        private TypeRefVisitor(Consumer<TypeRef> sink) {
+            super(Opcodes.ASM9);
+            this.sink = sink;
+        }
+
+        @Override
+        public void visitBaseType(char descriptor) {
+            sink.accept(new TypeRef(Type.getType(String.valueOf(descriptor)).getClassName(), null));
+        }
+
+        @Override
+        public void visitTypeVariable(String name) {
+            // 类型变量按 Object 处理
+            sink.accept(new TypeRef("java.lang.Object", null));
+        }
+
+        @Override
+        public SignatureVisitor visitArrayType() {
+            return new TypeRefVisitor(component -> sink.accept(new TypeRef(component.name + "[]", component)));
+        }
+
+        @Override
+        public void visitClassType(String name) {
+            current = new TypeRef(name.replace('/', '.'), null);
+        }
+
+        @Override
+        public void visitInnerClassType(String name) {
+            current = new TypeRef(current.name + "$" + name, null);
+        }
+
+        @Override
+        public void visitTypeArgument() {
+            current.args.add(new TypeRef("java.lang.Object", null));
+        }
+
+        @Override
+        public SignatureVisitor visitTypeArgument(char wildcard) {
+            TypeRef owner = current;
+            return new TypeRefVisitor(owner.args::add);
+        }
+
+        @Override
+        public void visitEnd() {
+            sink.accept(current);
+        }
+    }
+}
@@ -113,6 +113,11 @@ public class McpConverterService {
     private List<McpResponse.McpTool> convertProvidersToTools(List<ProviderInfo> providers) {
         List<McpResponse.McpTool> tools = new ArrayList<>();
         
+        // 批量预加载方法签名，避免逐方法查询数据库
+        mcpToolSchemaGenerator.preloadMethodSignatures(providers.stream()
+                .map(ProviderInfo::getInterfaceName)
+                .collect(Collectors.toList()));
+        
         for (ProviderInfo provider : providers) {
             try {
                 // 为每个Provider的每个方法创建一个工具
@@ -197,17 +202,7 @@ public class McpConverterService {
                 String group = projectService.getServiceGroup();
                 
                 // 从 ProviderService 获取该服务的 Provider
-                List<ProviderInfo> providers = providerService.getProvidersByInterface(serviceInterface);
-                if (providers == null || providers.isEmpty()) {
-                    continue;
-                }
-                
-                // 过滤版本和分组
-                providers = providers.stream()
-                        .filter(p -> (version == null || version.isEmpty() || version.equals(p.getVersion())) &&
-                                (group == null || group.isEmpty() || group.equals(p.getGroup())))
-                        .collect(Collectors.toList());
-                
+                List<ProviderInfo> providers = providerService.getProvidersByService(serviceInterface, version, group);
                 if (providers.isEmpty()) {
                     continue;
                 }
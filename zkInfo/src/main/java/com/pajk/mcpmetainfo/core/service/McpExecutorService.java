@@ -20,8 +20,6 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.curator.framework.CuratorFramework;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -82,9 +80,6 @@ public class McpExecutorService {
     @Autowired(required = false)
     private com.pajk.mcpmetainfo.core.config.ZooKeeperConfig zooKeeperConfig;
     
-    @Autowired(required = false)
-    private com.pajk.mcpmetainfo.core.service.ZooKeeperService zooKeeperService;
-    
     // Dubbo 超时配置（从配置文件读取，默认 30 秒）
     @Value("${dubbo.consumer.timeout:30000}")
     private int dubboTimeout;
@@ -99,14 +94,13 @@ public class McpExecutorService {
     // Dubbo 配置
     private ApplicationConfig applicationConfig;
     private RegistryConfig registryConfig;
+    // 额外注册中心 id -> Dubbo 注册中心配置
+    private final Map<String, RegistryConfig> registryConfigs = new ConcurrentHashMap<>();
     private ProtocolConfig protocolConfig;
     
     // 服务引用缓存
     private final Map<String, ReferenceConfig<GenericService>> referenceCache = new ConcurrentHashMap<>();
     
-    // Metadata 缓存：interfaceName -> metadata JSON
-    private final Map<String, String> metadataCache = new ConcurrentHashMap<>();
-    
     // MetadataReport 缓存（使用 Dubbo SDK）
     // Dubbo 2.5 不支持 MetadataReport，注释掉
     // private MetadataReport metadataReport;
@@ -149,7 +143,6 @@ public class McpExecutorService {
         appParameters.put("qos.port", String.valueOf(qosPort));
         applicationConfig.setParameters(appParameters);
         
-        registryConfig = new RegistryConfig();
         // 从 application.yml 配置中读取 ZooKeeper 地址
         if (zooKeeperConfig == null) {
             throw new IllegalStateException("ZooKeeperConfig 未注入，请检查配置类是否正确配置");
@@ -160,6 +153,26 @@ public class McpExecutorService {
             throw new IllegalStateException("ZooKeeper 连接地址未配置，请在 application.yml 中配置 zookeeper.connect-string");
         }
         
+        registryConfig = buildRegistryConfig(connectString);
+        String zkAddress = registryConfig.getAddress();
+        
+        log.info("✅ 从 application.yml 读取 ZooKeeper 地址: {}, register=false, timeout=60000ms, sessionTimeout={}ms, connectionTimeout={}ms", 
+                zkAddress, zooKeeperConfig.getSessionTimeout(), zooKeeperConfig.getConnectionTimeout());
+        
+        // 创建 ProtocolConfig，强制使用 hessian2 序列化
+        protocolConfig = new ProtocolConfig();
+        protocolConfig.setName("dubbo");
+        protocolConfig.setSerialization("hessian2");
+        
+        log.info("MCP 执行器服务初始化完成 (ZooKeeper: {}, Serialization: hessian2)", zkAddress);
+    }
+    
+    /**
+     * 构建 Dubbo 注册中心配置（只订阅不注册）
+     */
+    private RegistryConfig buildRegistryConfig(String connectString) {
+        RegistryConfig config = new RegistryConfig();
+        
         // 构建 Dubbo Registry 地址（格式：zookeeper://host:port）
         String zkAddress;
         if (connectString.startsWith("zookeeper://")) {
@@ -168,11 +181,11 @@ public class McpExecutorService {
             zkAddress = "zookeeper://" + connectString;
         }
         
-        registryConfig.setAddress(zkAddress);
+        config.setAddress(zkAddress);
         // 禁用 Consumer 注册到 ZooKeeper（只订阅，不注册，避免连接冲突）
-        registryConfig.setRegister(false);
+        config.setRegister(false);
         // 增加 ZooKeeper 连接超时时间（默认 30 秒可能不够）
-        registryConfig.setTimeout(60000); // 60 秒
+        config.setTimeout(60000); // 60 秒
         
         // 通过 parameters 设置 ZooKeeper 连接参数，提高连接稳定性
         Map<String, String> registryParams = new HashMap<>();
@@ -184,17 +197,30 @@ public class McpExecutorService {
         registryParams.put("register", "false");
         // 设置客户端类型为 curator（Dubbo 3.x 支持）
         registryParams.put("client", "curator");
-        registryConfig.setParameters(registryParams);
-        
-        log.info("✅ 从 application.yml 读取 ZooKeeper 地址: {}, register=false, timeout=60000ms, sessionTimeout={}ms, connectionTimeout={}ms", 
-                zkAddress, zooKeeperConfig.getSessionTimeout(), zooKeeperConfig.getConnectionTimeout());
-        
-        // 创建 ProtocolConfig，强制使用 hessian2 序列化
-        protocolConfig = new ProtocolConfig();
-        protocolConfig.setName("dubbo");
-        protocolConfig.setSerialization("hessian2");
-        
-        log.info("MCP 执行器服务初始化完成 (ZooKeeper: {}, Serialization: hessian2)", zkAddress);
+        config.setParameters(registryParams);
+        return config;
+    }
+    
+    /**
+     * Provider 所在注册中心的 Dubbo 配置；registryId 为空（主注册中心）或未配置时使用主注册中心
+     */
+    private RegistryConfig registryConfigFor(String registryId) {
+        if (registryId == null) {
+            return registryConfig;
+        }
+        return registryConfigs.computeIfAbsent(registryId, id -> zooKeeperConfig.getRegistries().stream()
+                .filter(registry -> id.equals(registry.getId()))
+                .findFirst()
+                .map(registry -> {
+                    RegistryConfig config = buildRegistryConfig(registry.getConnectString());
+                    config.setId("zk-" + id);
+                    log.info("✅ 创建注册中心 {} 的 Dubbo 配置: {}", id, config.getAddress());
+                    return config;
+                })
+                .orElseGet(() -> {
+                    log.warn("⚠️ 未找到注册中心 {} 的配置，使用主注册中心", id);
+                    return registryConfig;
+                }));
     }
     
     @PreDestroy
@@ -1147,95 +1173,33 @@ public class McpExecutorService {
     
     /**
      * 直接读取 ZooKeeper 获取参数类型（兼容方式）
+     * 元数据由 MethodSignatureResolver 统一缓存，节点变化时由 watch 失效
      */
     private String[] getParameterTypesFromZooKeeper(String interfaceName, String methodName, 
                                                     String version, String group, String application, 
                                                     Object[] args) {
-        if (zooKeeperService == null) {
-            log.warn("⚠️ ZooKeeperService 未注入，无法从 ZooKeeper 获取参数类型");
+        if (methodSignatureResolver == null) {
+            log.warn("⚠️ MethodSignatureResolver 未注入，无法从 ZooKeeper 获取参数类型");
             return null;
         }
         
-        CuratorFramework client = zooKeeperService.getClient();
-        if (client == null) {
-            log.warn("⚠️ ZooKeeper 客户端未初始化，无法从 ZooKeeper 获取参数类型");
+        MethodSignatureResolver.MetadataMethod method = methodSignatureResolver.getMetadataMethod(
+                interfaceName, version, group, application, methodName);
+        if (method == null) {
+            log.warn("⚠️ 所有 ZooKeeper metadata 路径都无法获取参数类型: interface={}, method={}", interfaceName, methodName);
             return null;
         }
         
-        // 构建 metadata 路径（优先使用用户指定的路径格式）
-        List<String> metadataPaths = new ArrayList<>();
-        
-        // 格式1（最高优先级）: /dubbo/metadata/{interfaceName}/{version}/{group}/provider/{application}
-        // 用户指定的实际格式示例：/dubbo/metadata/com.zkinfo.demo.service.UserService/1.0.0/demo/provider/demo-provider
-        if (!group.isEmpty() && !application.isEmpty()) {
-            String path1 = String.format("/dubbo/metadata/%s/%s/%s/provider/%s", 
-                    interfaceName, version, group, application);
-            metadataPaths.add(path1);
-            log.info("   🎯 优先尝试路径1（用户指定格式）: {}", path1);
-        }
-        
-        // 格式2: /dubbo/metadata/{interfaceName}/{version}/provider/{application}
-        if (!application.isEmpty()) {
-            String path2 = String.format("/dubbo/metadata/%s/%s/provider/%s", 
-                    interfaceName, version, application);
-            metadataPaths.add(path2);
-            log.debug("   尝试路径2: {}", path2);
-        }
-        
-        // 格式3: /dubbo/metadata/{interfaceName}/provider/{application}
-        if (!application.isEmpty()) {
-            String path3 = String.format("/dubbo/metadata/%s/provider/%s", 
-                    interfaceName, application);
-            metadataPaths.add(path3);
-            log.debug("   尝试路径3: {}", path3);
-        }
-        
-        // 格式4: /dubbo/metadata/{interfaceName}/provider
-        String path4 = String.format("/dubbo/metadata/%s/provider", interfaceName);
-        metadataPaths.add(path4);
-        log.debug("   尝试路径4: {}", path4);
-        
-        // 尝试读取 metadata
-        for (String metadataPath : metadataPaths) {
-            try {
-                log.debug("   检查路径是否存在: {}", metadataPath);
-                if (client.checkExists().forPath(metadataPath) != null) {
-                    log.info("   ✅ 找到 metadata 路径: {}", metadataPath);
-                    
-                    // 如果是目录，尝试读取目录下的所有节点
-                    if (metadataPath.endsWith("/provider") || metadataPath.endsWith("/provider/")) {
-                        List<String> children = client.getChildren().forPath(metadataPath);
-                        log.debug("   发现 {} 个子节点", children != null ? children.size() : 0);
-                        if (children != null && !children.isEmpty()) {
-                            for (String child : children) {
-                                String childPath = metadataPath + "/" + child;
-                                log.debug("   尝试读取子节点: {}", childPath);
-                                String[] types = parseMetadataForMethod(client, childPath, methodName, args);
-                                if (types != null) {
-                                    log.info("   ✅ 从子节点 {} 成功获取参数类型", childPath);
-                                    return types;
-                                }
-                            }
-                        }
-                    } else {
-                        // 直接读取文件
-                        log.debug("   直接读取文件: {}", metadataPath);
-                        String[] types = parseMetadataForMethod(client, metadataPath, methodName, args);
-                        if (types != null) {
-                            log.info("   ✅ 从文件 {} 成功获取参数类型", metadataPath);
-                            return types;
-                        }
-                    }
-                } else {
-                    log.debug("   ❌ 路径不存在: {}", metadataPath);
-                }
-            } catch (Exception e) {
-                log.warn("   ⚠️ 读取 metadata 路径失败: {}, error: {}", metadataPath, e.getMessage());
-            }
+        List<String> types = method.getParameterTypes();
+        log.info("   ✅ 成功解析 parameterTypes，类型数量: {}，实际参数数量: {}", 
+                types.size(), args != null ? args.length : 0);
+        // 无论参数数量是否匹配，都返回从 metadata 解析出的类型
+        // 因为这是从 ZooKeeper metadata 获取的准确信息
+        if (args != null && types.size() != args.length) {
+            log.warn("   ⚠️ 参数数量不匹配: metadata类型数量={}, 实际参数数量={}，但仍返回metadata中的类型", 
+                    types.size(), args.length);
         }
-        
-        log.warn("⚠️ 所有 ZooKeeper metadata 路径都无法获取参数类型: interface={}, method={}", interfaceName, methodName);
-        return null;
+        return types.toArray(new String[0]);
     }
     
     /**
@@ -1287,89 +1251,6 @@ public class McpExecutorService {
         return null;
     }
     
-    /**
-     * 解析 metadata JSON，提取指定方法的参数类型
-     */
-    private String[] parseMetadataForMethod(CuratorFramework client, String metadataPath, 
-                                           String methodName, Object[] args) {
-        try {
-            byte[] data = client.getData().forPath(metadataPath);
-            if (data == null || data.length == 0) {
-                log.debug("   metadata 数据为空: {}", metadataPath);
-                return null;
-            }
-            
-            String metadataJson = new String(data, StandardCharsets.UTF_8);
-            log.debug("   读取到 metadata JSON，长度: {} 字节", metadataJson.length());
-            
-            // 缓存 metadata
-            String cacheKey = metadataPath;
-            metadataCache.put(cacheKey, metadataJson);
-            
-            // 解析 JSON
-            JsonNode rootNode = objectMapper.readTree(metadataJson);
-            JsonNode methodsNode = rootNode.get("methods");
-            
-            if (methodsNode == null) {
-                log.debug("   metadata 中没有 methods 字段");
-                return null;
-            }
-            
-            if (methodsNode.isArray()) {
-                log.debug("   发现 {} 个方法", methodsNode.size());
-                for (JsonNode methodNode : methodsNode) {
-                    JsonNode nameNode = methodNode.get("name");
-                    if (nameNode != null) {
-                        String currentMethodName = nameNode.asText();
-                        log.debug("   检查方法: {}", currentMethodName);
-                        if (methodName.equals(currentMethodName)) {
-                            // 找到目标方法，深入解析 parameterTypes
-                            log.info("   ✅ 找到方法 {}，开始解析 parameterTypes", methodName);
-                            
-                            JsonNode parameterTypesNode = methodNode.get("parameterTypes");
-                            if (parameterTypesNode != null && parameterTypesNode.isArray()) {
-                                List<String> types = new ArrayList<>();
-                                for (JsonNode typeNode : parameterTypesNode) {
-                                    String type = typeNode.asText();
-                                    types.add(type);
-                                    log.debug("     参数类型[{}]: {}", types.size() - 1, type);
-                                }
-                                
-                                log.info("   ✅ 成功解析 parameterTypes，类型数量: {}，实际参数数量: {}", 
-                                        types.size(), args != null ? args.length : 0);
-                                log.info("   ✅ 参数类型列表: {}", String.join(", ", types));
-                                
-                                // 无论参数数量是否匹配，都返回从 metadata 解析出的类型
-                                // 因为这是从 ZooKeeper metadata 获取的准确信息
-                                if (args != null && types.size() != args.length) {
-                                    log.warn("   ⚠️ 参数数量不匹配: metadata类型数量={}, 实际参数数量={}，但仍返回metadata中的类型", 
-                                            types.size(), args.length);
-                                }
-                                
-                                // 返回解析出的参数类型
-                                return types.toArray(new String[0]);
-                            } else {
-                                log.warn("   ⚠️ 方法 {} 没有 parameterTypes 字段或不是数组", methodName);
-                                // 尝试从其他字段获取参数信息
-                                JsonNode parametersNode = methodNode.get("parameters");
-                                if (parametersNode != null) {
-                                    log.debug("   发现 parameters 字段，尝试从中提取类型信息");
-                                }
-                            }
-                        }
-                    }
-                }
-            } else {
-                log.debug("   methods 不是数组格式");
-            }
-            
-        } catch (Exception e) {
-            log.warn("   ❌ 解析 metadata 失败: path={}, error={}", metadataPath, e.getMessage(), e);
-        }
-        
-        return null;
-    }
-    
     /**
      * 推断参数类型（原有逻辑，作为 fallback）
      * 
@@ -1548,52 +1429,14 @@ public class McpExecutorService {
      * @return 类型的 properties Map，key 为字段名，value 为字段类型
      */
     private Map<String, String> getTypePropertiesFromMetadata(String typeName) {
-        if (zooKeeperService == null || typeName == null) {
+        if (methodSignatureResolver == null || typeName == null) {
             return null;
         }
-        
-        CuratorFramework client = zooKeeperService.getClient();
-        if (client == null) {
-            return null;
-        }
-        
-        try {
-            // 从缓存中查找 metadata
-            for (Map.Entry<String, String> entry : metadataCache.entrySet()) {
-                String metadataJson = entry.getValue();
-                try {
-                    JsonNode rootNode = objectMapper.readTree(metadataJson);
-                    JsonNode typesNode = rootNode.get("types");
-                    
-                    if (typesNode != null && typesNode.isArray()) {
-                        for (JsonNode typeNode : typesNode) {
-                            JsonNode typeNameNode = typeNode.get("type");
-                            if (typeNameNode != null && typeName.equals(typeNameNode.asText())) {
-                                // 找到目标类型，提取 properties
-                                JsonNode propertiesNode = typeNode.get("properties");
-                                if (propertiesNode != null && propertiesNode.isObject()) {
-                                    Map<String, String> properties = new HashMap<>();
-                                    Iterator<Map.Entry<String, JsonNode>> fields = propertiesNode.fields();
-                                    while (fields.hasNext()) {
-                                        Map.Entry<String, JsonNode> field = fields.next();
-                                        properties.put(field.getKey(), field.getValue().asText());
-                                    }
-                                    log.debug("✅ 从 metadata 获取类型 {} 的 {} 个字段", typeName, properties.size());
-                                    return properties;
-                                }
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    log.debug("解析 metadata 缓存失败: {}", e.getMessage());
-                }
-            }
-            
-        } catch (Exception e) {
-            log.debug("从 metadata 获取类型属性失败: type={}, error={}", typeName, e.getMessage());
+        Map<String, String> properties = methodSignatureResolver.getMetadataTypeProperties(typeName);
+        if (properties != null) {
+            log.debug("✅ 从 metadata 获取类型 {} 的 {} 个字段", typeName, properties.size());
         }
-        
-        return null;
+        return properties;
     }
     
     /**
@@ -1663,7 +1506,8 @@ public class McpExecutorService {
     
     /**
      * 获取可用的服务提供者
-     * 优先从 zk_dubbo_* 表查找（包括虚拟项目聚合的 Provider），如果找不到再从 ProviderService 查找
+     * 优先从 zk_dubbo_* 表查找（包括虚拟项目聚合的 Provider），如果找不到再从 ProviderService 查找；
+     * 配置了 zookeeper.local-registry 时本机房注册中心的 Provider 优先
      */
     private ProviderInfo getAvailableProvider(String interfaceName) {
         // 1. 优先从 zk_dubbo_* 表查找（包括虚拟项目聚合的 Provider）
@@ -1676,6 +1520,8 @@ public class McpExecutorService {
                     // 从该服务获取 Provider 列表
                     List<ProviderInfo> providers = dubboServiceDbService.getProvidersByServiceId(service.getId());
                     if (providers != null && !providers.isEmpty()) {
+                        // 本机房注册中心的 Provider 排在前面
+                        providers = providerService.preferLocalRegistry(providers);
                         // 优先返回在线的 Provider
                         ProviderInfo onlineProvider = providers.stream()
                                 .filter(ProviderInfo::isOnline)
@@ -1709,10 +1555,9 @@ public class McpExecutorService {
             }
         }
         
-        // 2. 回退到 ProviderService（实际项目的 Provider）
-        ProviderInfo provider = providerService.getProvidersByInterface(interfaceName)
+        // 2. 回退到 ProviderService（实际项目的 Provider），本机房注册中心优先
+        ProviderInfo provider = providerService.getRoutableProviders(interfaceName, null, null)
                 .stream()
-                .filter(ProviderInfo::isOnline)
                 .findFirst()
                 .orElse(null);
         
@@ -1776,6 +1621,9 @@ public class McpExecutorService {
         final String dubboVersion = detectDubboVersion(provider);
         final boolean groupSupported = isGroupSupported(dubboVersion, provider);
         
+        // Provider 所在的额外注册中心（主注册中心为 null），不同注册中心的引用分开缓存
+        final String registryId = providerService.resolveRegistryId(provider);
+        
         // 构建 cacheKey：如果版本不支持 group，则不包含 group
         String cacheKey;
         if (groupSupported && provider.getGroup() != null && !provider.getGroup().isEmpty()) {
@@ -1784,6 +1632,9 @@ public class McpExecutorService {
             cacheKey = interfaceName + ":" + provider.getVersion();
             log.debug("⚠️ Dubbo 版本 {} 不支持 group，cacheKey 不包含 group: {}", dubboVersion, cacheKey);
         }
+        if (registryId != null) {
+            cacheKey = registryId + "@" + cacheKey;
+        }
         
         // 先尝试从缓存获取，如果存在且已初始化，直接使用
         ReferenceConfig<GenericService> existingRef = referenceCache.get(cacheKey);
@@ -1841,9 +1692,10 @@ public class McpExecutorService {
                     // 重要：不设置 Registry，避免触发订阅机制
                     log.info("🔧 使用直接 URL 方式连接 Dubbo 2.5 Provider（绕过订阅机制）: {}", directUrl);
                 } else {
-                    // Dubbo 2.7+ 使用 ZooKeeper 注册中心（通过 SDK 方式连接）
-                    ref.setRegistry(registryConfig);
-                    log.info("🔧 检测到 Dubbo 2.7+ Provider，使用 ZooKeeper SDK 方式连接");
+                    // Dubbo 2.7+ 使用 Provider 所在的 ZooKeeper 注册中心（通过 SDK 方式连接）
+                    ref.setRegistry(registryConfigFor(registryId));
+                    log.info("🔧 检测到 Dubbo 2.7+ Provider，使用 ZooKeeper SDK 方式连接{}",
+                            registryId != null ? "（注册中心 " + registryId + "）" : "");
                 }
                 
                 // 设置 ProtocolConfig，强制使用 hessian2 序列化
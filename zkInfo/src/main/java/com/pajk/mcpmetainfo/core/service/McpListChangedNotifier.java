@@ -0,0 +1,136 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.mcp.McpProtocol;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工具列表变化通知
+ *
+ * <p>工具目录重建后版本变化时，向本节点上该 endpoint 的 SSE 会话推送
+ * notifications/tools/list_changed，客户端收到后重新调用 tools/list。
+ * 通知走会话出站队列，属于可丢弃消息，慢消费者不会因此被断开。</p>
+ *
+ * <p>按 endpoint 合并：一次滚动发布会让目录多次重建，收到变化后等待 notify-quiet-ms
+ * 内没有新的变化再发送，持续变化时最迟 notify-max-delay-ms 发送一次。
+ * 发送时与窗口开始前的版本比较，变化在窗口内被撤销（下线后又上线）则不发送。</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class McpListChangedNotifier {
+
+    static final String TOOLS_LIST_CHANGED_JSON =
+            "{\"jsonrpc\":\"2.0\",\"method\":\"" + McpProtocol.Methods.TOOLS_LIST_CHANGED + "\"}";
+
+    /**
+     * 通知内容与会话无关，所有会话共享同一个不可变事件
+     */
+    private static final SseOutboundService.OutboundEvent TOOLS_LIST_CHANGED_EVENT =
+            SseOutboundService.OutboundEvent.notification("message", TOOLS_LIST_CHANGED_JSON);
+
+    private final SseOutboundService outboundService;
+    private final McpSessionManager sessionManager;
+
+    @Value("${mcp.catalog.notify-quiet-ms:1000}")
+    private long notifyQuietMs = 1000;
+
+    @Value("${mcp.catalog.notify-max-delay-ms:5000}")
+    private long notifyMaxDelayMs = 5000;
+
+    // endpoint -> 合并窗口
+    private final Map<String, PendingNotification> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService notifyExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "mcp-list-changed");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        notifyExecutor.shutdownNow();
+    }
+
+    @EventListener
+    public void onToolListChanged(McpToolCatalogService.ToolListChangedEvent event) {
+        String endpoint = event.getEndpoint();
+        if (endpoint == null) {
+            return;
+        }
+        if (notifyQuietMs <= 0) {
+            send(endpoint, event.getVersion());
+            return;
+        }
+        long now = System.currentTimeMillis();
+        pending.compute(endpoint, (k, window) -> {
+            PendingNotification current = window != null
+                    ? window : new PendingNotification(event.getPreviousVersion(), now);
+            current.latestVersion = event.getVersion();
+            if (current.future != null) {
+                current.future.cancel(false);
+            }
+            long deadline = Math.min(now + notifyQuietMs, current.openedAt + notifyMaxDelayMs);
+            current.future = notifyExecutor.schedule(() -> flush(endpoint),
+                    Math.max(0, deadline - now), TimeUnit.MILLISECONDS);
+            return current;
+        });
+    }
+
+    /**
+     * 关闭 endpoint 的合并窗口并发送通知
+     */
+    void flush(String endpoint) {
+        PendingNotification window = pending.remove(endpoint);
+        if (window == null) {
+            return;
+        }
+        if (Objects.equals(window.baseVersion, window.latestVersion)) {
+            log.debug("🔁 Tool list change reverted within window, skip notify: endpoint={}, version={}",
+                    endpoint, window.latestVersion);
+            return;
+        }
+        send(endpoint, window.latestVersion);
+    }
+
+    private void send(String endpoint, String version) {
+        List<String> sessionIds = outboundService.getSessionIdsForEndpoint(endpoint);
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        int sent = 0;
+        for (String sessionId : sessionIds) {
+            SseOutboundService.OfferResult result = sessionManager.sendEvent(sessionId, TOOLS_LIST_CHANGED_EVENT);
+            if (result == SseOutboundService.OfferResult.QUEUED) {
+                sent++;
+            }
+        }
+        log.info("📡 Sent tools/list_changed to {}/{} sessions: endpoint={}, version={}",
+                sent, sessionIds.size(), endpoint, version);
+    }
+
+    private static final class PendingNotification {
+        private final String baseVersion;
+        private final long openedAt;
+        private String latestVersion;
+        private ScheduledFuture<?> future;
+
+        private PendingNotification(String baseVersion, long openedAt) {
+            this.baseVersion = baseVersion;
+            this.openedAt = openedAt;
+        }
+    }
+}
@@ -3,13 +3,18 @@ package com.pajk.mcpmetainfo.core.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pajk.mcpmetainfo.core.mcp.McpProtocol;
 import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.core.util.McpPageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -40,8 +45,34 @@ public class McpProtocolService {
     private final McpPromptsService mcpPromptsService;
     private final McpLoggingService mcpLoggingService;
     private final VirtualProjectService virtualProjectService;
+    private final VirtualProjectFileLoader virtualProjectFileLoader;
     private final ObjectMapper objectMapper;
     
+    // tools/list 每页工具数，<= 0 表示不分页
+    @Value("${mcp.pagination.page-size:200}")
+    private int pageSize;
+    
+    // 合并工具列表的兜底刷新间隔（与工具目录一致）
+    @Value("${mcp.catalog.max-age-ms:300000}")
+    private long toolsMaxAgeMs;
+    
+    private volatile CachedTools cachedTools;
+    private final AtomicLong toolsEpoch = new AtomicLong();
+    
+    /**
+     * 保留最近的工具列表快照，翻页期间列表更新时后续页仍从游标对应的版本读取
+     */
+    private static final int RECENT_TOOL_SNAPSHOT_LIMIT = 4;
+    
+    private volatile ToolSnapshot toolSnapshot;
+    
+    private final Map<String, ToolSnapshot> recentToolSnapshots = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ToolSnapshot> eldest) {
+            return size() > RECENT_TOOL_SNAPSHOT_LIMIT;
+        }
+    };
+    
     // 流式调用管理
     private final Map<String, StreamSession> streamSessions = new ConcurrentHashMap<>();
     private final AtomicLong streamIdGenerator = new AtomicLong(1);
@@ -148,24 +179,31 @@ public class McpProtocolService {
                 objectMapper.convertValue(request.getParams(), McpProtocol.ListToolsParams.class) :
                 new McpProtocol.ListToolsParams();
             
-            // 获取所有MCP工具
-            List<McpProtocol.McpTool> tools = getAllMcpTools();
-            
-            // 支持分页（如果有cursor）
-            List<McpProtocol.McpTool> pagedTools = tools;
-            String nextCursor = null;
-            
-            if (params.getCursor() != null) {
-                // 简单的分页实现
-                int startIndex = Integer.parseInt(params.getCursor());
-                int pageSize = 50;
-                int endIndex = Math.min(startIndex + pageSize, tools.size());
-                
-                pagedTools = tools.subList(startIndex, endIndex);
-                if (endIndex < tools.size()) {
-                    nextCursor = String.valueOf(endIndex);
+            // 游标分页：游标携带列表版本，列表更新后旧游标从保留的快照继续读取，快照已淘汰时返回 INVALID_PARAMS
+            ToolSnapshot snapshot = getToolSnapshot();
+            int startIndex = 0;
+            int endIndex;
+            try {
+                if (params.getCursor() != null && !params.getCursor().isEmpty()) {
+                    McpPageCursor cursor = McpPageCursor.decode(params.getCursor());
+                    if (!cursor.getVersion().equals(snapshot.version)) {
+                        synchronized (recentToolSnapshots) {
+                            snapshot = recentToolSnapshots.get(cursor.getVersion());
+                        }
+                        if (snapshot == null) {
+                            throw new IllegalArgumentException("Invalid cursor: tool list version "
+                                    + cursor.getVersion() + " has expired, please restart listing");
+                        }
+                    }
+                    startIndex = cursor.getOffset();
                 }
+                endIndex = McpPageCursor.pageEnd(startIndex, snapshot.tools.size(), pageSize);
+            } catch (IllegalArgumentException e) {
+                return Mono.just(createErrorResponse(request.getId(), 
+                    McpProtocol.ErrorCodes.INVALID_PARAMS, e.getMessage()));
             }
+            List<McpProtocol.McpTool> pagedTools = new ArrayList<>(snapshot.tools.subList(startIndex, endIndex));
+            String nextCursor = endIndex < snapshot.tools.size() ? McpPageCursor.encode(snapshot.version, endIndex) : null;
             
             McpProtocol.ListToolsResult result = McpProtocol.ListToolsResult.builder()
                     .tools(pagedTools)
@@ -533,9 +571,83 @@ public class McpProtocolService {
     /**
      * 获取所有 MCP 工具
      * 
+     * <p>合并结果缓存：工具数据变化事件、本地虚拟项目文件版本变化或超过 max-age-ms 后下次调用重建，
+     * 其余调用直接返回缓存列表。</p>
+     * 
      * @traceability REQ-20260211-003 (加载并合并虚拟配置中的 parameterTypes)
      */
     public List<McpProtocol.McpTool> getAllMcpTools() {
+        CachedTools cached = cachedTools;
+        long fileVersion = virtualProjectFileLoader.getVersion();
+        if (cached != null && cached.fileVersion == fileVersion
+                && System.currentTimeMillis() - cached.builtAt <= toolsMaxAgeMs) {
+            return cached.tools;
+        }
+        long epoch = toolsEpoch.get();
+        List<McpProtocol.McpTool> tools = buildAllMcpTools();
+        if (tools == null) {
+            return new ArrayList<>();
+        }
+        List<McpProtocol.McpTool> result = Collections.unmodifiableList(tools);
+        // 构建期间发生失效时不写回，避免旧数据覆盖
+        if (toolsEpoch.get() == epoch) {
+            cachedTools = new CachedTools(result, fileVersion, System.currentTimeMillis());
+        }
+        return result;
+    }
+    
+    /**
+     * tools/list 快照：按名称排序，版本为序列化后完整工具列表（含描述和 inputSchema）的摘要；
+     * 合并缓存未变化时复用同一快照
+     */
+    private ToolSnapshot getToolSnapshot() {
+        List<McpProtocol.McpTool> tools = getAllMcpTools();
+        ToolSnapshot snapshot = toolSnapshot;
+        if (snapshot != null && snapshot.source == tools) {
+            return snapshot;
+        }
+        List<McpProtocol.McpTool> sorted = new ArrayList<>(tools);
+        sorted.sort(Comparator.comparing(tool -> String.valueOf(tool.getName())));
+        String content;
+        try {
+            content = objectMapper.writeValueAsString(sorted);
+        } catch (Exception e) {
+            content = String.valueOf(sorted);
+        }
+        snapshot = new ToolSnapshot(tools, hash(content), Collections.unmodifiableList(sorted));
+        toolSnapshot = snapshot;
+        synchronized (recentToolSnapshots) {
+            recentToolSnapshots.put(snapshot.version, snapshot);
+        }
+        return snapshot;
+    }
+    
+    private static String hash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                sb.append(String.format("%02x", digest[i]));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            return Integer.toHexString(content.hashCode());
+        }
+    }
+    
+    /**
+     * Provider、方法参数、虚拟项目等工具数据变化：失效合并缓存
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onToolsChanged(McpToolCatalogService.ToolsChangedEvent event) {
+        toolsEpoch.incrementAndGet();
+        cachedTools = null;
+    }
+    
+    /**
+     * 合并 Dubbo 应用、虚拟项目和本地虚拟项目文件中的工具，失败时返回 null
+     */
+    private List<McpProtocol.McpTool> buildAllMcpTools() {
         try {
             // 1. 从 ZooKeeper 获取 Dubbo 服务并转换
             // 使用 LinkedHashMap 保持顺序并去重
@@ -599,106 +711,80 @@ public class McpProtocolService {
                 log.warn("获取虚拟项目服务失败", e);
             }
 
-            // 2. 扫描本地虚拟项目配置 (virtual-projects/*.json)
-            try {
-                java.io.File virtualProjectDir = new java.io.File("virtual-projects");
-                if (!virtualProjectDir.exists() || !virtualProjectDir.isDirectory()) {
-                    virtualProjectDir = new java.io.File("zkInfo/virtual-projects");
-                }
-                if (!virtualProjectDir.exists() || !virtualProjectDir.isDirectory()) {
-                    virtualProjectDir = new java.io.File("zk-mcp-parent/zkInfo/virtual-projects");
-                }
+            // 2. 本地虚拟项目配置 (virtual-projects/*.json)，由 VirtualProjectFileLoader 监听目录增量解析
+            for (VirtualProjectFileLoader.ToolDefinition definition : virtualProjectFileLoader.getTools()) {
+                String toolName = definition.getName();
+                Map<String, Object> inputSchema = definition.getInputSchema();
+                List<String> parameterTypes = definition.getParameterTypes();
                 
-                log.info("🔍 Scanning virtual project directory: {}", virtualProjectDir.getAbsolutePath());
-                if (virtualProjectDir.exists() && virtualProjectDir.isDirectory()) {
-                    java.io.File[] files = virtualProjectDir.listFiles((dir, name) -> name.endsWith(".json"));
-                    if (files != null) {
-                        log.info("🔍 Found {} virtual project files", files.length);
-                        for (java.io.File file : files) {
-                            try {
-                                log.info("🔍 Processing file: {}", file.getName());
-                                Map<String, Object> config = objectMapper.readValue(file, Map.class);
-                                if (config.containsKey("tools")) {
-                                    List<Map<String, Object>> tools = (List<Map<String, Object>>) config.get("tools");
-                                    log.info("🔍 File {} contains {} tools", file.getName(), tools.size());
-                                    for (Map<String, Object> toolMap : tools) {
-                                        String toolName = (String) toolMap.get("toolName");
-                                        if (toolName == null) toolName = (String) toolMap.get("name"); // 兼容旧格式
-                                        
-                                        if (toolName != null) {
-                                            // 解析 inputSchema
-                                            Map<String, Object> inputSchema = null;
-                                            Object schemaObj = toolMap.get("inputSchema");
-                                            if (schemaObj instanceof String) {
-                                                try {
-                                                    // 如果是字符串，解析为 Map
-                                                    inputSchema = objectMapper.readValue((String) schemaObj, Map.class);
-                                                } catch (Exception e) {
-                                                    log.warn("Parsing inputSchema failed for {}", toolName);
-                                                }
-                                            } else if (schemaObj instanceof Map) {
-                                                inputSchema = (Map<String, Object>) schemaObj;
-                                            }
-                                            
-                                            // 解析 parameterTypes list
-                                            List<String> parameterTypes = null;
-                                            if (toolMap.containsKey("parameterTypes")) {
-                                                parameterTypes = (List<String>) toolMap.get("parameterTypes");
-                                            }
-
-                                            // 如果工具已经存在，尝试补充信息（如 parameterTypes）
-                                            McpProtocol.McpTool existing = uniqueTools.get(toolName);
-                                            if (existing != null) {
-                                                if (existing.getParameterTypes() == null || existing.getParameterTypes().isEmpty()) {
-                                                    if (parameterTypes != null && !parameterTypes.isEmpty()) {
-                                                        existing.setParameterTypes(parameterTypes);
-                                                        log.debug("✅ 为已存在的工具补充 parameterTypes: {} -> {}", toolName, parameterTypes);
-                                                    }
-                                                }
-                                                // ✅ 总是更新 inputSchema 和 description，因为虚拟项目的定义通常包含更精确的类型推导信息
-                                                if (inputSchema != null && !inputSchema.isEmpty()) {
-                                                    existing.setInputSchema(inputSchema);
-                                                    log.debug("✅ 为已存在的工具更新 inputSchema: {}", toolName);
-                                                }
-                                                if (toolMap.get("description") != null) {
-                                                    existing.setDescription((String) toolMap.get("description"));
-                                                }
-                                            } else {
-                                                // 如果工具不存在（可能因为 Provider 离线或未注册），添加虚拟工具定义
-                                                // 这样 extractParameterTypes 就能找到它
-                                                McpProtocol.McpTool virtualTool = McpProtocol.McpTool.builder()
-                                                        .name(toolName)
-                                                        .description((String) toolMap.get("description"))
-                                                        .inputSchema(inputSchema) // 可能包含 parameters info
-                                                        .parameterTypes(parameterTypes) // 明确的参数类型
-                                                        .streamable(isStreamable(toolName))
-                                                        .online(true) // 假设虚拟项目都是为了调用在线服务
-                                                        .group("virtual")
-                                                        .version("1.0.0")
-                                                        .build();
-                                                
-                                                uniqueTools.put(toolName, virtualTool);
-                                                log.info("✅ 加载虚拟项目工具定义: {}", toolName);
-                                            }
-                                        }
-                                    }
-                                }
-                            } catch (Exception e) {
-                                log.warn("Failed to parse virtual project config: {}", file.getName(), e);
-                            }
+                // 如果工具已经存在，尝试补充信息（如 parameterTypes）
+                McpProtocol.McpTool existing = uniqueTools.get(toolName);
+                if (existing != null) {
+                    if (existing.getParameterTypes() == null || existing.getParameterTypes().isEmpty()) {
+                        if (parameterTypes != null && !parameterTypes.isEmpty()) {
+                            existing.setParameterTypes(parameterTypes);
+                            log.debug("✅ 为已存在的工具补充 parameterTypes: {} -> {}", toolName, parameterTypes);
                         }
                     }
+                    // ✅ 总是更新 inputSchema 和 description，因为虚拟项目的定义通常包含更精确的类型推导信息
+                    if (inputSchema != null && !inputSchema.isEmpty()) {
+                        existing.setInputSchema(inputSchema);
+                        log.debug("✅ 为已存在的工具更新 inputSchema: {}", toolName);
+                    }
+                    if (definition.getDescription() != null) {
+                        existing.setDescription(definition.getDescription());
+                    }
                 } else {
-                     log.warn("⚠️ virtual-projects directory does not exist or is not a directory: {}", virtualProjectDir.getAbsolutePath());
+                    // 如果工具不存在（可能因为 Provider 离线或未注册），添加虚拟工具定义
+                    // 这样 extractParameterTypes 就能找到它
+                    McpProtocol.McpTool virtualTool = McpProtocol.McpTool.builder()
+                            .name(toolName)
+                            .description(definition.getDescription())
+                            .inputSchema(inputSchema) // 可能包含 parameters info
+                            .parameterTypes(parameterTypes) // 明确的参数类型
+                            .streamable(isStreamable(toolName))
+                            .online(true) // 假设虚拟项目都是为了调用在线服务
+                            .group("virtual")
+                            .version("1.0.0")
+                            .build();
+                    
+                    uniqueTools.put(toolName, virtualTool);
+                    log.debug("✅ 加载虚拟项目工具定义: {}", toolName);
                 }
-            } catch (Exception e) {
-                log.warn("Failed to scan virtual projects", e);
             }
             
             return new ArrayList<>(uniqueTools.values());
         } catch (Exception e) {
             log.error("获取MCP工具列表失败", e);
-            return new ArrayList<>();
+            return null;
+        }
+    }
+    
+    /**
+     * tools/list 快照（不可变）
+     */
+    private static final class ToolSnapshot {
+        // 生成快照的合并缓存列表，用于判断缓存是否已更新
+        private final List<McpProtocol.McpTool> source;
+        private final String version;
+        private final List<McpProtocol.McpTool> tools;
+        
+        private ToolSnapshot(List<McpProtocol.McpTool> source, String version, List<McpProtocol.McpTool> tools) {
+            this.source = source;
+            this.version = version;
+            this.tools = tools;
+        }
+    }
+    
+    private static final class CachedTools {
+        private final List<McpProtocol.McpTool> tools;
+        private final long fileVersion;
+        private final long builtAt;
+        
+        private CachedTools(List<McpProtocol.McpTool> tools, long fileVersion, long builtAt) {
+            this.tools = tools;
+            this.fileVersion = fileVersion;
+            this.builtAt = builtAt;
         }
     }
 
@@ -868,6 +954,8 @@ public class McpProtocolService {
             
             return mcpResourcesService.listResources(params)
                 .map(result -> createSuccessResponse(request.getId(), result))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(createErrorResponse(request.getId(), 
+                    McpProtocol.ErrorCodes.INVALID_PARAMS, e.getMessage())))
                 .onErrorReturn(createErrorResponse(request.getId(), 
                     McpProtocol.ErrorCodes.INTERNAL_ERROR, 
                     "获取资源列表失败"));
@@ -2,11 +2,16 @@ package com.pajk.mcpmetainfo.core.service;
 
 import com.pajk.mcpmetainfo.core.mcp.McpProtocol;
 import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.core.util.McpPageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
@@ -27,25 +32,134 @@ public class McpResourcesService {
     
     // 资源缓存
     private final Map<String, McpProtocol.McpResource> resourceCache = new ConcurrentHashMap<>();
+    
+    /**
+     * resources/list 每页资源数，<= 0 表示不分页
+     */
+    @Value("${mcp.pagination.page-size:200}")
+    private int pageSize;
+    
+    /**
+     * 资源列表快照最长使用时间（Provider 在线状态变化不发布事件，靠过期刷新）
+     */
+    private static final long SNAPSHOT_MAX_AGE_MS = 30_000;
+    
+    /**
+     * 保留最近的快照，翻页期间列表更新时后续页仍从游标对应的版本读取
+     */
+    private static final int RECENT_SNAPSHOT_LIMIT = 4;
+    
+    private volatile ResourceSnapshot currentSnapshot;
+    
+    private final Map<String, ResourceSnapshot> recentSnapshots = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ResourceSnapshot> eldest) {
+            return size() > RECENT_SNAPSHOT_LIMIT;
+        }
+    };
 
     /**
-     * 列出所有可用资源
+     * 列出所有可用资源（按 uri 稳定排序，游标分页）
      */
     public Mono<McpProtocol.ListResourcesResult> listResources(McpProtocol.ListResourcesParams params) {
-        log.info("列出资源: cursor={}", params.getCursor());
+        String cursor = params != null ? params.getCursor() : null;
+        log.info("列出资源: cursor={}", cursor);
         
-        List<ProviderInfo> providers = providerService.getAllProviders();
-        List<McpProtocol.McpResource> resources = providers.stream()
+        try {
+            ResourceSnapshot snapshot = getSnapshot();
+            int offset = 0;
+            if (cursor != null && !cursor.isEmpty()) {
+                McpPageCursor pageCursor = McpPageCursor.decode(cursor);
+                if (!pageCursor.getVersion().equals(snapshot.version)) {
+                    synchronized (recentSnapshots) {
+                        snapshot = recentSnapshots.get(pageCursor.getVersion());
+                    }
+                    if (snapshot == null) {
+                        return Mono.error(new IllegalArgumentException("Invalid cursor: resource list version "
+                                + pageCursor.getVersion() + " has expired, please restart listing"));
+                    }
+                }
+                offset = pageCursor.getOffset();
+            }
+            int end = McpPageCursor.pageEnd(offset, snapshot.resources.size(), pageSize);
+            String nextCursor = end < snapshot.resources.size() ? McpPageCursor.encode(snapshot.version, end) : null;
+            
+            return Mono.just(McpProtocol.ListResourcesResult.builder()
+                    .resources(new ArrayList<>(snapshot.resources.subList(offset, end)))
+                    .nextCursor(nextCursor)
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+    }
+    
+    /**
+     * Provider 变化时丢弃资源列表快照，下次请求重建
+     */
+    @EventListener
+    public void onProvidersChanged(McpToolCatalogService.ToolsChangedEvent event) {
+        if (event.getScope() != McpToolCatalogService.ToolsChangedEvent.Scope.SERVICE) {
+            currentSnapshot = null;
+        }
+    }
+    
+    private ResourceSnapshot getSnapshot() {
+        ResourceSnapshot snapshot = currentSnapshot;
+        if (snapshot != null && System.currentTimeMillis() - snapshot.builtAt <= SNAPSHOT_MAX_AGE_MS) {
+            return snapshot;
+        }
+        
+        List<McpProtocol.McpResource> resources = providerService.getAllProviders().stream()
                 .map(this::createResourceFromProvider)
                 .collect(Collectors.toList());
         
         // 添加系统资源
         resources.addAll(getSystemResources());
         
-        return Mono.just(McpProtocol.ListResourcesResult.builder()
-                .resources(resources)
-                .nextCursor(null) // 简化实现，不支持分页
-                .build());
+        // 稳定顺序：保证同一内容的分页结果和版本号一致
+        resources.sort(Comparator.comparing(McpResourcesService::sortKey));
+        StringBuilder content = new StringBuilder();
+        for (McpProtocol.McpResource resource : resources) {
+            content.append(sortKey(resource)).append('|').append(resource.getMetadata()).append('\n');
+        }
+        
+        snapshot = new ResourceSnapshot(hash(content.toString()), Collections.unmodifiableList(resources));
+        currentSnapshot = snapshot;
+        synchronized (recentSnapshots) {
+            recentSnapshots.put(snapshot.version, snapshot);
+        }
+        return snapshot;
+    }
+    
+    private static String sortKey(McpProtocol.McpResource resource) {
+        return resource.getUri() + "|" + resource.getDescription();
+    }
+    
+    private static String hash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                sb.append(String.format("%02x", digest[i]));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            return Integer.toHexString(content.hashCode());
+        }
+    }
+    
+    /**
+     * 资源列表快照（不可变）
+     */
+    private static final class ResourceSnapshot {
+        private final String version;
+        private final List<McpProtocol.McpResource> resources;
+        private final long builtAt = System.currentTimeMillis();
+        
+        private ResourceSnapshot(String version, List<McpProtocol.McpResource> resources) {
+            this.version = version;
+            this.resources = resources;
+        }
     }
 
     /**
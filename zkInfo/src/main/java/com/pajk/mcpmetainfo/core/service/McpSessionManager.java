@@ -25,6 +25,9 @@ import java.util.concurrent.ConcurrentHashMap;
 public class McpSessionManager {
     
     private final SessionRedisRepository sessionRepository;
+    private final SseKeepaliveService keepaliveService;
+    private final SseOutboundService outboundService;
+    private final SseReplayBuffer replayBuffer;
     private final String instanceId;
     
     // sessionId -> SSE Sink映射（WebFlux 模式，内存中保留）
@@ -34,8 +37,14 @@ public class McpSessionManager {
     private final Map<String, org.springframework.web.servlet.mvc.method.annotation.SseEmitter> sseEmitterMap = new ConcurrentHashMap<>();
     
     public McpSessionManager(SessionRedisRepository sessionRepository,
-                             SessionInstanceIdProvider instanceIdProvider) {
+                             SessionInstanceIdProvider instanceIdProvider,
+                             SseKeepaliveService keepaliveService,
+                             SseOutboundService outboundService,
+                             SseReplayBuffer replayBuffer) {
         this.sessionRepository = sessionRepository;
+        this.keepaliveService = keepaliveService;
+        this.outboundService = outboundService;
+        this.replayBuffer = replayBuffer;
         this.instanceId = instanceIdProvider.getInstanceId();
     }
     
@@ -57,6 +66,7 @@ public class McpSessionManager {
             return;
         }
         sinkMap.put(sessionId, sink);
+        replayBuffer.attach(sessionId);
         // 保存到 Redis
         SessionMeta meta = new SessionMeta(sessionId, instanceId, null, null, "SSE", endpoint, LocalDateTime.now(), true);
         sessionRepository.saveSessionMeta(meta);
@@ -72,6 +82,7 @@ public class McpSessionManager {
             return;
         }
         sseEmitterMap.put(sessionId, emitter);
+        replayBuffer.attach(sessionId);
         // 保存到 Redis
         SessionMeta meta = new SessionMeta(sessionId, instanceId, null, null, "SSE", endpoint, LocalDateTime.now(), true);
         sessionRepository.saveSessionMeta(meta);
@@ -132,6 +143,119 @@ public class McpSessionManager {
         return sseEmitterMap.get(sessionId);
     }
     
+    /**
+     * 为 WebMVC SseEmitter 创建出站队列，之后所有写入都由队列的单一写线程完成
+     *
+     * @param onDisconnect 慢消费、写入失败或卡死被断开时的清理回调
+     */
+    public void openOutbound(String sessionId, String endpoint,
+                             org.springframework.web.servlet.mvc.method.annotation.SseEmitter emitter,
+                             Runnable onDisconnect) {
+        if (emitter == null) {
+            return;
+        }
+        outboundService.open(sessionId, endpoint, event -> {
+            org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder builder =
+                    org.springframework.web.servlet.mvc.method.annotation.SseEmitter.event();
+            if (event.isComment()) {
+                builder.comment(event.getData());
+            } else {
+                if (event.getId() != null) {
+                    builder.id(event.getId());
+                }
+                if (event.getName() != null) {
+                    builder.name(event.getName());
+                }
+                builder.data(event.getData());
+            }
+            emitter.send(builder);
+            return true;
+        }, onDisconnect);
+    }
+
+    /**
+     * 为 WebFlux Sink 创建出站队列，Sink 缓冲区满时由出站队列承接积压并稍后重试
+     */
+    public void openOutbound(String sessionId, String endpoint,
+                             Sinks.Many<ServerSentEvent<String>> sink,
+                             Runnable onDisconnect) {
+        if (sink == null) {
+            return;
+        }
+        outboundService.open(sessionId, endpoint, event -> {
+            ServerSentEvent.Builder<String> builder = ServerSentEvent.builder();
+            if (event.isComment()) {
+                builder.comment(event.getData());
+            } else {
+                if (event.getId() != null) {
+                    builder.id(event.getId());
+                }
+                if (event.getName() != null) {
+                    builder.event(event.getName());
+                }
+                builder.data(event.getData());
+            }
+            Sinks.EmitResult result = sink.tryEmitNext(builder.build());
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW || result == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+                return false;
+            }
+            if (result.isFailure()) {
+                throw new IllegalStateException("SSE sink emit failed: " + result);
+            }
+            return true;
+        }, onDisconnect);
+    }
+
+    /**
+     * 通过会话出站队列发送事件
+     * 心跳以外的事件分配单调递增的事件 ID 并写入续传缓冲区，连接断开期间产生的响应可在重连后补发
+     */
+    public SseOutboundService.OfferResult sendEvent(String sessionId, SseOutboundService.OutboundEvent event) {
+        if (event == null || event.isHeartbeat()) {
+            return outboundService.offer(sessionId, event);
+        }
+        return replayBuffer.append(sessionId, event, e -> outboundService.offer(sessionId, e));
+    }
+
+    /**
+     * 发送 endpoint 事件（endpoint 事件本身不进入续传缓冲区）
+     * 新会话使用当前最新事件 ID；续传时沿用客户端的 Last-Event-ID，补发完成前再次断开也不会跳过事件
+     */
+    public SseOutboundService.OfferResult sendEndpointEvent(String sessionId, String messageEndpoint, String resumeEventId) {
+        String eventId = resumeEventId != null ? resumeEventId : replayBuffer.currentEventId(sessionId);
+        return outboundService.offer(sessionId, SseOutboundService.OutboundEvent.named(eventId, "endpoint", messageEndpoint));
+    }
+
+    /**
+     * 会话当前最新的事件 ID
+     */
+    public String currentEventId(String sessionId) {
+        return replayBuffer.currentEventId(sessionId);
+    }
+
+    /**
+     * 根据 Last-Event-ID 判断是否可以续传原会话
+     * 只有续传令牌匹配、且原连接已断开的会话才能续传；会话在 Redis 中仍有元数据说明其他节点上仍在连接中
+     *
+     * @return 可续传时返回原 sessionId，否则返回 null（调用方新建会话）
+     */
+    public String resolveResumableSessionId(String lastEventId) {
+        return replayBuffer.tryResume(lastEventId, sessionId -> sessionRepository.findSession(sessionId).isPresent());
+    }
+
+    /**
+     * 补发 Last-Event-ID 之后的事件（需在 openOutbound 之后调用）
+     *
+     * @return 补发的事件数
+     */
+    public int replayMissedEvents(String sessionId, String lastEventId) {
+        int count = replayBuffer.replay(sessionId, lastEventId, e -> outboundService.offer(sessionId, e));
+        if (count > 0) {
+            log.info("🔁 Replayed {} missed SSE events: sessionId={}, lastEventId={}", count, sessionId, lastEventId);
+        }
+        return count;
+    }
+
     /**
      * 更新会话活跃时间（参考 mcp-router-v3 的 touch）
      */
@@ -195,6 +319,21 @@ public class McpSessionManager {
         return sinkMap.get(sessionId);
     }
     
+    /**
+     * 清理指定连接对应的 Session
+     * 会话已通过 Last-Event-ID 续传到新连接时，旧连接的回调不再清理会话
+     */
+    public void removeSession(String sessionId, Object connection) {
+        if (!StringUtils.hasText(sessionId)) {
+            return;
+        }
+        if (connection != null && sinkMap.get(sessionId) != connection && sseEmitterMap.get(sessionId) != connection) {
+            log.debug("Skip removing session {}, connection already replaced by a resumed stream", sessionId);
+            return;
+        }
+        removeSession(sessionId);
+    }
+
     /**
      * 清理Session（参考 mcp-router-v3 的 removeSession）
      */
@@ -202,7 +341,11 @@ public class McpSessionManager {
         if (!StringUtils.hasText(sessionId)) {
             return;
         }
-        // 清理内存中的连接对象
+        // 取消心跳并清理内存中的连接对象
+        keepaliveService.unregister(sessionId);
+        outboundService.close(sessionId);
+        // 续传缓冲区保留 retention 时间，客户端重连后可补发断开期间的事件
+        replayBuffer.detach(sessionId);
         Sinks.Many<ServerSentEvent<String>> sink = sinkMap.remove(sessionId);
         org.springframework.web.servlet.mvc.method.annotation.SseEmitter emitter = sseEmitterMap.remove(sessionId);
         
@@ -0,0 +1,711 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpmetainfo.core.model.ProjectService;
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.core.util.McpPageCursor;
+import com.pajk.mcpmetainfo.core.util.McpSchemaDefs;
+import com.pajk.mcpmetainfo.core.util.McpToolSchemaGenerator;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * MCP 工具目录服务
+ *
+ * <p>按 endpoint 预先构建不可变的 tools/list 目录：工具按名称排序并逐个预序列化，附带内容版本号。
+ * tools/list 只读取内存并拼接已序列化的 JSON，不再每次解析 endpoint、查询 Nacos 或重新生成 inputSchema。
+ * 按名称的稳定顺序支持游标分页，游标携带目录版本。</p>
+ *
+ * <p>构建时按 endpoint 对 inputSchema 中重复的 POJO 结构做 $defs 去重（mcp.catalog.schema-refs=refs），
+ * 无法解析 $ref 的客户端可配置为 inline；每个目录附带 Schema 尺寸报告。</p>
+ *
+ * <p>ZooKeeper Provider、数据库方法/参数、Nacos 工具配置发生变化时发布 {@link ToolsChangedEvent}，
+ * 只把依赖该接口 / 服务的 endpoint 标记为待重建，并在短暂合并后后台重建；重建完成前继续返回旧目录，
+ * 新目录构建完成后原子替换，变更高峰期 tools/list 仍然只读内存。目录缺失时同一 endpoint 只有一个线程同步构建，
+ * 其他并发请求等待同一次构建结果。
+ * 重建后版本变化时发布 {@link ToolListChangedEvent}，用于向该 endpoint 的会话推送 list_changed。</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class McpToolCatalogService {
+
+    private final EndpointResolver endpointResolver;
+    private final VirtualProjectRegistrationService virtualProjectRegistrationService;
+    private final ProjectManagementService projectManagementService;
+    private final ProviderService providerService;
+    private final McpToolSchemaGenerator mcpToolSchemaGenerator;
+    private final ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${mcp.catalog.enabled:true}")
+    private boolean catalogEnabled;
+
+    /**
+     * 目录最长使用时间，超过后后台重建（兜底其他节点修改 Nacos 配置等收不到本地事件的场景）
+     */
+    @Value("${mcp.catalog.max-age-ms:300000}")
+    private long maxAgeMs;
+
+    /**
+     * 失效后合并重建的延迟，批量 Provider 变化只触发一次重建
+     */
+    @Value("${mcp.catalog.rebuild-delay-ms:200}")
+    private long rebuildDelayMs;
+
+    /**
+     * tools/list 每页工具数，<= 0 表示不分页
+     */
+    @Value("${mcp.pagination.page-size:200}")
+    private int pageSize;
+
+    /**
+     * inputSchema 输出模式：refs（重复的 POJO 结构用 $ref + $defs）/ inline（全部内联）
+     */
+    @Value("${mcp.catalog.schema-refs:refs}")
+    private String schemaRefs = McpSchemaDefs.MODE_REFS;
+
+    /**
+     * 保留的旧版本目录数，翻页期间目录重建时后续页仍从游标对应的版本读取
+     */
+    private static final int RETIRED_CATALOG_LIMIT = 64;
+
+    private final Map<String, ToolCatalog> catalogs = new ConcurrentHashMap<>();
+    private final Map<String, ToolCatalog> retiredCatalogs = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ToolCatalog> eldest) {
+            return size() > RETIRED_CATALOG_LIMIT;
+        }
+    };
+    private final Map<String, AtomicLong> epochs = new ConcurrentHashMap<>();
+    // endpoint -> 失效前的版本，重建后比较决定是否通知 list_changed
+    private final Map<String, String> versionsBeforeChange = new ConcurrentHashMap<>();
+    private final Set<String> pendingRebuild = ConcurrentHashMap.newKeySet();
+    // endpoint -> 进行中的同步构建，目录缺失时并发请求共用
+    private final Map<String, CompletableFuture<ToolCatalog>> inflightBuilds = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean(false);
+
+    private final ScheduledExecutorService rebuildExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "mcp-tool-catalog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * 获取 endpoint 的工具目录，不存在时同步构建（同一 endpoint 同时只构建一次）；
+     * 已标记待重建的目录在后台重建完成前继续返回
+     */
+    public ToolCatalog getCatalog(String endpoint) {
+        if (endpoint == null || endpoint.isEmpty()) {
+            return ToolCatalog.EMPTY;
+        }
+        if (!catalogEnabled) {
+            return build(endpoint);
+        }
+        ToolCatalog catalog = catalogs.get(endpoint);
+        if (catalog != null) {
+            if (System.currentTimeMillis() - catalog.getBuiltAt() > maxAgeMs) {
+                scheduleRebuild(Collections.singleton(endpoint));
+            }
+            return catalog;
+        }
+        return buildOnce(endpoint);
+    }
+
+    private ToolCatalog buildOnce(String endpoint) {
+        CompletableFuture<ToolCatalog> build = new CompletableFuture<>();
+        CompletableFuture<ToolCatalog> running = inflightBuilds.putIfAbsent(endpoint, build);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            // 等待期间其他线程可能已完成构建
+            ToolCatalog catalog = catalogs.get(endpoint);
+            if (catalog == null) {
+                catalog = buildAndPublish(endpoint);
+            }
+            build.complete(catalog);
+            return catalog;
+        } catch (RuntimeException e) {
+            build.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflightBuilds.remove(endpoint, build);
+        }
+    }
+
+    /**
+     * 获取 tools/list 的一页
+     *
+     * @param cursor 上一页返回的 nextCursor，首页为 null
+     * @throws IllegalArgumentException 游标无效或对应版本已过期（调用方返回 -32602）
+     */
+    public ToolPage getToolsPage(String endpoint, String cursor) {
+        ToolCatalog catalog = getCatalog(endpoint);
+        int offset = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            McpPageCursor pageCursor = McpPageCursor.decode(cursor);
+            if (!pageCursor.getVersion().equals(catalog.getVersion())) {
+                ToolCatalog retired;
+                synchronized (retiredCatalogs) {
+                    retired = retiredCatalogs.get(endpoint + "@" + pageCursor.getVersion());
+                }
+                if (retired == null) {
+                    throw new IllegalArgumentException("Invalid cursor: tool list version "
+                            + pageCursor.getVersion() + " has expired, please restart listing");
+                }
+                catalog = retired;
+            }
+            offset = pageCursor.getOffset();
+        }
+        int end = McpPageCursor.pageEnd(offset, catalog.size(), pageSize);
+        String nextCursor = end < catalog.size() ? McpPageCursor.encode(catalog.getVersion(), end) : null;
+        return new ToolPage(catalog, offset, end, nextCursor);
+    }
+
+    /**
+     * 使用预序列化的工具 JSON 生成 tools/list 响应
+     */
+    public String toToolsListResponse(ToolPage page, Object id) throws Exception {
+        String idJson = objectMapper.writeValueAsString(id);
+        String toolsJson = page.isComplete() ? page.getCatalog().getToolsJson()
+                : "[" + String.join(",", page.getCatalog().getToolJsons().subList(page.getOffset(), page.getEnd())) + "]";
+        StringBuilder sb = new StringBuilder(toolsJson.length() + idJson.length() + 96);
+        sb.append("{\"jsonrpc\":\"2.0\",\"id\":").append(idJson)
+                .append(",\"result\":{\"tools\":").append(toolsJson);
+        if (page.getNextCursor() != null) {
+            sb.append(",\"nextCursor\":\"").append(page.getNextCursor()).append('"');
+        }
+        sb.append("}}");
+        return sb.toString();
+    }
+
+    /**
+     * 工具数据变化：只把受影响的 endpoint 标记为待重建
+     * 事务内发布时在提交后执行，避免重建读到未提交的数据
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onToolsChanged(ToolsChangedEvent event) {
+        Set<String> affected = new HashSet<>();
+        for (ToolCatalog catalog : catalogs.values()) {
+            if (catalog.dependsOn(event)) {
+                affected.add(catalog.getEndpoint());
+            }
+        }
+        if (affected.isEmpty()) {
+            return;
+        }
+        for (String endpoint : affected) {
+            invalidate(endpoint);
+        }
+        log.debug("🧹 Tool catalog invalidated by {} {}: {}", event.getScope(), event.getKey(), affected);
+        scheduleRebuild(affected);
+    }
+
+    /**
+     * 标记单个 endpoint 的目录待重建：旧目录继续提供服务，直到后台重建原子替换；
+     * 变化前开始的构建结果不再写回
+     */
+    public void invalidate(String endpoint) {
+        epochs.computeIfAbsent(endpoint, k -> new AtomicLong()).incrementAndGet();
+        ToolCatalog current = catalogs.get(endpoint);
+        if (current != null) {
+            versionsBeforeChange.putIfAbsent(endpoint, current.getVersion());
+        }
+    }
+
+    private void retire(ToolCatalog catalog) {
+        if (catalog == null) {
+            return;
+        }
+        synchronized (retiredCatalogs) {
+            retiredCatalogs.put(catalog.getEndpoint() + "@" + catalog.getVersion(), catalog);
+        }
+    }
+
+    /**
+     * endpoint 工具 Schema 尺寸报告（inline / refs / 共享定义表三种体积）
+     */
+    public McpSchemaDefs.SizeReport getSchemaSizeReport(String endpoint) {
+        return getCatalog(endpoint).getSchemaReport();
+    }
+
+    public String getSchemaRefsMode() {
+        return schemaRefs;
+    }
+
+    public int getCatalogCount() {
+        return catalogs.size();
+    }
+
+    /**
+     * 当前缓存的全部目录（写本地快照用）
+     */
+    public List<ToolCatalog> getCatalogs() {
+        return new ArrayList<>(catalogs.values());
+    }
+
+    /**
+     * 从本地快照恢复目录；endpoint 已有目录时不覆盖。恢复后立即安排后台重建，
+     * 与数据库和当前 Provider 对账，内容有变化时按正常流程通知 list_changed
+     */
+    public void restoreCatalog(String endpoint, String mcpServiceName, List<Map<String, Object>> tools, Set<String> interfaces) {
+        if (!catalogEnabled) {
+            return;
+        }
+        ToolCatalog catalog = ToolCatalog.of(endpoint, mcpServiceName, tools, interfaces, true,
+                McpSchemaDefs.SizeReport.EMPTY, objectMapper);
+        if (catalogs.putIfAbsent(endpoint, catalog) == null) {
+            scheduleRebuild(Collections.singleton(endpoint));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void scheduleRebuild(Set<String> endpoints) {
+        pendingRebuild.addAll(endpoints);
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.schedule(this::rebuildPending, rebuildDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void rebuildPending() {
+        rebuildScheduled.set(false);
+        List<String> endpoints = new ArrayList<>(pendingRebuild);
+        pendingRebuild.removeAll(endpoints);
+        for (String endpoint : endpoints) {
+            try {
+                ToolCatalog previous = catalogs.get(endpoint);
+                String before = versionsBeforeChange.remove(endpoint);
+                if (before == null && previous != null) {
+                    before = previous.getVersion();
+                }
+                ToolCatalog rebuilt = buildAndPublish(endpoint);
+                if (rebuilt.isCacheable() && catalogs.get(endpoint) != rebuilt) {
+                    // 构建期间又有变化，结果未写回；由已安排的下一次重建通知
+                    if (before != null) {
+                        versionsBeforeChange.putIfAbsent(endpoint, before);
+                    }
+                    continue;
+                }
+                if (before == null || !before.equals(rebuilt.getVersion())) {
+                    log.info("🔁 Tool catalog rebuilt: endpoint={}, tools={}, version={}",
+                            endpoint, rebuilt.size(), rebuilt.getVersion());
+                }
+                if (before != null && !before.equals(rebuilt.getVersion()) && eventPublisher != null) {
+                    eventPublisher.publishEvent(new ToolListChangedEvent(endpoint, before, rebuilt.getVersion()));
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ Failed to rebuild tool catalog for endpoint {}: {}", endpoint, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 构建并原子替换目录；构建期间 endpoint 又发生变化时不覆盖，避免旧数据写回（后续重建会再次写入）
+     */
+    private ToolCatalog buildAndPublish(String endpoint) {
+        long epoch = epochs.computeIfAbsent(endpoint, k -> new AtomicLong()).get();
+        ToolCatalog built = build(endpoint);
+        if (!built.isCacheable()) {
+            return built;
+        }
+        ToolCatalog[] replaced = new ToolCatalog[1];
+        catalogs.compute(endpoint, (k, existing) -> {
+            if (epochs.get(endpoint).get() != epoch) {
+                return existing;
+            }
+            replaced[0] = existing;
+            return built;
+        });
+        if (replaced[0] != null && !replaced[0].getVersion().equals(built.getVersion())) {
+            retire(replaced[0]);
+        }
+        return built;
+    }
+
+    /**
+     * 解析 endpoint 并生成工具列表：虚拟项目从 Nacos 配置获取（无配置时回退 DB），实际项目从 Provider 生成
+     */
+    ToolCatalog build(String endpoint) {
+        List<Map<String, Object>> tools = new ArrayList<>();
+        Set<String> interfaces = new HashSet<>();
+        String mcpServiceName = null;
+        boolean cacheable = false;
+        try {
+            Optional<EndpointResolver.EndpointInfo> endpointInfoOpt = endpointResolver.resolveEndpoint(endpoint);
+            if (endpointInfoOpt.isPresent()) {
+                EndpointResolver.EndpointInfo endpointInfo = endpointInfoOpt.get();
+                mcpServiceName = endpointInfo.getMcpServiceName();
+                if (endpointInfo.isVirtualProject()) {
+                    tools = virtualProjectRegistrationService.getVirtualProjectToolsByEndpointName(endpoint);
+                    if (tools.isEmpty() && endpointInfo.getProjectId() != null) {
+                        log.warn("⚠️ No tools found in Nacos Config for virtual project '{}', falling back to DB generation", endpoint);
+                        tools = generateToolsFromProjectId(endpointInfo.getProjectId(), interfaces);
+                    }
+                } else if (endpointInfo.getProjectId() != null) {
+                    tools = generateToolsFromProjectId(endpointInfo.getProjectId(), interfaces);
+                } else {
+                    log.warn("⚠️ Real project endpoint found but projectId is null: {}", endpoint);
+                }
+                cacheable = true;
+            } else {
+                log.warn("⚠️ Endpoint not resolved: {}", endpoint);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to get tools for endpoint: {}", endpoint, e);
+            cacheable = false;
+        }
+
+        for (Map<String, Object> tool : tools) {
+            Object name = tool.get("name");
+            if (name instanceof String toolName && toolName.lastIndexOf('.') > 0) {
+                interfaces.add(toolName.substring(0, toolName.lastIndexOf('.')));
+            }
+        }
+        McpSchemaDefs.Result compacted = McpSchemaDefs.compact(tools, schemaRefs, objectMapper);
+        McpSchemaDefs.SizeReport report = compacted.getReport();
+        if (report.getSharedDefinitionCount() > 0) {
+            log.debug("Tool schema size for endpoint {}: inline={}B, refs={}B, shared={}B, definitions={}",
+                    endpoint, report.getInlineBytes(), report.getRefsBytes(), report.getSharedBytes(),
+                    report.getSharedDefinitionCount());
+        }
+        return ToolCatalog.of(endpoint, mcpServiceName, compacted.getTools(), interfaces, cacheable, report, objectMapper);
+    }
+
+    /**
+     * 根据项目 ID 生成工具列表（从 DB 和 ProviderService）
+     */
+    private List<Map<String, Object>> generateToolsFromProjectId(Long projectId, Set<String> interfaces) {
+        List<Map<String, Object>> tools = new ArrayList<>();
+        List<ProjectService> projectServices = projectManagementService.getProjectServices(projectId);
+        log.info("📋 Found {} services in project (projectId: {})", projectServices.size(), projectId);
+        mcpToolSchemaGenerator.preloadMethodSignatures(projectServices.stream()
+                .map(ProjectService::getServiceInterface)
+                .collect(Collectors.toList()));
+
+        for (ProjectService projectService : projectServices) {
+            String serviceInterface = projectService.getServiceInterface();
+            String version = projectService.getServiceVersion();
+            String group = projectService.getServiceGroup();
+            interfaces.add(serviceInterface);
+
+            try {
+                List<ProviderInfo> providers = providerService.getProvidersByService(serviceInterface, version, group);
+                if (providers.isEmpty()) {
+                    log.warn("⚠️ No providers found for service {}:{}:{}", serviceInterface, version, group);
+                    continue;
+                }
+
+                // 同一接口的多个 Provider 只生成一次工具
+                Set<String> processedMethods = new HashSet<>();
+                for (ProviderInfo provider : providers) {
+                    if (provider.getMethods() == null || provider.getMethods().isEmpty()) {
+                        log.warn("⚠️ Provider {}:{} has no methods", provider.getInterfaceName(), provider.getVersion());
+                        continue;
+                    }
+                    for (String method : provider.getMethods().split(",")) {
+                        String methodTrimmed = method.trim();
+                        String toolKey = provider.getInterfaceName() + "." + methodTrimmed;
+                        if (!processedMethods.add(toolKey)) {
+                            continue;
+                        }
+                        Map<String, Object> tool = new HashMap<>();
+                        tool.put("name", toolKey);
+                        String dbDesc = mcpToolSchemaGenerator.getMethodDescriptionFromDb(provider.getInterfaceName(), methodTrimmed);
+                        tool.put("description", (dbDesc != null && !dbDesc.isBlank())
+                                ? dbDesc
+                                : String.format("调用 %s 服务的 %s 方法", provider.getInterfaceName(), methodTrimmed));
+                        tool.put("inputSchema", mcpToolSchemaGenerator.createInputSchemaFromMethod(
+                                provider.getInterfaceName(), methodTrimmed));
+                        tools.add(tool);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Failed to get tools for service: {}:{}:{}", serviceInterface, version, group, e);
+            }
+        }
+        return tools;
+    }
+
+    /**
+     * 不可变的 endpoint 工具目录
+     */
+    public static final class ToolCatalog {
+
+        static final ToolCatalog EMPTY = new ToolCatalog(null, null, Collections.emptyList(),
+                Collections.emptyList(), "[]", "0", Collections.emptySet(), false, McpSchemaDefs.SizeReport.EMPTY);
+
+        private final String endpoint;
+        private final String mcpServiceName;
+        private final List<Map<String, Object>> tools;
+        private final List<String> toolJsons;
+        private final String toolsJson;
+        private final String version;
+        private final Set<String> interfaces;
+        private final boolean cacheable;
+        private final McpSchemaDefs.SizeReport schemaReport;
+        private final long builtAt = System.currentTimeMillis();
+
+        private ToolCatalog(String endpoint, String mcpServiceName, List<Map<String, Object>> tools,
+                            List<String> toolJsons, String toolsJson, String version,
+                            Set<String> interfaces, boolean cacheable, McpSchemaDefs.SizeReport schemaReport) {
+            this.endpoint = endpoint;
+            this.mcpServiceName = mcpServiceName;
+            this.tools = tools;
+            this.toolJsons = toolJsons;
+            this.toolsJson = toolsJson;
+            this.version = version;
+            this.interfaces = interfaces;
+            this.cacheable = cacheable;
+            this.schemaReport = schemaReport;
+        }
+
+        static ToolCatalog of(String endpoint, String mcpServiceName, List<Map<String, Object>> tools,
+                              Set<String> interfaces, boolean cacheable, McpSchemaDefs.SizeReport schemaReport,
+                              ObjectMapper objectMapper) {
+            // 按名称排序，保证同一内容的目录序列化结果和版本号稳定
+            List<Map<String, Object>> sorted = new ArrayList<>(tools);
+            sorted.sort(Comparator.comparing(tool -> String.valueOf(tool.get("name"))));
+
+            List<String> toolJsons = new ArrayList<>(sorted.size());
+            for (Map<String, Object> tool : sorted) {
+                try {
+                    toolJsons.add(objectMapper.writeValueAsString(tool));
+                } catch (Exception e) {
+                    log.warn("⚠️ Skip tool that cannot be serialized: {}", tool.get("name"), e);
+                }
+            }
+            String toolsJson = "[" + String.join(",", toolJsons) + "]";
+            return new ToolCatalog(endpoint, mcpServiceName, Collections.unmodifiableList(sorted),
+                    Collections.unmodifiableList(toolJsons), toolsJson, hash(toolsJson),
+                    Collections.unmodifiableSet(new LinkedHashSet<>(interfaces)), cacheable, schemaReport);
+        }
+
+        boolean dependsOn(ToolsChangedEvent event) {
+            switch (event.getScope()) {
+                case ALL:
+                    return true;
+                case INTERFACE:
+                    return interfaces.contains(event.getKey());
+                case SERVICE:
+                    return event.getKey() != null && (event.getKey().equals(mcpServiceName)
+                            || event.getKey().equals("virtual-" + endpoint));
+                default:
+                    return false;
+            }
+        }
+
+        private static String hash(String content) {
+            try {
+                byte[] digest = MessageDigest.getInstance("MD5").digest(content.getBytes(StandardCharsets.UTF_8));
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < 8; i++) {
+                    sb.append(String.format("%02x", digest[i]));
+                }
+                return sb.toString();
+            } catch (Exception e) {
+                return Integer.toHexString(content.hashCode());
+            }
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public String getMcpServiceName() {
+            return mcpServiceName;
+        }
+
+        public List<Map<String, Object>> getTools() {
+            return tools;
+        }
+
+        /**
+         * 按名称排序的单个工具 JSON
+         */
+        public List<String> getToolJsons() {
+            return toolJsons;
+        }
+
+        /**
+         * 预序列化的工具数组 JSON
+         */
+        public String getToolsJson() {
+            return toolsJson;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public Set<String> getInterfaces() {
+            return interfaces;
+        }
+
+        public long getBuiltAt() {
+            return builtAt;
+        }
+
+        public McpSchemaDefs.SizeReport getSchemaReport() {
+            return schemaReport;
+        }
+
+        public int size() {
+            return tools.size();
+        }
+
+        boolean isCacheable() {
+            return cacheable;
+        }
+    }
+
+    /**
+     * tools/list 的一页：同一目录版本上的 [offset, end) 区间
+     */
+    public static final class ToolPage {
+
+        private final ToolCatalog catalog;
+        private final int offset;
+        private final int end;
+        private final String nextCursor;
+
+        ToolPage(ToolCatalog catalog, int offset, int end, String nextCursor) {
+            this.catalog = catalog;
+            this.offset = offset;
+            this.end = end;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<Map<String, Object>> getTools() {
+            return catalog.getTools().subList(offset, end);
+        }
+
+        public ToolCatalog getCatalog() {
+            return catalog;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
+
+        public int size() {
+            return end - offset;
+        }
+
+        boolean isComplete() {
+            return offset == 0 && end == catalog.size();
+        }
+    }
+
+    /**
+     * 工具数据变化事件
+     */
+    public static final class ToolsChangedEvent {
+
+        public enum Scope {
+            /** Dubbo 接口的 Provider 或方法/参数变化 */
+            INTERFACE,
+            /** MCP 服务（Nacos 工具配置）变化 */
+            SERVICE,
+            ALL
+        }
+
+        private final Scope scope;
+        private final String key;
+
+        private ToolsChangedEvent(Scope scope, String key) {
+            this.scope = scope;
+            this.key = key;
+        }
+
+        public static ToolsChangedEvent forInterface(String interfaceName) {
+            return new ToolsChangedEvent(Scope.INTERFACE, interfaceName);
+        }
+
+        public static ToolsChangedEvent forService(String mcpServiceName) {
+            return new ToolsChangedEvent(Scope.SERVICE, mcpServiceName);
+        }
+
+        public static ToolsChangedEvent all() {
+            return new ToolsChangedEvent(Scope.ALL, null);
+        }
+
+        public Scope getScope() {
+            return scope;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * endpoint 的工具列表已变化（目录重建后版本不同）
+     */
+    public static final class ToolListChangedEvent {
+
+        private final String endpoint;
+        private final String previousVersion;
+        private final String version;
+
+        public ToolListChangedEvent(String endpoint, String previousVersion, String version) {
+            this.endpoint = endpoint;
+            this.previousVersion = previousVersion;
+            this.version = version;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public String getPreviousVersion() {
+            return previousVersion;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+    }
+}
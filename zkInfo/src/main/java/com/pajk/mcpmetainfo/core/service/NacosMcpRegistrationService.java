@@ -8,8 +8,6 @@ import com.alibaba.nacos.api.naming.pojo.ListView;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pajk.mcpmetainfo.core.model.ProviderInfo;
 import com.pajk.mcpmetainfo.persistence.entity.DubboMethodParameterEntity;
-import com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity;
-import com.pajk.mcpmetainfo.persistence.entity.DubboServiceMethodEntity;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -75,10 +73,15 @@ public class NacosMcpRegistrationService {
     private com.pajk.mcpmetainfo.core.util.EnhancedMcpToolGenerator enhancedMcpToolGenerator;
     
     @org.springframework.beans.factory.annotation.Autowired(required = false)
-    private com.pajk.mcpmetainfo.core.service.DubboServiceDbService dubboServiceDbService;
+    private com.pajk.mcpmetainfo.core.service.DubboMethodMetadataLoader methodMetadataLoader;
     
+    // 实例列表、工具配置的本地副本（Nacos 推送更新）
     @org.springframework.beans.factory.annotation.Autowired(required = false)
-    private com.pajk.mcpmetainfo.core.service.DubboServiceMethodService dubboServiceMethodService;
+    private com.pajk.mcpmetainfo.core.service.NacosMcpReplicaService nacosMcpReplicaService;
+    
+    // 工具配置变化时通知工具目录失效
+    @org.springframework.beans.factory.annotation.Autowired(required = false)
+    private org.springframework.context.ApplicationEventPublisher eventPublisher;
 
     @Value("${server.port:9091}")
     private int serverPort;
@@ -396,6 +399,11 @@ public class NacosMcpRegistrationService {
     private List<Map<String, Object>> generateMcpTools(List<ProviderInfo> providers) {
         List<Map<String, Object>> tools = new ArrayList<>();
         
+        // 批量预加载方法签名，避免逐方法查询数据库
+        if (methodMetadataLoader != null) {
+            methodMetadataLoader.preload(providers.stream().map(ProviderInfo::getInterfaceName).toList());
+        }
+        
         // 使用McpConverterService转换工具
         for (ProviderInfo provider : providers) {
             String methodsStr = provider.getMethods();
@@ -460,7 +468,7 @@ public class NacosMcpRegistrationService {
         
         try {
             // 如果数据库服务不可用，优先使用 EnhancedMcpToolGenerator（反射），否则回退到 mcpToolSchemaGenerator
-            if (dubboServiceDbService == null || dubboServiceMethodService == null) {
+            if (methodMetadataLoader == null) {
                 log.debug("⚠️ Database services not available, trying EnhancedMcpToolGenerator (reflection)");
                 if (enhancedMcpToolGenerator != null) {
                     try {
@@ -483,38 +491,8 @@ public class NacosMcpRegistrationService {
                 return mcpToolSchemaGenerator.createInputSchemaFromMethod(interfaceName, methodName);
             }
             
-            // 1. 根据 interfaceName 查找服务
-            DubboServiceEntity service = dubboServiceDbService.findByInterfaceName(interfaceName);
-            if (service == null) {
-                log.debug("⚠️ Service not found in database: {}, trying EnhancedMcpToolGenerator (reflection)", 
-                        interfaceName);
-                if (enhancedMcpToolGenerator != null) {
-                    try {
-                        Map<String, Object> enhancedTool = enhancedMcpToolGenerator.generateEnhancedTool(interfaceName, methodName);
-                        if (enhancedTool != null && enhancedTool.containsKey("inputSchema")) {
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> reflectionSchema = (Map<String, Object>) enhancedTool.get("inputSchema");
-                            if (reflectionSchema != null && reflectionSchema.containsKey("properties")) {
-                                log.info("✅ Successfully generated inputSchema via reflection for {}.{}", 
-                                        interfaceName, methodName);
-                                return reflectionSchema;
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.debug("⚠️ EnhancedMcpToolGenerator failed for {}.{}: {}, falling back to mcpToolSchemaGenerator", 
-                                interfaceName, methodName, e.getMessage());
-                    }
-                }
-                log.debug("⚠️ Falling back to mcpToolSchemaGenerator");
-                return mcpToolSchemaGenerator.createInputSchemaFromMethod(interfaceName, methodName);
-            }
-            
-            Long serviceId = service.getId();
-            log.debug("✅ Found service in database: {} (ID: {})", interfaceName, serviceId);
-            
-            // 2. 根据 serviceId 和 methodName 查找方法
-            DubboServiceMethodEntity method = dubboServiceMethodService.findByServiceIdAndMethodName(
-                    serviceId, methodName);
+            // 1. 从按接口批量加载的元数据中查找方法及参数
+            DubboMethodMetadataLoader.MethodMetadata method = methodMetadataLoader.getMethod(interfaceName, methodName);
             if (method == null) {
                 log.debug("⚠️ Method not found in database: {}.{}, trying EnhancedMcpToolGenerator (reflection)", 
                         interfaceName, methodName);
@@ -539,11 +517,10 @@ public class NacosMcpRegistrationService {
                 return mcpToolSchemaGenerator.createInputSchemaFromMethod(interfaceName, methodName);
             }
             
-            log.debug("✅ Found method in database: {}.{} (ID: {})", interfaceName, methodName, method.getId());
+            log.debug("✅ Found method in database: {}.{} (ID: {})", interfaceName, methodName, method.getMethod().getId());
             
-            // 3. 根据 methodId 查找参数列表
-            List<DubboMethodParameterEntity> parameters = dubboServiceMethodService.findParametersByMethodId(
-                    method.getId());
+            // 2. 参数列表（复制一份，下面会排序）
+            List<DubboMethodParameterEntity> parameters = new ArrayList<>(method.getParameters());
             
             if (parameters == null || parameters.isEmpty()) {
                 log.debug("⚠️ No parameters found in database for {}.{}, trying EnhancedMcpToolGenerator (reflection)", 
@@ -579,7 +556,7 @@ public class NacosMcpRegistrationService {
                 log.debug("✅ Found {} parameters in database for {}.{}", 
                         parameters.size(), interfaceName, methodName);
                 
-                // 4. 为每个参数创建属性
+                // 3. 为每个参数创建属性
                 for (DubboMethodParameterEntity param : parameters) {
                     String paramName = param.getParameterName();
                     String paramType = param.getParameterType();
@@ -784,6 +761,7 @@ public class NacosMcpRegistrationService {
             log.info("📝 Published server config via SDK: {}", serverDataId);
         }
         
+        publishToolsChanged(mcpServiceName);
         return serverContent;
     }
 
@@ -1658,12 +1636,16 @@ public class NacosMcpRegistrationService {
     
     /**
      * 从 Nacos 配置中心获取工具配置
+     * 优先读取本地副本（配置监听推送更新），不在请求路径上访问 Nacos
      * 
      * @param serviceName 服务名称（如 virtual-{endpointName}）
      * @param serviceGroup 服务组
      * @return 工具列表
      */
     public List<Map<String, Object>> getToolsFromNacosConfig(String serviceName, String serviceGroup) {
+        if (nacosMcpReplicaService != null && this.serviceGroup.equals(serviceGroup)) {
+            return nacosMcpReplicaService.getTools(serviceName);
+        }
         try {
             // 1. 从 Nacos 服务列表查询服务实例，获取 serviceId 和 version
             List<Instance> instances = namingService.selectInstances(serviceName, serviceGroup, true);
@@ -1730,6 +1712,15 @@ public class NacosMcpRegistrationService {
         }
     }
 
+    /**
+     * 通知工具目录：该 MCP 服务的工具配置已变化
+     */
+    private void publishToolsChanged(String mcpServiceName) {
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(McpToolCatalogService.ToolsChangedEvent.forService(mcpServiceName));
+        }
+    }
+
     /**
      * 计算MD5
      */
@@ -1818,6 +1809,7 @@ public class NacosMcpRegistrationService {
             
             // 2. 删除 Nacos 配置中心的配置
             deleteConfigsFromNacos(serviceId, mcpServiceName, version);
+            publishToolsChanged(mcpServiceName);
             
             // 3. 查询实例的 ephemeral 状态（用于正确删除）
             // 注意：虚拟节点是永久节点（ephemeral=false），需要查询实际状态以确保正确删除
@@ -0,0 +1,416 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.config.listener.AbstractListener;
+import com.alibaba.nacos.api.config.listener.Listener;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.listener.EventListener;
+import com.alibaba.nacos.api.naming.listener.NamingEvent;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.alibaba.nacos.api.naming.pojo.ListView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Nacos MCP 本地副本
+ *
+ * <p>订阅 mcp-server 分组下每个服务的实例列表（Nacos 推送），并为每个 mcp-tools 配置注册监听，
+ * tools/list、SSE 服务名解析等读请求全部由本地副本提供，不再同步访问 Nacos。
+ * 工具配置或实例元数据（serverId/version）变化时发布 {@link McpToolCatalogService.ToolsChangedEvent}，
+ * 由工具目录重建并向受影响的会话推送 notifications/tools/list_changed。</p>
+ *
+ * <p>Nacos 没有服务列表的推送，新服务由定时刷新发现，或在首次读取时按需订阅。
+ * 关闭副本（nacos.replica.enabled=false）时所有读取直接访问 Nacos。</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NacosMcpReplicaService {
+
+    private static final String TOOLS_GROUP = "mcp-tools";
+    private static final long CONFIG_TIMEOUT_MS = 5000;
+    private static final int SERVICE_PAGE_SIZE = 500;
+
+    private final NamingService namingService;
+    private final ConfigService configService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${nacos.registry.service-group:mcp-server}")
+    private String serviceGroup;
+
+    @Value("${nacos.replica.enabled:true}")
+    private boolean replicaEnabled;
+
+    // serviceName -> 健康实例（Nacos 推送）
+    private final Map<String, List<Instance>> instances = new ConcurrentHashMap<>();
+    private final Map<String, EventListener> namingListeners = new ConcurrentHashMap<>();
+
+    // serviceName -> 工具配置 dataId（由实例 metadata 的 serverId/version 推导）
+    private final Map<String, String> toolsDataIds = new ConcurrentHashMap<>();
+
+    // dataId -> 已解析的工具列表（配置监听推送）
+    private final Map<String, List<Map<String, Object>>> tools = new ConcurrentHashMap<>();
+    private final Map<String, Listener> configListeners = new ConcurrentHashMap<>();
+
+    private volatile boolean started;
+
+    /**
+     * 启动后订阅分组下所有服务
+     */
+    @org.springframework.context.event.EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (!replicaEnabled) {
+            log.info("Nacos MCP replica is disabled, tools/list reads go to Nacos directly");
+            return;
+        }
+        started = true;
+        refreshServices();
+        log.info("✅ Nacos MCP replica started: group={}, services={}, toolsConfigs={}",
+                serviceGroup, instances.size(), tools.size());
+    }
+
+    /**
+     * 定时发现新服务、清理已删除的服务（实例和配置变化走推送，不依赖这里）
+     */
+    @Scheduled(fixedDelay = 30_000, initialDelay = 30_000)
+    public void refreshServices() {
+        if (!started) {
+            return;
+        }
+        try {
+            Set<String> serviceNames = new HashSet<>();
+            int pageNo = 1;
+            while (true) {
+                ListView<String> page = namingService.getServicesOfServer(pageNo, SERVICE_PAGE_SIZE, serviceGroup);
+                if (page == null || page.getData() == null || page.getData().isEmpty()) {
+                    break;
+                }
+                serviceNames.addAll(page.getData());
+                if (page.getData().size() < SERVICE_PAGE_SIZE || serviceNames.size() >= page.getCount()) {
+                    break;
+                }
+                pageNo++;
+            }
+            for (String serviceName : serviceNames) {
+                subscribe(serviceName);
+            }
+            for (String serviceName : new ArrayList<>(namingListeners.keySet())) {
+                if (!serviceNames.contains(serviceName)) {
+                    unsubscribe(serviceName);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to refresh Nacos MCP services: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        started = false;
+        for (String serviceName : new ArrayList<>(namingListeners.keySet())) {
+            unsubscribe(serviceName);
+        }
+    }
+
+    /**
+     * 获取服务的工具列表（本地副本；返回副本的浅拷贝，调用方可修改）
+     */
+    public List<Map<String, Object>> getTools(String serviceName) {
+        if (!replicaEnabled) {
+            String dataId = resolveToolsDataId(fetchInstances(serviceName));
+            return dataId != null ? copy(parseTools(dataId, fetchConfig(dataId))) : Collections.emptyList();
+        }
+        String dataId = toolsDataIds.get(serviceName);
+        if (dataId == null) {
+            getHealthyInstances(serviceName);
+            dataId = toolsDataIds.get(serviceName);
+        }
+        if (dataId == null) {
+            log.warn("⚠️ No tools config bound for service: {} in group: {}", serviceName, serviceGroup);
+            return Collections.emptyList();
+        }
+        List<Map<String, Object>> cached = tools.get(dataId);
+        if (cached == null) {
+            cached = watchToolsConfig(dataId);
+        }
+        return copy(cached);
+    }
+
+    /**
+     * 获取服务的健康实例（本地副本，未订阅的服务按需订阅一次）
+     */
+    public List<Instance> getHealthyInstances(String serviceName) {
+        if (serviceName == null) {
+            return Collections.emptyList();
+        }
+        if (!replicaEnabled) {
+            return fetchInstances(serviceName);
+        }
+        List<Instance> cached = instances.get(serviceName);
+        if (cached != null) {
+            return cached;
+        }
+        subscribe(serviceName);
+        return instances.getOrDefault(serviceName, Collections.emptyList());
+    }
+
+    /**
+     * 根据实例地址查找服务名（本地副本）
+     */
+    public Optional<String> findServiceByInstance(String ip, int port) {
+        if (!replicaEnabled) {
+            return findServiceByInstanceRemote(ip, port);
+        }
+        for (Map.Entry<String, List<Instance>> entry : instances.entrySet()) {
+            for (Instance instance : entry.getValue()) {
+                if (port == instance.getPort() && Objects.equals(ip, instance.getIp())) {
+                    return Optional.of(entry.getKey());
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    public int getServiceCount() {
+        return instances.size();
+    }
+
+    public int getToolsConfigCount() {
+        return tools.size();
+    }
+
+    private void subscribe(String serviceName) {
+        if (namingListeners.containsKey(serviceName)) {
+            return;
+        }
+        EventListener listener = event -> {
+            if (event instanceof NamingEvent namingEvent) {
+                onInstancesChanged(serviceName, namingEvent.getInstances());
+            }
+        };
+        if (namingListeners.putIfAbsent(serviceName, listener) != null) {
+            return;
+        }
+        try {
+            // 先拉一次全量，订阅之后的变化由推送更新
+            onInstancesChanged(serviceName, namingService.selectInstances(serviceName, serviceGroup, true));
+            namingService.subscribe(serviceName, serviceGroup, listener);
+            log.debug("📡 Subscribed Nacos service: {}", serviceName);
+        } catch (NacosException e) {
+            namingListeners.remove(serviceName);
+            log.warn("⚠️ Failed to subscribe Nacos service {}: {}", serviceName, e.getMessage());
+        }
+    }
+
+    private void unsubscribe(String serviceName) {
+        EventListener listener = namingListeners.remove(serviceName);
+        if (listener != null) {
+            try {
+                namingService.unsubscribe(serviceName, serviceGroup, listener);
+            } catch (NacosException e) {
+                log.debug("Failed to unsubscribe Nacos service {}: {}", serviceName, e.getMessage());
+            }
+        }
+        instances.remove(serviceName);
+        String dataId = toolsDataIds.remove(serviceName);
+        releaseToolsConfig(dataId);
+        if (dataId != null) {
+            publishToolsChanged(serviceName);
+        }
+    }
+
+    /**
+     * 实例变化：更新副本；serverId/version 变化（重新发布了新版本）时切换工具配置并通知
+     */
+    void onInstancesChanged(String serviceName, List<Instance> all) {
+        List<Instance> healthy = new ArrayList<>();
+        if (all != null) {
+            for (Instance instance : all) {
+                if (instance.isHealthy() && instance.isEnabled()) {
+                    healthy.add(instance);
+                }
+            }
+        }
+        instances.put(serviceName, Collections.unmodifiableList(healthy));
+
+        String dataId = resolveToolsDataId(healthy);
+        if (dataId == null) {
+            // 实例暂时全部下线时保留原绑定，避免抖动导致工具列表清空
+            return;
+        }
+        String previous = toolsDataIds.put(serviceName, dataId);
+        if (!dataId.equals(previous)) {
+            watchToolsConfig(dataId);
+            releaseToolsConfig(previous);
+            if (previous != null) {
+                log.info("🔁 Tools config of service {} switched: {} -> {}", serviceName, previous, dataId);
+                publishToolsChanged(serviceName);
+            }
+        }
+    }
+
+    /**
+     * 读取并监听工具配置；已监听时直接返回副本
+     */
+    private List<Map<String, Object>> watchToolsConfig(String dataId) {
+        List<Map<String, Object>> cached = tools.get(dataId);
+        if (cached != null && configListeners.containsKey(dataId)) {
+            return cached;
+        }
+        Listener listener = new AbstractListener() {
+            @Override
+            public void receiveConfigInfo(String configInfo) {
+                onToolsConfigChanged(dataId, configInfo);
+            }
+        };
+        if (configListeners.putIfAbsent(dataId, listener) != null) {
+            return tools.getOrDefault(dataId, Collections.emptyList());
+        }
+        try {
+            String config = configService.getConfigAndSignListener(dataId, TOOLS_GROUP, CONFIG_TIMEOUT_MS, listener);
+            List<Map<String, Object>> parsed = parseTools(dataId, config);
+            tools.put(dataId, parsed);
+            log.debug("📡 Watching tools config: dataId={}, tools={}", dataId, parsed.size());
+            return parsed;
+        } catch (NacosException e) {
+            configListeners.remove(dataId);
+            log.warn("⚠️ Failed to watch tools config {}: {}", dataId, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 不再被任何服务引用的配置取消监听
+     */
+    private void releaseToolsConfig(String dataId) {
+        if (dataId == null || toolsDataIds.containsValue(dataId)) {
+            return;
+        }
+        Listener listener = configListeners.remove(dataId);
+        tools.remove(dataId);
+        if (listener != null) {
+            configService.removeListener(dataId, TOOLS_GROUP, listener);
+        }
+    }
+
+    void onToolsConfigChanged(String dataId, String configInfo) {
+        List<Map<String, Object>> parsed = parseTools(dataId, configInfo);
+        tools.put(dataId, parsed);
+        log.info("🔁 Tools config changed: dataId={}, tools={}", dataId, parsed.size());
+        for (Map.Entry<String, String> entry : toolsDataIds.entrySet()) {
+            if (dataId.equals(entry.getValue())) {
+                publishToolsChanged(entry.getKey());
+            }
+        }
+    }
+
+    private void publishToolsChanged(String serviceName) {
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(McpToolCatalogService.ToolsChangedEvent.forService(serviceName));
+        }
+    }
+
+    /**
+     * dataId 格式：{serverId}-{version}-mcp-tools.json，取第一个带 serverId/version 的实例
+     */
+    private static String resolveToolsDataId(List<Instance> healthy) {
+        for (Instance instance : healthy) {
+            Map<String, String> metadata = instance.getMetadata();
+            if (metadata == null) {
+                continue;
+            }
+            String serverId = metadata.get("serverId");
+            String version = metadata.get("version");
+            if (serverId != null && version != null) {
+                return serverId + "-" + version + "-mcp-tools.json";
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> parseTools(String dataId, String config) {
+        if (config == null || config.trim().isEmpty()) {
+            log.warn("⚠️ No tools config found in Nacos: dataId={}, group={}", dataId, TOOLS_GROUP);
+            return Collections.emptyList();
+        }
+        try {
+            Map<String, Object> toolsInfo = objectMapper.readValue(config, Map.class);
+            List<Map<String, Object>> parsed = (List<Map<String, Object>>) toolsInfo.get("tools");
+            if (parsed == null) {
+                return Collections.emptyList();
+            }
+            // MCP 规范要求 name 字段
+            for (Map<String, Object> tool : parsed) {
+                if (!tool.containsKey("name") && tool.containsKey("toolName")) {
+                    tool.put("name", tool.get("toolName"));
+                }
+            }
+            return Collections.unmodifiableList(parsed);
+        } catch (Exception e) {
+            log.error("❌ Failed to parse tools config: dataId={}, error={}", dataId, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private static List<Map<String, Object>> copy(List<Map<String, Object>> source) {
+        List<Map<String, Object>> copy = new ArrayList<>(source.size());
+        for (Map<String, Object> tool : source) {
+            copy.add(new HashMap<>(tool));
+        }
+        return copy;
+    }
+
+    private List<Instance> fetchInstances(String serviceName) {
+        try {
+            List<Instance> result = namingService.selectInstances(serviceName, serviceGroup, true);
+            return result != null ? result : Collections.emptyList();
+        } catch (NacosException e) {
+            log.warn("⚠️ Failed to query instances of {}: {}", serviceName, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private String fetchConfig(String dataId) {
+        try {
+            return configService.getConfig(dataId, TOOLS_GROUP, CONFIG_TIMEOUT_MS);
+        } catch (NacosException e) {
+            log.warn("⚠️ Failed to get tools config {}: {}", dataId, e.getMessage());
+            return null;
+        }
+    }
+
+    private Optional<String> findServiceByInstanceRemote(String ip, int port) {
+        try {
+            ListView<String> services = namingService.getServicesOfServer(1, 100, serviceGroup);
+            if (services == null || services.getData() == null) {
+                return Optional.empty();
+            }
+            for (String serviceName : services.getData()) {
+                for (Instance instance : fetchInstances(serviceName)) {
+                    if (port == instance.getPort() && Objects.equals(ip, instance.getIp())) {
+                        return Optional.of(serviceName);
+                    }
+                }
+            }
+        } catch (NacosException e) {
+            log.warn("Failed to resolve serviceName from Nacos: {}", e.getMessage());
+        }
+        return Optional.empty();
+    }
+}
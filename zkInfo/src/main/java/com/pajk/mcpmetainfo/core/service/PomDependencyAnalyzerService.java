@@ -42,6 +42,9 @@ public class PomDependencyAnalyzerService {
     @Autowired
     private MavenRepositoryConfig mavenConfig;
     
+    @Autowired(required = false)
+    private JarTypeSchemaService jarTypeSchemaService;
+    
     private static final String TEMP_DIR = System.getProperty("java.io.tmpdir") + "/zkinfo-wizard";
     private static final String MAVEN_SETTINGS_PATH = System.getProperty("user.home") + "/.m2/settings.xml";
     
@@ -135,6 +138,11 @@ public class PomDependencyAnalyzerService {
                         continue;
                     }
 
+                    // 登记到字节码 Schema 索引，生成工具时直接从 JAR 解析参数 POJO
+                    if (jarTypeSchemaService != null) {
+                        jarTypeSchemaService.registerJar(new File(dep.getLocalPath()));
+                    }
+
                     try {
                         List<DubboInterfaceInfo> interfaces = extractDubboInterfaces(
                             new File(dep.getLocalPath()), 
@@ -5,6 +5,7 @@ import com.pajk.mcpmetainfo.persistence.entity.DubboServiceNodeEntity;
 import com.pajk.mcpmetainfo.core.model.ProviderInfo;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -36,6 +37,10 @@ public class ProviderInfoDbService {
     @Autowired(required = false)
     private InterfaceWhitelistService interfaceWhitelistService;
     
+    @Lazy
+    @Autowired(required = false)
+    private ProviderService providerService;
+    
     /**
      * 保存或更新Provider信息到数据库
      * 
@@ -141,7 +146,10 @@ public class ProviderInfoDbService {
     public void markProviderOffline(String zkPath) {
         try {
             ProviderInfo providerInfo = dubboServiceDbService.findProviderByZkPath(zkPath);
-            if (providerInfo != null) {
+            if (providerInfo != null && providerService != null && providerService.isReportedByOtherNode(providerInfo, zkPath)) {
+                // 节点行按服务+地址共用，其他注册中心仍上报时保持在线
+                log.debug("Provider 仍由其他节点上报，不标记离线: {}", zkPath);
+            } else if (providerInfo != null) {
                 DubboServiceEntity service = dubboServiceDbService.findByInterfaceName(providerInfo.getInterfaceName());
                 if (service != null) {
                     dubboServiceDbService.updateOnlineStatus(service.getId(), providerInfo.getAddress(), false);
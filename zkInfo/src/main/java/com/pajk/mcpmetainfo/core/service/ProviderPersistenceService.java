@@ -5,6 +5,8 @@ import com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity;
 import com.pajk.mcpmetainfo.persistence.entity.DubboServiceNodeEntity;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -37,6 +39,10 @@ public class ProviderPersistenceService {
     private final ProviderInfoDbService providerInfoDbService; // 已废弃，保留用于向后兼容
     private final InterfaceWhitelistService interfaceWhitelistService;
     
+    @Lazy
+    @Autowired(required = false)
+    private ProviderService providerService;
+    
     // 统计指标
     private final AtomicLong totalRegistrations = new AtomicLong(0);
     private final AtomicLong totalDeregistrations = new AtomicLong(0);
@@ -104,7 +110,10 @@ public class ProviderPersistenceService {
             // 标记 Provider 为离线（使用新表结构）
             try {
                 ProviderInfo providerInfo = dubboServiceDbService.findProviderByZkPath(zkPath);
-                if (providerInfo != null) {
+                if (providerInfo != null && providerService != null && providerService.isReportedByOtherNode(providerInfo, zkPath)) {
+                    // 节点行按服务+地址共用，其他注册中心仍上报时保持在线
+                    log.debug("Provider 仍由其他节点上报，不标记离线: {}", zkPath);
+                } else if (providerInfo != null) {
                     DubboServiceEntity service = dubboServiceDbService.findByInterfaceName(providerInfo.getInterfaceName());
                     if (service != null) {
                         dubboServiceDbService.updateOnlineStatus(service.getId(), providerInfo.getAddress(), false);
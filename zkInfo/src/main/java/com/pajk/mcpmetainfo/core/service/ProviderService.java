@@ -2,13 +2,19 @@ package com.pajk.mcpmetainfo.core.service;
 
 import com.pajk.mcpmetainfo.core.model.ApplicationInfo;
 import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.core.util.ProviderSearchIndex;
+import com.pajk.mcpmetainfo.core.util.ProviderStore;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 /**
  * 服务提供者信息管理服务
@@ -27,8 +33,10 @@ import java.util.stream.Collectors;
  * 
  * <p>数据结构：</p>
  * <ul>
- *   <li>applications: 按应用名存储应用信息的主索引</li>
- *   <li>providersByZkPath: 按 ZooKeeper 路径存储的快速查找索引</li>
+ *   <li>applications: 按应用名存储应用信息，供应用维度的接口展示</li>
+ *   <li>store: 按 ZooKeeper 路径存储的主表，维护接口、接口+版本+分组、地址、应用二级索引和在线计数</li>
+ *   <li>searchIndex: 接口/方法/应用/参数的倒排索引，支撑关键词搜索</li>
+ *   <li>toolShapes: 接口的工具形态引用计数，只有形态变化才通知工具目录</li>
  * </ul>
  * 
  * @author ZkInfo Team
@@ -45,9 +53,47 @@ public class ProviderService {
     private final ConcurrentHashMap<String, ApplicationInfo> applications = new ConcurrentHashMap<>();
     
     /**
-     * 按ZK路径索引Provider信息，用于快速查找和删除
+     * 按ZK路径存储Provider信息，随增删增量维护二级索引和计数，查询与统计不扫描全量
      */
-    private final ConcurrentHashMap<String, ProviderInfo> providersByZkPath = new ConcurrentHashMap<>();
+    private final ProviderStore store = new ProviderStore();
+    
+    /**
+     * 倒排索引，随 Provider 增删增量维护
+     */
+    private final ProviderSearchIndex searchIndex = new ProviderSearchIndex();
+    
+    /**
+     * 待刷新数据库方法元数据（描述、参数名）的接口，由定时任务批量加载
+     */
+    private final Set<String> metadataRefreshPending = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * 接口 -> 工具形态（version|group|方法集合）-> Provider 数量。
+     * 同形态节点的上下线（滚动发布、扩缩容）不改变工具列表，不通知工具目录；
+     * 只有某个形态从无到有或从有到无时才发布 ToolsChangedEvent。
+     */
+    private final Map<String, Map<String, Integer>> toolShapes = new ConcurrentHashMap<>();
+    
+    /**
+     * 通知工具目录：接口的工具形态发生变化
+     */
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired(required = false)
+    private DubboMethodMetadataLoader methodMetadataLoader;
+    
+    /**
+     * 主注册中心 id：主注册中心的 Provider 路径不带注册中心前缀
+     */
+    @Value("${zookeeper.registry-id:default}")
+    private String primaryRegistryId = "default";
+    
+    /**
+     * 本机房注册中心 id，选择 Provider 时优先；为空时不区分
+     */
+    @Value("${zookeeper.local-registry:}")
+    private String localRegistry;
     
     /**
      * 添加Provider信息
@@ -59,21 +105,36 @@ public class ProviderService {
             
             String applicationName = getApplicationName(provider);
             
-            // 获取或创建应用信息
-            ApplicationInfo appInfo = applications.computeIfAbsent(applicationName, ApplicationInfo::new);
+            // 添加到存储，同一路径重复添加时替换旧节点
+            ProviderInfo replaced = store.put(indexKey(provider), provider, applicationName);
+            if (replaced != null) {
+                detachFromApplication(replaced);
+            }
             
-            // 添加到应用中
+            // 获取或创建应用信息并添加到应用中
+            ApplicationInfo appInfo = applications.computeIfAbsent(applicationName, ApplicationInfo::new);
             appInfo.addProvider(provider);
             
-            // 添加到ZK路径索引
-            if (provider.getZkPath() != null) {
-                providersByZkPath.put(provider.getZkPath(), provider);
+            searchIndex.add(indexKey(provider), provider);
+            if (provider.getInterfaceName() != null) {
+                metadataRefreshPending.add(provider.getInterfaceName());
             }
             
             log.info("添加Provider: {} -> {}:{}", 
                     provider.getInterfaceName(), 
                     provider.getAddress(), 
                     applicationName);
+            // 同一路径重复添加时撤销被替换节点的形态计数
+            boolean shapeChanged = updateToolShape(provider, 1);
+            if (replaced != null && updateToolShape(replaced, -1)) {
+                shapeChanged = true;
+                if (!Objects.equals(replaced.getInterfaceName(), provider.getInterfaceName())) {
+                    publishToolsChanged(replaced.getInterfaceName());
+                }
+            }
+            if (shapeChanged) {
+                publishToolsChanged(provider.getInterfaceName());
+            }
             
         } catch (Exception e) {
             log.error("添加Provider失败", e);
@@ -85,6 +146,9 @@ public class ProviderService {
      */
     public void updateProvider(ProviderInfo provider) {
         try {
+            // 先占住新形态：形态未变时删除旧节点不会出现 1 -> 0 -> 1 的抖动通知
+            boolean shapeAdded = updateToolShape(provider, 1);
+            
             // 先删除旧的Provider
             if (provider.getZkPath() != null) {
                 removeProviderByZkPath(provider.getZkPath());
@@ -92,6 +156,10 @@ public class ProviderService {
             
             // 再添加新的Provider
             addProvider(provider);
+            updateToolShape(provider, -1);
+            if (shapeAdded) {
+                publishToolsChanged(provider.getInterfaceName());
+            }
             
             log.info("更新Provider: {} -> {}", 
                     provider.getInterfaceName(), 
@@ -106,7 +174,7 @@ public class ProviderService {
      * 根据ZK路径获取Provider
      */
     public ProviderInfo getProviderByZkPath(String zkPath) {
-        return providersByZkPath.get(zkPath);
+        return store.get(zkPath);
     }
     
     /**
@@ -114,24 +182,17 @@ public class ProviderService {
      */
     public ProviderInfo removeProviderByZkPath(String zkPath) {
         try {
-            ProviderInfo provider = providersByZkPath.remove(zkPath);
+            ProviderInfo provider = store.remove(zkPath);
             if (provider != null) {
-                String applicationName = getApplicationName(provider);
-                ApplicationInfo appInfo = applications.get(applicationName);
-                
-                if (appInfo != null) {
-                    appInfo.removeProvider(provider);
-                    
-                    // 如果应用下没有Provider了，移除应用
-                    if (appInfo.getTotalProviderCount() == 0) {
-                        applications.remove(applicationName);
-                        log.info("移除空应用: {}", applicationName);
-                    }
-                }
+                searchIndex.remove(zkPath);
+                detachFromApplication(provider);
                 
                 log.info("移除Provider: {} -> {}", 
                         provider.getInterfaceName(), 
                         provider.getAddress());
+                if (updateToolShape(provider, -1)) {
+                    publishToolsChanged(provider.getInterfaceName());
+                }
             }
             
             return provider;
@@ -147,11 +208,20 @@ public class ProviderService {
      */
     public void updateProviderStatus(String address, boolean online) {
         try {
-            for (ApplicationInfo appInfo : applications.values()) {
-                appInfo.updateProviderStatus(address, online);
+            // 地址索引定位受影响的 Provider，只刷新其所属应用的状态
+            Set<String> applicationNames = new HashSet<>();
+            for (ProviderInfo provider : store.getByAddress(address)) {
+                applicationNames.add(getApplicationName(provider));
+            }
+            int changed = store.setOnline(address, online).size();
+            for (String applicationName : applicationNames) {
+                ApplicationInfo appInfo = applications.get(applicationName);
+                if (appInfo != null) {
+                    appInfo.updateProviderStatus(address, online);
+                }
             }
             
-            log.debug("更新Provider状态: {} -> {}", address, online ? "在线" : "离线");
+            log.debug("更新Provider状态: {} -> {}（{} 个节点变化）", address, online ? "在线" : "离线", changed);
             
         } catch (Exception e) {
             log.error("更新Provider状态失败: {}", address, e);
@@ -183,22 +253,114 @@ public class ProviderService {
      * 根据接口名获取所有Provider
      */
     public List<ProviderInfo> getProvidersByInterface(String interfaceName) {
-        return applications.values().stream()
-                .flatMap(app -> app.getProviders().stream())
-                .filter(provider -> interfaceName.equals(provider.getInterfaceName()))
-                .collect(Collectors.toList());
+        return store.getByInterface(interfaceName);
+    }
+    
+    /**
+     * 根据接口、版本、分组获取Provider，版本或分组为空时不限制
+     */
+    public List<ProviderInfo> getProvidersByService(String interfaceName, String version, String group) {
+        return store.getByService(interfaceName, version, group);
+    }
+    
+    /**
+     * 可路由的Provider：在线节点，本机房注册中心的排在前面
+     */
+    public List<ProviderInfo> getRoutableProviders(String interfaceName, String version, String group) {
+        List<ProviderInfo> online = new ArrayList<>();
+        for (ProviderInfo provider : store.getByService(interfaceName, version, group)) {
+            if (provider.isOnline()) {
+                online.add(provider);
+            }
+        }
+        return preferLocalRegistry(online);
+    }
+    
+    /**
+     * 按路由偏好排序：本机房注册中心的Provider在前，其余保持原顺序；未配置 local-registry 时原样返回
+     */
+    public List<ProviderInfo> preferLocalRegistry(List<ProviderInfo> providers) {
+        if (localRegistry == null || localRegistry.isEmpty() || providers.size() < 2) {
+            return providers;
+        }
+        List<ProviderInfo> local = new ArrayList<>();
+        List<ProviderInfo> remote = new ArrayList<>();
+        for (ProviderInfo provider : providers) {
+            (isLocalRegistry(resolveRegistryId(provider)) ? local : remote).add(provider);
+        }
+        local.addAll(remote);
+        return local;
+    }
+    
+    /**
+     * Provider 所在的额外注册中心 id，主注册中心返回 null。
+     * 数据库中的节点没有 zkPath，按同接口、同地址的已知 Provider 判断；同时注册在多个注册中心时优先本机房
+     */
+    public String resolveRegistryId(ProviderInfo provider) {
+        if (provider.getZkPath() != null || provider.getAddress() == null) {
+            return provider.getRegistryId();
+        }
+        String resolved = null;
+        boolean found = false;
+        for (ProviderInfo known : store.getByAddress(provider.getAddress())) {
+            if (!Objects.equals(known.getInterfaceName(), provider.getInterfaceName())) {
+                continue;
+            }
+            if (isLocalRegistry(known.getRegistryId())) {
+                return known.getRegistryId();
+            }
+            if (!found) {
+                resolved = known.getRegistryId();
+                found = true;
+            }
+        }
+        return resolved;
     }
     
     /**
-     * 获取所有接口名称
+     * 除 zkPath 对应的节点外，是否还有在线节点上报同一服务（接口、版本、分组）和地址。
+     * 数据库节点按服务+地址存储，同一 Provider 注册到多个注册中心时共用一行，其中一个注册中心的节点下线不能删除或下线该行
+     */
+    public boolean isReportedByOtherNode(ProviderInfo provider, String zkPath) {
+        if (provider == null || provider.getAddress() == null) {
+            return false;
+        }
+        for (ProviderInfo known : store.getByAddress(provider.getAddress())) {
+            if (known.isOnline()
+                    && !Objects.equals(known.getZkPath(), zkPath)
+                    && Objects.equals(known.getInterfaceName(), provider.getInterfaceName())
+                    && (provider.getVersion() == null || Objects.equals(known.getVersion(), provider.getVersion()))
+                    && (provider.getGroup() == null || Objects.equals(known.getGroup(), provider.getGroup()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private boolean isLocalRegistry(String registryId) {
+        return localRegistry != null && !localRegistry.isEmpty()
+                && localRegistry.equals(registryId != null ? registryId : primaryRegistryId);
+    }
+    
+    /**
+     * 根据地址获取该地址上的所有Provider
+     */
+    public List<ProviderInfo> getProvidersByAddress(String address) {
+        return store.getByAddress(address);
+    }
+    
+    /**
+     * 获取所有Provider地址（去重），同一进程暴露的多个接口只出现一次
+     */
+    public List<String> getAllAddresses() {
+        return store.getAddresses();
+    }
+    
+    /**
+     * 获取所有接口名称（字典序）
      */
     public List<String> getAllInterfaces() {
-        return applications.values().stream()
-                .flatMap(app -> app.getProviders().stream())
-                .map(ProviderInfo::getInterfaceName)
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        return store.getInterfaceNames();
     }
     
     /**
@@ -207,57 +369,33 @@ public class ProviderService {
     public Map<String, Integer> getOnlineStats() {
         Map<String, Integer> stats = new HashMap<>();
         
-        int totalProviders = 0;
-        int onlineProviders = 0;
-        int totalApplications = applications.size();
-        int onlineApplications = 0;
-        
-        for (ApplicationInfo appInfo : applications.values()) {
-            totalProviders += appInfo.getTotalProviderCount();
-            onlineProviders += appInfo.getOnlineProviderCount();
-            
-            if (appInfo.getStatus() == ApplicationInfo.ApplicationStatus.ONLINE ||
-                appInfo.getStatus() == ApplicationInfo.ApplicationStatus.PARTIAL) {
-                onlineApplications++;
-            }
-        }
-        
-        stats.put("totalApplications", totalApplications);
-        stats.put("onlineApplications", onlineApplications);
-        stats.put("totalProviders", totalProviders);
-        stats.put("onlineProviders", onlineProviders);
+        // 计数随增删和状态变化增量维护；在线应用指至少有一个在线Provider的应用
+        stats.put("totalApplications", store.getApplicationCount());
+        stats.put("onlineApplications", store.getOnlineApplicationCount());
+        stats.put("totalProviders", store.size());
+        stats.put("onlineProviders", store.getOnlineCount());
         
         return stats;
     }
     
     /**
      * 搜索Provider
+     * 
+     * 关键词按包路径/驼峰拆词后在倒排索引中做前缀匹配，命中接口名、方法名、应用名、
+     * 方法描述、参数名或地址前缀，结果按相关度降序
      */
     public List<ProviderInfo> searchProviders(String keyword) {
         if (keyword == null || keyword.trim().isEmpty()) {
             return getAllProviders();
         }
-        
-        String lowerKeyword = keyword.toLowerCase();
-        
-        return applications.values().stream()
-                .flatMap(app -> app.getProviders().stream())
-                .filter(provider -> 
-                        provider.getInterfaceName().toLowerCase().contains(lowerKeyword) ||
-                        provider.getAddress().toLowerCase().contains(lowerKeyword) ||
-                        (provider.getApplication() != null && 
-                         provider.getApplication().toLowerCase().contains(lowerKeyword))
-                )
-                .collect(Collectors.toList());
+        return searchIndex.search(keyword);
     }
     
     /**
-     * 获取所有Provider
+     * 获取所有Provider（不可变快照）
      */
     public List<ProviderInfo> getAllProviders() {
-        return applications.values().stream()
-                .flatMap(app -> app.getProviders().stream())
-                .collect(Collectors.toList());
+        return store.getAll();
     }
     
     /**
@@ -269,13 +407,11 @@ public class ProviderService {
             
             List<ProviderInfo> toRemove = new ArrayList<>();
             
-            for (ApplicationInfo appInfo : applications.values()) {
-                for (ProviderInfo provider : appInfo.getProviders()) {
-                    if (!provider.isOnline() && 
-                        provider.getLastHeartbeat() != null && 
-                        provider.getLastHeartbeat().isBefore(threshold)) {
-                        toRemove.add(provider);
-                    }
+            for (ProviderInfo provider : store.getAll()) {
+                if (!provider.isOnline() && 
+                    provider.getLastHeartbeat() != null && 
+                    provider.getLastHeartbeat().isBefore(threshold)) {
+                    toRemove.add(provider);
                 }
             }
             
@@ -294,6 +430,118 @@ public class ProviderService {
         }
     }
     
+    /**
+     * 批量加载待刷新接口的方法元数据并写入搜索索引（三条集合查询，不占用 ZooKeeper 事件线程）
+     */
+    @Scheduled(fixedDelay = 5_000)
+    public void refreshSearchMetadata() {
+        if (methodMetadataLoader == null || metadataRefreshPending.isEmpty()) {
+            return;
+        }
+        List<String> batch = new ArrayList<>(metadataRefreshPending);
+        metadataRefreshPending.removeAll(batch);
+        batch.removeIf(interfaceName -> !searchIndex.containsInterface(interfaceName));
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            methodMetadataLoader.preload(batch);
+            for (String interfaceName : batch) {
+                searchIndex.setMethodMetadata(interfaceName, methodMetadataLoader.getMethods(interfaceName).values());
+            }
+            log.debug("✅ Refreshed search metadata for {} interfaces", batch.size());
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to refresh search metadata for {} interfaces: {}", batch.size(), e.getMessage());
+        }
+    }
+    
+    /**
+     * 工具数据变化（方法、参数入库等）：接口重新加载搜索元数据
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onToolsChanged(McpToolCatalogService.ToolsChangedEvent event) {
+        switch (event.getScope()) {
+            case INTERFACE -> {
+                if (event.getKey() != null) {
+                    metadataRefreshPending.add(event.getKey());
+                }
+            }
+            case ALL -> metadataRefreshPending.addAll(searchIndex.getInterfaceNames());
+            default -> {
+                // SERVICE 范围是 Nacos 配置变化，与 Provider 搜索无关
+            }
+        }
+    }
+    
+    /**
+     * 从所属应用中移除Provider，应用下没有Provider时移除应用
+     */
+    private void detachFromApplication(ProviderInfo provider) {
+        String applicationName = getApplicationName(provider);
+        ApplicationInfo appInfo = applications.get(applicationName);
+        if (appInfo != null) {
+            appInfo.removeProvider(provider);
+            if (appInfo.getTotalProviderCount() == 0) {
+                applications.remove(applicationName);
+                log.info("移除空应用: {}", applicationName);
+            }
+        }
+    }
+    
+    private static String indexKey(ProviderInfo provider) {
+        return provider.getZkPath() != null
+                ? provider.getZkPath()
+                : provider.getInterfaceName() + "@" + provider.getAddress();
+    }
+    
+    /**
+     * 调整接口工具形态的引用计数
+     *
+     * @return 形态集合是否变化（某形态首次出现或最后一个 Provider 下线）
+     */
+    boolean updateToolShape(ProviderInfo provider, int delta) {
+        String interfaceName = provider.getInterfaceName();
+        if (interfaceName == null) {
+            return false;
+        }
+        String shape = toolShape(provider);
+        boolean[] changed = new boolean[1];
+        toolShapes.compute(interfaceName, (k, shapes) -> {
+            Map<String, Integer> counts = shapes != null ? shapes : new HashMap<>();
+            int before = counts.getOrDefault(shape, 0);
+            int after = Math.max(0, before + delta);
+            if (after == 0) {
+                counts.remove(shape);
+            } else {
+                counts.put(shape, after);
+            }
+            changed[0] = (before == 0) != (after == 0);
+            return counts.isEmpty() ? null : counts;
+        });
+        return changed[0];
+    }
+    
+    /**
+     * 影响工具生成的 Provider 属性：版本、分组和排序后的方法集合；地址、权重等不参与
+     */
+    private static String toolShape(ProviderInfo provider) {
+        Set<String> methods = new TreeSet<>();
+        if (provider.getMethods() != null) {
+            for (String method : provider.getMethods().split(",")) {
+                if (!method.trim().isEmpty()) {
+                    methods.add(method.trim());
+                }
+            }
+        }
+        return provider.getVersion() + "|" + provider.getGroup() + "|" + String.join(",", methods);
+    }
+    
+    private void publishToolsChanged(String interfaceName) {
+        if (eventPublisher != null && interfaceName != null) {
+            eventPublisher.publishEvent(McpToolCatalogService.ToolsChangedEvent.forInterface(interfaceName));
+        }
+    }
+    
     /**
      * 获取应用名称
      */
@@ -321,24 +569,20 @@ public class ProviderService {
      * 获取应用数量
      */
     public int getApplicationCount() {
-        return applications.size();
+        return store.getApplicationCount();
     }
     
     /**
      * 获取Provider总数
      */
     public int getTotalProviderCount() {
-        return applications.values().stream()
-                .mapToInt(ApplicationInfo::getTotalProviderCount)
-                .sum();
+        return store.size();
     }
     
     /**
      * 获取在线Provider数量
      */
     public int getOnlineProviderCount() {
-        return applications.values().stream()
-                .mapToInt(ApplicationInfo::getOnlineProviderCount)
-                .sum();
+        return store.getOnlineCount();
     }
 }
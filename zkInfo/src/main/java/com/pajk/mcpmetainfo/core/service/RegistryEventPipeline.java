@@ -0,0 +1,387 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.config.ZooKeeperConfig;
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 注册中心Provider事件处理管道
+ *
+ * <p>Curator 事件线程只负责解析节点并入队，耗时的数据库和 Nacos 操作在后续阶段完成，
+ * 大应用滚动发布时不会阻塞其他服务的事件：</p>
+ * <ol>
+ *   <li>有界队列：队列满时阻塞提交线程（背压），事件不丢弃</li>
+ *   <li>合并：batch-window-ms 窗口内同一 zkPath 只保留最新状态。服务键（接口:版本:分组）的状态就是其下
+ *       Provider 节点的集合，按节点保留最新状态即按服务键"最新状态生效"；若整个服务键只保留一个事件，
+ *       同一服务键下其他 Provider 的上下线会被丢掉。服务键级别的工作（审批查询、服务入库）在每批内只做一次</li>
+ *   <li>批量入库：一批 Provider 一次批量写入，每个服务键只查询一次审批状态，随后更新 ProviderService</li>
+ *   <li>Nacos 同步：独立线程执行，队列满时由入库线程直接执行</li>
+ * </ol>
+ *
+ * <p>指标：zk.registry.pipeline.queue.size / pending.size / nacos.queue.size（积压），
+ * zk.registry.pipeline.lag（事件到达到 ProviderService 可见的延迟），
+ * zk.registry.pipeline.coalesced、zk.registry.pipeline.backpressure，均带 registry 标签。</p>
+ *
+ * <p>Spring 管理的实例服务主注册中心；额外注册中心由 {@link RegistryIngestor} 各自创建一个实例。</p>
+ */
+@Slf4j
+@Service
+public class RegistryEventPipeline {
+
+    private final String registryId;
+    private final ZooKeeperConfig.Pipeline config;
+    private final DubboServiceDbService dubboServiceDbService;
+    private final ProviderService providerService;
+
+    @Lazy
+    @Autowired(required = false)
+    private DubboToMcpAutoRegistrationService autoRegistrationService;
+
+    private final BlockingQueue<RegistryEvent> queue;
+    // 合并阶段 -> 入库阶段，容量很小：入库忙时事件留在合并窗口里继续合并
+    private final BlockingQueue<List<RegistryEvent>> batchQueue = new ArrayBlockingQueue<>(2);
+    private final AtomicInteger pendingSize = new AtomicInteger();
+    // 启动时创建，管道关闭（pipeline.enabled=false）时不创建任何线程
+    private volatile ThreadPoolExecutor nacosExecutor;
+
+    private final Timer lag;
+    private final Timer batchDuration;
+    private final Counter coalesced;
+    private final Counter backpressure;
+
+    private volatile boolean running;
+    private final List<Thread> workers = new ArrayList<>();
+
+    @Autowired
+    public RegistryEventPipeline(ZooKeeperConfig zooKeeperConfig,
+                                 DubboServiceDbService dubboServiceDbService,
+                                 ProviderService providerService,
+                                 MeterRegistry meterRegistry) {
+        this(zooKeeperConfig.getRegistryId(), zooKeeperConfig.getPipeline(),
+                dubboServiceDbService, providerService, meterRegistry);
+    }
+
+    RegistryEventPipeline(String registryId,
+                          ZooKeeperConfig.Pipeline config,
+                          DubboServiceDbService dubboServiceDbService,
+                          ProviderService providerService,
+                          MeterRegistry meterRegistry) {
+        this.registryId = registryId;
+        this.config = config;
+        this.dubboServiceDbService = dubboServiceDbService;
+        this.providerService = providerService;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+
+        Gauge.builder("zk.registry.pipeline.queue.size", queue, Collection::size)
+                .description("注册中心事件队列积压数")
+                .tag("registry", registryId)
+                .register(meterRegistry);
+        Gauge.builder("zk.registry.pipeline.pending.size", pendingSize, AtomicInteger::get)
+                .description("合并窗口中等待入库的节点数")
+                .tag("registry", registryId)
+                .register(meterRegistry);
+        Gauge.builder("zk.registry.pipeline.nacos.queue.size", this, RegistryEventPipeline::nacosQueueSize)
+                .description("Nacos同步队列积压数")
+                .tag("registry", registryId)
+                .register(meterRegistry);
+        this.lag = Timer.builder("zk.registry.pipeline.lag")
+                .description("事件到达到ProviderService可见的延迟")
+                .tag("registry", registryId)
+                .register(meterRegistry);
+        this.batchDuration = Timer.builder("zk.registry.pipeline.batch.duration")
+                .description("单批入库耗时")
+                .tag("registry", registryId)
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("zk.registry.pipeline.coalesced")
+                .description("合并窗口内被后续状态覆盖的事件数")
+                .tag("registry", registryId)
+                .register(meterRegistry);
+        this.backpressure = Counter.builder("zk.registry.pipeline.backpressure")
+                .description("队列满导致提交线程阻塞的次数")
+                .tag("registry", registryId)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 非 Spring 管理的实例（额外注册中心）由创建方设置
+     */
+    void setAutoRegistrationService(DubboToMcpAutoRegistrationService autoRegistrationService) {
+        this.autoRegistrationService = autoRegistrationService;
+    }
+
+    /**
+     * 单个Provider节点事件；providerInfo 在删除事件中为 null
+     */
+    @Data
+    public static class RegistryEvent {
+        private final CuratorCacheListener.Type type;
+        private final String zkPath;
+        private final String serviceName;
+        private final ProviderInfo providerInfo;
+        private final long receivedNanos;
+
+        public RegistryEvent(CuratorCacheListener.Type type, String zkPath, String serviceName, ProviderInfo providerInfo) {
+            this(type, zkPath, serviceName, providerInfo, System.nanoTime());
+        }
+
+        private RegistryEvent(CuratorCacheListener.Type type, String zkPath, String serviceName,
+                              ProviderInfo providerInfo, long receivedNanos) {
+            this.type = type;
+            this.zkPath = zkPath;
+            this.serviceName = serviceName;
+            this.providerInfo = providerInfo;
+            this.receivedNanos = receivedNanos;
+        }
+    }
+
+    /**
+     * Spring 管理的实例（主注册中心）只在 pipeline.enabled=true 时启动；关闭时事件由 ZooKeeperService 同步处理
+     */
+    @PostConstruct
+    public void init() {
+        if (config.isEnabled()) {
+            start();
+        } else {
+            log.info("RegistryEventPipeline [{}] disabled, provider events are handled synchronously", registryId);
+        }
+    }
+
+    /**
+     * 创建并启动合并、入库和 Nacos 同步线程（额外注册中心的管道直接调用）
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        nacosExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getNacosQueueCapacity()),
+                r -> daemon(r, "registry-pipeline-nacos-" + registryId),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        workers.add(daemon(this::coalesceLoop, "registry-pipeline-coalescer-" + registryId));
+        workers.add(daemon(this::persistLoop, "registry-pipeline-db-" + registryId));
+        workers.forEach(Thread::start);
+        log.info("✅ RegistryEventPipeline [{}] started: queueCapacity={}, batchWindowMs={}, batchSize={}",
+                registryId, config.getQueueCapacity(), config.getBatchWindowMs(), config.getBatchSize());
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        workers.clear();
+        if (nacosExecutor != null) {
+            nacosExecutor.shutdownNow();
+        }
+        int remaining = queue.size() + pendingSize.get();
+        if (remaining > 0) {
+            log.warn("⚠️ RegistryEventPipeline [{}] stopped with {} unprocessed events", registryId, remaining);
+        }
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 提交事件（Curator 事件线程调用）；队列满时阻塞直到有空位
+     */
+    public void submit(RegistryEvent event) {
+        if (queue.offer(event)) {
+            return;
+        }
+        backpressure.increment();
+        try {
+            queue.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while submitting registry event: {}", event.getZkPath());
+        }
+    }
+
+    private void coalesceLoop() {
+        Map<String, RegistryEvent> pending = new LinkedHashMap<>();
+        List<RegistryEvent> drained = new ArrayList<>();
+        long windowNanos = TimeUnit.MILLISECONDS.toNanos(config.getBatchWindowMs());
+        long windowStart = 0;
+        while (running) {
+            try {
+                long waitMs = pending.isEmpty() ? 1000
+                        : Math.max(5, TimeUnit.NANOSECONDS.toMillis(windowStart + windowNanos - System.nanoTime()));
+                RegistryEvent first = queue.poll(waitMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    if (pending.isEmpty()) {
+                        windowStart = System.nanoTime();
+                    }
+                    drained.add(first);
+                    queue.drainTo(drained);
+                    for (RegistryEvent event : drained) {
+                        merge(pending, event);
+                    }
+                    drained.clear();
+                    pendingSize.set(pending.size());
+                }
+                boolean windowElapsed = !pending.isEmpty() && System.nanoTime() - windowStart >= windowNanos;
+                if ((windowElapsed || pending.size() >= config.getBatchSize())
+                        && batchQueue.offer(new ArrayList<>(pending.values()))) {
+                    pending.clear();
+                    pendingSize.set(0);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("❌ Registry event coalescing failed", e);
+            }
+        }
+    }
+
+    /**
+     * 合并同一节点的事件：保留最新状态；新增后又更新仍按新增处理，延迟从最早的事件算起
+     * （按节点合并即按服务键保留其下每个 Provider 的最新状态，见类注释）
+     */
+    void merge(Map<String, RegistryEvent> pending, RegistryEvent event) {
+        RegistryEvent previous = pending.get(event.getZkPath());
+        if (previous == null) {
+            pending.put(event.getZkPath(), event);
+            return;
+        }
+        coalesced.increment();
+        CuratorCacheListener.Type type = previous.getType() == CuratorCacheListener.Type.NODE_CREATED
+                && event.getType() == CuratorCacheListener.Type.NODE_CHANGED
+                ? CuratorCacheListener.Type.NODE_CREATED : event.getType();
+        pending.put(event.getZkPath(), new RegistryEvent(type, event.getZkPath(), event.getServiceName(),
+                event.getProviderInfo(), previous.getReceivedNanos()));
+    }
+
+    private void persistLoop() {
+        while (running) {
+            try {
+                applyBatch(batchQueue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("❌ Registry event batch failed", e);
+            }
+        }
+    }
+
+    /**
+     * 入库并更新 ProviderService；同一批内每个服务键只查询一次审批状态
+     */
+    void applyBatch(List<RegistryEvent> batch) {
+        long start = System.nanoTime();
+        List<ProviderInfo> upserts = new ArrayList<>();
+        for (RegistryEvent event : batch) {
+            if (event.getType() != CuratorCacheListener.Type.NODE_DELETED) {
+                upserts.add(event.getProviderInfo());
+            }
+        }
+        if (!upserts.isEmpty()) {
+            try {
+                dubboServiceDbService.saveOrUpdateServicesWithNodes(upserts);
+            } catch (Exception e) {
+                log.error("批量保存Provider到数据库失败: {} 条", upserts.size(), e);
+            }
+        }
+        Map<String, Boolean> approvals = new HashMap<>();
+        for (RegistryEvent event : batch) {
+            try {
+                apply(event, approvals);
+            } catch (Exception e) {
+                log.error("处理Provider事件失败: {}", event.getZkPath(), e);
+            }
+            lag.record(System.nanoTime() - event.getReceivedNanos(), TimeUnit.NANOSECONDS);
+        }
+        long elapsed = System.nanoTime() - start;
+        batchDuration.record(elapsed, TimeUnit.NANOSECONDS);
+        log.debug("🔁 Applied {} registry events for {} service keys in {}ms",
+                batch.size(), approvals.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    private void apply(RegistryEvent event, Map<String, Boolean> approvals) {
+        if (event.getType() == CuratorCacheListener.Type.NODE_DELETED) {
+            ProviderInfo removed = providerService.removeProviderByZkPath(event.getZkPath());
+            if (removed != null) {
+                syncNacos(() -> autoRegistrationService.handleProviderRemoved(removed));
+            }
+            return;
+        }
+        ProviderInfo providerInfo = event.getProviderInfo();
+        boolean approved = approvals.computeIfAbsent(serviceKey(providerInfo), k -> isApproved(providerInfo));
+        if (event.getType() == CuratorCacheListener.Type.NODE_CREATED) {
+            if (approved) {
+                providerService.addProvider(providerInfo);
+                syncNacos(() -> autoRegistrationService.handleProviderAdded(providerInfo));
+            } else {
+                log.debug("跳过未审批Provider的服务监控: {}", event.getZkPath());
+            }
+        } else if (approved) {
+            providerService.updateProvider(providerInfo);
+            syncNacos(() -> autoRegistrationService.handleProviderUpdated(providerInfo));
+        } else {
+            // 未审批（或审批被撤销）时从监控中移除（如果之前已添加）
+            providerService.removeProviderByZkPath(event.getZkPath());
+        }
+    }
+
+    private boolean isApproved(ProviderInfo providerInfo) {
+        return dubboServiceDbService.findByServiceKey(providerInfo)
+                .map(entity -> entity.getApprovalStatus() == DubboServiceEntity.ApprovalStatus.APPROVED)
+                .orElse(false);
+    }
+
+    private void syncNacos(Runnable task) {
+        ThreadPoolExecutor executor = nacosExecutor;
+        if (autoRegistrationService == null || executor == null) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("❌ Nacos sync for registry event failed", e);
+            }
+        });
+    }
+
+    private static double nacosQueueSize(RegistryEventPipeline pipeline) {
+        ThreadPoolExecutor executor = pipeline.nacosExecutor;
+        return executor != null ? executor.getQueue().size() : 0;
+    }
+
+    private static String serviceKey(ProviderInfo providerInfo) {
+        return providerInfo.getInterfaceName() + ":" + providerInfo.getVersion() + ":" + providerInfo.getGroup();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
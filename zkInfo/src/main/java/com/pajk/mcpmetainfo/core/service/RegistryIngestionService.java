@@ -0,0 +1,231 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.config.ZooKeeperConfig;
+import com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 多注册中心接入
+ *
+ * <p>主注册中心（zookeeper.connect-string）仍由 {@link ZooKeeperService} 处理；zookeeper.registries
+ * 中的每个注册中心创建一个 {@link RegistryIngestor}，各自的客户端、缓存和事件管道互相独立，
+ * 一套 zkInfo 即可接入所有机房/业务线的注册中心。</p>
+ *
+ * <p>应用启动完成后各注册中心在专用线程池（registry-ingest-*）中并行执行：等待连接 -> 全量拉取入库 -> 开始监听。
+ * 等待连接以 zookeeper.connection-timeout 为限，超时的注册中心标记为降级，连接建立后再提交一次初始化；
+ * 某个注册中心不可达不影响其他注册中心，也不占用公共线程池。</p>
+ */
+@Slf4j
+@Service
+public class RegistryIngestionService {
+
+    private static final Pattern REGISTRY_ID = Pattern.compile("[A-Za-z0-9_.-]+");
+    private static final int MAX_INGEST_THREADS = 4;
+
+    private final ZooKeeperConfig config;
+    private final ZooKeeperService zooKeeperService;
+    private final ZooKeeperBootstrapService bootstrapService;
+    private final DubboServiceDbService dubboServiceDbService;
+    private final ProviderService providerService;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private ServiceCollectionFilterService filterService;
+
+    @Autowired(required = false)
+    private InterfaceWhitelistService interfaceWhitelistService;
+
+    @Lazy
+    @Autowired(required = false)
+    private DubboToMcpAutoRegistrationService autoRegistrationService;
+
+    private final Map<String, RegistryIngestor> ingestors = new LinkedHashMap<>();
+    private volatile ThreadPoolExecutor ingestExecutor;
+
+    public RegistryIngestionService(ZooKeeperConfig config,
+                                    ZooKeeperService zooKeeperService,
+                                    ZooKeeperBootstrapService bootstrapService,
+                                    DubboServiceDbService dubboServiceDbService,
+                                    ProviderService providerService,
+                                    MeterRegistry meterRegistry) {
+        this.config = config;
+        this.zooKeeperService = zooKeeperService;
+        this.bootstrapService = bootstrapService;
+        this.dubboServiceDbService = dubboServiceDbService;
+        this.providerService = providerService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 单个注册中心的状态
+     */
+    @Data
+    public static class RegistryStatus {
+        private final String id;
+        private final String connectString;
+        private final String basePath;
+        private final boolean primary;
+        private final boolean connected;
+        private final boolean degraded;
+        private final boolean initialized;
+        private final int watchedServices;
+    }
+
+    @PostConstruct
+    public void init() {
+        Set<String> ids = new HashSet<>();
+        ids.add(config.getRegistryId());
+        for (ZooKeeperConfig.Registry registry : config.getRegistries()) {
+            if (!registry.isEnabled()) {
+                continue;
+            }
+            validate(registry, ids);
+            RegistryEventPipeline pipeline = new RegistryEventPipeline(registry.getId(), config.getPipeline(),
+                    dubboServiceDbService, providerService, meterRegistry);
+            pipeline.setAutoRegistrationService(autoRegistrationService);
+            RegistryIngestor ingestor = new RegistryIngestor(registry, config, pipeline, zooKeeperService,
+                    filterService, interfaceWhitelistService, this::findApprovedServiceNames);
+            ingestor.start();
+            ingestors.put(registry.getId(), ingestor);
+        }
+        if (!ingestors.isEmpty()) {
+            log.info("✅ 接入 {} 个额外注册中心: {}，本机房注册中心: {}", ingestors.size(), ingestors.keySet(),
+                    config.getLocalRegistry() != null && !config.getLocalRegistry().isEmpty() ? config.getLocalRegistry() : "未配置");
+        }
+    }
+
+    /**
+     * 应用启动完成后，各注册中心并行拉取并开始监听
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrapRegistries() {
+        if (ingestors.isEmpty()) {
+            return;
+        }
+        int threads = Math.min(ingestors.size(), MAX_INGEST_THREADS);
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 每个注册中心同时最多一个待执行任务，队列容量为注册中心数
+        ingestExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(ingestors.size()), r -> {
+                    Thread thread = new Thread(r, "registry-ingest-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        for (RegistryIngestor ingestor : ingestors.values()) {
+            submitIngest(ingestor);
+        }
+    }
+
+    private void submitIngest(RegistryIngestor ingestor) {
+        ThreadPoolExecutor executor = ingestExecutor;
+        if (executor == null || executor.isShutdown()) {
+            return;
+        }
+        try {
+            executor.execute(() -> ingest(ingestor));
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ 注册中心 [{}] 初始化任务被拒绝: {}", ingestor.getId(), e.getMessage());
+        }
+    }
+
+    private void ingest(RegistryIngestor ingestor) {
+        try {
+            long start = System.currentTimeMillis();
+            long timeoutMs = config.getConnectionTimeout();
+            if (!ingestor.awaitConnected(timeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("⚠️ 注册中心 [{}] {}ms 内未连接成功，标记为降级，连接建立后再全量拉取: {}",
+                        ingestor.getId(), timeoutMs, ingestor.getRegistry().getConnectString());
+                ingestor.whenConnected(() -> submitIngest(ingestor));
+                return;
+            }
+            int providerCount = bootstrapService.loadRegistry(ingestor.getId(), ingestor.getClient(),
+                    ingestor.getRegistry().getBasePath());
+            ingestor.startWatching();
+            log.info("✅ 注册中心 [{}] 初始化完成，Provider: {}，总耗时: {}ms",
+                    ingestor.getId(), providerCount, System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("❌ 注册中心 [{}] 初始化失败", ingestor.getId(), e);
+        }
+    }
+
+    /**
+     * 开始处理指定服务的Provider事件（服务审批通过后调用），所有额外注册中心生效
+     */
+    public void watchService(String serviceName) {
+        for (RegistryIngestor ingestor : ingestors.values()) {
+            ingestor.watchService(serviceName);
+        }
+    }
+
+    /**
+     * 所有注册中心（含主注册中心）的状态
+     */
+    public List<RegistryStatus> getRegistryStatus() {
+        List<RegistryStatus> status = new ArrayList<>();
+        status.add(new RegistryStatus(config.getRegistryId(), config.getConnectString(), config.getBasePath(), true,
+                zooKeeperService.isConnected(), false, zooKeeperService.isPathCached(config.getBasePath()),
+                zooKeeperService.getWatchedServices().size()));
+        for (RegistryIngestor ingestor : ingestors.values()) {
+            ZooKeeperConfig.Registry registry = ingestor.getRegistry();
+            status.add(new RegistryStatus(registry.getId(), registry.getConnectString(), registry.getBasePath(), false,
+                    ingestor.isConnected(), ingestor.isDegraded(), ingestor.isCacheInitialized(),
+                    ingestor.getWatchedServices().size()));
+        }
+        return status;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        ThreadPoolExecutor executor = ingestExecutor;
+        if (executor != null) {
+            // 中断仍在等待连接或拉取中的初始化任务
+            executor.shutdownNow();
+        }
+        ingestors.values().forEach(RegistryIngestor::close);
+        ingestors.clear();
+    }
+
+    private static void validate(ZooKeeperConfig.Registry registry, Set<String> ids) {
+        String id = registry.getId();
+        if (id == null || !REGISTRY_ID.matcher(id).matches()) {
+            throw new IllegalStateException("zookeeper.registries 的 id 只能包含字母、数字、'_'、'.'、'-': " + id);
+        }
+        if (!ids.add(id)) {
+            throw new IllegalStateException("zookeeper.registries 的 id 重复（或与 zookeeper.registry-id 相同）: " + id);
+        }
+        if (registry.getConnectString() == null || registry.getConnectString().trim().isEmpty()) {
+            throw new IllegalStateException("注册中心 " + id + " 未配置 connect-string");
+        }
+    }
+
+    private Set<String> findApprovedServiceNames() {
+        return dubboServiceDbService.findApprovedServices().stream()
+                .map(DubboServiceEntity::getInterfaceName)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,298 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.config.ZooKeeperConfig;
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.core.util.RegistryPaths;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.CuratorCache;
+import org.apache.curator.framework.recipes.cache.CuratorCacheBridge;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+import org.apache.curator.retry.RetryForever;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 单个额外注册中心的接入：独立的 Curator 客户端、基础路径共享缓存和事件管道
+ *
+ * <p>处理方式与主注册中心（{@link ZooKeeperService}）一致：启动时由 {@link ZooKeeperBootstrapService} 全量拉取，
+ * 之后基础路径下一个 CuratorCache 监听，已审批服务的 Provider 事件经过滤后进入本注册中心自己的
+ * {@link RegistryEventPipeline}，一个注册中心的事件积压不影响其他注册中心。</p>
+ *
+ * <p>Provider 路径带注册中心前缀（见 {@link RegistryPaths}）；审批状态按接口名全局生效，
+ * URL 解析复用主注册中心的解析器，字符串池在所有注册中心间共享。</p>
+ */
+@Slf4j
+public class RegistryIngestor implements Closeable {
+
+    private final ZooKeeperConfig.Registry registry;
+    private final CuratorFramework client;
+    private final RegistryEventPipeline pipeline;
+    private final ZooKeeperService zooKeeperService;
+    private final ServiceCollectionFilterService filterService;
+    private final InterfaceWhitelistService interfaceWhitelistService;
+    private final Supplier<Set<String>> approvedServiceNames;
+
+    private volatile CuratorCacheBridge registryCache;
+    private volatile boolean cacheInitialized;
+    // 限时内未连接成功，等待连接建立后再全量拉取
+    private volatile boolean degraded;
+
+    // 已审批、需要处理Provider事件的服务接口
+    private final Set<String> watchedServices = ConcurrentHashMap.newKeySet();
+
+    RegistryIngestor(ZooKeeperConfig.Registry registry,
+                     ZooKeeperConfig config,
+                     RegistryEventPipeline pipeline,
+                     ZooKeeperService zooKeeperService,
+                     ServiceCollectionFilterService filterService,
+                     InterfaceWhitelistService interfaceWhitelistService,
+                     Supplier<Set<String>> approvedServiceNames) {
+        this(registry, CuratorFrameworkFactory.builder()
+                        .connectString(registry.getConnectString())
+                        .sessionTimeoutMs(config.getSessionTimeout())
+                        .connectionTimeoutMs(config.getConnectionTimeout())
+                        .retryPolicy(new RetryForever(config.getRetry().getBaseSleepTime()))
+                        .build(),
+                pipeline, zooKeeperService, filterService, interfaceWhitelistService, approvedServiceNames);
+    }
+
+    RegistryIngestor(ZooKeeperConfig.Registry registry,
+                     CuratorFramework client,
+                     RegistryEventPipeline pipeline,
+                     ZooKeeperService zooKeeperService,
+                     ServiceCollectionFilterService filterService,
+                     InterfaceWhitelistService interfaceWhitelistService,
+                     Supplier<Set<String>> approvedServiceNames) {
+        this.registry = registry;
+        this.client = client;
+        this.pipeline = pipeline;
+        this.zooKeeperService = zooKeeperService;
+        this.filterService = filterService;
+        this.interfaceWhitelistService = interfaceWhitelistService;
+        this.approvedServiceNames = approvedServiceNames;
+    }
+
+    /**
+     * 启动客户端和事件管道（不等待连接建立）
+     */
+    public void start() {
+        client.start();
+        pipeline.start();
+        log.info("📡 注册中心 [{}] 客户端已启动: {}{}", getId(), registry.getConnectString(), registry.getBasePath());
+    }
+
+    /**
+     * 限时等待连接建立；超时时标记为降级（客户端在 RetryForever 下继续重连）
+     *
+     * @return 是否已连接
+     */
+    public boolean awaitConnected(long timeout, TimeUnit unit) throws InterruptedException {
+        boolean connected = client.blockUntilConnected((int) Math.min(timeout, Integer.MAX_VALUE), unit);
+        degraded = !connected;
+        return connected;
+    }
+
+    /**
+     * 连接建立后执行一次 action（当前已连接时立即执行），并清除降级标记
+     */
+    public void whenConnected(Runnable action) {
+        ConnectedTrigger trigger = new ConnectedTrigger(action);
+        client.getConnectionStateListenable().addListener(trigger);
+        if (isConnected()) {
+            trigger.fire();
+        }
+    }
+
+    private final class ConnectedTrigger implements ConnectionStateListener {
+        private final Runnable action;
+        private final AtomicBoolean fired = new AtomicBoolean();
+
+        private ConnectedTrigger(Runnable action) {
+            this.action = action;
+        }
+
+        @Override
+        public void stateChanged(CuratorFramework curatorFramework, ConnectionState newState) {
+            if (newState.isConnected()) {
+                fire();
+            }
+        }
+
+        private void fire() {
+            if (fired.compareAndSet(false, true)) {
+                client.getConnectionStateListenable().removeListener(this);
+                degraded = false;
+                log.info("✅ 注册中心 [{}] 连接已建立: {}", getId(), registry.getConnectString());
+                action.run();
+            }
+        }
+    }
+
+    /**
+     * 登记已审批且在本注册中心存在的服务，并启动基础路径下的共享缓存（重复调用时复用已启动的缓存）
+     */
+    public synchronized void startWatching() throws Exception {
+        if (registryCache != null) {
+            return;
+        }
+        String basePath = registry.getBasePath();
+        if (client.checkExists().forPath(basePath) == null) {
+            log.warn("⚠️ 注册中心 [{}] 基础路径不存在: {}", getId(), basePath);
+            return;
+        }
+        List<String> services = client.getChildren().forPath(basePath);
+        Set<String> approved = approvedServiceNames.get();
+        for (String service : services) {
+            if (approved.contains(service)) {
+                watchedServices.add(service);
+            }
+        }
+        log.info("注册中心 [{}] 开始监听 {} 个已审批服务接口（共 {} 个）", getId(), watchedServices.size(), services.size());
+
+        // bridgeBuilder：ZooKeeper 3.6+ 使用持久递归 watch，3.5 兼容模式下退化为 TreeCache
+        CuratorCacheBridge cache = CuratorCache.bridgeBuilder(client, basePath)
+                .withDataNotCached()
+                .build();
+        cache.listenable().addListener(CuratorCacheListener.builder()
+                .forAll(this::dispatchRegistryEvent)
+                .forInitialized(() -> {
+                    cacheInitialized = true;
+                    log.info("✅ 注册中心 [{}] 缓存初始化完成: {}", getId(), basePath);
+                })
+                .afterInitialized()
+                .build());
+        cache.start();
+        registryCache = cache;
+    }
+
+    /**
+     * 开始处理指定服务的Provider事件（服务审批通过后调用）
+     */
+    public void watchService(String serviceName) {
+        if (watchedServices.add(serviceName)) {
+            log.info("注册中心 [{}] 开始监听服务 {} 的Provider变化", getId(), serviceName);
+        }
+    }
+
+    /**
+     * 按路径模式分发缓存事件：/{basePath}/{interface} 创建为新服务发现，
+     * /{basePath}/{interface}/providers/{node} 为 Provider 事件，其余分类只由主注册中心处理
+     */
+    void dispatchRegistryEvent(CuratorCacheListener.Type type, ChildData oldData, ChildData data) {
+        ChildData node = data != null ? data : oldData;
+        String basePath = registry.getBasePath();
+        String prefix = basePath.endsWith("/") ? basePath : basePath + "/";
+        if (node == null || !node.getPath().startsWith(prefix)) {
+            return;
+        }
+        try {
+            String[] segments = node.getPath().substring(prefix.length()).split("/", 3);
+            if (segments.length == 1) {
+                if (type == CuratorCacheListener.Type.NODE_CREATED) {
+                    handleServiceAdded(segments[0]);
+                }
+                return;
+            }
+            if (segments.length < 3 || segments[2].indexOf('/') >= 0
+                    || !ZooKeeperService.RegistryCategory.PROVIDERS.getSegment().equals(segments[1])
+                    || !watchedServices.contains(segments[0])) {
+                return;
+            }
+            handleProviderEvent(type, node.getPath(), segments[0], segments[2]);
+        } catch (Exception e) {
+            log.error("处理注册中心 [{}] 事件失败: {}", getId(), node.getPath(), e);
+        }
+    }
+
+    private void handleProviderEvent(CuratorCacheListener.Type type, String nodePath, String serviceName, String providerNode) {
+        String zkPath = RegistryPaths.qualify(getId(), nodePath);
+        ProviderInfo providerInfo = null;
+        if (type != CuratorCacheListener.Type.NODE_DELETED) {
+            providerInfo = zooKeeperService.parseProviderNode(providerNode, serviceName);
+            if (providerInfo == null) {
+                return;
+            }
+            providerInfo.setZkPath(zkPath);
+            if (type == CuratorCacheListener.Type.NODE_CREATED && filterService != null
+                    && !filterService.shouldCollect(providerInfo.getInterfaceName(),
+                            providerInfo.getVersion(), providerInfo.getGroup())) {
+                log.debug("Provider {}/{} 被过滤规则排除，跳过处理", providerInfo.getInterfaceName(), providerInfo.getVersion());
+                return;
+            }
+        }
+        pipeline.submit(new RegistryEventPipeline.RegistryEvent(type, zkPath, serviceName, providerInfo));
+    }
+
+    private void handleServiceAdded(String serviceName) {
+        if (interfaceWhitelistService != null && !interfaceWhitelistService.isAllowed(serviceName)) {
+            return;
+        }
+        if (approvedServiceNames.get().contains(serviceName)) {
+            watchService(serviceName);
+        } else {
+            log.info("注册中心 [{}] 新发现的服务 {} 未审批，将在下次批量加载时处理", getId(), serviceName);
+        }
+    }
+
+    public String getId() {
+        return registry.getId();
+    }
+
+    public ZooKeeperConfig.Registry getRegistry() {
+        return registry;
+    }
+
+    public CuratorFramework getClient() {
+        return client;
+    }
+
+    public boolean isConnected() {
+        return client.getZookeeperClient().isConnected();
+    }
+
+    /**
+     * 启动时限时内未连接成功，尚未完成全量拉取
+     */
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    public Set<String> getWatchedServices() {
+        return Set.copyOf(watchedServices);
+    }
+
+    /**
+     * 缓存是否已完成初始加载（此后的节点变化才会分发）
+     */
+    public boolean isCacheInitialized() {
+        return cacheInitialized;
+    }
+
+    @Override
+    public void close() {
+        try {
+            CuratorCacheBridge cache = registryCache;
+            registryCache = null;
+            if (cache != null) {
+                cache.close();
+            }
+            watchedServices.clear();
+            pipeline.shutdown();
+            client.close();
+            log.info("注册中心 [{}] 客户端已关闭", getId());
+        } catch (Exception e) {
+            log.error("关闭注册中心 [{}] 客户端失败", getId(), e);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.config.ZooKeeperConfig;
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.core.util.AsyncChildrenReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.curator.framework.state.ConnectionState;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ZooKeeper 会话恢复后的差量重同步
+ *
+ * <p>会话过期或长时间断连后，注册中心缓存恢复时会把大量未变化的 Provider 重新作为新增/变更事件重放，
+ * 逐条处理会对 MySQL 和 Nacos 造成写入风暴。这里在断连（SUSPENDED/LOST）时打开重同步窗口：</p>
+ * <ol>
+ *   <li>窗口内已监听服务的 Provider 事件只记录路径，不进入事件管道</li>
+ *   <li>连接恢复并等待 settle-ms 后，异步读取已监听服务的 providers 快照</li>
+ *   <li>与 ProviderService 中的 Provider 比对，只下发真实的新增、删除和变更
+ *      （同一接口、版本、分组、地址换了节点视为变更）</li>
+ *   <li>关闭窗口；读取快照期间到达的事件逐个路径核对后补发</li>
+ * </ol>
+ *
+ * <p>读取失败的服务不做删除判断；整体失败时退化为逐个核对窗口内记录的路径。</p>
+ *
+ * <p>注册中心缓存初始化完成时同样执行一次（不受 enabled 开关影响）：启动时的全量加载先于缓存建立，
+ * 两者之间的节点变化不会作为事件分发，由这次比对补齐。</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RegistryResyncService {
+
+    private final ZooKeeperService zooKeeperService;
+    private final ProviderService providerService;
+
+    private final Object windowLock = new Object();
+    private volatile boolean resyncing;
+    // 窗口内被拦截的节点路径
+    private Set<String> intercepted = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private ScheduledExecutorService executor;
+    private volatile ResyncResult lastResult;
+
+    /**
+     * 一次重同步的结果
+     */
+    @Data
+    public static class ResyncResult {
+        private long startTimeMillis;
+        private long durationMs;
+        private int interceptedEvents;
+        private int snapshotProviders;
+        private int added;
+        private int removed;
+        private int updated;
+        private int unchanged;
+        private int failedServices;
+        private int lateEvents;
+        private boolean fallback;
+    }
+
+    /**
+     * 快照与内存的差量；updated 中为新节点，replacedPaths 为对应的旧节点路径
+     */
+    @Data
+    static class Delta {
+        private final List<ProviderInfo> added = new ArrayList<>();
+        private final List<ProviderInfo> removed = new ArrayList<>();
+        private final List<ProviderInfo> updated = new ArrayList<>();
+        private final List<String> replacedPaths = new ArrayList<>();
+        private int unchanged;
+    }
+
+    /**
+     * 已监听服务的 providers 快照；readServices 为读取成功的服务
+     */
+    @Data
+    static class RegistrySnapshot {
+        private final Map<String, ProviderInfo> providers = new HashMap<>();
+        private final Set<String> readServices = new HashSet<>();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (zooKeeperService.getClient() == null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "registry-resync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!zooKeeperService.getConfig().getResync().isEnabled()) {
+            return;
+        }
+        zooKeeperService.getClient().getConnectionStateListenable()
+                .addListener((client, state) -> onStateChanged(state));
+        log.info("✅ Registry resync enabled, settleMs={}", zooKeeperService.getConfig().getResync().getSettleMs());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 连接状态变化：断连打开窗口，恢复后安排一次重同步
+     */
+    void onStateChanged(ConnectionState state) {
+        switch (state) {
+            case SUSPENDED, LOST -> {
+                synchronized (windowLock) {
+                    if (!resyncing) {
+                        resyncing = true;
+                        log.warn("⚠️ ZooKeeper connection {}, provider events will be resynced by diff", state);
+                    }
+                }
+            }
+            case RECONNECTED -> {
+                if (resyncing && scheduled.compareAndSet(false, true)) {
+                    executor.schedule(this::resync, zooKeeperService.getConfig().getResync().getSettleMs(),
+                            TimeUnit.MILLISECONDS);
+                }
+            }
+            default -> {
+                // CONNECTED 只在首次连接时出现，READ_ONLY 不影响已有数据
+            }
+        }
+    }
+
+    /**
+     * 注册中心缓存初始化完成（缓存事件线程调用）：打开窗口并立即安排一次重同步，
+     * 补齐启动全量加载之后、缓存初始化之前的节点变化
+     */
+    public void reconcileAfterCacheInitialized() {
+        if (executor == null) {
+            return;
+        }
+        synchronized (windowLock) {
+            resyncing = true;
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::resync);
+        }
+    }
+
+    /**
+     * 事件线程调用：窗口打开时记录路径并拦截事件
+     */
+    public boolean intercept(String zkPath) {
+        if (!resyncing) {
+            return false;
+        }
+        synchronized (windowLock) {
+            if (!resyncing) {
+                return false;
+            }
+            intercepted.add(zkPath);
+            return true;
+        }
+    }
+
+    public boolean isResyncing() {
+        return resyncing;
+    }
+
+    public ResyncResult getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * 读取快照、比对并下发差量，然后关闭窗口
+     */
+    void resync() {
+        scheduled.set(false);
+        CuratorFramework client = zooKeeperService.getClient();
+        if (client != null && !client.getZookeeperClient().isConnected()) {
+            // 又断开了，等下一次 RECONNECTED
+            return;
+        }
+        ResyncResult result = new ResyncResult();
+        result.setStartTimeMillis(System.currentTimeMillis());
+        Set<String> beforeSnapshot = swapIntercepted();
+        result.setInterceptedEvents(beforeSnapshot.size());
+        try {
+            RegistrySnapshot snapshot = readSnapshot(zooKeeperService.getWatchedServices());
+            result.setSnapshotProviders(snapshot.getProviders().size());
+            result.setFailedServices(zooKeeperService.getWatchedServices().size() - snapshot.getReadServices().size());
+            Delta delta = diff(snapshot, providerService.getAllProviders(), zooKeeperService.getConfig().getBasePath());
+            emit(delta);
+            result.setAdded(delta.getAdded().size());
+            result.setRemoved(delta.getRemoved().size());
+            result.setUpdated(delta.getUpdated().size());
+            result.setUnchanged(delta.getUnchanged());
+        } catch (Exception e) {
+            log.error("❌ Registry resync snapshot failed, verifying {} intercepted paths one by one", beforeSnapshot.size(), e);
+            result.setFallback(true);
+            verifyPaths(beforeSnapshot);
+        }
+
+        Set<String> late;
+        synchronized (windowLock) {
+            resyncing = false;
+            late = intercepted;
+            intercepted = ConcurrentHashMap.newKeySet();
+        }
+        result.setLateEvents(late.size());
+        verifyPaths(late);
+
+        result.setDurationMs(System.currentTimeMillis() - result.getStartTimeMillis());
+        lastResult = result;
+        log.info("🔁 Registry resync finished in {}ms: intercepted={}, snapshot={}, added={}, removed={}, updated={}, unchanged={}, failedServices={}, late={}",
+                result.getDurationMs(), result.getInterceptedEvents(), result.getSnapshotProviders(), result.getAdded(),
+                result.getRemoved(), result.getUpdated(), result.getUnchanged(), result.getFailedServices(), result.getLateEvents());
+    }
+
+    /**
+     * 读取已监听服务的全部 Provider 节点
+     */
+    RegistrySnapshot readSnapshot(Set<String> services) throws Exception {
+        RegistrySnapshot snapshot = new RegistrySnapshot();
+        if (services.isEmpty()) {
+            return snapshot;
+        }
+        String basePath = zooKeeperService.getConfig().getBasePath();
+        ZooKeeperConfig.Bootstrap config = zooKeeperService.getConfig().getBootstrap();
+        List<String> providersPaths = new ArrayList<>(services.size());
+        for (String service : services) {
+            providersPaths.add(basePath + "/" + service + "/providers");
+        }
+        new AsyncChildrenReader(zooKeeperService.getClient(), config.getMaxInFlight(), config.getIdleTimeoutMs())
+                .read(providersPaths, result -> {
+                    String providersPath = result.getPath();
+                    String service = providersPath.substring(basePath.length() + 1, providersPath.length() - "/providers".length());
+                    if (!result.isSuccess()) {
+                        log.warn("⚠️ Resync failed to read providers of {}, skipping removals for it", service);
+                        return;
+                    }
+                    snapshot.getReadServices().add(service);
+                    for (String node : result.getChildren()) {
+                        ProviderInfo provider = zooKeeperService.parseProviderNode(node, service);
+                        if (provider != null) {
+                            provider.setZkPath(providersPath + "/" + node);
+                            snapshot.getProviders().put(provider.getZkPath(), provider);
+                        }
+                    }
+                });
+        return snapshot;
+    }
+
+    /**
+     * 比对快照与内存中的 Provider；只比较快照中读取成功的服务，额外注册中心的 Provider（路径带前缀）不参与
+     */
+    static Delta diff(RegistrySnapshot snapshot, Collection<ProviderInfo> current, String basePath) {
+        Delta delta = new Delta();
+        Map<String, ProviderInfo> currentByPath = new HashMap<>();
+        String prefix = basePath + "/";
+        for (ProviderInfo provider : current) {
+            String zkPath = provider.getZkPath();
+            if (zkPath != null && zkPath.startsWith(prefix)
+                    && snapshot.getReadServices().contains(serviceOf(basePath, zkPath))) {
+                currentByPath.put(zkPath, provider);
+            }
+        }
+
+        Map<String, ProviderInfo> added = new HashMap<>();
+        for (Map.Entry<String, ProviderInfo> entry : snapshot.getProviders().entrySet()) {
+            if (currentByPath.remove(entry.getKey()) != null) {
+                delta.unchanged++;
+            } else {
+                added.put(identity(entry.getValue()), entry.getValue());
+            }
+        }
+        // 剩下的是快照中已不存在的节点；同一身份换了节点的视为变更
+        for (ProviderInfo gone : currentByPath.values()) {
+            ProviderInfo replacement = added.remove(identity(gone));
+            if (replacement != null) {
+                delta.updated.add(replacement);
+                delta.replacedPaths.add(gone.getZkPath());
+            } else {
+                delta.removed.add(gone);
+            }
+        }
+        delta.added.addAll(added.values());
+        return delta;
+    }
+
+    private void emit(Delta delta) {
+        String basePath = zooKeeperService.getConfig().getBasePath();
+        for (ProviderInfo removed : delta.getRemoved()) {
+            zooKeeperService.dispatchProviderEvent(CuratorCacheListener.Type.NODE_DELETED, removed.getZkPath(),
+                    serviceOf(basePath, removed.getZkPath()), null);
+        }
+        for (int i = 0; i < delta.getUpdated().size(); i++) {
+            ProviderInfo updated = delta.getUpdated().get(i);
+            String replacedPath = delta.getReplacedPaths().get(i);
+            zooKeeperService.dispatchProviderEvent(CuratorCacheListener.Type.NODE_DELETED, replacedPath,
+                    serviceOf(basePath, replacedPath), null);
+            zooKeeperService.dispatchProviderEvent(CuratorCacheListener.Type.NODE_CHANGED, updated.getZkPath(),
+                    serviceOf(basePath, updated.getZkPath()), updated);
+        }
+        for (ProviderInfo added : delta.getAdded()) {
+            zooKeeperService.dispatchProviderEvent(CuratorCacheListener.Type.NODE_CREATED, added.getZkPath(),
+                    serviceOf(basePath, added.getZkPath()), added);
+        }
+    }
+
+    /**
+     * 逐个路径核对节点是否存在，与内存不一致时补发事件
+     */
+    private void verifyPaths(Set<String> paths) {
+        if (paths.isEmpty()) {
+            return;
+        }
+        CuratorFramework client = zooKeeperService.getClient();
+        String basePath = zooKeeperService.getConfig().getBasePath();
+        for (String zkPath : paths) {
+            try {
+                String service = serviceOf(basePath, zkPath);
+                boolean exists = client.checkExists().forPath(zkPath) != null;
+                boolean known = providerService.getProviderByZkPath(zkPath) != null;
+                if (exists && !known) {
+                    ProviderInfo provider = zooKeeperService.parseProviderNode(
+                            zkPath.substring(zkPath.lastIndexOf('/') + 1), service);
+                    if (provider != null) {
+                        provider.setZkPath(zkPath);
+                        zooKeeperService.dispatchProviderEvent(CuratorCacheListener.Type.NODE_CREATED, zkPath, service, provider);
+                    }
+                } else if (!exists && known) {
+                    zooKeeperService.dispatchProviderEvent(CuratorCacheListener.Type.NODE_DELETED, zkPath, service, null);
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ Failed to verify provider path {}: {}", zkPath, e.getMessage());
+            }
+        }
+    }
+
+    private Set<String> swapIntercepted() {
+        synchronized (windowLock) {
+            Set<String> swapped = intercepted;
+            intercepted = ConcurrentHashMap.newKeySet();
+            return swapped;
+        }
+    }
+
+    /**
+     * /{basePath}/{service}/providers/{node} -> service
+     */
+    static String serviceOf(String basePath, String zkPath) {
+        int start = basePath.length() + 1;
+        int end = zkPath.indexOf('/', start);
+        return end > start ? zkPath.substring(start, end) : zkPath.substring(Math.min(start, zkPath.length()));
+    }
+
+    private static String identity(ProviderInfo provider) {
+        return provider.getInterfaceName() + "|" + provider.getVersion() + "|" + provider.getGroup() + "|" + provider.getAddress();
+    }
+}
@@ -0,0 +1,389 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.core.util.RegistryPaths;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * 本地注册表快照
+ *
+ * <p>定期把 ProviderService 中的 Provider（即工具调用的路由表）和 tools/list 工具目录写入本地二进制文件，
+ * 重启时在 Bean 初始化阶段从快照恢复，无需等待 ZooKeeper 全量拉取和数据库重建就能处理工具调用；
+ * 随后启动拉取完成时调用 {@link #reconcile}，移除快照中已不存在的 Provider，工具目录由后台重建对账。</p>
+ *
+ * <p>文件格式（大端）：magic(int) | 格式版本(int) | 生成时间(long) | 正文长度(int) | 正文 CRC32(long) | 正文。
+ * 读取时整体内存映射，magic、版本、长度或校验和不符时丢弃快照按冷启动处理。
+ * 写入先写临时文件再原子替换，进程中途退出不会留下半个快照。</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RegistrySnapshotService {
+
+    static final int MAGIC = 0x5A4B534E; // "ZKSN"
+    static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 8;
+
+    private final ProviderService providerService;
+    private final McpToolCatalogService toolCatalogService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${mcp.snapshot.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${mcp.snapshot.path:data/registry.snapshot}")
+    private String snapshotPath;
+
+    // 从快照恢复、尚未经 ZooKeeper 确认的 Provider
+    private final Set<String> unconfirmedZkPaths = ConcurrentHashMap.newKeySet();
+    // 启动对账完成前不写快照，避免用未加载完的状态覆盖上一次的快照
+    private volatile boolean ready;
+    private volatile long lastChecksum = -1;
+
+    /**
+     * 快照内容
+     */
+    @Data
+    static class Snapshot {
+        private final long createdAt;
+        private final List<ProviderInfo> providers;
+        private final List<CatalogEntry> catalogs;
+    }
+
+    /**
+     * 单个 endpoint 的工具目录
+     */
+    @Data
+    static class CatalogEntry {
+        private final String endpoint;
+        private final String mcpServiceName;
+        private final List<String> toolJsons;
+        private final Set<String> interfaces;
+    }
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void restore() {
+        if (!enabled) {
+            ready = true;
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Snapshot snapshot = read(Paths.get(snapshotPath));
+        if (snapshot == null) {
+            return;
+        }
+        for (ProviderInfo provider : snapshot.getProviders()) {
+            providerService.addProvider(provider);
+            if (provider.getZkPath() != null) {
+                unconfirmedZkPaths.add(provider.getZkPath());
+            }
+        }
+        // Provider 之后恢复目录：恢复 Provider 触发的失效事件不会作用到恢复的目录上
+        int restoredCatalogs = 0;
+        for (CatalogEntry entry : snapshot.getCatalogs()) {
+            try {
+                List<Map<String, Object>> tools = new ArrayList<>(entry.getToolJsons().size());
+                for (String toolJson : entry.getToolJsons()) {
+                    tools.add(objectMapper.readValue(toolJson, Map.class));
+                }
+                toolCatalogService.restoreCatalog(entry.getEndpoint(), entry.getMcpServiceName(), tools, entry.getInterfaces());
+                restoredCatalogs++;
+            } catch (Exception e) {
+                log.warn("⚠️ Skip snapshot catalog of endpoint {}: {}", entry.getEndpoint(), e.getMessage());
+            }
+        }
+        log.info("✅ Restored registry snapshot from {}: {} providers, {} tool catalogs (age {}s) in {}ms",
+                snapshotPath, snapshot.getProviders().size(), restoredCatalogs,
+                (System.currentTimeMillis() - snapshot.getCreatedAt()) / 1000, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 主注册中心启动拉取完成后对账，见 {@link #reconcile(String, Set, Set)}
+     */
+    public void reconcile(Set<String> confirmedZkPaths, Set<String> failedServices) {
+        reconcile(null, confirmedZkPaths, failedServices);
+    }
+
+    /**
+     * 启动拉取完成后对账：移除快照恢复、但本次未从 ZooKeeper 确认的 Provider。
+     * 只处理该注册中心的 Provider；主注册中心对账后允许写快照
+     *
+     * @param registryId       注册中心 id，主注册中心为 null
+     * @param confirmedZkPaths 启动拉取加入 ProviderService 的 Provider 路径；为 null 表示拉取失败，保留快照数据
+     * @param failedServices   拉取失败的服务，其 Provider 保留到监听补齐
+     */
+    public void reconcile(String registryId, Set<String> confirmedZkPaths, Set<String> failedServices) {
+        int removed = 0;
+        if (confirmedZkPaths != null) {
+            Iterator<String> unconfirmed = unconfirmedZkPaths.iterator();
+            while (unconfirmed.hasNext()) {
+                String zkPath = unconfirmed.next();
+                if (!Objects.equals(registryId, RegistryPaths.registryOf(zkPath))) {
+                    continue;
+                }
+                unconfirmed.remove();
+                if (confirmedZkPaths.contains(zkPath)) {
+                    continue;
+                }
+                ProviderInfo provider = providerService.getProviderByZkPath(zkPath);
+                if (provider != null && !failedServices.contains(provider.getInterfaceName())) {
+                    providerService.removeProviderByZkPath(zkPath);
+                    removed++;
+                }
+            }
+        }
+        if (registryId == null) {
+            ready = true;
+        }
+        if (removed > 0) {
+            log.info("🧹 Removed {} snapshot providers no longer registered in ZooKeeper{}", removed,
+                    registryId != null ? " [" + registryId + "]" : "");
+        }
+    }
+
+    /**
+     * 定期写快照；内容未变化时跳过
+     */
+    @Scheduled(fixedDelayString = "${mcp.snapshot.interval-ms:60000}", initialDelayString = "${mcp.snapshot.interval-ms:60000}")
+    public void scheduledWrite() {
+        if (enabled && ready) {
+            writeSnapshot();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduledWrite();
+    }
+
+    synchronized void writeSnapshot() {
+        try {
+            List<CatalogEntry> catalogs = new ArrayList<>();
+            for (McpToolCatalogService.ToolCatalog catalog : toolCatalogService.getCatalogs()) {
+                catalogs.add(new CatalogEntry(catalog.getEndpoint(), catalog.getMcpServiceName(),
+                        catalog.getToolJsons(), catalog.getInterfaces()));
+            }
+            byte[] payload = encode(providerService.getAllProviders(), catalogs);
+            long checksum = checksum(ByteBuffer.wrap(payload));
+            if (checksum == lastChecksum) {
+                return;
+            }
+            write(Paths.get(snapshotPath), payload, checksum);
+            lastChecksum = checksum;
+            log.debug("Registry snapshot written: {} bytes, {} catalogs", payload.length, catalogs.size());
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to write registry snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    static void write(Path path, byte[] payload, long checksum) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        if (absolute.getParent() != null) {
+            Files.createDirectories(absolute.getParent());
+        }
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + payload.length);
+            buffer.putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putLong(System.currentTimeMillis())
+                    .putInt(payload.length)
+                    .putLong(checksum)
+                    .put(payload);
+            buffer.force();
+        }
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读取快照；文件不存在或校验失败返回 null
+     */
+    static Snapshot read(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("truncated header");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("bad magic");
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("unsupported format version " + version);
+            }
+            long createdAt = buffer.getLong();
+            int length = buffer.getInt();
+            long checksum = buffer.getLong();
+            if (length != size - HEADER_BYTES) {
+                throw new IOException("payload length mismatch");
+            }
+            ByteBuffer payload = buffer.slice();
+            if (checksum(payload.duplicate()) != checksum) {
+                throw new IOException("checksum mismatch");
+            }
+            return decode(createdAt, payload);
+        } catch (Exception e) {
+            log.warn("⚠️ Ignore invalid registry snapshot {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    static byte[] encode(Collection<ProviderInfo> providers, List<CatalogEntry> catalogs) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(providers.size());
+        for (ProviderInfo provider : providers) {
+            writeString(out, provider.getInterfaceName());
+            writeString(out, provider.getAddress());
+            writeString(out, provider.getProtocol());
+            writeString(out, provider.getVersion());
+            writeString(out, provider.getGroup());
+            writeString(out, provider.getApplication());
+            writeString(out, provider.getMethods());
+            writeString(out, provider.getZkPath());
+            out.writeByte(flag(provider.getOnline()));
+            out.writeByte(flag(provider.getHealthy()));
+            Map<String, String> parameters = provider.getParameters();
+            out.writeInt(parameters == null ? -1 : parameters.size());
+            if (parameters != null) {
+                for (Map.Entry<String, String> entry : parameters.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeString(out, entry.getValue());
+                }
+            }
+        }
+        out.writeInt(catalogs.size());
+        for (CatalogEntry catalog : catalogs) {
+            writeString(out, catalog.getEndpoint());
+            writeString(out, catalog.getMcpServiceName());
+            out.writeInt(catalog.getToolJsons().size());
+            for (String toolJson : catalog.getToolJsons()) {
+                writeString(out, toolJson);
+            }
+            out.writeInt(catalog.getInterfaces().size());
+            for (String interfaceName : catalog.getInterfaces()) {
+                writeString(out, interfaceName);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static Snapshot decode(long createdAt, ByteBuffer in) {
+        int providerCount = in.getInt();
+        List<ProviderInfo> providers = new ArrayList<>(providerCount);
+        for (int i = 0; i < providerCount; i++) {
+            ProviderInfo provider = new ProviderInfo();
+            provider.setInterfaceName(readString(in));
+            provider.setAddress(readString(in));
+            provider.setProtocol(readString(in));
+            provider.setVersion(readString(in));
+            provider.setGroup(readString(in));
+            provider.setApplication(readString(in));
+            provider.setMethods(readString(in));
+            provider.setZkPath(readString(in));
+            provider.setOnline(unflag(in.get()));
+            provider.setHealthy(unflag(in.get()));
+            int parameterCount = in.getInt();
+            if (parameterCount >= 0) {
+                Map<String, String> parameters = new LinkedHashMap<>();
+                for (int j = 0; j < parameterCount; j++) {
+                    parameters.put(readString(in), readString(in));
+                }
+                provider.setParameters(parameters);
+            }
+            providers.add(provider);
+        }
+        int catalogCount = in.getInt();
+        List<CatalogEntry> catalogs = new ArrayList<>(catalogCount);
+        for (int i = 0; i < catalogCount; i++) {
+            String endpoint = readString(in);
+            String mcpServiceName = readString(in);
+            int toolCount = in.getInt();
+            List<String> toolJsons = new ArrayList<>(toolCount);
+            for (int j = 0; j < toolCount; j++) {
+                toolJsons.add(readString(in));
+            }
+            int interfaceCount = in.getInt();
+            Set<String> interfaces = new LinkedHashSet<>();
+            for (int j = 0; j < interfaceCount; j++) {
+                interfaces.add(readString(in));
+            }
+            catalogs.add(new CatalogEntry(endpoint, mcpServiceName, toolJsons, interfaces));
+        }
+        return new Snapshot(createdAt, Collections.unmodifiableList(providers), Collections.unmodifiableList(catalogs));
+    }
+
+    private static long checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int flag(Boolean value) {
+        return value == null ? -1 : (value ? 1 : 0);
+    }
+
+    private static Boolean unflag(byte value) {
+        return value < 0 ? null : value == 1;
+    }
+}
@@ -0,0 +1,272 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.config.McpSessionProperties;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SSE 会话心跳服务
+ *
+ * <p>WebMVC（SseEmitter）和 WebFlux（Sinks）两种传输共享同一个时间轮，每个会话只占用一个 Timeout，
+ * 调度开销为 O(活跃定时器数)，不再为每个会话创建一个 ScheduledFuture。</p>
+ *
+ * <ul>
+ *   <li>抖动：每次心跳间隔在 interval * (1 ± jitter) 之间随机，避免所有会话同一时刻发送心跳</li>
+ *   <li>跳过：会话最近半个间隔内发送过业务数据时不再发送心跳，直接顺延</li>
+ *   <li>批量清理：心跳失败的会话先进入失效队列，由清理任务按 reapInterval 批量回收</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class SseKeepaliveService {
+
+    /**
+     * 心跳动作，由具体传输实现（发送 SSE 注释或心跳事件）
+     */
+    @FunctionalInterface
+    public interface HeartbeatAction {
+        /**
+         * 发送一次心跳
+         *
+         * @return false 表示连接已失效
+         */
+        boolean beat() throws Exception;
+    }
+
+    private final McpSessionProperties.Heartbeat config;
+    private final HashedWheelTimer timer;
+    private final ThreadPoolExecutor senderExecutor;
+
+    private final Map<String, KeepaliveEntry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<KeepaliveEntry> deadQueue = new ConcurrentLinkedQueue<>();
+
+    public SseKeepaliveService(McpSessionProperties properties) {
+        this.config = properties.getHeartbeat();
+        this.timer = new HashedWheelTimer(
+                new DefaultThreadFactory("sse-keepalive-wheel", true),
+                config.getTickDuration().toMillis(), TimeUnit.MILLISECONDS,
+                config.getTicksPerWheel());
+        this.senderExecutor = new ThreadPoolExecutor(
+                config.getSenderThreads(), config.getSenderThreads(),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(config.getSenderQueueCapacity()),
+                new DefaultThreadFactory("sse-keepalive-sender", true),
+                new ThreadPoolExecutor.AbortPolicy());
+        scheduleReaper();
+        log.info("✅ SseKeepaliveService initialized: interval={}, jitter={}, tick={}, reapInterval={}",
+                config.getInterval(), config.getJitter(), config.getTickDuration(), config.getReapInterval());
+    }
+
+    /**
+     * 注册会话心跳
+     *
+     * @param sessionId 会话 ID
+     * @param action    心跳动作
+     * @param onDead    连接失效后的清理回调（批量执行）
+     */
+    public void register(String sessionId, HeartbeatAction action, Runnable onDead) {
+        if (!StringUtils.hasText(sessionId) || action == null) {
+            return;
+        }
+        KeepaliveEntry entry = new KeepaliveEntry(sessionId, action, onDead);
+        KeepaliveEntry previous = entries.put(sessionId, entry);
+        if (previous != null) {
+            previous.cancel();
+        }
+        schedule(entry, nextDelayMillis());
+        log.debug("💓 Registered keepalive: sessionId={}, active={}", sessionId, entries.size());
+    }
+
+    /**
+     * 记录会话有业务数据发出，下一次心跳将被顺延
+     */
+    public void recordActivity(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        KeepaliveEntry entry = entries.get(sessionId);
+        if (entry != null) {
+            entry.lastActivityNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 取消会话心跳（连接正常关闭时调用）
+     */
+    public void unregister(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        KeepaliveEntry entry = entries.remove(sessionId);
+        if (entry != null) {
+            entry.cancel();
+        }
+    }
+
+    /**
+     * 当前注册的会话数（即时间轮中的活跃定时器数）
+     */
+    public int getActiveCount() {
+        return entries.size();
+    }
+
+    private void schedule(KeepaliveEntry entry, long delayMillis) {
+        if (entry.cancelled.get()) {
+            return;
+        }
+        try {
+            entry.timeout = timer.newTimeout(t -> onTimer(entry), Math.max(1, delayMillis), TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException e) {
+            // 时间轮已停止（应用关闭中）
+            log.debug("Keepalive timer stopped, skip scheduling: sessionId={}", entry.sessionId);
+        }
+    }
+
+    private void onTimer(KeepaliveEntry entry) {
+        if (entry.cancelled.get()) {
+            return;
+        }
+        long intervalNanos = config.getInterval().toNanos();
+        long idleNanos = System.nanoTime() - entry.lastActivityNanos;
+        if (idleNanos < intervalNanos / 2) {
+            // 最近半个间隔内有业务数据发送，连接本身已证明可用，从最后一次发送起顺延一个间隔
+            schedule(entry, TimeUnit.NANOSECONDS.toMillis(intervalNanos - idleNanos) + jitterMillis());
+            return;
+        }
+        try {
+            senderExecutor.execute(() -> beat(entry));
+        } catch (RejectedExecutionException e) {
+            // 发送线程繁忙，本轮跳过，避免时间轮线程被阻塞
+            log.debug("Keepalive sender busy, skip heartbeat: sessionId={}", entry.sessionId);
+            schedule(entry, nextDelayMillis());
+        }
+    }
+
+    private void beat(KeepaliveEntry entry) {
+        if (entry.cancelled.get()) {
+            return;
+        }
+        boolean alive;
+        try {
+            alive = entry.action.beat();
+        } catch (Exception e) {
+            log.debug("⚠️ Heartbeat error: sessionId={}, error={}", entry.sessionId, e.getMessage());
+            alive = false;
+        }
+        if (alive) {
+            schedule(entry, nextDelayMillis());
+        } else if (entries.remove(entry.sessionId, entry)) {
+            entry.cancel();
+            deadQueue.offer(entry);
+        }
+    }
+
+    /**
+     * 批量回收失效连接
+     */
+    private void scheduleReaper() {
+        try {
+            timer.newTimeout(t -> {
+                try {
+                    reapDeadSessions();
+                } finally {
+                    scheduleReaper();
+                }
+            }, config.getReapInterval().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException e) {
+            log.debug("Keepalive timer stopped, reaper not rescheduled");
+        }
+    }
+
+    private void reapDeadSessions() {
+        if (deadQueue.isEmpty()) {
+            return;
+        }
+        List<KeepaliveEntry> batch = new ArrayList<>();
+        KeepaliveEntry entry;
+        while ((entry = deadQueue.poll()) != null) {
+            batch.add(entry);
+        }
+        Runnable cleanup = () -> {
+            for (KeepaliveEntry dead : batch) {
+                if (dead.onDead == null) {
+                    continue;
+                }
+                try {
+                    dead.onDead.run();
+                } catch (Exception e) {
+                    log.debug("Failed to cleanup dead session: sessionId={}, error={}", dead.sessionId, e.getMessage());
+                }
+            }
+            log.info("🧹 Reaped {} dead SSE connections, active={}", batch.size(), entries.size());
+        };
+        try {
+            senderExecutor.execute(cleanup);
+        } catch (RejectedExecutionException e) {
+            // 发送队列已满时在时间轮线程上直接清理，确保失效会话不会堆积
+            cleanup.run();
+        }
+    }
+
+    private long nextDelayMillis() {
+        return config.getInterval().toMillis() + jitterMillis();
+    }
+
+    private long jitterMillis() {
+        long span = (long) (config.getInterval().toMillis() * config.getJitter());
+        if (span <= 0) {
+            return 0;
+        }
+        return ThreadLocalRandom.current().nextLong(-span, span + 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        entries.values().forEach(KeepaliveEntry::cancel);
+        entries.clear();
+        timer.stop();
+        senderExecutor.shutdownNow();
+        log.info("SseKeepaliveService stopped");
+    }
+
+    private static final class KeepaliveEntry {
+        private final String sessionId;
+        private final HeartbeatAction action;
+        private final Runnable onDead;
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+        private volatile long lastActivityNanos = System.nanoTime();
+        private volatile Timeout timeout;
+
+        private KeepaliveEntry(String sessionId, HeartbeatAction action, Runnable onDead) {
+            this.sessionId = sessionId;
+            this.action = action;
+            this.onDead = onDead;
+        }
+
+        private void cancel() {
+            if (cancelled.compareAndSet(false, true)) {
+                Timeout current = timeout;
+                if (current != null) {
+                    current.cancel();
+                }
+            }
+        }
+    }
+}
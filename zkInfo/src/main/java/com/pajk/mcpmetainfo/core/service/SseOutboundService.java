@@ -0,0 +1,559 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.config.McpSessionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SSE 出站队列服务
+ *
+ * <p>每个会话一个有界出站队列（按字节和消息数限制），同一会话同一时刻只有一个写线程，
+ * 业务线程只负责入队，不再直接阻塞在 {@code SseEmitter.send} 或 {@code Sinks.tryEmitNext} 上。</p>
+ *
+ * <ul>
+ *   <li>慢消费者：队列超限时按 {@link McpSessionProperties.SlowConsumerPolicy} 先丢弃通知，再断开连接</li>
+ *   <li>卡死检测：队列有积压且超过 stallTimeout 无写入进展时断开连接，释放写线程和内存</li>
+ *   <li>指标：按 endpoint 统计排队字节数/消息数、写入延迟、丢弃数和断开数</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class SseOutboundService {
+
+    /**
+     * 消息类型，决定队列超限时的处理方式
+     */
+    public enum MessageKind {
+        /**
+         * JSON-RPC 响应，不可丢弃
+         */
+        RESPONSE,
+        /**
+         * 通知类消息（心跳、list_changed 等），队列超限时优先丢弃
+         */
+        NOTIFICATION
+    }
+
+    /**
+     * 入队结果
+     */
+    public enum OfferResult {
+        QUEUED,
+        DROPPED,
+        DISCONNECTED,
+        NO_CHANNEL
+    }
+
+    /**
+     * 具体传输的写入实现
+     */
+    @FunctionalInterface
+    public interface OutboundWriter {
+        /**
+         * 写出一个事件
+         *
+         * @return false 表示下游暂时无法接收（如 Sink 缓冲区已满），稍后重试
+         */
+        boolean write(OutboundEvent event) throws Exception;
+    }
+
+    /**
+     * 出站事件
+     */
+    public static final class OutboundEvent {
+        private final String id;
+        private final String name;
+        private final String data;
+        private final boolean comment;
+        private final boolean heartbeat;
+        private final MessageKind kind;
+        private final int bytes;
+
+        private OutboundEvent(String id, String name, String data, boolean comment, boolean heartbeat, MessageKind kind) {
+            this.id = id;
+            this.name = name;
+            this.data = data != null ? data : "";
+            this.comment = comment;
+            this.heartbeat = heartbeat;
+            this.kind = kind;
+            this.bytes = this.data.getBytes(StandardCharsets.UTF_8).length
+                    + (name != null ? name.length() : 0)
+                    + (id != null ? id.length() : 0);
+        }
+
+        /**
+         * 默认 message 事件（JSON-RPC 响应）
+         */
+        public static OutboundEvent response(String data) {
+            return new OutboundEvent(null, null, data, false, false, MessageKind.RESPONSE);
+        }
+
+        /**
+         * 命名事件，不可丢弃（如 endpoint 事件）
+         */
+        public static OutboundEvent named(String id, String name, String data) {
+            return new OutboundEvent(id, name, data, false, false, MessageKind.RESPONSE);
+        }
+
+        /**
+         * 通知事件，队列超限时可丢弃
+         */
+        public static OutboundEvent notification(String name, String data) {
+            return new OutboundEvent(null, name, data, false, false, MessageKind.NOTIFICATION);
+        }
+
+        /**
+         * SSE 注释形式的心跳（WebMVC）
+         */
+        public static OutboundEvent heartbeatComment(String comment) {
+            return new OutboundEvent(null, null, comment, true, true, MessageKind.NOTIFICATION);
+        }
+
+        /**
+         * 事件形式的心跳（WebFlux）
+         */
+        public static OutboundEvent heartbeatEvent(String name, String data) {
+            return new OutboundEvent(null, name, data, false, true, MessageKind.NOTIFICATION);
+        }
+
+        /**
+         * 复制事件并设置 SSE 事件 ID
+         */
+        public OutboundEvent withId(String eventId) {
+            return new OutboundEvent(eventId, name, data, comment, heartbeat, kind);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getData() {
+            return data;
+        }
+
+        public boolean isComment() {
+            return comment;
+        }
+
+        public boolean isHeartbeat() {
+            return heartbeat;
+        }
+
+        public MessageKind getKind() {
+            return kind;
+        }
+
+        public int getBytes() {
+            return bytes;
+        }
+    }
+
+    private final McpSessionProperties.Outbound config;
+    private final MeterRegistry meterRegistry;
+    private final SseKeepaliveService keepaliveService;
+    private final ExecutorService writerExecutor;
+    private final ScheduledExecutorService retryScheduler;
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final Map<String, EndpointMetrics> endpointMetrics = new ConcurrentHashMap<>();
+
+    public SseOutboundService(McpSessionProperties properties,
+                              MeterRegistry meterRegistry,
+                              SseKeepaliveService keepaliveService) {
+        this.config = properties.getOutbound();
+        this.meterRegistry = meterRegistry;
+        this.keepaliveService = keepaliveService;
+        this.writerExecutor = Executors.newFixedThreadPool(config.getWriterThreads(),
+                new DefaultThreadFactory("sse-outbound-writer", true));
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(
+                new DefaultThreadFactory("sse-outbound-retry", true));
+        log.info("✅ SseOutboundService initialized: maxQueueBytes={}, maxQueueMessages={}, policy={}, writers={}",
+                config.getMaxQueueBytes(), config.getMaxQueueMessages(), config.getSlowConsumerPolicy(),
+                config.getWriterThreads());
+    }
+
+    /**
+     * 为会话创建出站队列
+     *
+     * @param sessionId    会话 ID
+     * @param endpoint     endpoint（指标标签）
+     * @param writer       传输写入实现
+     * @param onDisconnect 因写入失败、慢消费或卡死被断开时的清理回调
+     */
+    public void open(String sessionId, String endpoint, OutboundWriter writer, Runnable onDisconnect) {
+        if (!StringUtils.hasText(sessionId) || writer == null) {
+            return;
+        }
+        Channel channel = new Channel(sessionId, metricsFor(endpoint), writer, onDisconnect);
+        Channel previous = channels.put(sessionId, channel);
+        if (previous != null) {
+            previous.close(null);
+        }
+        log.debug("📡 Opened outbound channel: sessionId={}, endpoint={}", sessionId, endpoint);
+    }
+
+    /**
+     * 事件入队
+     */
+    public OfferResult offer(String sessionId, OutboundEvent event) {
+        if (sessionId == null || event == null) {
+            return OfferResult.NO_CHANNEL;
+        }
+        Channel channel = channels.get(sessionId);
+        if (channel == null) {
+            return OfferResult.NO_CHANNEL;
+        }
+        return channel.offer(event);
+    }
+
+    /**
+     * 会话是否存在出站队列
+     */
+    public boolean isOpen(String sessionId) {
+        return sessionId != null && channels.containsKey(sessionId);
+    }
+
+    /**
+     * 关闭会话出站队列（连接正常关闭时调用，不触发断开回调）
+     */
+    public void close(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        Channel channel = channels.remove(sessionId);
+        if (channel != null) {
+            channel.close(null);
+        }
+    }
+
+    /**
+     * 当前排队中的字节数
+     */
+    public long getQueuedBytes(String sessionId) {
+        Channel channel = sessionId != null ? channels.get(sessionId) : null;
+        return channel != null ? channel.queuedBytes : 0;
+    }
+
+    public int getOpenCount() {
+        return channels.size();
+    }
+
+    /**
+     * 本节点上指定 endpoint 的会话（用于推送 list_changed 等广播通知）
+     */
+    public List<String> getSessionIdsForEndpoint(String endpoint) {
+        List<String> sessionIds = new ArrayList<>();
+        if (!StringUtils.hasText(endpoint)) {
+            return sessionIds;
+        }
+        for (Channel channel : channels.values()) {
+            if (endpoint.equals(channel.metrics.endpoint)) {
+                sessionIds.add(channel.sessionId);
+            }
+        }
+        return sessionIds;
+    }
+
+    /**
+     * 卡死检测：有积压且超过 stallTimeout 无写入进展的会话直接断开
+     */
+    @Scheduled(fixedDelay = 1_000, initialDelay = 1_000)
+    public void checkStalledChannels() {
+        long now = System.nanoTime();
+        long stallNanos = config.getStallTimeout().toNanos();
+        for (Channel channel : channels.values()) {
+            if (channel.isStalled(now, stallNanos)) {
+                log.warn("⚠️ SSE outbound stalled, disconnecting: sessionId={}, queuedBytes={}, queuedMessages={}",
+                        channel.sessionId, channel.queuedBytes, channel.queue.size());
+                disconnect(channel, "stalled");
+            }
+        }
+    }
+
+    private void disconnect(Channel channel, String reason) {
+        if (!channels.remove(channel.sessionId, channel)) {
+            channel.close(null);
+            return;
+        }
+        channel.metrics.disconnects(reason).increment();
+        channel.close(reason);
+        if (channel.onDisconnect == null) {
+            return;
+        }
+        Runnable callback = () -> {
+            try {
+                channel.onDisconnect.run();
+            } catch (Exception e) {
+                log.debug("Failed to cleanup disconnected session: sessionId={}, error={}",
+                        channel.sessionId, e.getMessage());
+            }
+        };
+        try {
+            writerExecutor.execute(callback);
+        } catch (RejectedExecutionException e) {
+            callback.run();
+        }
+    }
+
+    private EndpointMetrics metricsFor(String endpoint) {
+        String tag = StringUtils.hasText(endpoint) ? endpoint : "unknown";
+        return endpointMetrics.computeIfAbsent(tag, EndpointMetrics::new);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.values().forEach(channel -> channel.close(null));
+        channels.clear();
+        retryScheduler.shutdownNow();
+        writerExecutor.shutdownNow();
+        log.info("SseOutboundService stopped");
+    }
+
+    /**
+     * endpoint 维度的指标
+     */
+    private final class EndpointMetrics {
+        private final String endpoint;
+        private final AtomicLong queuedBytes = new AtomicLong();
+        private final AtomicLong queuedMessages = new AtomicLong();
+        private final Timer writeLatency;
+        private final Counter dropped;
+        private final Map<String, Counter> disconnects = new ConcurrentHashMap<>();
+
+        private EndpointMetrics(String endpoint) {
+            this.endpoint = endpoint;
+            Gauge.builder("mcp.sse.outbound.queue.bytes", queuedBytes, AtomicLong::get)
+                    .tag("endpoint", endpoint)
+                    .description("SSE 出站队列排队字节数")
+                    .register(meterRegistry);
+            Gauge.builder("mcp.sse.outbound.queue.messages", queuedMessages, AtomicLong::get)
+                    .tag("endpoint", endpoint)
+                    .description("SSE 出站队列排队消息数")
+                    .register(meterRegistry);
+            this.writeLatency = Timer.builder("mcp.sse.outbound.write.latency")
+                    .tag("endpoint", endpoint)
+                    .description("SSE 单次写入耗时")
+                    .register(meterRegistry);
+            this.dropped = Counter.builder("mcp.sse.outbound.dropped")
+                    .tag("endpoint", endpoint)
+                    .description("因队列超限丢弃的通知数")
+                    .register(meterRegistry);
+        }
+
+        private Counter disconnects(String reason) {
+            return disconnects.computeIfAbsent(reason, r -> Counter.builder("mcp.sse.outbound.disconnects")
+                    .tag("endpoint", endpoint)
+                    .tag("reason", r)
+                    .description("因慢消费、写入失败或卡死断开的连接数")
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 单个会话的出站队列，所有队列状态在 lock 下修改，写入只由一个 drain 任务执行
+     */
+    private final class Channel {
+        private final String sessionId;
+        private final EndpointMetrics metrics;
+        private final OutboundWriter writer;
+        private final Runnable onDisconnect;
+        private final Object lock = new Object();
+        private final ArrayDeque<OutboundEvent> queue = new ArrayDeque<>();
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private volatile long queuedBytes;
+        private volatile boolean closed;
+        private volatile long lastProgressNanos = System.nanoTime();
+        private OutboundEvent inFlight;
+
+        private Channel(String sessionId, EndpointMetrics metrics, OutboundWriter writer, Runnable onDisconnect) {
+            this.sessionId = sessionId;
+            this.metrics = metrics;
+            this.writer = writer;
+            this.onDisconnect = onDisconnect;
+        }
+
+        private OfferResult offer(OutboundEvent event) {
+            synchronized (lock) {
+                if (closed) {
+                    return OfferResult.DISCONNECTED;
+                }
+                if (exceedsLimit(event)) {
+                    if (config.getSlowConsumerPolicy() == McpSessionProperties.SlowConsumerPolicy.DROP_NOTIFICATIONS_THEN_DISCONNECT) {
+                        if (event.getKind() == MessageKind.NOTIFICATION) {
+                            metrics.dropped.increment();
+                            return OfferResult.DROPPED;
+                        }
+                        evictNotifications(event);
+                    }
+                }
+                if (!exceedsLimit(event)) {
+                    if (queue.isEmpty()) {
+                        lastProgressNanos = System.nanoTime();
+                    }
+                    queue.addLast(event);
+                    adjust(event.getBytes(), 1);
+                    event = null;
+                }
+            }
+            if (event != null) {
+                log.warn("⚠️ SSE outbound queue overflow, disconnecting slow consumer: sessionId={}, queuedBytes={}",
+                        sessionId, queuedBytes);
+                disconnect(this, "slow-consumer");
+                return OfferResult.DISCONNECTED;
+            }
+            scheduleDrain();
+            return OfferResult.QUEUED;
+        }
+
+        private boolean exceedsLimit(OutboundEvent event) {
+            return queuedBytes + event.getBytes() > config.getMaxQueueBytes()
+                    || queue.size() >= config.getMaxQueueMessages();
+        }
+
+        /**
+         * 从旧到新丢弃排队中的通知，直到新事件可以入队（正在写出的事件除外）
+         */
+        private void evictNotifications(OutboundEvent incoming) {
+            Iterator<OutboundEvent> it = queue.iterator();
+            while (it.hasNext() && exceedsLimit(incoming)) {
+                OutboundEvent queued = it.next();
+                if (queued != inFlight && queued.getKind() == MessageKind.NOTIFICATION) {
+                    it.remove();
+                    adjust(-queued.getBytes(), -1);
+                    metrics.dropped.increment();
+                }
+            }
+        }
+
+        private void adjust(long bytes, int messages) {
+            queuedBytes += bytes;
+            metrics.queuedBytes.addAndGet(bytes);
+            metrics.queuedMessages.addAndGet(messages);
+        }
+
+        private void scheduleDrain() {
+            if (closed || !draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                writerExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+            }
+        }
+
+        private void drain() {
+            boolean retryLater = false;
+            try {
+                while (!closed) {
+                    OutboundEvent event;
+                    synchronized (lock) {
+                        event = queue.peekFirst();
+                        inFlight = event;
+                    }
+                    if (event == null) {
+                        break;
+                    }
+                    long start = System.nanoTime();
+                    boolean written = writer.write(event);
+                    if (!written) {
+                        retryLater = true;
+                        break;
+                    }
+                    long end = System.nanoTime();
+                    metrics.writeLatency.record(end - start, TimeUnit.NANOSECONDS);
+                    synchronized (lock) {
+                        inFlight = null;
+                        if (!closed && queue.peekFirst() == event) {
+                            queue.pollFirst();
+                            adjust(-event.getBytes(), -1);
+                        }
+                        lastProgressNanos = end;
+                    }
+                    if (!event.isHeartbeat()) {
+                        keepaliveService.recordActivity(sessionId);
+                    }
+                }
+            } catch (Exception e) {
+                log.debug("⚠️ SSE outbound write failed: sessionId={}, error={}", sessionId, e.getMessage());
+                disconnect(this, "write-error");
+                return;
+            } finally {
+                synchronized (lock) {
+                    inFlight = null;
+                }
+            }
+            if (retryLater) {
+                // 下游缓冲区已满，保持 draining 状态，稍后由重试任务继续写出
+                try {
+                    retryScheduler.schedule(this::resumeDrain, config.getRetryDelay().toMillis(), TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+                return;
+            }
+            draining.set(false);
+            // 释放 draining 后可能有新事件入队但未触发 drain，这里补偿一次
+            boolean pending;
+            synchronized (lock) {
+                pending = !queue.isEmpty();
+            }
+            if (pending) {
+                scheduleDrain();
+            }
+        }
+
+        private void resumeDrain() {
+            draining.set(false);
+            scheduleDrain();
+        }
+
+        private boolean isStalled(long now, long stallNanos) {
+            if (closed || queuedBytes == 0) {
+                return false;
+            }
+            return now - lastProgressNanos > stallNanos;
+        }
+
+        private void close(String reason) {
+            synchronized (lock) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                adjust(-queuedBytes, -queue.size());
+                queue.clear();
+            }
+            if (reason != null) {
+                log.info("🧹 Closed SSE outbound channel: sessionId={}, reason={}", sessionId, reason);
+            }
+        }
+    }
+}
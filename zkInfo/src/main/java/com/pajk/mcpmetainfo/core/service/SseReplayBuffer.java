@@ -0,0 +1,414 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.config.McpSessionProperties;
+import com.pajk.mcpmetainfo.core.session.RedisClient;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * SSE 断线续传缓冲区
+ *
+ * <p>每个会话一个固定大小的环形缓冲区，发出的每个事件分配单调递增的事件 ID（{@code sessionId:resumeToken:seq}）。
+ * 客户端携带 {@code Last-Event-ID} 重连时，补发该 ID 之后的事件，避免断线期间的 tools/call 响应丢失、
+ * 客户端重复调用 Dubbo。</p>
+ *
+ * <p>sessionId 会出现在消息端点 URL 中，不能作为续传凭据：续传令牌是每个会话随机生成的密钥，
+ * 只通过 SSE 事件 ID 下发给持有连接的客户端，从不出现在 URL 中。只有令牌匹配且连接已断开（detached）
+ * 的会话才能续传，仍在连接中的会话不会被其他客户端接管。</p>
+ *
+ * <p>缓冲区异步写入 Redis（按 seq % capacity 固定槽位覆盖，Redis 中同样有界），
+ * 重连落到其它节点时从 Redis 恢复。</p>
+ */
+@Slf4j
+@Service
+public class SseReplayBuffer {
+
+    private static final String SLOT_PREFIX = "slot:";
+    private static final String TOKEN_FIELD = "token";
+    private static final SecureRandom TOKEN_RANDOM = new SecureRandom();
+
+    private final McpSessionProperties.Replay config;
+    private final String redisPrefix;
+    private final RedisClient redisClient;
+    private final ThreadPoolExecutor spillExecutor;
+
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+    public SseReplayBuffer(McpSessionProperties properties, RedisClient redisClient) {
+        this.config = properties.getReplay();
+        this.redisPrefix = properties.getRedisPrefix();
+        this.redisClient = redisClient;
+        this.spillExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(10000),
+                new DefaultThreadFactory("sse-replay-spill", true),
+                new ThreadPoolExecutor.DiscardPolicy());
+        log.info("✅ SseReplayBuffer initialized: enabled={}, capacity={}, retention={}, redisSpill={}",
+                config.isEnabled(), config.getCapacity(), config.getRetention(), config.isRedisSpill());
+    }
+
+    /**
+     * 格式化事件 ID；没有续传令牌（续传关闭）时为 {@code sessionId:seq}
+     */
+    public static String formatEventId(String sessionId, String resumeToken, long seq) {
+        return resumeToken == null ? sessionId + ":" + seq : sessionId + ":" + resumeToken + ":" + seq;
+    }
+
+    /**
+     * 解析 Last-Event-ID，返回 sessionId；无效时返回 null
+     * 只有 sessionId（没有 seq）时表示客户端只收到过 endpoint 事件
+     */
+    public static String parseSessionId(String lastEventId) {
+        if (!StringUtils.hasText(lastEventId)) {
+            return null;
+        }
+        int idx = lastEventId.indexOf(':');
+        String sessionId = idx > 0 ? lastEventId.substring(0, idx) : lastEventId;
+        return StringUtils.hasText(sessionId) ? sessionId.trim() : null;
+    }
+
+    /**
+     * 解析 Last-Event-ID 中的续传令牌，没有令牌时返回 null
+     */
+    public static String parseResumeToken(String lastEventId) {
+        if (!StringUtils.hasText(lastEventId)) {
+            return null;
+        }
+        int first = lastEventId.indexOf(':');
+        int last = lastEventId.lastIndexOf(':');
+        if (first < 0 || first == last) {
+            return null;
+        }
+        String token = lastEventId.substring(first + 1, last).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    /**
+     * 解析 Last-Event-ID 中的 seq，只有 sessionId 时返回 0
+     */
+    public static long parseSeq(String lastEventId) {
+        if (!StringUtils.hasText(lastEventId)) {
+            return 0;
+        }
+        int idx = lastEventId.lastIndexOf(':');
+        if (idx < 0) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(idx + 1).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 会话当前最新的事件 ID（用于 endpoint 事件，客户端只收到 endpoint 事件时也能续传）
+     */
+    public String currentEventId(String sessionId) {
+        Ring ring = rings.get(sessionId);
+        return ring != null ? formatEventId(sessionId, ring.resumeToken, ring.lastSeq) : formatEventId(sessionId, null, 0);
+    }
+
+    /**
+     * 校验续传请求并占用会话：令牌匹配且会话已断开时返回 sessionId，之后该会话视为已连接
+     *
+     * <p>本地没有缓冲区时从 Redis 恢复（跨节点续传）；此时会话在其他节点仍处于连接状态（attachedElsewhere）
+     * 则拒绝。节点宕机后其会话元数据在 Redis 中过期前，客户端只能新建会话。</p>
+     *
+     * @param attachedElsewhere 判断会话是否仍在其他节点连接中
+     * @return 可续传时返回原 sessionId，否则返回 null
+     */
+    public String tryResume(String lastEventId, Predicate<String> attachedElsewhere) {
+        String sessionId = parseSessionId(lastEventId);
+        String token = parseResumeToken(lastEventId);
+        if (!config.isEnabled() || sessionId == null || token == null) {
+            return null;
+        }
+        Ring ring = rings.get(sessionId);
+        if (ring == null && config.isRedisSpill()) {
+            if (attachedElsewhere.test(sessionId)) {
+                log.warn("⚠️ Rejected SSE resume, session still attached on another node: sessionId={}", sessionId);
+                return null;
+            }
+            ring = restoreFromRedis(sessionId);
+        }
+        if (ring == null) {
+            return null;
+        }
+        synchronized (ring) {
+            if (!MessageDigest.isEqual(ring.resumeToken.getBytes(StandardCharsets.UTF_8),
+                    token.getBytes(StandardCharsets.UTF_8))) {
+                log.warn("⚠️ Rejected SSE resume with invalid resume token: sessionId={}", sessionId);
+                return null;
+            }
+            if (ring.detachedAtNanos == 0) {
+                log.warn("⚠️ Rejected SSE resume of an attached session: sessionId={}", sessionId);
+                return null;
+            }
+            ring.detachedAtNanos = 0;
+            return sessionId;
+        }
+    }
+
+    /**
+     * 连接建立（或续传重连）时创建缓冲区，只有已注册的会话才会分配事件 ID
+     */
+    public void attach(String sessionId) {
+        if (!config.isEnabled() || !StringUtils.hasText(sessionId)) {
+            return;
+        }
+        Ring ring = rings.computeIfAbsent(sessionId, id -> new Ring(config.getCapacity(), newResumeToken()));
+        synchronized (ring) {
+            ring.detachedAtNanos = 0;
+        }
+    }
+
+    /**
+     * 为事件分配 ID 并写入缓冲区，在缓冲区锁内执行 sender，保证与 {@link #replay} 的顺序一致
+     */
+    public <R> R append(String sessionId, SseOutboundService.OutboundEvent event,
+                        Function<SseOutboundService.OutboundEvent, R> sender) {
+        Ring ring = config.isEnabled() && sessionId != null ? rings.get(sessionId) : null;
+        if (ring == null) {
+            return sender.apply(event);
+        }
+        synchronized (ring) {
+            long seq = ++ring.lastSeq;
+            SseOutboundService.OutboundEvent withId = event.withId(formatEventId(sessionId, ring.resumeToken, seq));
+            if (withId.getBytes() <= config.getMaxEventBytes()) {
+                ring.put(seq, withId);
+                spill(sessionId, ring.resumeToken, seq, withId);
+            }
+            return sender.apply(withId);
+        }
+    }
+
+    /**
+     * 补发 lastEventId 之后的事件（需先通过 {@link #tryResume} 校验）
+     *
+     * @return 补发的事件数
+     */
+    public int replay(String sessionId, String lastEventId, Function<SseOutboundService.OutboundEvent, ?> sender) {
+        if (!config.isEnabled() || !StringUtils.hasText(sessionId)) {
+            return 0;
+        }
+        long afterSeq = parseSeq(lastEventId);
+        Ring ring = rings.get(sessionId);
+        if (ring == null) {
+            return 0;
+        }
+        synchronized (ring) {
+            ring.detachedAtNanos = 0;
+            if (afterSeq < ring.lastSeq - ring.slots.length) {
+                log.warn("⚠️ Replay gap for session {}: lastSeq={}, oldest buffered seq={}",
+                        sessionId, afterSeq, ring.lastSeq - ring.slots.length + 1);
+            }
+            int count = 0;
+            for (long seq = Math.max(afterSeq + 1, ring.lastSeq - ring.slots.length + 1); seq <= ring.lastSeq; seq++) {
+                SseOutboundService.OutboundEvent event = ring.get(seq);
+                if (event != null) {
+                    sender.apply(event);
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 连接断开：缓冲区保留 retention 时间以便续传
+     */
+    public void detach(String sessionId) {
+        Ring ring = sessionId != null ? rings.get(sessionId) : null;
+        if (ring != null) {
+            synchronized (ring) {
+                ring.detachedAtNanos = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * 清理断开超过 retention 的缓冲区（Redis 中的副本由 TTL 过期）
+     */
+    @Scheduled(fixedRate = 60_000, initialDelay = 60_000)
+    public void evictExpired() {
+        long now = System.nanoTime();
+        long retentionNanos = config.getRetention().toNanos();
+        int removed = 0;
+        for (Map.Entry<String, Ring> entry : rings.entrySet()) {
+            Ring ring = entry.getValue();
+            boolean expired;
+            synchronized (ring) {
+                expired = ring.detachedAtNanos != 0 && now - ring.detachedAtNanos > retentionNanos;
+            }
+            if (expired && rings.remove(entry.getKey(), ring)) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            log.info("🧹 Evicted {} expired SSE replay buffers, remaining={}", removed, rings.size());
+        }
+    }
+
+    public int getBufferedSessionCount() {
+        return rings.size();
+    }
+
+    private void spill(String sessionId, String resumeToken, long seq, SseOutboundService.OutboundEvent event) {
+        if (!config.isRedisSpill()) {
+            return;
+        }
+        String key = replayKey(sessionId);
+        Map<String, String> fields = new HashMap<>(4);
+        fields.put(TOKEN_FIELD, resumeToken);
+        fields.put(SLOT_PREFIX + (seq % config.getCapacity()), encode(seq, event));
+        long ttlSeconds = Math.max(1, config.getRetention().getSeconds());
+        try {
+            spillExecutor.execute(() -> {
+                try {
+                    redisClient.hsetAll(key, fields);
+                    redisClient.expire(key, ttlSeconds);
+                } catch (Exception e) {
+                    log.debug("Failed to spill SSE replay event to Redis: sessionId={}, seq={}, error={}",
+                            sessionId, seq, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("SSE replay spill executor stopped, skip: sessionId={}", sessionId);
+        }
+    }
+
+    /**
+     * 跨节点续传：从 Redis 恢复缓冲区（状态为已断开），并延续 seq 保证事件 ID 单调递增
+     */
+    private Ring restoreFromRedis(String sessionId) {
+        Map<String, String> fields;
+        try {
+            fields = redisClient.hgetAll(replayKey(sessionId));
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to load SSE replay buffer from Redis: sessionId={}, error={}", sessionId, e.getMessage());
+            return null;
+        }
+        if (fields == null || !StringUtils.hasText(fields.get(TOKEN_FIELD))) {
+            return null;
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            if (field.getKey().startsWith(SLOT_PREFIX)) {
+                Entry entry = decode(field.getValue());
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        }
+        entries.sort((a, b) -> Long.compare(a.seq, b.seq));
+        Ring restored = new Ring(config.getCapacity(), fields.get(TOKEN_FIELD));
+        for (Entry entry : entries) {
+            restored.put(entry.seq, entry.event.withId(formatEventId(sessionId, restored.resumeToken, entry.seq)));
+            restored.lastSeq = entry.seq;
+        }
+        restored.detachedAtNanos = System.nanoTime();
+        Ring existing = rings.putIfAbsent(sessionId, restored);
+        return existing != null ? existing : restored;
+    }
+
+    private static String newResumeToken() {
+        byte[] bytes = new byte[16];
+        TOKEN_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private String replayKey(String sessionId) {
+        return redisPrefix + ":replay:" + sessionId;
+    }
+
+    /**
+     * 编码格式：seq|kind|eventName|data（eventName 不含 '|'，data 原样保留）
+     */
+    private static String encode(long seq, SseOutboundService.OutboundEvent event) {
+        return seq + "|" + event.getKind().name() + "|"
+                + (event.getName() != null ? event.getName() : "") + "|" + event.getData();
+    }
+
+    private static Entry decode(String value) {
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.split("\\|", 4);
+        if (parts.length < 4) {
+            return null;
+        }
+        try {
+            long seq = Long.parseLong(parts[0]);
+            String name = parts[2].isEmpty() ? null : parts[2];
+            SseOutboundService.OutboundEvent event = SseOutboundService.MessageKind.NOTIFICATION.name().equals(parts[1])
+                    ? SseOutboundService.OutboundEvent.notification(name, parts[3])
+                    : SseOutboundService.OutboundEvent.named(null, name, parts[3]);
+            return new Entry(seq, event);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        spillExecutor.shutdown();
+    }
+
+    private static final class Entry {
+        private final long seq;
+        private final SseOutboundService.OutboundEvent event;
+
+        private Entry(long seq, SseOutboundService.OutboundEvent event) {
+            this.seq = seq;
+            this.event = event;
+        }
+    }
+
+    /**
+     * 环形缓冲区，所有访问都在 Ring 对象锁内
+     */
+    private static final class Ring {
+        private final SseOutboundService.OutboundEvent[] slots;
+        private final long[] seqs;
+        private final String resumeToken;
+        private volatile long lastSeq;
+        private long detachedAtNanos;
+
+        private Ring(int capacity, String resumeToken) {
+            this.slots = new SseOutboundService.OutboundEvent[capacity];
+            this.seqs = new long[capacity];
+            this.resumeToken = resumeToken;
+        }
+
+        private void put(long seq, SseOutboundService.OutboundEvent event) {
+            int idx = (int) (seq % slots.length);
+            slots[idx] = event;
+            seqs[idx] = seq;
+        }
+
+        private SseOutboundService.OutboundEvent get(long seq) {
+            int idx = (int) (seq % slots.length);
+            return seqs[idx] == seq ? slots[idx] : null;
+        }
+    }
+}
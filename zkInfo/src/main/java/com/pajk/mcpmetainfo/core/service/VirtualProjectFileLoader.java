@@ -0,0 +1,248 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地虚拟项目工具定义加载器（virtual-projects/*.json）
+ *
+ * <p>启动时解析目录下全部 JSON 文件，之后由 {@link WatchService} 监听目录，
+ * 只重新解析新增或修改的文件、移除被删除文件的定义。合并后的工具定义列表按文件名排序，
+ * 内容变化时版本号递增，调用方据此判断缓存是否需要重建。</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VirtualProjectFileLoader {
+
+    /**
+     * 未配置目录时依次探测的相对路径（兼容从仓库根目录、模块目录启动）
+     */
+    private static final List<String> CANDIDATE_DIRS = List.of(
+            "virtual-projects", "zkInfo/virtual-projects", "zk-mcp-parent/zkInfo/virtual-projects");
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${mcp.virtual-projects.dir:}")
+    private String configuredDir;
+
+    @Value("${mcp.virtual-projects.watch:true}")
+    private boolean watchEnabled = true;
+
+    // 文件 -> 该文件的工具定义（按文件名排序，合并时保持稳定顺序）
+    private final Map<Path, List<ToolDefinition>> toolsByFile = new ConcurrentSkipListMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile List<ToolDefinition> tools = Collections.emptyList();
+    private volatile Path directory;
+    private volatile WatchService watchService;
+
+    /**
+     * 虚拟项目 JSON 中的一条工具定义（不可变）
+     */
+    @Data
+    public static class ToolDefinition {
+        private final String name;
+        private final String description;
+        private final Map<String, Object> inputSchema;
+        private final List<String> parameterTypes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        start();
+    }
+
+    synchronized void start() {
+        directory = resolveDirectory();
+        if (directory == null) {
+            log.warn("⚠️ virtual-projects directory does not exist, local virtual project tools disabled");
+            return;
+        }
+        reloadAll();
+        if (watchEnabled) {
+            startWatching();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        WatchService current = watchService;
+        watchService = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.debug("Failed to close virtual-projects watch service: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 当前全部工具定义（按文件名、文件内顺序）
+     */
+    public List<ToolDefinition> getTools() {
+        return tools;
+    }
+
+    /**
+     * 工具定义版本，任一文件内容变化后递增
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    private Path resolveDirectory() {
+        List<String> candidates = StringUtils.hasText(configuredDir) ? List.of(configuredDir) : CANDIDATE_DIRS;
+        for (String candidate : candidates) {
+            Path path = Paths.get(candidate).toAbsolutePath().normalize();
+            if (Files.isDirectory(path)) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    private void reloadAll() {
+        Set<Path> seen = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : stream) {
+                seen.add(file);
+                reload(file);
+            }
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to list virtual-projects directory {}: {}", directory, e.getMessage());
+            return;
+        }
+        for (Path file : new ArrayList<>(toolsByFile.keySet())) {
+            if (!seen.contains(file)) {
+                reload(file);
+            }
+        }
+        log.info("✅ Loaded {} virtual project tools from {} files in {}", tools.size(), toolsByFile.size(), directory);
+    }
+
+    /**
+     * 重新解析单个文件；文件已删除时移除其定义。解析失败保留上一次成功的结果
+     */
+    synchronized void reload(Path file) {
+        List<ToolDefinition> previous = toolsByFile.get(file);
+        List<ToolDefinition> current;
+        if (!Files.isRegularFile(file)) {
+            current = null;
+        } else {
+            try {
+                current = parse(file);
+            } catch (Exception e) {
+                log.warn("Failed to parse virtual project config: {}", file.getFileName(), e);
+                return;
+            }
+        }
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+        if (current == null) {
+            toolsByFile.remove(file);
+        } else {
+            toolsByFile.put(file, current);
+        }
+        List<ToolDefinition> merged = new ArrayList<>();
+        toolsByFile.values().forEach(merged::addAll);
+        tools = Collections.unmodifiableList(merged);
+        version.incrementAndGet();
+        log.info("🔁 Virtual project file {} {}: {} tools", file.getFileName(),
+                current == null ? "removed" : "reloaded", current == null ? 0 : current.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ToolDefinition> parse(Path file) throws IOException {
+        Map<String, Object> config = objectMapper.readValue(file.toFile(), Map.class);
+        Object toolsObj = config.get("tools");
+        if (!(toolsObj instanceof List)) {
+            return Collections.emptyList();
+        }
+        List<ToolDefinition> definitions = new ArrayList<>();
+        for (Object item : (List<Object>) toolsObj) {
+            if (!(item instanceof Map)) {
+                continue;
+            }
+            Map<String, Object> toolMap = (Map<String, Object>) item;
+            String toolName = (String) toolMap.get("toolName");
+            if (toolName == null) {
+                toolName = (String) toolMap.get("name"); // 兼容旧格式
+            }
+            if (toolName == null) {
+                continue;
+            }
+            // inputSchema 可能是 JSON 字符串
+            Map<String, Object> inputSchema = null;
+            Object schemaObj = toolMap.get("inputSchema");
+            if (schemaObj instanceof String) {
+                try {
+                    inputSchema = objectMapper.readValue((String) schemaObj, Map.class);
+                } catch (Exception e) {
+                    log.warn("Parsing inputSchema failed for {}", toolName);
+                }
+            } else if (schemaObj instanceof Map) {
+                inputSchema = (Map<String, Object>) schemaObj;
+            }
+            definitions.add(new ToolDefinition(toolName, (String) toolMap.get("description"), inputSchema,
+                    (List<String>) toolMap.get("parameterTypes")));
+        }
+        return Collections.unmodifiableList(definitions);
+    }
+
+    private void startWatching() {
+        try {
+            WatchService service = directory.getFileSystem().newWatchService();
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watchService = service;
+            Thread thread = new Thread(() -> watchLoop(service), "virtual-projects-watcher");
+            thread.setDaemon(true);
+            thread.start();
+            log.info("📡 Watching virtual-projects directory: {}", directory);
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to watch virtual-projects directory {}, changes require restart: {}", directory, e.getMessage());
+        }
+    }
+
+    private void watchLoop(WatchService service) {
+        while (watchService == service) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // 事件丢失，整体重新扫描
+                    reloadAll();
+                } else if (event.context() instanceof Path name && name.toString().endsWith(".json")) {
+                    reload(directory.resolve(name));
+                }
+            }
+            if (!key.reset()) {
+                log.warn("⚠️ virtual-projects directory is no longer accessible: {}", directory);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.listener.NamingEvent;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.pajk.mcpmetainfo.core.service.ZkInfoNodeDiscoveryService.ZkInfoNode;
+import com.pajk.mcpmetainfo.core.util.ConsistentHashRing;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * zkInfo 节点一致性哈希服务
+ *
+ * <p>以 Nacos 中健康的 zkInfo 实例构建一致性哈希环，为 sessionId / endpoint 计算归属节点，
+ * 使同一 endpoint 的 SSE 连接落到同一节点，减少跨节点的 Redis 会话查找。
+ * 成员变化通过 Nacos 订阅推送，只重建环，约 1/N 的 key 迁移。</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ZkInfoNodeRingService {
+
+    private final NamingService namingService;
+    private final ZkInfoNodeDiscoveryService nodeDiscoveryService;
+
+    @Value("${spring.application.name:zkinfo}")
+    private String zkInfoServiceName;
+
+    @Value("${nacos.registry.service-group:mcp-server}")
+    private String serviceGroup;
+
+    @Value("${server.port:9091}")
+    private int serverPort;
+
+    @Value("${mcp.placement.enabled:false}")
+    private boolean placementEnabled;
+
+    @Value("${mcp.placement.virtual-nodes:160}")
+    private int virtualNodes;
+
+    @Value("${mcp.placement.redirect-sse:true}")
+    private boolean redirectSse;
+
+    private volatile ConsistentHashRing<ZkInfoNode> ring = ConsistentHashRing.empty();
+    private volatile String localAddress;
+    private com.alibaba.nacos.api.naming.listener.EventListener membershipListener;
+
+    /**
+     * 应用启动后构建哈希环并订阅成员变化
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        localAddress = resolveLocalIp() + ":" + serverPort;
+        if (!placementEnabled) {
+            log.info("Session placement is disabled, all sessions are served locally");
+            return;
+        }
+        rebuild(nodeDiscoveryService.getAllActiveZkInfoNodes());
+
+        membershipListener = event -> {
+            if (event instanceof NamingEvent namingEvent) {
+                rebuild(toNodes(namingEvent.getInstances()));
+            }
+        };
+        try {
+            namingService.subscribe(zkInfoServiceName, serviceGroup, membershipListener);
+            log.info("✅ Subscribed to zkInfo membership: serviceName={}, group={}", zkInfoServiceName, serviceGroup);
+        } catch (NacosException e) {
+            log.error("❌ Failed to subscribe zkInfo membership, ring will not follow node changes: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (membershipListener == null) {
+            return;
+        }
+        try {
+            namingService.unsubscribe(zkInfoServiceName, serviceGroup, membershipListener);
+        } catch (NacosException e) {
+            log.warn("⚠️ Failed to unsubscribe zkInfo membership: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 重建哈希环；成员为空时保留旧环，避免 Nacos 短暂抖动导致所有会话迁移
+     */
+    void rebuild(List<ZkInfoNode> nodes) {
+        if (nodes == null || nodes.isEmpty()) {
+            log.warn("⚠️ Empty zkInfo membership received, keep current ring ({} nodes)", ring.size());
+            return;
+        }
+        ConsistentHashRing<ZkInfoNode> newRing = ConsistentHashRing.build(nodes, ZkInfoNode::getAddress, virtualNodes);
+        if (newRing.getMembers().keySet().equals(ring.getMembers().keySet())) {
+            return;
+        }
+        ring = newRing;
+        log.info("🔁 zkInfo hash ring rebuilt: {} nodes {}", newRing.size(), newRing.getMembers().keySet());
+    }
+
+    private List<ZkInfoNode> toNodes(List<Instance> instances) {
+        List<ZkInfoNode> nodes = new ArrayList<>();
+        if (instances == null) {
+            return nodes;
+        }
+        for (Instance instance : instances) {
+            if (!instance.isHealthy() || !instance.isEnabled()) {
+                continue;
+            }
+            ZkInfoNode node = new ZkInfoNode();
+            node.setIp(instance.getIp());
+            node.setPort(instance.getPort());
+            node.setHealthy(true);
+            node.setEnabled(true);
+            node.setMetadata(instance.getMetadata());
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    /**
+     * 获取 key（sessionId / endpoint）的归属节点；未启用或环为空时返回 null
+     */
+    public ZkInfoNode getOwner(String key) {
+        if (!placementEnabled) {
+            return null;
+        }
+        return ring.locate(key);
+    }
+
+    /**
+     * 归属节点不是本节点时返回该节点，用于重定向
+     */
+    public Optional<ZkInfoNode> getRemoteOwner(String key) {
+        ZkInfoNode owner = getOwner(key);
+        if (owner == null || isLocal(owner)) {
+            return Optional.empty();
+        }
+        return Optional.of(owner);
+    }
+
+    public boolean isLocal(ZkInfoNode node) {
+        return node != null && node.getAddress().equals(localAddress);
+    }
+
+    public boolean isSseRedirectEnabled() {
+        return placementEnabled && redirectSse;
+    }
+
+    public boolean isPlacementEnabled() {
+        return placementEnabled;
+    }
+
+    public String getLocalAddress() {
+        return localAddress;
+    }
+
+    /**
+     * 当前环成员（ip:port）
+     */
+    public List<String> getMembers() {
+        return new ArrayList<>(ring.getMembers().keySet());
+    }
+
+    private String resolveLocalIp() {
+        try {
+            return InetAddress.getLocalHost().getHostAddress();
+        } catch (Exception e) {
+            log.error("Failed to get local IP", e);
+            return "127.0.0.1";
+        }
+    }
+}
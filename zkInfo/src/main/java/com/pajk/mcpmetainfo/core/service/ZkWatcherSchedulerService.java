@@ -1,24 +1,13 @@
 package com.pajk.mcpmetainfo.core.service;
 
 import com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity;
-import com.pajk.mcpmetainfo.core.model.ProviderInfo;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
-import org.apache.curator.framework.recipes.cache.TreeCache;
-
-import jakarta.annotation.PreDestroy;
-
-import java.util.Map;
-import org.apache.curator.framework.recipes.cache.ChildData;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * ZooKeeper Watcher定时调度服务
@@ -33,6 +22,9 @@ import java.util.concurrent.ConcurrentHashMap;
  *   <li>为这些服务添加Watcher以监控其变化</li>
  * </ul>
  * 
+ * <p>Watcher 由 {@link ZooKeeperService} 基础路径下共享的 CuratorCache 提供，
+ * 这里只登记服务，不再为每个服务单独创建 TreeCache。</p>
+ * 
  * @author ZkInfo Team
  * @version 1.0.0
  * @since 2024-01-01
@@ -44,38 +36,14 @@ public class ZkWatcherSchedulerService {
     @Autowired
     private DubboServiceDbService dubboServiceDbService;
     
-    @Autowired
-    private ProviderInfoDbService providerInfoDbService;
-    
-    @Autowired
-    private ProviderService providerService;
-    
     @Autowired
     private ZooKeeperService zooKeeperService;
     
     @Autowired
     private com.pajk.mcpmetainfo.core.config.ZooKeeperConfig zooKeeperConfig;
     
-    // 存储已添加的Watcher，避免重复添加
-    private final ConcurrentHashMap<String, TreeCache> pathCaches = new ConcurrentHashMap<>();
-    
-    /**
-     * 应用程序关闭时清理资源
-     */
-    @PreDestroy
-    public void destroy() {
-        log.info("正在清理ZooKeeper Watcher资源...");
-        for (Map.Entry<String, TreeCache> entry : pathCaches.entrySet()) {
-            try {
-                entry.getValue().close();
-                log.debug("已关闭Watcher: {}", entry.getKey());
-            } catch (Exception e) {
-                log.warn("关闭Watcher时发生错误: {}", entry.getKey(), e);
-            }
-        }
-        pathCaches.clear();
-        log.info("ZooKeeper Watcher资源清理完成");
-    }
+    @Autowired(required = false)
+    private RegistryIngestionService registryIngestionService;
     
     /**
      * 每天凌晨0点执行的定时任务
@@ -176,6 +144,11 @@ public class ZkWatcherSchedulerService {
      */
     private void addWatcherForService(String servicePath, DubboServiceEntity service) {
         try {
+            // 额外注册中心各自只处理本注册中心存在的服务，直接登记
+            if (registryIngestionService != null) {
+                registryIngestionService.watchService(service.getInterfaceName());
+            }
+            
             CuratorFramework client = zooKeeperService.getClient();
             
             // 检查服务路径是否存在
@@ -184,51 +157,8 @@ public class ZkWatcherSchedulerService {
                 return;
             }
             
-            // 创建TreeCache监听providers路径的变化
-            TreeCache cache = new TreeCache(client, servicePath);
-            
-            cache.getListenable().addListener((client1, event) -> {
-                try {
-                    // 从服务路径中提取服务名称 (移除最后的"/providers"部分)
-                    String serviceName = service.getInterfaceName();
-                    
-                    // 复用ZooKeeperService中的处理逻辑
-                    switch (event.getType()) {
-                        case NODE_ADDED:
-                            if (event.getData() != null) {
-                                log.info("检测到服务 {} 的Provider添加事件", serviceName);
-                                // 由于ZooKeeperService中的处理方法是私有的，我们在这里重新实现类似的逻辑
-                                handleProviderAdded(event.getData(), serviceName, service);
-                            }
-                            break;
-                        case NODE_REMOVED:
-                            if (event.getData() != null) {
-                                log.info("检测到服务 {} 的Provider移除事件", serviceName);
-                                // 由于ZooKeeperService中的处理方法是私有的，我们在这里重新实现类似的逻辑
-                                handleProviderRemoved(event.getData(), serviceName);
-                            }
-                            break;
-                        case NODE_UPDATED:
-                            if (event.getData() != null) {
-                                log.info("检测到服务 {} 的Provider更新事件", serviceName);
-                                // 由于ZooKeeperService中的处理方法是私有的，我们在这里重新实现类似的逻辑
-                                handleProviderUpdated(event.getData(), serviceName, service);
-                            }
-                            break;
-                        default:
-                            log.debug("检测到服务 {} 的其他事件: {}", serviceName, event.getType());
-                            break;
-                    }
-                } catch (Exception e) {
-                    log.error("处理服务 {} 的Provider事件时发生错误", service.getInterfaceName(), e);
-                }
-            });
-            
-            // 启动监听
-            cache.start();
-            
-            // 将cache存储起来，防止重复添加
-            pathCaches.put(servicePath, cache);
+            // 共享缓存已覆盖整个基础路径，登记服务后即处理其Provider事件
+            zooKeeperService.watchService(service.getInterfaceName());
             
             log.info("成功为服务 {} 添加Watcher: {}", service.getInterfaceName(), servicePath);
             
@@ -236,190 +166,4 @@ public class ZkWatcherSchedulerService {
             log.error("为服务 {} 添加Watcher时发生错误", service.getServiceKey(), e);
         }
     }
-    
-    /**
-     * 处理Provider添加事件
-     */
-    private void handleProviderAdded(ChildData data, String serviceName, DubboServiceEntity service) {
-        try {
-            String providerUrl = URLDecoder.decode(
-                    data.getPath().substring(data.getPath().lastIndexOf('/') + 1),
-                    StandardCharsets.UTF_8
-            );
-            
-            log.info("Provider添加: {} -> {}", serviceName, providerUrl);
-            
-            ProviderInfo providerInfo = parseProviderUrl(providerUrl, serviceName);
-            if (providerInfo != null) {
-                providerInfo.setZkPath(data.getPath());
-                
-                // 所有dubbo service都得入库（新表结构）
-                try {
-                    dubboServiceDbService.saveOrUpdateServiceWithNode(providerInfo);
-                    log.debug("成功同步新Provider到新数据库结构: {}", data.getPath());
-                } catch (Exception e) {
-                    log.error("同步新Provider到新数据库结构失败: {}", data.getPath(), e);
-                }
-                
-                // 检查数据库中的审批状态，只有已审批的Provider才会被添加watch
-                // 注意：审批状态现在通过 service_id 关联 zk_dubbo_service.approval_status 获取
-                // 使用传入的 service 参数（如果为 null，则查询）
-                try {
-                    DubboServiceEntity serviceEntity = service;
-                    if (serviceEntity == null) {
-                        serviceEntity = dubboServiceDbService.findByInterfaceName(providerInfo.getInterfaceName());
-                    }
-                    if (serviceEntity != null && "APPROVED".equals(serviceEntity.getApprovalStatus())) {
-                        providerService.addProvider(providerInfo);
-                        log.debug("添加新已审批Provider到服务监控: {}", data.getPath());
-                    } else {
-                        log.debug("跳过新未审批Provider的服务监控: {}", data.getPath());
-                    }
-                } catch (Exception e) {
-                    log.warn("检查审批状态失败: {}", data.getPath(), e);
-                }
-            }
-            
-        } catch (Exception e) {
-            log.error("处理Provider添加事件失败", e);
-        }
-    }
-    
-    /**
-     * 处理Provider移除事件
-     */
-    private void handleProviderRemoved(ChildData data, String serviceName) {
-        try {
-            String zkPath = data.getPath();
-            log.info("Provider移除: {} -> {}", serviceName, zkPath);
-            
-            providerService.removeProviderByZkPath(zkPath);
-            
-            // 从数据库中移除（新表结构）
-            try {
-                dubboServiceDbService.removeServiceByZkPath(zkPath);
-                log.debug("成功从新数据库结构移除Provider: {}", zkPath);
-            } catch (Exception e) {
-                log.error("从新数据库结构移除Provider失败: {}", zkPath, e);
-            }
-            
-        } catch (Exception e) {
-            log.error("处理Provider移除事件失败", e);
-        }
-    }
-    
-    /**
-     * 处理Provider更新事件
-     */
-    private void handleProviderUpdated(ChildData data, String serviceName, DubboServiceEntity service) {
-        try {
-            String providerUrl = URLDecoder.decode(
-                    data.getPath().substring(data.getPath().lastIndexOf('/') + 1),
-                    StandardCharsets.UTF_8
-            );
-            
-            log.info("Provider更新: {} -> {}", serviceName, providerUrl);
-            
-            ProviderInfo providerInfo = parseProviderUrl(providerUrl, serviceName);
-            if (providerInfo != null) {
-                providerInfo.setZkPath(data.getPath());
-                
-                // 所有dubbo service都得入库（新表结构）
-                try {
-                    dubboServiceDbService.saveOrUpdateServiceWithNode(providerInfo);
-                    log.debug("成功同步更新Provider到新数据库结构: {}", data.getPath());
-                } catch (Exception e) {
-                    log.error("同步更新Provider到新数据库结构失败: {}", data.getPath(), e);
-                }
-                
-                // 检查数据库中的审批状态，只有已审批的Provider才会被添加watch
-                // 注意：审批状态现在通过 service_id 关联 zk_dubbo_service.approval_status 获取
-                // 使用传入的 service 参数（如果为 null，则查询）
-                try {
-                    DubboServiceEntity serviceEntity = service;
-                    if (serviceEntity == null) {
-                        serviceEntity = dubboServiceDbService.findByInterfaceName(providerInfo.getInterfaceName());
-                    }
-                    if (serviceEntity != null && "APPROVED".equals(serviceEntity.getApprovalStatus())) {
-                        providerService.updateProvider(providerInfo);
-                        log.debug("更新已审批Provider到服务监控: {}", data.getPath());
-                    } else {
-                        // 从服务监控中移除（如果之前已添加）
-                        providerService.removeProviderByZkPath(data.getPath());
-                        log.debug("移除未审批Provider的服务监控: {}", data.getPath());
-                    }
-                } catch (Exception e) {
-                    log.warn("检查审批状态失败: {}", data.getPath(), e);
-                }
-            }
-            
-        } catch (Exception e) {
-            log.error("处理Provider更新事件失败", e);
-        }
-    }
-    
-    /**
-     * 解析Provider URL
-     */
-    private ProviderInfo parseProviderUrl(String providerUrl, String serviceName) {
-        try {
-            // Dubbo Provider URL格式: dubbo://192.168.1.100:20880/com.example.Service?version=1.0.0&group=default&...
-            if (!providerUrl.startsWith("dubbo://")) {
-                log.warn("不支持的Provider URL格式: {}", providerUrl);
-                return null;
-            }
-            
-            ProviderInfo provider = new ProviderInfo();
-            provider.setInterfaceName(serviceName);
-            provider.setOnline(true);
-            
-            // 解析URL
-            String[] parts = providerUrl.split("\\?");
-            String baseUrl = parts[0];
-            
-            // 提取协议、地址和接口
-            String[] urlParts = baseUrl.split("://");
-            provider.setProtocol(urlParts[0]);
-            
-            String[] addressAndInterface = urlParts[1].split("/");
-            provider.setAddress(addressAndInterface[0]);
-            
-            if (addressAndInterface.length > 1) {
-                provider.setInterfaceName(addressAndInterface[1]);
-            }
-            
-            // 解析参数
-            if (parts.length > 1) {
-                String[] params = parts[1].split("&");
-                for (String param : params) {
-                    String[] kv = param.split("=");
-                    if (kv.length == 2) {
-                        String key = URLDecoder.decode(kv[0], StandardCharsets.UTF_8);
-                        String value = URLDecoder.decode(kv[1], StandardCharsets.UTF_8);
-                        
-                        switch (key) {
-                            case "version":
-                                provider.setVersion(value);
-                                break;
-                            case "group":
-                                provider.setGroup(value);
-                                break;
-                            case "application":
-                                provider.setApplication(value);
-                                break;
-                            case "methods":
-                                provider.setMethods(value);
-                                break;
-                        }
-                    }
-                }
-            }
-            
-            return provider;
-            
-        } catch (Exception e) {
-            log.error("解析Provider URL失败: {}", providerUrl, e);
-            return null;
-        }
-    }
-}
\ No newline at end of file
+}
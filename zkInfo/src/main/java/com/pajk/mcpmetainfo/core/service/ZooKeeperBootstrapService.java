@@ -1,27 +1,29 @@
 package com.pajk.mcpmetainfo.core.service;
 
+import com.pajk.mcpmetainfo.core.config.ZooKeeperConfig;
 import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.core.util.AsyncChildrenReader;
+import com.pajk.mcpmetainfo.core.util.RegistryPaths;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * ZooKeeper 启动初始化服务
  * 
- * 在应用启动完成后，批量从 ZooKeeper 拉取所有 Provider 信息并批量入库
+ * 在应用启动完成后，异步从 ZooKeeper 拉取所有 Provider 信息，边拉取边分批入库
  * 
  * @author ZkInfo Team
  * @version 1.0.0
@@ -33,22 +35,24 @@ public class ZooKeeperBootstrapService {
     
     private final ZooKeeperService zooKeeperService;
     private final DubboServiceDbService dubboServiceDbService;
-    private final ProviderInfoDbService providerInfoDbService;
-    private final DubboServiceMethodService dubboServiceMethodService;
     private final ProviderService providerService;
     private final InterfaceWhitelistService interfaceWhitelistService;
     
+    private volatile BootstrapProgress progress = new BootstrapProgress();
+    
+    /**
+     * 本地快照：启动拉取完成后据此移除快照中已下线的 Provider
+     */
+    @Autowired(required = false)
+    private RegistrySnapshotService registrySnapshotService;
+    
     public ZooKeeperBootstrapService(
             ZooKeeperService zooKeeperService,
             DubboServiceDbService dubboServiceDbService,
-            ProviderInfoDbService providerInfoDbService,
-            DubboServiceMethodService dubboServiceMethodService,
             ProviderService providerService,
             InterfaceWhitelistService interfaceWhitelistService) {
         this.zooKeeperService = zooKeeperService;
         this.dubboServiceDbService = dubboServiceDbService;
-        this.providerInfoDbService = providerInfoDbService;
-        this.dubboServiceMethodService = dubboServiceMethodService;
         this.providerService = providerService;
         this.interfaceWhitelistService = interfaceWhitelistService;
     }
@@ -65,26 +69,17 @@ public class ZooKeeperBootstrapService {
             try {
                 long startTime = System.currentTimeMillis();
                 
-                // 1. 批量拉取所有 Provider 信息
-                List<ProviderInfo> allProviders = loadAllProvidersFromZooKeeper();
-                log.info("从 ZooKeeper 拉取到 {} 个 Provider", allProviders.size());
-                
-                if (allProviders.isEmpty()) {
+                // 1. 异步拉取 Provider，边拉取边分批入库并加入服务监控
+                int providerCount = loadAndPersistProviders();
+                if (providerCount == 0) {
                     log.warn("未从 ZooKeeper 拉取到任何 Provider 信息");
-                    return;
                 }
                 
-                // 2. 按接口分组，逐个接口完整处理（确保每个接口的数据完整性）
-                persistProvidersByInterface(allProviders);
-                
-                // 3. 启动监听（只监听已审批的服务）
+                // 2. 启动监听（只监听已审批的服务）
                 zooKeeperService.startWatchingProviders();
                 
-                // 4. 将已审批的服务添加到 ProviderService
-                addApprovedProvidersToService(allProviders);
-                
                 long duration = System.currentTimeMillis() - startTime;
-                log.info("✅ ZooKeeper 数据初始化完成，总耗时: {}ms", duration);
+                log.info("✅ ZooKeeper 数据初始化完成，Provider: {}，总耗时: {}ms", providerCount, duration);
                 
             } catch (Exception e) {
                 log.error("❌ ZooKeeper 数据初始化失败", e);
@@ -93,164 +88,161 @@ public class ZooKeeperBootstrapService {
     }
     
     /**
-     * 从 ZooKeeper 批量拉取所有 Provider 信息（并行优化版本）
+     * 当前（或最近一次）启动拉取的进度
+     */
+    public BootstrapProgress getProgress() {
+        return progress;
+    }
+    
+    /**
+     * 启动拉取进度
+     */
+    @Data
+    public static class BootstrapProgress {
+        private volatile int totalServices;
+        private volatile int loadedServices;
+        private volatile int failedServices;
+        private volatile int loadedProviders;
+        private volatile int persistedProviders;
+        private volatile boolean finished;
+        private final long startTimeMillis = System.currentTimeMillis();
+    }
+    
+    /**
+     * 从主注册中心拉取所有 Provider 信息并流式入库
      * 
-     * 优化点：
-     * 1. 使用并行流并行处理多个服务
-     * 2. 减少不必要的 checkExists 调用（直接尝试 getChildren，失败则跳过）
-     * 3. 使用线程安全的集合收集结果
-     * 4. 支持白名单过滤：只拉取匹配白名单的服务
+     * @return 拉取到的 Provider 数
      */
-    private List<ProviderInfo> loadAllProvidersFromZooKeeper() {
-        long startTime = System.currentTimeMillis();
-        
-        try {
-            String basePath = zooKeeperService.getConfig().getBasePath();
-            CuratorFramework client = zooKeeperService.getClient();
-            
-            // 获取所有服务接口
-            List<String> allServices = client.getChildren().forPath(basePath);
-            log.info("发现 {} 个服务接口，开始并行拉取 Provider 信息", allServices.size());
-            
-            // 如果配置了白名单，进行过滤
-            final List<String> services;
-            if (interfaceWhitelistService != null && interfaceWhitelistService.isWhitelistConfigured()) {
-                List<String> whitelistPrefixes = interfaceWhitelistService.getWhitelistPrefixes();
-                log.info("应用白名单过滤，白名单前缀: {}", whitelistPrefixes);
-                
-                // 过滤出匹配白名单的服务（左匹配）
-                List<String> filteredServices = allServices.stream()
-                        .filter(service -> {
-                            // 检查服务名是否匹配任何一个白名单前缀
-                            for (String prefix : whitelistPrefixes) {
-                                if (service.startsWith(prefix)) {
-                                    log.debug("✅ 服务 {} 匹配白名单前缀: {}", service, prefix);
-                                    return true;
-                                }
-                            }
-                            log.debug("❌ 服务 {} 不匹配白名单，跳过", service);
-                            return false;
-                        })
-                        .collect(Collectors.toList());
-                
-                log.info("白名单过滤后，剩余 {} 个服务接口（原始: {}）", filteredServices.size(), allServices.size());
-                services = filteredServices;
-            } else {
-                services = allServices;
-            }
-            
-            if (services.isEmpty()) {
-                return Collections.emptyList();
-            }
-            
-            // 使用并行流并行处理多个服务
-            // 设置并行度（根据 CPU 核心数和服务数量动态调整）
-            int parallelism = Math.min(Math.max(services.size() / 10, 4), 
-                                       Runtime.getRuntime().availableProcessors() * 2);
-            
-            ForkJoinPool customThreadPool = new ForkJoinPool(parallelism);
-            
-            try {
-                List<ProviderInfo> allProviders = customThreadPool.submit(() -> 
-                    services.parallelStream()
-                        .flatMap(service -> {
-                            try {
-                                return loadProvidersForService(client, basePath, service).stream();
-                            } catch (Exception e) {
-                                log.error("拉取服务 {} 的 Provider 失败", service, e);
-                                return java.util.stream.Stream.empty();
-                            }
-                        })
-                        .collect(Collectors.toList())
-                ).get(5, TimeUnit.MINUTES); // 设置超时时间 5 分钟
-                
-                long duration = System.currentTimeMillis() - startTime;
-                log.info("✅ 并行拉取完成: {} 个服务接口，共 {} 个 Provider，耗时: {}ms", 
-                        services.size(), allProviders.size(), duration);
-                
-                return allProviders;
-            } finally {
-                customThreadPool.shutdown();
-            }
-            
-        } catch (Exception e) {
-            log.error("批量拉取 ZooKeeper Provider 信息失败", e);
-            return Collections.emptyList();
-        }
+    private int loadAndPersistProviders() {
+        BootstrapProgress current = new BootstrapProgress();
+        progress = current;
+        return loadAndPersistProviders(null, zooKeeperService.getClient(),
+                zooKeeperService.getConfig().getBasePath(), current);
     }
     
     /**
-     * 加载单个服务的所有 Provider 信息
+     * 启动拉取额外注册中心的 Provider（由 {@link RegistryIngestor} 在开始监听前调用），
+     * Provider 路径带注册中心前缀，快照对账只涉及该注册中心
      * 
-     * @param client ZooKeeper 客户端
-     * @param basePath 基础路径
-     * @param service 服务名称
-     * @return Provider 信息列表
+     * @return 拉取到的 Provider 数
      */
-    private List<ProviderInfo> loadProvidersForService(CuratorFramework client, String basePath, String service) {
-        List<ProviderInfo> providers = new ArrayList<>();
+    public int loadRegistry(String registryId, CuratorFramework client, String basePath) {
+        return loadAndPersistProviders(registryId, client, basePath, new BootstrapProgress());
+    }
+    
+    /**
+     * 从 ZooKeeper 拉取所有 Provider 信息并流式入库
+     * 
+     * 1. 同步读取服务接口列表并按白名单过滤
+     * 2. 通过 Curator 后台 API 在单个连接上保持多个 getChildren 请求在途（见 {@link AsyncChildrenReader}）
+     * 3. 结果按到达顺序解析，每累计 persist-chunk-services 个接口批量入库一次，
+     *    同时把已审批服务的 Provider 加入 ProviderService；入库变慢时读取随之降速
+     * 
+     * @param registryId 注册中心 id，主注册中心为 null
+     * @return 拉取到的 Provider 数
+     */
+    private int loadAndPersistProviders(String registryId, CuratorFramework client, String basePath,
+                                        BootstrapProgress current) {
+        ZooKeeperConfig.Bootstrap config = zooKeeperService.getConfig().getBootstrap();
         
         try {
-            String providersPath = basePath + "/" + service + "/providers";
-            
-            // 直接尝试获取子节点，如果路径不存在会抛出异常，捕获后跳过
-            // 这样避免了额外的 checkExists 调用，减少网络往返
-            List<String> providerNodes;
-            try {
-                providerNodes = client.getChildren().forPath(providersPath);
-            } catch (Exception e) {
-                // 路径不存在或其他错误，跳过
-                log.debug("服务 {} 的 providers 路径不存在或访问失败: {}", service, providersPath);
-                return providers;
-            }
-            
-            if (providerNodes.isEmpty()) {
-                return providers;
+            List<String> services = filterByWhitelist(client.getChildren().forPath(basePath));
+            current.setTotalServices(services.size());
+            if (services.isEmpty()) {
+                return 0;
             }
+            log.info("开始异步拉取 {} 个服务接口的 Provider 信息，最大在途请求: {}", services.size(), config.getMaxInFlight());
             
-            log.debug("服务 {} 有 {} 个 Provider", service, providerNodes.size());
-            
-            // 并行解析 Provider（如果 Provider 数量较多）
-            if (providerNodes.size() > 10) {
-                providers = providerNodes.parallelStream()
-                    .map(providerNode -> parseProviderNode(client, providersPath, providerNode, service))
-                    .filter(provider -> provider != null)
+            Set<String> approvedServiceKeys = findApprovedServiceKeys();
+            Set<String> confirmedZkPaths = new HashSet<>();
+            Set<String> failedServices = new HashSet<>();
+            List<String> providersPaths = services.stream()
+                    .map(service -> basePath + "/" + service + "/providers")
                     .collect(Collectors.toList());
-            } else {
-                // Provider 数量少时，串行处理即可
-                for (String providerNode : providerNodes) {
-                    ProviderInfo provider = parseProviderNode(client, providersPath, providerNode, service);
+            
+            List<ProviderInfo> chunk = new ArrayList<>();
+            int[] chunkServices = {0};
+            long[] lastReport = {System.currentTimeMillis()};
+            new AsyncChildrenReader(client, config.getMaxInFlight(), config.getIdleTimeoutMs()).read(providersPaths, result -> {
+                String providersPath = result.getPath();
+                String service = providersPath.substring(basePath.length() + 1, providersPath.length() - "/providers".length());
+                if (!result.isSuccess()) {
+                    current.setFailedServices(current.getFailedServices() + 1);
+                    failedServices.add(service);
+                    log.warn("⚠️ 拉取服务 {} 的 Provider 失败，将由后续监听补齐", service);
+                }
+                for (String providerNode : result.getChildren()) {
+                    ProviderInfo provider = parseProviderNode(registryId, providersPath, providerNode, service);
                     if (provider != null) {
-                        providers.add(provider);
+                        chunk.add(provider);
                     }
                 }
+                current.setLoadedServices(current.getLoadedServices() + 1);
+                if (++chunkServices[0] >= config.getPersistChunkServices()) {
+                    persistChunk(chunk, approvedServiceKeys, confirmedZkPaths, current);
+                    chunkServices[0] = 0;
+                }
+                if (System.currentTimeMillis() - lastReport[0] >= config.getProgressIntervalMs()) {
+                    lastReport[0] = System.currentTimeMillis();
+                    logProgress(current);
+                }
+            });
+            persistChunk(chunk, approvedServiceKeys, confirmedZkPaths, current);
+            if (registrySnapshotService != null) {
+                registrySnapshotService.reconcile(registryId, confirmedZkPaths, failedServices);
             }
             
+            current.setFinished(true);
+            long duration = System.currentTimeMillis() - current.getStartTimeMillis();
+            log.info("✅ 异步拉取完成 [{}]: {} 个服务接口（失败 {}），共 {} 个 Provider，入库 {}，耗时: {}ms",
+                    registryId != null ? registryId : zooKeeperService.getConfig().getRegistryId(),
+                    current.getLoadedServices(), current.getFailedServices(), current.getLoadedProviders(),
+                    current.getPersistedProviders(), duration);
+            return current.getLoadedProviders();
+            
         } catch (Exception e) {
-            log.error("加载服务 {} 的 Provider 失败", service, e);
+            log.error("批量拉取 ZooKeeper Provider 信息失败", e);
+            if (registrySnapshotService != null) {
+                // 拉取失败时保留快照数据，由监听补齐
+                registrySnapshotService.reconcile(registryId, null, Collections.emptySet());
+            }
+            current.setFinished(true);
+            return current.getLoadedProviders();
         }
-        
-        return providers;
+    }
+    
+    /**
+     * 按白名单过滤服务接口（左匹配）
+     */
+    private List<String> filterByWhitelist(List<String> allServices) {
+        log.info("发现 {} 个服务接口", allServices.size());
+        if (interfaceWhitelistService == null || !interfaceWhitelistService.isWhitelistConfigured()) {
+            return allServices;
+        }
+        List<String> whitelistPrefixes = interfaceWhitelistService.getWhitelistPrefixes();
+        log.info("应用白名单过滤，白名单前缀: {}", whitelistPrefixes);
+        List<String> filteredServices = allServices.stream()
+                .filter(service -> whitelistPrefixes.stream().anyMatch(service::startsWith))
+                .collect(Collectors.toList());
+        log.info("白名单过滤后，剩余 {} 个服务接口（原始: {}）", filteredServices.size(), allServices.size());
+        return filteredServices;
     }
     
     /**
      * 解析单个 Provider 节点
      * 
-     * @param client ZooKeeper 客户端
+     * @param registryId 注册中心 id，主注册中心为 null
      * @param providersPath providers 路径
      * @param providerNode Provider 节点名称
      * @param service 服务名称
      * @return ProviderInfo 对象，解析失败返回 null
      */
-    private ProviderInfo parseProviderNode(CuratorFramework client, String providersPath, 
-                                          String providerNode, String service) {
+    private ProviderInfo parseProviderNode(String registryId, String providersPath, String providerNode, String service) {
         try {
             String providerPath = providersPath + "/" + providerNode;
-            String providerUrl = URLDecoder.decode(providerNode, StandardCharsets.UTF_8);
-            
-            ProviderInfo providerInfo = zooKeeperService.parseProviderUrl(providerUrl, service);
+            ProviderInfo providerInfo = zooKeeperService.parseProviderNode(providerNode, service);
             if (providerInfo != null) {
-                providerInfo.setZkPath(providerPath);
+                providerInfo.setZkPath(RegistryPaths.qualify(registryId, providerPath));
                 return providerInfo;
             }
         } catch (Exception e) {
@@ -260,144 +252,63 @@ public class ZooKeeperBootstrapService {
         return null;
     }
     
+    private void logProgress(BootstrapProgress current) {
+        long elapsed = Math.max(1, System.currentTimeMillis() - current.getStartTimeMillis());
+        log.info("📡 启动拉取进度: 服务 {}/{}（失败 {}），Provider {}，已入库 {}，{} 服务/秒",
+                current.getLoadedServices(), current.getTotalServices(), current.getFailedServices(),
+                current.getLoadedProviders(), current.getPersistedProviders(),
+                current.getLoadedServices() * 1000L / elapsed);
+    }
+    
     /**
-     * 将已审批的服务添加到 ProviderService
+     * 已审批服务的唯一标识集合；启动期间新入库的服务都是待审批状态，整个拉取过程只查询一次
      */
-    private void addApprovedProvidersToService(List<ProviderInfo> providers) {
+    private Set<String> findApprovedServiceKeys() {
+        Set<String> approvedServiceKeys = new HashSet<>();
         try {
-            // 获取所有已审批的服务
-            List<com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity> approvedServices = 
-                dubboServiceDbService.findApprovedServices();
-            java.util.Set<String> approvedServiceKeys = new java.util.HashSet<>();
-            for (com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity service : approvedServices) {
+            for (com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity service : dubboServiceDbService.findApprovedServices()) {
                 approvedServiceKeys.add(buildServiceKey(service));
             }
-            
-            int addedCount = 0;
-            for (ProviderInfo provider : providers) {
-                String serviceKey = buildServiceKey(provider);
-                if (approvedServiceKeys.contains(serviceKey)) {
-                    providerService.addProvider(provider);
-                    addedCount++;
-                }
-            }
-            
-            log.info("将 {} 个已审批的 Provider 添加到服务监控", addedCount);
         } catch (Exception e) {
-            log.error("添加已审批的 Provider 到服务监控失败", e);
+            log.error("查询已审批服务失败，启动拉取的 Provider 将由后续监听加入服务监控", e);
         }
+        return approvedServiceKeys;
     }
     
     /**
-     * 按接口分组，逐个接口完整处理 Provider 信息
-     * 确保每个接口的 service、node、provider、method、parameter 都完整落库
-     * 
-     * @param allProviders 所有 Provider 信息列表
+     * 批量入库一批 Provider，并将已审批服务的 Provider 加入 ProviderService；处理后清空 chunk
      */
-    private void persistProvidersByInterface(List<ProviderInfo> allProviders) {
-        if (allProviders == null || allProviders.isEmpty()) {
+    private void persistChunk(List<ProviderInfo> chunk, Set<String> approvedServiceKeys,
+                              Set<String> confirmedZkPaths, BootstrapProgress current) {
+        if (chunk.isEmpty()) {
             return;
         }
+        current.setLoadedProviders(current.getLoadedProviders() + chunk.size());
+        List<ProviderInfo> allowed = chunk.stream()
+                .filter(p -> interfaceWhitelistService == null || interfaceWhitelistService.isAllowed(p.getInterfaceName()))
+                .collect(Collectors.toList());
+        try {
+            int written = dubboServiceDbService.saveOrUpdateServicesWithNodes(allowed);
+            current.setPersistedProviders(current.getPersistedProviders() + allowed.size());
+            log.debug("批量持久化完成: providerCount={}, 写入节点={}", allowed.size(), written);
+        } catch (Exception e) {
+            log.error("批量持久化失败: providerCount={}, error={}, 将继续处理下一批", allowed.size(), e.getMessage(), e);
+        }
         
-        long startTime = System.currentTimeMillis();
-        int totalCount = allProviders.size();
-        int successCount = 0;
-        int failureCount = 0;
-        int processedInterfaceCount = 0;
-        
-        log.info("开始按接口分组持久化 {} 条Provider信息", totalCount);
-        
-        // 1. 按接口分组
-        Map<String, List<ProviderInfo>> serviceGroupMap = allProviders.stream()
-                .collect(Collectors.groupingBy(this::buildServiceKey));
-        
-        int totalInterfaces = serviceGroupMap.size();
-        log.info("共 {} 个不同的接口需要处理", totalInterfaces);
-        
-        // 2. 按接口逐个处理，确保每个接口的数据完整性
-        // 重要：每个接口的处理是独立的，即使某个接口失败也不影响其他接口
-        for (Map.Entry<String, List<ProviderInfo>> entry : serviceGroupMap.entrySet()) {
-            String serviceKey = entry.getKey();
-            List<ProviderInfo> serviceProviders = entry.getValue();
-            int interfaceSuccessCount = 0;
-            int interfaceFailureCount = 0;
-            
-            try {
-                processedInterfaceCount++;
-                log.info("[{}/{}] 开始处理接口: {} ({} 个Provider)", 
-                        processedInterfaceCount, totalInterfaces, serviceKey, serviceProviders.size());
-                
-                if (serviceProviders.isEmpty()) {
-                    log.warn("接口 {} 的Provider列表为空，跳过", serviceKey);
-                    continue;
-                }
-                
-                ProviderInfo firstProvider = serviceProviders.get(0);
-                
-                // 2.1 处理服务信息（service）
-                com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity serviceEntity = 
-                    dubboServiceDbService.saveOrUpdateService(firstProvider);
-                
-                if (serviceEntity == null || serviceEntity.getId() == null) {
-                    log.error("服务插入失败，无法获取ID: {}", serviceKey);
-                    interfaceFailureCount += serviceProviders.size();
-                    failureCount += serviceProviders.size();
-                    continue;
-                }
-                
-                log.debug("服务处理完成: serviceId={}, interfaceName={}", 
-                        serviceEntity.getId(), serviceEntity.getInterfaceName());
-                
-                // 2.2 处理服务方法信息（service method 和 parameter）
+        int addedCount = 0;
+        for (ProviderInfo provider : chunk) {
+            if (approvedServiceKeys.contains(buildServiceKey(provider))) {
                 try {
-                    dubboServiceMethodService.saveOrUpdateServiceMethods(firstProvider, serviceEntity.getId());
-                    log.debug("服务方法处理完成: serviceId={}, interfaceName={}", 
-                            serviceEntity.getId(), serviceEntity.getInterfaceName());
+                    providerService.addProvider(provider);
+                    confirmedZkPaths.add(provider.getZkPath());
+                    addedCount++;
                 } catch (Exception e) {
-                    log.error("保存服务方法信息失败: serviceId={}, interfaceName={}, error={}", 
-                            serviceEntity.getId(), serviceEntity.getInterfaceName(), e.getMessage(), e);
-                    // 不增加失败计数，因为方法信息不是必需的，继续处理Provider
-                }
-                
-                // 2.3 处理每个 Provider（node 和 provider）
-                for (ProviderInfo providerInfo : serviceProviders) {
-                    try {
-                        // 注意：saveOrUpdateProvider 内部会处理 service 和 node
-                        // 但由于我们已经处理了 service，saveOrUpdateService 内部有 ON DUPLICATE KEY UPDATE，不会重复插入
-                        providerInfoDbService.saveOrUpdateProvider(providerInfo);
-                        
-                        interfaceSuccessCount++;
-                        successCount++;
-                        log.debug("Provider处理完成: serviceId={}, address={}", 
-                                serviceEntity.getId(), providerInfo.getAddress());
-                        
-                    } catch (Exception e) {
-                        interfaceFailureCount++;
-                        failureCount++;
-                        log.error("处理Provider失败: serviceKey={}, address={}, error={}", 
-                                serviceKey, providerInfo.getAddress(), e.getMessage(), e);
-                        // 继续处理下一个Provider，不中断
-                    }
+                    log.error("添加已审批的 Provider 到服务监控失败: {}", provider.getZkPath(), e);
                 }
-                
-                log.info("[{}/{}] 接口处理完成: {} (serviceId={}, providerCount={}, 成功={}, 失败={})", 
-                        processedInterfaceCount, totalInterfaces, serviceKey, serviceEntity.getId(), 
-                        serviceProviders.size(), interfaceSuccessCount, interfaceFailureCount);
-                
-            } catch (Exception e) {
-                // 捕获接口级别的异常，记录日志但继续处理下一个接口
-                interfaceFailureCount += serviceProviders.size();
-                failureCount += serviceProviders.size();
-                log.error("[{}/{}] 处理接口失败: {}, error={}, 将继续处理下一个接口", 
-                        processedInterfaceCount, totalInterfaces, serviceKey, e.getMessage(), e);
-                // 不抛出异常，继续处理下一个接口
             }
         }
-        
-        long duration = System.currentTimeMillis() - startTime;
-        log.info("✅ 按接口分组持久化完成: 接口总数={}, 已处理={}, Provider总数={}, 成功={}, 失败={}, 耗时={}ms, 平均={}ms/条",
-                totalInterfaces, processedInterfaceCount, totalCount, successCount, failureCount, duration,
-                totalCount > 0 ? duration / totalCount : 0);
+        log.debug("将 {} 个已审批的 Provider 添加到服务监控", addedCount);
+        chunk.clear();
     }
     
     /**
@@ -2,15 +2,14 @@ package com.pajk.mcpmetainfo.core.service;
 
 import com.pajk.mcpmetainfo.core.config.ZooKeeperConfig;
 import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.core.util.ProviderUrlParser;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
-import org.apache.curator.framework.recipes.cache.PathChildrenCache;
-import org.apache.curator.framework.recipes.cache.PathChildrenCacheEvent;
-import org.apache.curator.framework.recipes.cache.PathChildrenCacheListener;
 import org.apache.curator.framework.recipes.cache.ChildData;
-import org.apache.curator.framework.state.ConnectionState;
-import org.apache.curator.framework.state.ConnectionStateListener;
+import org.apache.curator.framework.recipes.cache.CuratorCache;
+import org.apache.curator.framework.recipes.cache.CuratorCacheBridge;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
 import org.apache.curator.retry.RetryForever;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
@@ -22,7 +21,9 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * ZooKeeper 服务管理类
@@ -73,8 +74,66 @@ public class ZooKeeperService {
     @Autowired(required = false)
     private InterfaceWhitelistService interfaceWhitelistService;
     
+    @Autowired(required = false)
+    private RegistryEventPipeline registryEventPipeline;
+    
+    @Lazy
+    @Autowired(required = false)
+    private RegistryResyncService registryResyncService;
+    
     private CuratorFramework client;
-    private final ConcurrentHashMap<String, PathChildrenCache> pathCaches = new ConcurrentHashMap<>();
+    
+    /**
+     * 基础路径下共享的一个 CuratorCache（替代原先每个服务一个 PathChildrenCache），
+     * 事件按路径模式 /{basePath}/{interface}/{category}/{node} 分发
+     */
+    private volatile CuratorCacheBridge registryCache;
+    
+    // 已审批、需要处理Provider事件的服务接口
+    private final Set<String> watchedServices = ConcurrentHashMap.newKeySet();
+    
+    // 节点分类 -> 外部注册的监听器
+    private final Map<RegistryCategory, List<RegistryNodeListener>> registryListeners = new ConcurrentHashMap<>();
+    
+    // Provider URL 解析器，参数键和常见取值在所有 Provider 间共享
+    private final ProviderUrlParser urlParser = new ProviderUrlParser(200_000);
+    
+    /**
+     * Dubbo 注册中心服务下的节点分类
+     */
+    public enum RegistryCategory {
+        PROVIDERS("providers"),
+        CONSUMERS("consumers"),
+        CONFIGURATORS("configurators"),
+        ROUTERS("routers");
+        
+        private final String segment;
+        
+        RegistryCategory(String segment) {
+            this.segment = segment;
+        }
+        
+        public String getSegment() {
+            return segment;
+        }
+        
+        static RegistryCategory fromSegment(String segment) {
+            for (RegistryCategory category : values()) {
+                if (category.segment.equals(segment)) {
+                    return category;
+                }
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * 注册中心节点监听器，只接收所注册分类下的叶子节点事件
+     */
+    @FunctionalInterface
+    public interface RegistryNodeListener {
+        void onEvent(CuratorCacheListener.Type type, String serviceName, ChildData data);
+    }
     
     @PostConstruct
     public void init() {
@@ -122,49 +181,38 @@ public class ZooKeeperService {
     
     /**
      * 开始监听Provider节点
-     * 注意：只监听已审批的服务（状态为APPROVED）
+     * 注意：只处理已审批的服务（状态为APPROVED）的Provider事件
      * 注意：不再加载已有数据，数据加载由 ZooKeeperBootstrapService 在启动时批量完成
      */
     public void startWatchingProviders() {
         try {
-            String providersPath = config.getBasePath();
+            String basePath = config.getBasePath();
             
             // 确保基础路径存在
-            if (client.checkExists().forPath(providersPath) == null) {
-                log.warn("ZooKeeper基础路径不存在: {}", providersPath);
+            if (client.checkExists().forPath(basePath) == null) {
+                log.warn("ZooKeeper基础路径不存在: {}", basePath);
                 return;
             }
             
             // 获取所有服务接口
-            List<String> services = client.getChildren().forPath(providersPath);
+            List<String> services = client.getChildren().forPath(basePath);
             log.info("发现 {} 个服务接口", services.size());
             
             // 获取所有已审批的服务
-            List<com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity> approvedServices = 
-                dubboServiceDbService.findApprovedServices();
-            java.util.Set<String> approvedServiceNames = approvedServices.stream()
-                .map(com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity::getInterfaceName)
-                .collect(java.util.stream.Collectors.toSet());
-            
+            Set<String> approvedServiceNames = findApprovedServiceNames();
             log.info("已审批的服务数量: {}", approvedServiceNames.size());
             
-            // 只监听已审批的服务（不再加载已有数据，数据已在启动时批量加载）
             int watchedCount = 0;
             for (String service : services) {
-                String servicePath = providersPath + "/" + service;
-                
-                // 检查服务是否已审批
                 if (approvedServiceNames.contains(service)) {
-                    // 已审批的服务，创建watcher（不加载已有数据）
-                    watchServiceProvidersWithoutLoading(servicePath, service);
+                    watchedServices.add(service);
                     watchedCount++;
                 }
             }
-            
             log.info("开始监听 {} 个已审批服务接口", watchedCount);
             
-            // 监听新服务的添加
-            watchNewServices(providersPath);
+            // 整个基础路径只启动一个缓存，新服务的发现也由它完成
+            startRegistryCache(basePath);
             
         } catch (Exception e) {
             log.error("开始监听Provider节点失败", e);
@@ -172,235 +220,192 @@ public class ZooKeeperService {
     }
     
     /**
-     * 监听特定服务的Provider变化（不加载已有数据）
-     * 优化：只监听项目包含的服务
+     * 启动基础路径下共享的 CuratorCache（重复调用时复用已启动的缓存）
+     * 节点数据不缓存（Provider 信息在节点名中），初始化完成前的存量节点事件不分发；
+     * 初始化完成后做一次差量比对，补齐启动全量加载与缓存初始化之间的变化
      */
-    private void watchServiceProvidersWithoutLoading(String servicePath, String serviceName) {
-        try {
-            String providersPath = servicePath + "/providers";
-            
-            // 检查providers路径是否存在
-            if (client.checkExists().forPath(providersPath) == null) {
-                log.debug("服务 {} 的providers路径不存在: {}", serviceName, providersPath);
-                return;
-            }
-            
-            // 注意：不再加载已有数据，数据已在启动时批量加载
-            
-            // 使用 PathChildrenCache 监听子节点变化（Curator 4.x 兼容）
-            PathChildrenCache cache = new PathChildrenCache(client, providersPath, true);
-            
-            cache.getListenable().addListener(new PathChildrenCacheListener() {
-                @Override
-                public void childEvent(CuratorFramework client, PathChildrenCacheEvent event) throws Exception {
-                    try {
-                        ChildData data = event.getData();
-                        
-                        switch (event.getType()) {
-                            case CHILD_ADDED:
-                                if (data != null && data.getPath().startsWith(providersPath + "/")) {
-                                    String providerUrl = URLDecoder.decode(
-                                            data.getPath().substring(providersPath.length() + 1),
-                                            StandardCharsets.UTF_8
-                                    );
-                                    
-                                    // 应用过滤规则：只有通过过滤的服务才会被处理
-                                    ProviderInfo providerInfo = parseProviderUrl(providerUrl, serviceName);
-                                    
-                                    if (providerInfo != null) {
-                                        // 应用三层过滤机制
-                                        if (filterService == null || filterService.shouldCollect(
-                                                providerInfo.getInterfaceName(),
-                                                providerInfo.getVersion(),
-                                                providerInfo.getGroup())) {
-                                            handleProviderAdded(data, serviceName);
-                                        } else {
-                                            log.debug("Provider {}/{} 被过滤规则排除，跳过处理", 
-                                                    providerInfo.getInterfaceName(),
-                                                    providerInfo.getVersion());
-                                        }
-                                    }
-                                }
-                                break;
-                            case CHILD_REMOVED:
-                                if (data != null && data.getPath().startsWith(providersPath + "/")) {
-                                    handleProviderRemoved(data, serviceName);
-                                }
-                                break;
-                            case CHILD_UPDATED:
-                                if (data != null && data.getPath().startsWith(providersPath + "/")) {
-                                    handleProviderUpdated(data, serviceName);
-                                }
-                                break;
-                            default:
-                                break;
-                        }
-                    } catch (Exception e) {
-                        log.error("处理Provider事件失败", e);
-                    }
-                }
-            });
-            
-            cache.start(PathChildrenCache.StartMode.BUILD_INITIAL_CACHE);
-            pathCaches.put(providersPath, cache);
-            
-            log.info("开始监听服务 {} 的Provider变化: {}", serviceName, providersPath);
-            
-        } catch (Exception e) {
-            log.error("监听服务 {} 的Provider失败", serviceName, e);
+    private synchronized void startRegistryCache(String basePath) {
+        if (registryCache != null) {
+            return;
         }
+        // bridgeBuilder：ZooKeeper 3.6+ 使用持久递归 watch，3.5 兼容模式下退化为 TreeCache
+        CuratorCacheBridge cache = CuratorCache.bridgeBuilder(client, basePath)
+                .withDataNotCached()
+                .build();
+        cache.listenable().addListener(CuratorCacheListener.builder()
+                .forAll((type, oldData, data) -> dispatchRegistryEvent(basePath, type, oldData, data))
+                .forInitialized(() -> {
+                    log.info("✅ 注册中心缓存初始化完成: {}", basePath);
+                    if (registryResyncService != null) {
+                        registryResyncService.reconcileAfterCacheInitialized();
+                    }
+                })
+                .afterInitialized()
+                .build());
+        cache.start();
+        registryCache = cache;
+        log.info("📡 开始监听注册中心路径: {}", basePath);
     }
     
     /**
-     * 加载已存在的Provider信息
-     * 在初始化扫描时，保存到数据库，状态为INIT
+     * 按路径模式分发缓存事件
+     * /{basePath}/{interface} 创建：新服务发现
+     * /{basePath}/{interface}/{category}/{node}：Provider 事件交给内置处理，其余交给注册的监听器
      */
-    private void 
-    loadExistingProviders(String providersPath, String serviceName) {
+    void dispatchRegistryEvent(String basePath, CuratorCacheListener.Type type, ChildData oldData, ChildData data) {
+        ChildData node = data != null ? data : oldData;
+        String prefix = basePath.endsWith("/") ? basePath : basePath + "/";
+        if (node == null || !node.getPath().startsWith(prefix)) {
+            return;
+        }
         try {
-            List<String> existingProviders = client.getChildren().forPath(providersPath);
-            log.info("发现服务 {} 已有 {} 个Provider", serviceName, existingProviders.size());
-            
-            for (String providerNode : existingProviders) {
-                try {
-                    String providerPath = providersPath + "/" + providerNode;
-                    String providerUrl = URLDecoder.decode(providerNode, StandardCharsets.UTF_8);
-                    
-                    log.info("加载已存在的Provider: {} -> {}", serviceName, providerUrl);
-                    
-                    ProviderInfo providerInfo = parseProviderUrl(providerUrl, serviceName);
-                    if (providerInfo != null) {
-                        providerInfo.setZkPath(providerPath);
-                        
-                        // 保存到数据库，状态为INIT
-                        try {
-                            dubboServiceDbService.saveOrUpdateServiceWithNode(providerInfo);
-                            log.debug("成功保存Provider到数据库: {}", providerPath);
-                        } catch (Exception e) {
-                            log.error("保存Provider到数据库失败: {}", providerPath, e);
-                        }
-                        
-                        // 只有已审批的服务才添加到ProviderService进行监控
-                        // 检查服务是否已审批
-                        com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity serviceEntity = 
-                            dubboServiceDbService.findByServiceKey(providerInfo).orElse(null);
-                        if (serviceEntity != null && 
-                            serviceEntity.getApprovalStatus() == 
-                            com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity.ApprovalStatus.APPROVED) {
-                            providerService.addProvider(providerInfo);
-                            log.debug("添加已审批Provider到服务监控: {}", providerPath);
-                        } else {
-                            log.debug("跳过未审批Provider的服务监控: {}", providerPath);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.error("加载Provider失败: {}", providerNode, e);
+            String[] segments = node.getPath().substring(prefix.length()).split("/", 3);
+            if (segments.length == 1) {
+                if (type == CuratorCacheListener.Type.NODE_CREATED) {
+                    handleServiceAdded(segments[0]);
+                }
+                return;
+            }
+            if (segments.length < 3 || segments[2].indexOf('/') >= 0) {
+                return;
+            }
+            RegistryCategory category = RegistryCategory.fromSegment(segments[1]);
+            if (category == null) {
+                return;
+            }
+            String serviceName = segments[0];
+            if (category == RegistryCategory.PROVIDERS && watchedServices.contains(serviceName)) {
+                handleProviderEvent(type, node, serviceName);
+            }
+            List<RegistryNodeListener> listeners = registryListeners.get(category);
+            if (listeners != null) {
+                for (RegistryNodeListener listener : listeners) {
+                    listener.onEvent(type, serviceName, node);
                 }
             }
         } catch (Exception e) {
-            log.error("加载已存在的Provider失败: {}", providersPath, e);
+            log.error("处理注册中心事件失败: {}", node.getPath(), e);
         }
     }
     
     /**
-     * 保存服务Provider到数据库（不创建watcher）
-     * 用于初始化扫描时，保存未审批的服务
+     * 处理Provider节点事件
+     * 启用事件管道时只解析、过滤后入队，入库和 Nacos 同步在管道线程中完成，不阻塞 Curator 事件线程
      */
-    private void saveServiceProvidersToDatabase(String servicePath, String serviceName) {
-        try {
-            String providersPath = servicePath + "/providers";
-            
-            // 检查providers路径是否存在
-            if (client.checkExists().forPath(providersPath) == null) {
-                log.debug("服务 {} 的providers路径不存在: {}", serviceName, providersPath);
+    private void handleProviderEvent(CuratorCacheListener.Type type, ChildData data, String serviceName) {
+        // 会话恢复期间缓存重放的事件由差量重同步统一处理
+        if (registryResyncService != null && registryResyncService.intercept(data.getPath())) {
+            return;
+        }
+        ProviderInfo providerInfo = null;
+        if (type != CuratorCacheListener.Type.NODE_DELETED) {
+            providerInfo = parseProviderNode(
+                    data.getPath().substring(data.getPath().lastIndexOf('/') + 1), serviceName);
+            if (providerInfo == null) {
                 return;
             }
-            
-            // 加载已存在的provider信息并保存到数据库
-            List<String> existingProviders = client.getChildren().forPath(providersPath);
-            log.info("发现服务 {} 已有 {} 个Provider，保存到数据库", serviceName, existingProviders.size());
-            
-            for (String providerNode : existingProviders) {
-                try {
-                    String providerPath = providersPath + "/" + providerNode;
-                    String providerUrl = URLDecoder.decode(providerNode, StandardCharsets.UTF_8);
-                    
-                    ProviderInfo providerInfo = parseProviderUrl(providerUrl, serviceName);
-                    if (providerInfo != null) {
-                        providerInfo.setZkPath(providerPath);
-                        
-                        // 保存到数据库，状态为INIT
-                        try {
-                            dubboServiceDbService.saveOrUpdateServiceWithNode(providerInfo);
-                            log.debug("成功保存未审批Provider到数据库: {}", providerPath);
-                        } catch (Exception e) {
-                            log.error("保存未审批Provider到数据库失败: {}", providerPath, e);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.error("保存Provider到数据库失败: {}", providerNode, e);
-                }
-            }
-        } catch (Exception e) {
-            log.error("保存服务 {} 的Provider到数据库失败", serviceName, e);
+            providerInfo.setZkPath(data.getPath());
         }
+        dispatchProviderEvent(type, data.getPath(), serviceName, providerInfo);
     }
     
     /**
-     * 监听新服务的添加
+     * 过滤后交给事件管道（或同步处理）；providerInfo 在删除事件中为 null
+     */
+    void dispatchProviderEvent(CuratorCacheListener.Type type, String zkPath, String serviceName, ProviderInfo providerInfo) {
+        // 应用三层过滤机制：只有通过过滤的新Provider才会被处理
+        if (type == CuratorCacheListener.Type.NODE_CREATED && filterService != null
+                && !filterService.shouldCollect(providerInfo.getInterfaceName(),
+                        providerInfo.getVersion(), providerInfo.getGroup())) {
+            log.debug("Provider {}/{} 被过滤规则排除，跳过处理", 
+                    providerInfo.getInterfaceName(),
+                    providerInfo.getVersion());
+            return;
+        }
+        
+        if (registryEventPipeline != null && config.getPipeline().isEnabled()) {
+            registryEventPipeline.submit(new RegistryEventPipeline.RegistryEvent(
+                    type, zkPath, serviceName, providerInfo));
+            return;
+        }
+        
+        ChildData data = new ChildData(zkPath, null, null);
+        switch (type) {
+            case NODE_CREATED:
+                handleProviderAdded(data, serviceName);
+                break;
+            case NODE_DELETED:
+                handleProviderRemoved(data, serviceName);
+                break;
+            case NODE_CHANGED:
+                handleProviderUpdated(data, serviceName);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * 处理新服务的添加
      * 先检查白名单，如果不在白名单中直接退出
-     * 只有已审批的服务才创建watcher，未审批的服务只保存到数据库
+     * 只有已审批的服务才处理Provider事件，未审批的服务等待批量加载时处理
      */
-    private void watchNewServices(String basePath) {
-        try {
-            // 使用 PathChildrenCache 监听子节点变化（Curator 4.x 兼容）
-            PathChildrenCache serviceCache = new PathChildrenCache(client, basePath, true);
-            
-            serviceCache.getListenable().addListener(new PathChildrenCacheListener() {
-                @Override
-                public void childEvent(CuratorFramework client, PathChildrenCacheEvent event) throws Exception {
-                    if (event.getType() == PathChildrenCacheEvent.Type.CHILD_ADDED) {
-                        ChildData data = event.getData();
-                        if (data != null && data.getPath().startsWith(basePath + "/")) {
-                            String serviceName = data.getPath().substring(basePath.length() + 1);
-                            log.info("发现新服务: {}", serviceName);
-                            
-                            // 白名单检查：如果不在白名单中，直接退出
-                            if (interfaceWhitelistService != null && !interfaceWhitelistService.isAllowed(serviceName)) {
-                                log.info("新发现的服务 {} 不在白名单中，直接退出，不进行处理", serviceName);
-                                return;
-                            }
-                            
-                            String servicePath = basePath + "/" + serviceName;
-                            
-                            // 检查服务是否已审批
-                            List<com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity> approvedServices = 
-                                dubboServiceDbService.findApprovedServices();
-                            java.util.Set<String> approvedServiceNames = approvedServices.stream()
-                                .map(com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity::getInterfaceName)
-                                .collect(java.util.stream.Collectors.toSet());
-                            
-                            if (approvedServiceNames.contains(serviceName)) {
-                                // 已审批的服务，创建watcher（不加载已有数据）
-                                watchServiceProvidersWithoutLoading(servicePath, serviceName);
-                                log.info("为新发现的已审批服务 {} 创建watcher", serviceName);
-                            } else {
-                                // 未审批的服务，不创建watcher，等待批量加载时处理
-                                log.info("新发现的服务 {} 未审批，将在下次批量加载时处理", serviceName);
-                            }
-                        }
-                    }
-                }
-            });
-            
-            serviceCache.start(PathChildrenCache.StartMode.BUILD_INITIAL_CACHE);
-            pathCaches.put(basePath, serviceCache);
-            
-        } catch (Exception e) {
-            log.error("监听新服务失败", e);
+    private void handleServiceAdded(String serviceName) {
+        log.info("发现新服务: {}", serviceName);
+        
+        // 白名单检查：如果不在白名单中，直接退出
+        if (interfaceWhitelistService != null && !interfaceWhitelistService.isAllowed(serviceName)) {
+            log.info("新发现的服务 {} 不在白名单中，直接退出，不进行处理", serviceName);
+            return;
+        }
+        
+        if (findApprovedServiceNames().contains(serviceName)) {
+            watchService(serviceName);
+            log.info("为新发现的已审批服务 {} 开启Provider事件处理", serviceName);
+        } else {
+            // 未审批的服务，不处理Provider事件，等待批量加载时处理
+            log.info("新发现的服务 {} 未审批，将在下次批量加载时处理", serviceName);
         }
     }
     
+    private Set<String> findApprovedServiceNames() {
+        return dubboServiceDbService.findApprovedServices().stream()
+            .map(com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity::getInterfaceName)
+            .collect(java.util.stream.Collectors.toSet());
+    }
+    
+    /**
+     * 开始处理指定服务的Provider事件（服务审批通过后调用）
+     * 共享缓存已覆盖整个基础路径，这里只登记服务，不会新增 ZooKeeper watch
+     */
+    public void watchService(String serviceName) {
+        if (watchedServices.add(serviceName)) {
+            log.info("开始监听服务 {} 的Provider变化", serviceName);
+        }
+    }
+    
+    /**
+     * 已开启Provider事件处理的服务
+     */
+    public Set<String> getWatchedServices() {
+        return Set.copyOf(watchedServices);
+    }
+    
+    /**
+     * 服务是否已开启Provider事件处理
+     */
+    public boolean isServiceWatched(String serviceName) {
+        return watchedServices.contains(serviceName);
+    }
+    
+    /**
+     * 注册指定分类（providers/consumers/configurators/routers）节点的监听器
+     * 监听器在缓存事件线程上执行，不应阻塞
+     */
+    public void addRegistryListener(RegistryCategory category, RegistryNodeListener listener) {
+        registryListeners.computeIfAbsent(category, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+    
     
     /**
      * 处理Provider添加事件
@@ -535,86 +540,33 @@ public class ZooKeeperService {
      */
     public ProviderInfo parseProviderUrl(String providerUrl, String serviceName) {
         try {
-            // Dubbo Provider URL格式: dubbo://192.168.1.100:20880/com.example.Service?version=1.0.0&group=default&...
-            if (!providerUrl.startsWith("dubbo://")) {
+            ProviderInfo provider = urlParser.parse(providerUrl, serviceName);
+            if (provider == null) {
                 log.warn("不支持的Provider URL格式: {}", providerUrl);
-                return null;
             }
-            
-            ProviderInfo provider = new ProviderInfo();
-            provider.setInterfaceName(serviceName);
-            provider.setOnline(true);
-            
-            // 解析URL
-            String[] parts = providerUrl.split("\\?");
-            String baseUrl = parts[0];
-            
-            // 提取协议、地址和接口
-            String[] urlParts = baseUrl.split("://");
-            provider.setProtocol(urlParts[0]);
-            
-            String[] addressAndInterface = urlParts[1].split("/");
-            provider.setAddress(addressAndInterface[0]);
-            
-            if (addressAndInterface.length > 1) {
-                provider.setInterfaceName(addressAndInterface[1]);
-            }
-            
-            // 解析参数
-            java.util.Map<String, String> parameters = new java.util.HashMap<>();
-            if (parts.length > 1) {
-                String[] params = parts[1].split("&");
-                for (String param : params) {
-                    String[] kv = param.split("=");
-                    if (kv.length == 2) {
-                        String key = URLDecoder.decode(kv[0], StandardCharsets.UTF_8);
-                        String value = URLDecoder.decode(kv[1], StandardCharsets.UTF_8);
-                        
-                        // 保存所有参数到 parameters Map
-                        parameters.put(key, value);
-                        
-                        switch (key) {
-                            case "version":
-                                provider.setVersion(value);
-                                break;
-                            case "group":
-                                provider.setGroup(value);
-                                break;
-                            case "application":
-                                provider.setApplication(value);
-                                break;
-                            case "methods":
-                                provider.setMethods(value);
-                                break;
-                        }
-                    }
-                }
-            }
-            
-            // 如果 application 为空，尝试从 parameters 中获取（可能参数名不同）
-            if ((provider.getApplication() == null || provider.getApplication().isEmpty()) && !parameters.isEmpty()) {
-                // 尝试常见的 application 参数名变体
-                String app = parameters.get("application") != null ? parameters.get("application") :
-                            parameters.get("dubbo.application.name") != null ? parameters.get("dubbo.application.name") :
-                            parameters.get("application.name") != null ? parameters.get("application.name") :
-                            null;
-                if (app != null && !app.isEmpty()) {
-                    provider.setApplication(app);
-                    log.debug("Extracted application from parameters: {}", app);
-                }
-            }
-            
-            // 保存所有参数
-            provider.setParameters(parameters);
-            
             return provider;
-            
         } catch (Exception e) {
             log.error("解析Provider URL失败: {}", providerUrl, e);
             return null;
         }
     }
     
+    /**
+     * 解析 providers 下的节点名（URL 编码的Provider URL），解码与解析在一次扫描中完成
+     */
+    public ProviderInfo parseProviderNode(String providerNode, String serviceName) {
+        try {
+            ProviderInfo provider = urlParser.parseNode(providerNode, serviceName);
+            if (provider == null) {
+                log.warn("不支持的Provider URL格式: {}", providerNode);
+            }
+            return provider;
+        } catch (Exception e) {
+            log.error("解析Provider URL失败: {}", providerNode, e);
+            return null;
+        }
+    }
+    
     /**
      * 获取ZooKeeper客户端
      */
@@ -651,50 +603,36 @@ public class ZooKeeperService {
     }
     
     /**
-     * 检查指定路径是否已经添加了缓存监听
+     * 检查指定路径是否已经处于监听中
+     * 基础路径由共享缓存监听；服务下的路径在该服务登记后视为已监听
      * 
      * @param path 路径
      * @return 是否已添加缓存监听
      */
     public boolean isPathCached(String path) {
-        return pathCaches.containsKey(path);
-    }
-    
-    /**
-     * 记录连接状态变化
-     */
-    private void logConnectionStateChange(ConnectionState newState) {
-        switch (newState) {
-            case CONNECTED:
-                log.info("ZooKeeper连接状态: CONNECTED");
-                break;
-            case SUSPENDED:
-                log.warn("ZooKeeper连接状态: SUSPENDED (连接已暂停)");
-                break;
-            case RECONNECTED:
-                log.info("ZooKeeper连接状态: RECONNECTED (连接已恢复)");
-                break;
-            case LOST:
-                log.error("ZooKeeper连接状态: LOST (会话已丢失)");
-                break;
-            case READ_ONLY:
-                log.warn("ZooKeeper连接状态: READ_ONLY (只读模式)");
-                break;
-            default:
-                log.info("ZooKeeper连接状态: {}", newState);
-                break;
+        String basePath = config.getBasePath();
+        if (path.equals(basePath)) {
+            return registryCache != null;
+        }
+        String prefix = basePath.endsWith("/") ? basePath : basePath + "/";
+        if (!path.startsWith(prefix)) {
+            return false;
         }
+        String serviceName = path.substring(prefix.length()).split("/", 2)[0];
+        return watchedServices.contains(serviceName);
     }
     
     
     @PreDestroy
     public void destroy() {
         try {
-            // 关闭所有缓存
-            for (PathChildrenCache cache : pathCaches.values()) {
+            // 关闭注册中心缓存
+            CuratorCacheBridge cache = registryCache;
+            registryCache = null;
+            if (cache != null) {
                 cache.close();
             }
-            pathCaches.clear();
+            watchedServices.clear();
             
             // 关闭客户端
             if (client != null) {
@@ -0,0 +1,118 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.CuratorEvent;
+import org.apache.zookeeper.KeeperException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Curator 后台（异步）API 批量读取子节点
+ *
+ * <p>在同一个 ZooKeeper 连接上保持最多 maxInFlight 个 getChildren 请求在途，结果到达后
+ * 按完成顺序在调用线程上逐个交给 consumer。许可在 consumer 处理完结果后才归还，
+ * 因此在途请求和未处理结果合计不超过 maxInFlight，下游变慢时读取自动降速。</p>
+ */
+@Slf4j
+public class AsyncChildrenReader {
+
+    private final CuratorFramework client;
+    private final int maxInFlight;
+    private final long idleTimeoutMs;
+
+    /**
+     * @param client        Curator 客户端
+     * @param maxInFlight   最大在途请求数
+     * @param idleTimeoutMs 连续多久没有任何结果到达时放弃（毫秒）
+     */
+    public AsyncChildrenReader(CuratorFramework client, int maxInFlight, long idleTimeoutMs) {
+        this.client = client;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    /**
+     * 单个路径的读取结果；路径不存在时 children 为空，失败时 success 为 false
+     */
+    @Data
+    public static class Result {
+        private final String path;
+        private final List<String> children;
+        private final boolean success;
+    }
+
+    /**
+     * 读取全部路径的子节点，阻塞直到所有结果都交给 consumer
+     *
+     * @param paths    要读取的路径
+     * @param consumer 结果处理（在调用线程上执行）
+     * @throws TimeoutException 超过 idleTimeoutMs 没有结果到达
+     */
+    public void read(List<String> paths, Consumer<Result> consumer) throws InterruptedException, TimeoutException {
+        if (paths.isEmpty()) {
+            return;
+        }
+        Semaphore permits = new Semaphore(maxInFlight);
+        BlockingQueue<Result> results = new LinkedBlockingQueue<>();
+        Thread issuer = new Thread(() -> issue(paths, permits, results), "zk-async-children-reader");
+        issuer.setDaemon(true);
+        issuer.start();
+        try {
+            for (int received = 0; received < paths.size(); received++) {
+                Result result = results.poll(idleTimeoutMs, TimeUnit.MILLISECONDS);
+                if (result == null) {
+                    throw new TimeoutException("No ZooKeeper response within " + idleTimeoutMs + "ms, "
+                            + received + "/" + paths.size() + " paths read");
+                }
+                try {
+                    consumer.accept(result);
+                } finally {
+                    permits.release();
+                }
+            }
+        } finally {
+            issuer.interrupt();
+        }
+    }
+
+    private void issue(List<String> paths, Semaphore permits, BlockingQueue<Result> results) {
+        for (String path : paths) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                client.getChildren()
+                        .inBackground((c, event) -> results.add(toResult(path, event)))
+                        .forPath(path);
+            } catch (Exception e) {
+                log.debug("Failed to issue getChildren for {}: {}", path, e.getMessage());
+                results.add(new Result(path, Collections.emptyList(), false));
+            }
+        }
+    }
+
+    private static Result toResult(String path, CuratorEvent event) {
+        KeeperException.Code code = KeeperException.Code.get(event.getResultCode());
+        if (code == KeeperException.Code.OK) {
+            List<String> children = event.getChildren();
+            return new Result(path, children != null ? children : Collections.emptyList(), true);
+        }
+        if (code == KeeperException.Code.NONODE) {
+            return new Result(path, Collections.emptyList(), true);
+        }
+        log.debug("getChildren failed for {}: {}", path, code);
+        return new Result(path, Collections.emptyList(), false);
+    }
+}
@@ -0,0 +1,142 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 紧凑的只读字符串 Map
+ *
+ * <p>键值交替存放在一个数组里，没有 HashMap 的桶数组和 Node 对象；Provider 参数通常只有十几到二十几项，
+ * 线性查找的开销可以忽略。键来自字符串池时先按引用比较。</p>
+ */
+public final class CompactStringMap extends AbstractMap<String, String> {
+
+    private static final CompactStringMap EMPTY = new CompactStringMap(new String[0], 0);
+
+    private final String[] keysAndValues;
+    private final int size;
+
+    private CompactStringMap(String[] keysAndValues, int size) {
+        this.keysAndValues = keysAndValues;
+        this.size = size;
+    }
+
+    public static CompactStringMap empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? keysAndValues[index + 1] : null;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (next >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next++ * 2;
+                        return new SimpleImmutableEntry<>(keysAndValues[index], keysAndValues[index + 1]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        int end = size * 2;
+        for (int i = 0; i < end; i += 2) {
+            if (keysAndValues[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < end; i += 2) {
+            if (keysAndValues[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 构建器：重复的键以最后一次为准（与 HashMap.put 一致）
+     */
+    public static final class Builder {
+
+        private String[] keysAndValues;
+        private int size;
+
+        private Builder(int expectedSize) {
+            this.keysAndValues = new String[Math.max(1, expectedSize) * 2];
+        }
+
+        public Builder put(String key, String value) {
+            for (int i = 0; i < size * 2; i += 2) {
+                if (keysAndValues[i].equals(key)) {
+                    keysAndValues[i + 1] = value;
+                    return this;
+                }
+            }
+            if (size * 2 == keysAndValues.length) {
+                String[] grown = new String[keysAndValues.length * 2];
+                System.arraycopy(keysAndValues, 0, grown, 0, keysAndValues.length);
+                keysAndValues = grown;
+            }
+            keysAndValues[size * 2] = key;
+            keysAndValues[size * 2 + 1] = value;
+            size++;
+            return this;
+        }
+
+        public CompactStringMap build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            String[] exact = keysAndValues;
+            if (exact.length != size * 2) {
+                exact = new String[size * 2];
+                System.arraycopy(keysAndValues, 0, exact, 0, exact.length);
+            }
+            return new CompactStringMap(exact, size);
+        }
+    }
+}
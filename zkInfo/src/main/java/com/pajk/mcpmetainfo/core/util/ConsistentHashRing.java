@@ -0,0 +1,107 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * 不可变的一致性哈希环（Ketama 风格）
+ *
+ * <p>每个成员在环上放置 virtualNodes 个虚拟节点，hash 取 MD5 前 8 字节，跨 JVM 稳定，
+ * 所有节点对同一个 key 计算出相同的归属。成员增减时只有相邻区间的 key 迁移（约 1/N）。</p>
+ *
+ * @param <T> 成员类型
+ */
+public final class ConsistentHashRing<T> {
+
+    private final NavigableMap<Long, T> ring;
+    private final Map<String, T> members;
+
+    private ConsistentHashRing(NavigableMap<Long, T> ring, Map<String, T> members) {
+        this.ring = ring;
+        this.members = members;
+    }
+
+    /**
+     * 构建哈希环
+     *
+     * @param members      成员
+     * @param keyFunction  成员的唯一标识（如 ip:port），决定虚拟节点位置
+     * @param virtualNodes 每个成员的虚拟节点数
+     */
+    public static <T> ConsistentHashRing<T> build(Collection<T> members, Function<T, String> keyFunction, int virtualNodes) {
+        NavigableMap<Long, T> ring = new TreeMap<>();
+        Map<String, T> byKey = new LinkedHashMap<>();
+        if (members != null) {
+            for (T member : members) {
+                String memberKey = keyFunction.apply(member);
+                if (memberKey == null || byKey.putIfAbsent(memberKey, member) != null) {
+                    continue;
+                }
+                for (int i = 0; i < Math.max(1, virtualNodes); i++) {
+                    // 碰撞时保留字典序较小的成员，保证所有节点构建结果一致
+                    long position = hash(memberKey + "#" + i);
+                    T existing = ring.get(position);
+                    if (existing == null || memberKey.compareTo(keyFunction.apply(existing)) < 0) {
+                        ring.put(position, member);
+                    }
+                }
+            }
+        }
+        return new ConsistentHashRing<>(Collections.unmodifiableNavigableMap(ring), Collections.unmodifiableMap(byKey));
+    }
+
+    public static <T> ConsistentHashRing<T> empty() {
+        return new ConsistentHashRing<>(Collections.emptyNavigableMap(), Collections.emptyMap());
+    }
+
+    /**
+     * 获取 key 的归属成员，环为空时返回 null
+     */
+    public T locate(String key) {
+        if (ring.isEmpty() || key == null) {
+            return null;
+        }
+        Map.Entry<Long, T> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * 成员（按标识）
+     */
+    public Map<String, T> getMembers() {
+        return members;
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    static long hash(String key) {
+        byte[] digest = md5().digest(key.getBytes(StandardCharsets.UTF_8));
+        long h = 0;
+        for (int i = 0; i < 8; i++) {
+            h = (h << 8) | (digest[i] & 0xFF);
+        }
+        return h;
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
@@ -1,10 +1,9 @@
 package com.pajk.mcpmetainfo.core.util;
 
-import com.pajk.mcpmetainfo.core.service.DubboServiceDbService;
-import com.pajk.mcpmetainfo.core.service.DubboServiceMethodService;
+import com.pajk.mcpmetainfo.core.model.wizard.ParameterInfo;
+import com.pajk.mcpmetainfo.core.service.DubboMethodMetadataLoader;
+import com.pajk.mcpmetainfo.core.service.JarTypeSchemaService;
 import com.pajk.mcpmetainfo.persistence.entity.DubboMethodParameterEntity;
-import com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity;
-import com.pajk.mcpmetainfo.persistence.entity.DubboServiceMethodEntity;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -24,13 +23,13 @@ import java.util.*;
 public class EnhancedMcpToolGenerator {
     
     @Autowired(required = false)
-    private DubboServiceDbService dubboServiceDbService;
+    private DubboMethodMetadataLoader methodMetadataLoader;
     
     @Autowired(required = false)
-    private DubboServiceMethodService dubboServiceMethodService;
+    private McpToolSchemaGenerator mcpToolSchemaGenerator;
     
     @Autowired(required = false)
-    private McpToolSchemaGenerator mcpToolSchemaGenerator;
+    private JarTypeSchemaService jarTypeSchemaService;
     
     /**
      * 生成增强版的工具定义
@@ -99,7 +98,7 @@ public class EnhancedMcpToolGenerator {
     
     /**
      * 生成增强版的 inputSchema
-     * 优先级：反射获取原接口定义 > 数据库 > mcpToolSchemaGenerator
+     * 优先级：JAR 字节码 > 反射获取原接口定义 > 数据库 > mcpToolSchemaGenerator
      */
     private Map<String, Object> generateEnhancedInputSchema(String interfaceName, String methodName) {
         Map<String, Object> inputSchema = new HashMap<>();
@@ -109,11 +108,14 @@ public class EnhancedMcpToolGenerator {
         List<String> required = new ArrayList<>();
         
         try {
-            // 1. 优先通过反射获取原接口的参数定义
-            List<ReflectionParameterInfo> reflectionParams = getParametersFromReflection(interfaceName, methodName);
+            // 1. 优先从 Provider API JAR 字节码获取参数定义，classpath 上有接口时再用反射
+            List<ReflectionParameterInfo> reflectionParams = getParametersFromJar(interfaceName, methodName);
+            if (reflectionParams == null) {
+                reflectionParams = getParametersFromReflection(interfaceName, methodName);
+            }
             
             if (reflectionParams != null && !reflectionParams.isEmpty()) {
-                log.info("✅ Found {} parameters via reflection for {}.{}", 
+                log.info("✅ Found {} parameters via bytecode/reflection for {}.{}", 
                         reflectionParams.size(), interfaceName, methodName);
                 
                 // 使用反射获取的参数信息
@@ -400,9 +402,16 @@ public class EnhancedMcpToolGenerator {
     
     /**
      * 创建对象类型的 properties 定义
-     * 通过反射获取原类的字段定义，遵循原接口的字段结构
+     * 优先从 JAR 字节码解析（不加载类，结果持久化缓存），其次通过反射获取原类的字段定义
      */
+    @SuppressWarnings("unchecked")
     private Map<String, Object> createObjectPropertiesDefinition(String paramType) {
+        if (jarTypeSchemaService != null && jarTypeSchemaService.contains(paramType)) {
+            Map<String, Object> schema = jarTypeSchemaService.getSchema(paramType);
+            if (schema != null && schema.get("properties") instanceof Map) {
+                return (Map<String, Object>) schema.get("properties");
+            }
+        }
         try {
             // 通过反射获取类的字段定义
             Class<?> clazz = Class.forName(paramType);
@@ -515,6 +524,29 @@ public class EnhancedMcpToolGenerator {
     }
     
     
+    /**
+     * 从已注册的 Provider API JAR 中读取接口方法的参数定义（ASM，不加载类）
+     */
+    private List<ReflectionParameterInfo> getParametersFromJar(String interfaceName, String methodName) {
+        if (jarTypeSchemaService == null) {
+            return null;
+        }
+        List<ParameterInfo> parameters = jarTypeSchemaService.getMethodParameters(interfaceName, methodName);
+        if (parameters == null) {
+            return null;
+        }
+        List<ReflectionParameterInfo> paramInfos = new ArrayList<>();
+        for (int i = 0; i < parameters.size(); i++) {
+            ReflectionParameterInfo paramInfo = new ReflectionParameterInfo();
+            paramInfo.setOrder(i);
+            paramInfo.setName(parameters.get(i).getName());
+            paramInfo.setType(parameters.get(i).getType());
+            paramInfos.add(paramInfo);
+        }
+        log.debug("✅ Got {} parameters from jar bytecode for {}.{}", paramInfos.size(), interfaceName, methodName);
+        return paramInfos;
+    }
+    
     /**
      * 通过反射获取原接口的参数定义
      * 遵循原接口的字段定义，包括参数名、参数类型
@@ -622,29 +654,16 @@ public class EnhancedMcpToolGenerator {
     }
     
     /**
-     * 从数据库获取参数列表
+     * 从数据库获取参数列表（按接口批量加载并缓存，返回可修改的副本）
      */
     private List<DubboMethodParameterEntity> getParametersFromDatabase(String interfaceName, String methodName) {
-        if (dubboServiceDbService == null || dubboServiceMethodService == null) {
+        if (methodMetadataLoader == null) {
             return null;
         }
         
         try {
-            // 1. 查找服务
-            DubboServiceEntity service = dubboServiceDbService.findByInterfaceName(interfaceName);
-            if (service == null) {
-                return null;
-            }
-            
-            // 2. 查找方法
-            DubboServiceMethodEntity method = dubboServiceMethodService.findByServiceIdAndMethodName(
-                    service.getId(), methodName);
-            if (method == null) {
-                return null;
-            }
-            
-            // 3. 查找参数
-            return dubboServiceMethodService.findParametersByMethodId(method.getId());
+            DubboMethodMetadataLoader.MethodMetadata method = methodMetadataLoader.getMethod(interfaceName, methodName);
+            return method != null ? new ArrayList<>(method.getParameters()) : null;
         } catch (Exception e) {
             log.warn("⚠️ Failed to get parameters from database for {}.{}: {}", 
                     interfaceName, methodName, e.getMessage());
@@ -656,23 +675,13 @@ public class EnhancedMcpToolGenerator {
      * 从数据库获取返回类型
      */
     private String getReturnTypeFromDatabase(String interfaceName, String methodName) {
-        if (dubboServiceDbService == null || dubboServiceMethodService == null) {
+        if (methodMetadataLoader == null) {
             return null;
         }
         
         try {
-            DubboServiceEntity service = dubboServiceDbService.findByInterfaceName(interfaceName);
-            if (service == null) {
-                return null;
-            }
-            
-            DubboServiceMethodEntity method = dubboServiceMethodService.findByServiceIdAndMethodName(
-                    service.getId(), methodName);
-            if (method == null) {
-                return null;
-            }
-            
-            return method.getReturnType();
+            DubboMethodMetadataLoader.MethodMetadata method = methodMetadataLoader.getMethod(interfaceName, methodName);
+            return method != null ? method.getReturnType() : null;
         } catch (Exception e) {
             log.debug("⚠️ Failed to get return type from database for {}.{}: {}", 
                     interfaceName, methodName, e.getMessage());
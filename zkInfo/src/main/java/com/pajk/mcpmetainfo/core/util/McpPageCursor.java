@@ -0,0 +1,73 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * MCP 列表分页游标
+ *
+ * <p>游标对客户端不透明，内容为 {@code 列表版本:偏移量} 的 Base64URL 编码。
+ * 携带版本号保证翻页期间列表更新时，后续页仍取自同一版本的列表。</p>
+ */
+public final class McpPageCursor {
+
+    private final String version;
+    private final int offset;
+
+    private McpPageCursor(String version, int offset) {
+        this.version = version;
+        this.offset = offset;
+    }
+
+    public static String encode(String version, int offset) {
+        String raw = version + ":" + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标
+     *
+     * @throws IllegalArgumentException 游标格式无效
+     */
+    public static McpPageCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            throw new IllegalArgumentException("Invalid cursor: empty");
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int idx = raw.lastIndexOf(':');
+            if (idx <= 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            int offset = Integer.parseInt(raw.substring(idx + 1));
+            if (offset < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new McpPageCursor(raw.substring(0, idx), offset);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException 和 Base64 解码错误均为 IllegalArgumentException
+            throw e.getMessage() != null && e.getMessage().startsWith("Invalid cursor")
+                    ? e : new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * 计算分页结束位置
+     *
+     * @param pageSize 页大小，<= 0 表示不分页
+     */
+    public static int pageEnd(int offset, int total, int pageSize) {
+        if (offset > total) {
+            throw new IllegalArgumentException("Invalid cursor: offset " + offset + " exceeds list size " + total);
+        }
+        return pageSize > 0 ? Math.min(offset + pageSize, total) : total;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+}
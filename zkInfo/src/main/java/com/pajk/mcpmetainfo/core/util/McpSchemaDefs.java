@@ -0,0 +1,343 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 工具 inputSchema 的 $defs 去重
+ *
+ * <p>同一 endpoint 下多个工具共用的 POJO（User / Order 等）在每个 inputSchema 中都会内联一份完整的嵌套结构。
+ * 这里按结构识别 endpoint 内重复出现的对象 Schema（忽略出现位置上的 description / examples），
+ * 生成 endpoint 级的共享定义表，名称和内容在 endpoint 内稳定。</p>
+ *
+ * <p>MCP 的每个 inputSchema 是独立的 JSON Schema 文档，$ref 只能解析到本文档内，
+ * 因此 refs 模式下工具只引用在自身出现两次及以上的定义，并在自己的 $defs 中携带用到的定义（含传递依赖），
+ * 保证任何支持 $ref 的客户端都能解析且体积不大于内联；inline 模式保持原样，供无法解析 $ref 的客户端使用。
+ * 尺寸报告同时给出共享定义表只下发一次时的体积，用于评估。</p>
+ */
+public final class McpSchemaDefs {
+
+    public static final String MODE_INLINE = "inline";
+    public static final String MODE_REFS = "refs";
+
+    private static final String REF_PREFIX = "#/$defs/";
+    private static final Pattern TYPE_IN_DESCRIPTION = Pattern.compile("\\(([\\w.$]+)(?:<.*>)?(?:\\[])*\\)\\s*$");
+
+    private McpSchemaDefs() {
+    }
+
+    /**
+     * 对 endpoint 的工具列表去重
+     *
+     * @param tools 工具列表（不会被修改）
+     * @param mode  inline / refs
+     */
+    public static Result compact(List<Map<String, Object>> tools, String mode, ObjectMapper objectMapper) {
+        Analysis analysis = new Analysis();
+        for (int i = 0; i < tools.size(); i++) {
+            Object schema = tools.get(i).get("inputSchema");
+            if (schema != null) {
+                analysis.canonical(schema, i, true);
+            }
+        }
+        Map<String, String> names = analysis.assignNames();
+
+        // 每个工具：只引用在本工具内重复出现的定义，$defs 自带
+        List<Map<String, Object>> refTools = new ArrayList<>(tools.size());
+        for (int i = 0; i < tools.size(); i++) {
+            int toolIndex = i;
+            Map<String, Object> tool = tools.get(i);
+            Object schema = tool.get("inputSchema");
+            if (!(schema instanceof Map) || names.isEmpty()) {
+                refTools.add(tool);
+                continue;
+            }
+            Predicate<String> useRef = key -> names.containsKey(key) && analysis.countInTool(key, toolIndex) >= 2;
+            Set<String> used = new TreeSet<>();
+            Object rewritten = analysis.rewrite(schema, true, useRef, names, used);
+            if (used.isEmpty()) {
+                refTools.add(tool);
+                continue;
+            }
+            Map<String, Object> defs = analysis.closure(used, useRef, names);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> inputSchema = new LinkedHashMap<>((Map<String, Object>) rewritten);
+            inputSchema.put("$defs", defs);
+            Map<String, Object> copy = new LinkedHashMap<>(tool);
+            copy.put("inputSchema", inputSchema);
+            refTools.add(copy);
+        }
+
+        // 共享定义表只下发一次时的体积（评估用）
+        Predicate<String> shared = names::containsKey;
+        List<Object> sharedSchemas = new ArrayList<>(tools.size());
+        for (Map<String, Object> tool : tools) {
+            Map<String, Object> copy = new LinkedHashMap<>(tool);
+            if (tool.get("inputSchema") != null) {
+                copy.put("inputSchema", analysis.rewrite(tool.get("inputSchema"), true, shared, names, new HashSet<>()));
+            }
+            sharedSchemas.add(copy);
+        }
+        Map<String, Object> definitions = analysis.closure(new TreeSet<>(names.values()), shared, names);
+
+        SizeReport report = new SizeReport(tools.size(), names.size(),
+                size(tools, objectMapper), size(refTools, objectMapper),
+                size(sharedSchemas, objectMapper) + size(definitions, objectMapper));
+        return new Result(MODE_REFS.equals(mode) ? refTools : tools, definitions, report);
+    }
+
+    private static long size(Object value, ObjectMapper objectMapper) {
+        try {
+            return objectMapper.writeValueAsBytes(value).length;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 结构分析：为每个非根对象 Schema 计算规范化 key，统计全局和各工具内的出现次数
+     */
+    private static final class Analysis {
+        // 同一个节点对象 -> 结构 key（不含自身 description/examples）
+        private final Map<Object, String> keys = new IdentityHashMap<>();
+        // key -> 首次出现的节点
+        private final Map<String, Map<?, ?>> samples = new HashMap<>();
+        private final Map<String, Integer> totals = new HashMap<>();
+        private final Map<String, Map<Integer, Integer>> perTool = new HashMap<>();
+
+        private String canonical(Object node, int toolIndex, boolean root) {
+            if (node instanceof Map<?, ?> map) {
+                TreeMap<String, String> children = new TreeMap<>();
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    children.put(String.valueOf(entry.getKey()), canonical(entry.getValue(), toolIndex, false));
+                }
+                String full = join(children);
+                if (!root && isObjectSchema(map)) {
+                    children.remove("description");
+                    children.remove("examples");
+                    String key = join(children);
+                    keys.put(node, key);
+                    samples.putIfAbsent(key, map);
+                    totals.merge(key, 1, Integer::sum);
+                    perTool.computeIfAbsent(key, k -> new HashMap<>()).merge(toolIndex, 1, Integer::sum);
+                }
+                return full;
+            }
+            if (node instanceof List<?> list) {
+                StringJoiner joiner = new StringJoiner(",", "[", "]");
+                // 集合内元素不是 Schema 位置（如 required、enum），不参与去重统计
+                for (Object item : list) {
+                    joiner.add(item instanceof Map ? canonical(item, toolIndex, false) : quote(item));
+                }
+                return joiner.toString();
+            }
+            return quote(node);
+        }
+
+        private int countInTool(String key, int toolIndex) {
+            return perTool.getOrDefault(key, Collections.emptyMap()).getOrDefault(toolIndex, 0);
+        }
+
+        /**
+         * endpoint 内出现两次及以上的结构分配名称：优先 title，其次 description 中的类型名
+         */
+        private Map<String, String> assignNames() {
+            Map<String, String> names = new HashMap<>();
+            Set<String> taken = new HashSet<>();
+            List<String> sharedKeys = new ArrayList<>();
+            for (Map.Entry<String, Integer> total : totals.entrySet()) {
+                if (total.getValue() >= 2) {
+                    sharedKeys.add(total.getKey());
+                }
+            }
+            Collections.sort(sharedKeys);
+            for (String key : sharedKeys) {
+                String base = baseName(samples.get(key));
+                String name = base;
+                for (int i = 2; !taken.add(name); i++) {
+                    name = base + "_" + i;
+                }
+                names.put(key, name);
+            }
+            return names;
+        }
+
+        private Object rewrite(Object node, boolean root, Predicate<String> useRef, Map<String, String> names, Set<String> used) {
+            if (node instanceof Map<?, ?> map) {
+                String key = root ? null : keys.get(node);
+                if (key != null && useRef.test(key)) {
+                    String name = names.get(key);
+                    used.add(name);
+                    Map<String, Object> ref = new LinkedHashMap<>();
+                    ref.put("$ref", REF_PREFIX + name);
+                    if (map.get("description") != null) {
+                        ref.put("description", map.get("description"));
+                    }
+                    return ref;
+                }
+                Map<String, Object> copy = new LinkedHashMap<>();
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    copy.put(String.valueOf(entry.getKey()), rewrite(entry.getValue(), false, useRef, names, used));
+                }
+                return copy;
+            }
+            if (node instanceof List<?> list) {
+                List<Object> copy = new ArrayList<>(list.size());
+                for (Object item : list) {
+                    copy.add(rewrite(item, false, useRef, names, used));
+                }
+                return copy;
+            }
+            return node;
+        }
+
+        /**
+         * 生成定义及其传递依赖；定义体本身不带出现位置上的 description / examples
+         */
+        private Map<String, Object> closure(Set<String> roots, Predicate<String> useRef, Map<String, String> names) {
+            Map<String, String> keyByName = new HashMap<>();
+            names.forEach((key, name) -> keyByName.put(name, key));
+            Map<String, Object> defs = new TreeMap<>();
+            Deque<String> pending = new ArrayDeque<>(roots);
+            while (!pending.isEmpty()) {
+                String name = pending.poll();
+                if (defs.containsKey(name)) {
+                    continue;
+                }
+                Set<String> nested = new TreeSet<>();
+                @SuppressWarnings("unchecked")
+                Map<String, Object> body = (Map<String, Object>) rewrite(samples.get(keyByName.get(name)), true, useRef, names, nested);
+                body.remove("description");
+                body.remove("examples");
+                defs.put(name, body);
+                pending.addAll(nested);
+            }
+            return defs;
+        }
+
+        private static boolean isObjectSchema(Map<?, ?> map) {
+            return "object".equals(map.get("type")) && map.get("properties") instanceof Map<?, ?> properties
+                    && !properties.isEmpty();
+        }
+
+        private static String baseName(Map<?, ?> sample) {
+            String type = null;
+            if (sample.get("title") instanceof String title && !title.isBlank()) {
+                type = title;
+            } else if (sample.get("description") instanceof String description) {
+                Matcher matcher = TYPE_IN_DESCRIPTION.matcher(description);
+                if (matcher.find()) {
+                    type = matcher.group(1);
+                }
+            }
+            if (type == null) {
+                return "Object";
+            }
+            type = type.substring(type.lastIndexOf('.') + 1);
+            type = type.substring(type.lastIndexOf('$') + 1).replaceAll("[^A-Za-z0-9_]", "");
+            return type.isEmpty() ? "Object" : type;
+        }
+
+        private static String join(TreeMap<String, String> children) {
+            StringJoiner joiner = new StringJoiner(",", "{", "}");
+            children.forEach((k, v) -> joiner.add(quote(k) + ":" + v));
+            return joiner.toString();
+        }
+
+        private static String quote(Object value) {
+            if (value == null || value instanceof Number || value instanceof Boolean) {
+                return String.valueOf(value);
+            }
+            return "\"" + String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        }
+    }
+
+    public static final class Result {
+        private final List<Map<String, Object>> tools;
+        private final Map<String, Object> definitions;
+        private final SizeReport report;
+
+        private Result(List<Map<String, Object>> tools, Map<String, Object> definitions, SizeReport report) {
+            this.tools = tools;
+            this.definitions = definitions;
+            this.report = report;
+        }
+
+        /**
+         * 按模式输出的工具列表
+         */
+        public List<Map<String, Object>> getTools() {
+            return tools;
+        }
+
+        /**
+         * endpoint 共享定义表（名称 -> 定义）
+         */
+        public Map<String, Object> getDefinitions() {
+            return definitions;
+        }
+
+        public SizeReport getReport() {
+            return report;
+        }
+    }
+
+    /**
+     * endpoint 工具 Schema 尺寸报告（字节，UTF-8 JSON）
+     */
+    public static final class SizeReport {
+
+        public static final SizeReport EMPTY = new SizeReport(0, 0, 2, 2, 4);
+
+        private final int toolCount;
+        private final int sharedDefinitionCount;
+        private final long inlineBytes;
+        private final long refsBytes;
+        private final long sharedBytes;
+
+        public SizeReport(int toolCount, int sharedDefinitionCount, long inlineBytes, long refsBytes, long sharedBytes) {
+            this.toolCount = toolCount;
+            this.sharedDefinitionCount = sharedDefinitionCount;
+            this.inlineBytes = inlineBytes;
+            this.refsBytes = refsBytes;
+            this.sharedBytes = sharedBytes;
+        }
+
+        public int getToolCount() {
+            return toolCount;
+        }
+
+        public int getSharedDefinitionCount() {
+            return sharedDefinitionCount;
+        }
+
+        /**
+         * 全部内联时的工具列表体积
+         */
+        public long getInlineBytes() {
+            return inlineBytes;
+        }
+
+        /**
+         * refs 模式（每个工具自带用到的 $defs）的工具列表体积
+         */
+        public long getRefsBytes() {
+            return refsBytes;
+        }
+
+        /**
+         * 共享定义表只下发一次时的体积（工具列表 + 定义表）
+         */
+        public long getSharedBytes() {
+            return sharedBytes;
+        }
+
+        public double getRefsSavingRatio() {
+            return inlineBytes > 0 ? 1.0 - (double) refsBytes / inlineBytes : 0;
+        }
+    }
+}
@@ -4,15 +4,11 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pajk.mcpmetainfo.core.model.ProviderInfo;
 import com.pajk.mcpmetainfo.core.service.ProviderService;
-import com.pajk.mcpmetainfo.core.service.ZooKeeperService;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.curator.framework.CuratorFramework;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -33,12 +29,22 @@ public class McpToolSchemaGenerator {
     @Autowired(required = false)
     private ParameterConverter parameterConverter;
     
-    @Lazy
-    @Autowired(required = false)
-    private ZooKeeperService zooKeeperService;
-    
     // ObjectMapper 用于解析 JSON
     private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    /**
+     * 方法名推断结果的记忆上限
+     */
+    private static final int INFERRED_SIGNATURE_LIMIT = 2048;
+    
+    // interfaceName.methodName -> 方法名推断出的签名
+    private final Map<String, MethodSignatureInfo> inferredSignatures = Collections.synchronizedMap(
+            new LinkedHashMap<String, MethodSignatureInfo>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, MethodSignatureInfo> eldest) {
+                    return size() > INFERRED_SIGNATURE_LIMIT;
+                }
+            });
 
     /**
      * 获取人工维护的方法描述（来自数据库）。
@@ -59,6 +65,18 @@ public class McpToolSchemaGenerator {
         }
     }
     
+    /**
+     * 批量预加载接口的方法签名（数据库），随后的逐方法生成直接命中缓存
+     */
+    public void preloadMethodSignatures(Collection<String> interfaceNames) {
+        if (methodSignatureResolver == null) return;
+        try {
+            methodSignatureResolver.preload(interfaceNames);
+        } catch (Exception e) {
+            log.debug("⚠️ Failed to preload method signatures: {}", e.getMessage());
+        }
+    }
+    
     /**
      * 方法签名信息
      */
@@ -260,7 +278,7 @@ public class McpToolSchemaGenerator {
      */
     private MethodSignatureInfo getMethodSignatureFromMetadata(String interfaceName, String methodName) {
         // 1. 优先从 ZooKeeper metadata 获取（最准确）
-        if (zooKeeperService != null && providerService != null) {
+        if (methodSignatureResolver != null && providerService != null) {
             MethodSignatureInfo infoFromZK = getMethodSignatureFromZooKeeper(interfaceName, methodName);
             if (infoFromZK != null && infoFromZK.getParameterCount() >= 0) {
                 log.info("✅ 从 ZooKeeper metadata 获取到方法签名: {}.{} with {} parameters", 
@@ -294,172 +312,49 @@ public class McpToolSchemaGenerator {
     }
     
     /**
-     * 从 ZooKeeper metadata 获取方法签名
+     * 从 ZooKeeper metadata 获取方法签名（经 MethodSignatureResolver 缓存，节点变化时由 watch 失效）
      * 路径格式：/dubbo/metadata/{interfaceName}/{version}/{group}/provider/{application}
      */
     private MethodSignatureInfo getMethodSignatureFromZooKeeper(String interfaceName, String methodName) {
-        if (zooKeeperService == null || providerService == null) {
-            return null;
-        }
-        
-        CuratorFramework client = zooKeeperService.getClient();
-        if (client == null) {
-            log.debug("   ZooKeeper 客户端未初始化");
+        if (providerService == null || methodSignatureResolver == null) {
             return null;
         }
         
         try {
-            // 获取 Provider 信息
-            List<ProviderInfo> providers = providerService.getAllProviders().stream()
-                    .filter(p -> interfaceName.equals(p.getInterfaceName()))
+            // 使用第一个在线的 Provider 定位元数据
+            ProviderInfo provider = providerService.getProvidersByInterface(interfaceName).stream()
                     .filter(ProviderInfo::isOnline)
-                    .toList();
-            
-            if (providers.isEmpty()) {
+                    .findFirst()
+                    .orElse(null);
+            if (provider == null) {
                 log.debug("   未找到可用的 Provider: {}", interfaceName);
                 return null;
             }
             
-            // 使用第一个可用的 Provider
-            ProviderInfo provider = providers.get(0);
-            String version = provider.getVersion() != null ? provider.getVersion() : "1.0.0";
-            String group = provider.getGroup() != null && !provider.getGroup().isEmpty() ? provider.getGroup() : "";
-            String application = provider.getApplication() != null ? provider.getApplication() : "";
-            
-            log.debug("   从 ZooKeeper metadata 获取方法签名: interface={}, method={}, version={}, group={}, application={}", 
-                    interfaceName, methodName, version, group, application);
-            
-            // 构建 metadata 路径（优先使用用户指定的路径格式）
-            List<String> metadataPaths = new ArrayList<>();
-            
-            // 格式1（优先）: /dubbo/metadata/{interfaceName}/{version}/{group}/provider/{application}
-            if (!group.isEmpty() && !application.isEmpty()) {
-                String path1 = String.format("/dubbo/metadata/%s/%s/%s/provider/%s", 
-                        interfaceName, version, group, application);
-                metadataPaths.add(path1);
-                log.debug("   尝试路径1: {}", path1);
-            }
-            
-            // 格式2: /dubbo/metadata/{interfaceName}/{version}/provider/{application}
-            if (!application.isEmpty()) {
-                String path2 = String.format("/dubbo/metadata/%s/%s/provider/%s", 
-                        interfaceName, version, application);
-                metadataPaths.add(path2);
-                log.debug("   尝试路径2: {}", path2);
-            }
-            
-            // 格式3: /dubbo/metadata/{interfaceName}/provider/{application}
-            if (!application.isEmpty()) {
-                String path3 = String.format("/dubbo/metadata/%s/provider/%s", 
-                        interfaceName, application);
-                metadataPaths.add(path3);
-                log.debug("   尝试路径3: {}", path3);
+            MethodSignatureResolver.MetadataMethod method = methodSignatureResolver.getMetadataMethod(
+                    interfaceName, provider.getVersion(), provider.getGroup(), provider.getApplication(), methodName);
+            if (method == null) {
+                return null;
             }
             
-            // 格式4: /dubbo/metadata/{interfaceName}/provider
-            String path4 = String.format("/dubbo/metadata/%s/provider", interfaceName);
-            metadataPaths.add(path4);
-            log.debug("   尝试路径4: {}", path4);
-            
-            // 尝试读取 metadata
-            for (String metadataPath : metadataPaths) {
-                try {
-                    if (client.checkExists().forPath(metadataPath) != null) {
-                        log.debug("   找到 metadata 路径: {}", metadataPath);
-                        
-                        // 如果是目录，尝试读取目录下的所有节点
-                        if (metadataPath.endsWith("/provider") || metadataPath.endsWith("/provider/")) {
-                            List<String> children = client.getChildren().forPath(metadataPath);
-                            if (children != null && !children.isEmpty()) {
-                                for (String child : children) {
-                                    String childPath = metadataPath + "/" + child;
-                                    MethodSignatureInfo info = parseMethodSignatureFromMetadata(client, childPath, methodName);
-                                    if (info != null) {
-                                        log.info("   ✅ 从子节点 {} 成功获取方法签名", childPath);
-                                        return info;
-                                    }
-                                }
-                            }
-                        } else {
-                            // 直接读取文件
-                            MethodSignatureInfo info = parseMethodSignatureFromMetadata(client, metadataPath, methodName);
-                            if (info != null) {
-                                log.info("   ✅ 从文件 {} 成功获取方法签名", metadataPath);
-                                return info;
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    log.debug("   读取 metadata 路径失败: {}, error: {}", metadataPath, e.getMessage());
-                }
+            MethodSignatureInfo info = new MethodSignatureInfo();
+            List<String> parameterTypes = method.getParameterTypes();
+            for (int i = 0; i < parameterTypes.size(); i++) {
+                MethodParameter param = new MethodParameter();
+                // 元数据没有参数名时从类型推断
+                param.setName(i < method.getParameterNames().size()
+                        ? method.getParameterNames().get(i)
+                        : inferParameterNameFromType(parameterTypes.get(i), i));
+                param.setType(parameterTypes.get(i));
+                info.getParameters().add(param);
             }
-            
+            info.setParameterCount(info.getParameters().size());
+            return info;
         } catch (Exception e) {
             log.warn("   ❌ 从 ZooKeeper metadata 获取方法签名失败: interface={}, method={}, error={}", 
                     interfaceName, methodName, e.getMessage());
+            return null;
         }
-        
-        return null;
-    }
-    
-    /**
-     * 从 metadata JSON 中解析方法签名
-     */
-    private MethodSignatureInfo parseMethodSignatureFromMetadata(CuratorFramework client, String metadataPath, String methodName) {
-        try {
-            byte[] data = client.getData().forPath(metadataPath);
-            if (data == null || data.length == 0) {
-                return null;
-            }
-            
-            String metadataJson = new String(data, StandardCharsets.UTF_8);
-            JsonNode rootNode = objectMapper.readTree(metadataJson);
-            JsonNode methodsNode = rootNode.get("methods");
-            
-            if (methodsNode == null || !methodsNode.isArray()) {
-                return null;
-            }
-            
-            for (JsonNode methodNode : methodsNode) {
-                JsonNode nameNode = methodNode.get("name");
-                if (nameNode != null && methodName.equals(nameNode.asText())) {
-                    // 找到目标方法，解析 parameterTypes
-                    MethodSignatureInfo info = new MethodSignatureInfo();
-                    
-                    JsonNode parameterTypesNode = methodNode.get("parameterTypes");
-                    if (parameterTypesNode != null && parameterTypesNode.isArray()) {
-                        int paramIndex = 0;
-                        for (JsonNode typeNode : parameterTypesNode) {
-                            String paramType = typeNode.asText();
-                            MethodParameter param = new MethodParameter();
-                            
-                            // 尝试从 metadata 获取参数名（如果有 parameterNames 字段）
-                            JsonNode parameterNamesNode = methodNode.get("parameterNames");
-                            String paramName;
-                            if (parameterNamesNode != null && parameterNamesNode.isArray() && 
-                                paramIndex < parameterNamesNode.size()) {
-                                paramName = parameterNamesNode.get(paramIndex).asText();
-                            } else {
-                                // 如果没有参数名，使用默认名称或从类型推断
-                                paramName = inferParameterNameFromType(paramType, paramIndex);
-                            }
-                            
-                            param.setName(paramName);
-                            param.setType(paramType);
-                            info.getParameters().add(param);
-                            paramIndex++;
-                        }
-                        info.setParameterCount(info.getParameters().size());
-                        log.debug("   ✅ 成功解析方法签名: {} 个参数", info.getParameterCount());
-                        return info;
-                    }
-                }
-            }
-        } catch (Exception e) {
-            log.debug("   解析 metadata JSON 失败: path={}, error={}", metadataPath, e.getMessage());
-        }
-        
-        return null;
     }
     
     /**
@@ -495,6 +390,17 @@ public class McpToolSchemaGenerator {
      * 这是临时方案，理想情况下应该从 ZooKeeper metadata 读取
      */
     private MethodSignatureInfo inferMethodSignatureFromName(String methodName, String interfaceName) {
+        // 推断只依赖接口名和方法名，结果不会变化，按 LRU 记忆
+        String cacheKey = interfaceName + "." + methodName;
+        MethodSignatureInfo cached = inferredSignatures.get(cacheKey);
+        if (cached == null) {
+            cached = doInferMethodSignatureFromName(methodName, interfaceName);
+            inferredSignatures.put(cacheKey, cached);
+        }
+        return cached;
+    }
+    
+    private MethodSignatureInfo doInferMethodSignatureFromName(String methodName, String interfaceName) {
         MethodSignatureInfo info = new MethodSignatureInfo();
         
         // 常见模式：
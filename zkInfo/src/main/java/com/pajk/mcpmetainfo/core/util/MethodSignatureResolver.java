@@ -1,24 +1,40 @@
 package com.pajk.mcpmetainfo.core.util;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pajk.mcpmetainfo.persistence.entity.DubboMethodParameterEntity;
-import com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity;
-import com.pajk.mcpmetainfo.persistence.entity.DubboServiceMethodEntity;
-import com.pajk.mcpmetainfo.core.service.DubboServiceDbService;
-import com.pajk.mcpmetainfo.core.service.DubboServiceMethodService;
+import com.pajk.mcpmetainfo.core.service.DubboMethodMetadataLoader;
+import com.pajk.mcpmetainfo.core.service.McpToolCatalogService;
+import com.pajk.mcpmetainfo.core.service.ZooKeeperService;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.Pathable;
+import org.apache.curator.framework.api.Watchable;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.Comparator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 /**
  * 方法签名解析器
  * 
  * 负责从数据库获取方法签名信息，并缓存以提高性能。
- * 支持从 DubboServiceMethodEntity 和 DubboMethodParameterEntity 获取详细的参数类型信息。
+ * 方法和参数通过 DubboMethodMetadataLoader 按接口批量加载，不再逐方法查询。
+ * 
+ * <p>同时是 ZooKeeper 元数据（/dubbo/metadata/...）签名的唯一缓存，Schema 生成器、
+ * 执行器共用：每个接口的元数据 JSON 只读取解析一次，读取时在节点上注册 watch，
+ * 节点变化或创建时失效。两类缓存都按 LRU 限制条目数，未找到的结果按 negative-ttl-ms 负缓存；
+ * 找到的结果按 positive-ttl-ms 过期，其他节点写库的方法/参数变化（本节点收不到失效事件）
+ * 最迟在该时间加上 DubboMethodMetadataLoader 的缓存时间后生效。</p>
  * 
  * @author ZkInfo Team
  * @version 1.0.0
@@ -29,13 +45,36 @@ import java.util.concurrent.ConcurrentHashMap;
 public class MethodSignatureResolver {
     
     @Autowired(required = false)
-    private DubboServiceMethodService dubboServiceMethodService;
+    private DubboMethodMetadataLoader methodMetadataLoader;
     
+    @Lazy
     @Autowired(required = false)
-    private DubboServiceDbService dubboServiceDbService;
+    private ZooKeeperService zooKeeperService;
+    
+    @Value("${mcp.signature.cache.max-size:10000}")
+    private int maxSize = 10_000;
+    
+    @Value("${mcp.signature.cache.negative-ttl-ms:60000}")
+    private long negativeTtlMs = 60_000;
+    
+    @Value("${mcp.signature.cache.positive-ttl-ms:60000}")
+    private long positiveTtlMs = 60_000;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
     
-    // 方法签名缓存：interfaceName.methodName -> MethodSignature
-    private final Map<String, MethodSignature> signatureCache = new ConcurrentHashMap<>();
+    // 方法签名缓存：interfaceName.methodName -> 数据库签名（value 为 null 表示负缓存）
+    private final Map<String, CacheEntry<MethodSignature>> signatureCache = lruCache((key, entry) -> { });
+    
+    // ZooKeeper 元数据缓存：interfaceName|version|group|application -> 接口元数据（LRU 淘汰时同时解除路径依赖）
+    private final Map<String, CacheEntry<InterfaceMetadata>> metadataCache = lruCache(this::releaseWatchedPaths);
+    
+    // 已注册 watch 的 znode -> 依赖它的元数据缓存 key；只包含仍在缓存中的 key，随缓存条目一起有界
+    private final Map<String, Set<String>> watchedPaths = new ConcurrentHashMap<>();
+    
+    /**
+     * 所有元数据节点共用一个 Watcher，同一路径在 ZooKeeper 客户端只登记一次
+     */
+    private final Watcher metadataWatcher = this::onMetadataNodeEvent;
     
     /**
      * 方法签名信息
@@ -78,6 +117,20 @@ public class MethodSignatureResolver {
         }
     }
     
+    /**
+     * ZooKeeper 元数据中的方法签名（不可变）
+     */
+    @Data
+    public static class MetadataMethod {
+        private final String name;
+        private final List<String> parameterTypes;
+        /**
+         * 元数据未提供参数名时为空列表
+         */
+        private final List<String> parameterNames;
+        private final String returnType;
+    }
+    
     /**
      * 获取方法签名
      * 
@@ -88,22 +141,22 @@ public class MethodSignatureResolver {
     public MethodSignature getMethodSignature(String interfaceName, String methodName) {
         String cacheKey = interfaceName + "." + methodName;
         
-        // 先从缓存获取
-        MethodSignature cached = signatureCache.get(cacheKey);
-        if (cached != null) {
+        // 先从缓存获取（含负缓存）
+        CacheEntry<MethodSignature> cached = signatureCache.get(cacheKey);
+        if (cached != null && !cached.isExpired()) {
             log.debug("✅ Found method signature in cache: {}.{}", interfaceName, methodName);
-            return cached;
+            return cached.value;
         }
         
         // 从数据库获取
         MethodSignature signature = loadMethodSignatureFromDatabase(interfaceName, methodName);
         
         if (signature != null) {
-            // 缓存结果
-            signatureCache.put(cacheKey, signature);
+            signatureCache.put(cacheKey, new CacheEntry<>(signature, System.currentTimeMillis() + positiveTtlMs));
             log.debug("✅ Loaded method signature from database: {}.{} with {} parameters", 
                     interfaceName, methodName, signature.getParameters().size());
-        } else {
+        } else if (methodMetadataLoader != null) {
+            signatureCache.put(cacheKey, new CacheEntry<>(null, System.currentTimeMillis() + negativeTtlMs));
             log.debug("⚠️ Method signature not found in database: {}.{}", interfaceName, methodName);
         }
         
@@ -111,57 +164,267 @@ public class MethodSignatureResolver {
     }
     
     /**
-     * 从数据库加载方法签名
+     * 从 ZooKeeper 元数据获取方法签名
+     * 
+     * <p>依次尝试以下路径，取第一个包含 methods 的元数据：</p>
+     * <ol>
+     *   <li>/dubbo/metadata/{interfaceName}/{version}/{group}/provider/{application}</li>
+     *   <li>/dubbo/metadata/{interfaceName}/{version}/provider/{application}</li>
+     *   <li>/dubbo/metadata/{interfaceName}/provider/{application}</li>
+     *   <li>/dubbo/metadata/{interfaceName}/provider 下的子节点</li>
+     * </ol>
+     * 
+     * @return 同名方法取元数据中的第一个，未找到返回 null
      */
-    private MethodSignature loadMethodSignatureFromDatabase(String interfaceName, String methodName) {
-        if (dubboServiceMethodService == null || dubboServiceDbService == null) {
-            log.debug("⚠️ DubboServiceMethodService or DubboServiceDbService is not available");
+    public MetadataMethod getMetadataMethod(String interfaceName, String version, String group,
+                                            String application, String methodName) {
+        if (interfaceName == null || methodName == null) {
+            return null;
+        }
+        InterfaceMetadata metadata = getInterfaceMetadata(interfaceName, version, group, application);
+        return metadata != null ? metadata.methods.get(methodName) : null;
+    }
+    
+    /**
+     * 从已缓存的元数据 types 中查找类型的字段定义（字段名 -> 字段类型）
+     */
+    public Map<String, String> getMetadataTypeProperties(String typeName) {
+        if (typeName == null) {
+            return null;
+        }
+        List<CacheEntry<InterfaceMetadata>> entries;
+        synchronized (metadataCache) {
+            entries = new ArrayList<>(metadataCache.values());
+        }
+        for (CacheEntry<InterfaceMetadata> entry : entries) {
+            if (entry.value != null && entry.value.typeProperties.containsKey(typeName)) {
+                return entry.value.typeProperties.get(typeName);
+            }
+        }
+        return null;
+    }
+    
+    private InterfaceMetadata getInterfaceMetadata(String interfaceName, String version, String group, String application) {
+        String normalizedVersion = version != null ? version : "1.0.0";
+        String normalizedGroup = group != null ? group : "";
+        String normalizedApplication = application != null ? application : "";
+        String cacheKey = interfaceName + "|" + normalizedVersion + "|" + normalizedGroup + "|" + normalizedApplication;
+        
+        CacheEntry<InterfaceMetadata> cached = metadataCache.get(cacheKey);
+        if (cached != null && !cached.isExpired()) {
+            return cached.value;
+        }
+        if (cached != null) {
+            // 过期条目先解除路径依赖，重新读取时再登记
+            invalidateMetadata(cacheKey);
+        }
+        
+        CuratorFramework client = zooKeeperService != null ? zooKeeperService.getClient() : null;
+        if (client == null) {
             return null;
         }
         
+        List<String> metadataPaths = new ArrayList<>();
+        if (!normalizedGroup.isEmpty() && !normalizedApplication.isEmpty()) {
+            metadataPaths.add(String.format("/dubbo/metadata/%s/%s/%s/provider/%s",
+                    interfaceName, normalizedVersion, normalizedGroup, normalizedApplication));
+        }
+        if (!normalizedApplication.isEmpty()) {
+            metadataPaths.add(String.format("/dubbo/metadata/%s/%s/provider/%s",
+                    interfaceName, normalizedVersion, normalizedApplication));
+            metadataPaths.add(String.format("/dubbo/metadata/%s/provider/%s", interfaceName, normalizedApplication));
+        }
+        metadataPaths.add(String.format("/dubbo/metadata/%s/provider", interfaceName));
+        
+        List<String> dependencies = new ArrayList<>();
         try {
-            // 1. 根据 interfaceName 直接查询服务（优化：避免加载所有数据）
-            DubboServiceEntity matchedService = dubboServiceDbService.findByInterfaceName(interfaceName);
-            
-            if (matchedService == null) {
-                log.debug("⚠️ Service not found in database: {}", interfaceName);
+            InterfaceMetadata metadata = loadInterfaceMetadata(client, cacheKey, metadataPaths, dependencies);
+            // 未找到时负缓存；watch 在节点创建时也会提前失效。找到时按 positive-ttl-ms 过期，兜底丢失的 watch
+            long ttlMs = metadata != null ? positiveTtlMs : negativeTtlMs;
+            metadataCache.put(cacheKey, new CacheEntry<>(metadata, System.currentTimeMillis() + ttlMs, dependencies));
+            return metadata;
+        } catch (Exception e) {
+            // 读取失败不缓存，下次重试
+            releaseWatchedPaths(cacheKey, dependencies);
+            log.warn("⚠️ Failed to read ZooKeeper metadata for {}: {}", interfaceName, e.getMessage());
+            return null;
+        }
+    }
+    
+    private InterfaceMetadata loadInterfaceMetadata(CuratorFramework client, String cacheKey, List<String> metadataPaths,
+                                                    List<String> dependencies) throws Exception {
+        for (String metadataPath : metadataPaths) {
+            if (watch(client.checkExists(), metadataPath, cacheKey, dependencies) == null) {
+                continue;
+            }
+            if (metadataPath.endsWith("/provider")) {
+                // 目录：逐个读取应用节点
+                List<String> children = watch(client.getChildren(), metadataPath, cacheKey, dependencies);
+                for (String child : children != null ? children : Collections.<String>emptyList()) {
+                    InterfaceMetadata metadata = parseMetadata(
+                            watch(client.getData(), metadataPath + "/" + child, cacheKey, dependencies));
+                    if (metadata != null) {
+                        log.debug("✅ Loaded ZooKeeper metadata from {}/{}", metadataPath, child);
+                        return metadata;
+                    }
+                }
+            } else {
+                InterfaceMetadata metadata = parseMetadata(watch(client.getData(), metadataPath, cacheKey, dependencies));
+                if (metadata != null) {
+                    log.debug("✅ Loaded ZooKeeper metadata from {}", metadataPath);
+                    return metadata;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 读取节点的同时登记 watch，并记录路径与缓存 key 的依赖
+     */
+    private <T> T watch(Watchable<? extends Pathable<T>> builder,
+                        String path, String cacheKey, List<String> dependencies) throws Exception {
+        watchedPaths.computeIfAbsent(path, k -> ConcurrentHashMap.newKeySet()).add(cacheKey);
+        dependencies.add(path);
+        return builder.usingWatcher(metadataWatcher).forPath(path);
+    }
+    
+    /**
+     * 移除元数据缓存条目并解除它的路径依赖
+     */
+    private void invalidateMetadata(String cacheKey) {
+        CacheEntry<InterfaceMetadata> removed = metadataCache.remove(cacheKey);
+        if (removed != null) {
+            releaseWatchedPaths(cacheKey, removed);
+        }
+    }
+    
+    private void releaseWatchedPaths(String cacheKey, CacheEntry<InterfaceMetadata> entry) {
+        releaseWatchedPaths(cacheKey, entry.dependencies);
+    }
+    
+    /**
+     * 从路径依赖中移除缓存 key；ZooKeeper 端的 watch 保留到下次触发，届时找不到依赖直接忽略
+     */
+    private void releaseWatchedPaths(String cacheKey, Collection<String> paths) {
+        for (String path : paths) {
+            watchedPaths.computeIfPresent(path, (p, keys) -> {
+                keys.remove(cacheKey);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+    
+    private InterfaceMetadata parseMetadata(byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode rootNode = objectMapper.readTree(new String(data, StandardCharsets.UTF_8));
+            JsonNode methodsNode = rootNode.get("methods");
+            if (methodsNode == null || !methodsNode.isArray()) {
                 return null;
             }
+            Map<String, MetadataMethod> methods = new HashMap<>();
+            for (JsonNode methodNode : methodsNode) {
+                JsonNode nameNode = methodNode.get("name");
+                JsonNode typesNode = methodNode.get("parameterTypes");
+                if (nameNode == null || typesNode == null || !typesNode.isArray()) {
+                    continue;
+                }
+                methods.putIfAbsent(nameNode.asText(), new MetadataMethod(
+                        nameNode.asText(),
+                        textList(typesNode),
+                        textList(methodNode.get("parameterNames")),
+                        methodNode.hasNonNull("returnType") ? methodNode.get("returnType").asText() : null));
+            }
             
-            Long serviceId = matchedService.getId();
-            log.debug("✅ Found service in database: {} (ID: {})", interfaceName, serviceId);
-            
-            // 2. 根据 serviceId 和 methodName 查找方法
-            DubboServiceMethodEntity method = dubboServiceMethodService.findByServiceIdAndMethodName(serviceId, methodName);
-            
+            Map<String, Map<String, String>> typeProperties = new HashMap<>();
+            JsonNode typesNode = rootNode.get("types");
+            if (typesNode != null && typesNode.isArray()) {
+                for (JsonNode typeNode : typesNode) {
+                    JsonNode propertiesNode = typeNode.get("properties");
+                    if (typeNode.hasNonNull("type") && propertiesNode != null && propertiesNode.isObject()) {
+                        Map<String, String> properties = new LinkedHashMap<>();
+                        propertiesNode.fields().forEachRemaining(field -> properties.put(field.getKey(), field.getValue().asText()));
+                        typeProperties.putIfAbsent(typeNode.get("type").asText(), Collections.unmodifiableMap(properties));
+                    }
+                }
+            }
+            return new InterfaceMetadata(Collections.unmodifiableMap(methods), Collections.unmodifiableMap(typeProperties));
+        } catch (Exception e) {
+            log.debug("⚠️ Failed to parse ZooKeeper metadata JSON: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private static List<String> textList(JsonNode arrayNode) {
+        if (arrayNode == null || !arrayNode.isArray()) {
+            return Collections.emptyList();
+        }
+        List<String> values = new ArrayList<>(arrayNode.size());
+        arrayNode.forEach(node -> values.add(node.asText()));
+        return Collections.unmodifiableList(values);
+    }
+    
+    /**
+     * 元数据节点创建、删除、数据或子节点变化：失效依赖该节点的缓存；会话过期后 watch 全部丢失，整体清空
+     */
+    private void onMetadataNodeEvent(WatchedEvent event) {
+        if (event.getType() == Watcher.Event.EventType.None) {
+            if (event.getState() == Watcher.Event.KeeperState.Expired) {
+                watchedPaths.clear();
+                metadataCache.clear();
+                log.info("🧹 ZooKeeper session expired, cleared metadata signature cache");
+            }
+            return;
+        }
+        Set<String> keys = event.getPath() != null ? watchedPaths.remove(event.getPath()) : null;
+        if (keys != null) {
+            keys.forEach(this::invalidateMetadata);
+            log.debug("🔁 Metadata node {} {}, invalidated {} cache entries", event.getPath(), event.getType(), keys.size());
+        }
+    }
+    
+    /**
+     * 预加载一组接口的方法签名（批量查询），生成工具列表前调用
+     */
+    public void preload(Collection<String> interfaceNames) {
+        if (methodMetadataLoader != null) {
+            methodMetadataLoader.preload(interfaceNames);
+        }
+    }
+    
+    /**
+     * 从数据库加载方法签名
+     */
+    private MethodSignature loadMethodSignatureFromDatabase(String interfaceName, String methodName) {
+        if (methodMetadataLoader == null) {
+            log.debug("⚠️ DubboMethodMetadataLoader is not available");
+            return null;
+        }
+        
+        try {
+            // 接口未加载时按接口整体加载（服务、方法、参数三条查询），后续方法直接命中
+            DubboMethodMetadataLoader.MethodMetadata method = methodMetadataLoader.getMethod(interfaceName, methodName);
             if (method == null) {
                 log.debug("⚠️ Method not found in database: {}.{}", interfaceName, methodName);
                 return null;
             }
             
-            log.debug("✅ Found method in database: {}.{} (ID: {})", interfaceName, methodName, method.getId());
-            
-            // 3. 根据 methodId 查找参数列表
-            List<DubboMethodParameterEntity> parameters = dubboServiceMethodService.findParametersByMethodId(method.getId());
-            
-            // 4. 构建 MethodSignature
             MethodSignature signature = new MethodSignature(interfaceName, methodName, method.getReturnType());
-            signature.setMethodDescription(method.getMethodDescription());
+            signature.setMethodDescription(method.getMethod().getMethodDescription());
             
-            if (parameters != null && !parameters.isEmpty()) {
-                // 按 parameterOrder 排序
-                parameters.sort(Comparator.comparing(DubboMethodParameterEntity::getParameterOrder));
-                
-                for (DubboMethodParameterEntity param : parameters) {
-                    ParameterInfo paramInfo = new ParameterInfo(
-                            param.getParameterName(),
-                            param.getParameterType(),
-                            param.getParameterOrder()
-                    );
-                    paramInfo.setDescription(param.getParameterDescription());
-                    paramInfo.setSchemaJson(param.getParameterSchemaJson());
-                    signature.getParameters().add(paramInfo);
-                }
+            // 参数已按 parameterOrder 排序
+            for (DubboMethodParameterEntity param : method.getParameters()) {
+                ParameterInfo paramInfo = new ParameterInfo(
+                        param.getParameterName(),
+                        param.getParameterType(),
+                        param.getParameterOrder()
+                );
+                paramInfo.setDescription(param.getParameterDescription());
+                paramInfo.setSchemaJson(param.getParameterSchemaJson());
+                signature.getParameters().add(paramInfo);
             }
             
             log.debug("✅ Loaded method signature from database: {}.{} with {} parameters", 
@@ -175,11 +438,34 @@ public class MethodSignatureResolver {
         }
     }
     
+    /**
+     * 方法或参数变化后清除对应接口的签名缓存
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onToolsChanged(McpToolCatalogService.ToolsChangedEvent event) {
+        if (event.getScope() == McpToolCatalogService.ToolsChangedEvent.Scope.ALL) {
+            clearCache();
+        } else if (event.getScope() == McpToolCatalogService.ToolsChangedEvent.Scope.INTERFACE) {
+            String prefix = event.getKey() + ".";
+            String metadataPrefix = event.getKey() + "|";
+            synchronized (signatureCache) {
+                signatureCache.keySet().removeIf(key -> key.startsWith(prefix) && key.indexOf('.', prefix.length()) < 0);
+            }
+            List<String> keys;
+            synchronized (metadataCache) {
+                keys = metadataCache.keySet().stream().filter(key -> key.startsWith(metadataPrefix)).toList();
+            }
+            keys.forEach(this::invalidateMetadata);
+        }
+    }
+    
     /**
      * 清除缓存
      */
     public void clearCache() {
         signatureCache.clear();
+        metadataCache.clear();
+        watchedPaths.clear();
         log.debug("✅ Method signature cache cleared");
     }
     
@@ -191,5 +477,66 @@ public class MethodSignatureResolver {
         signatureCache.remove(cacheKey);
         log.debug("✅ Cleared cache for: {}.{}", interfaceName, methodName);
     }
+    
+    /**
+     * 当前缓存条目数（数据库签名 + ZooKeeper 元数据）
+     */
+    public int getCacheSize() {
+        return signatureCache.size() + metadataCache.size();
+    }
+    
+    /**
+     * 已登记依赖的元数据路径数
+     */
+    int getWatchedPathCount() {
+        return watchedPaths.size();
+    }
+    
+    private <V> Map<String, V> lruCache(BiConsumer<String, V> onEvict) {
+        return Collections.synchronizedMap(new LinkedHashMap<String, V>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                if (size() > maxSize) {
+                    onEvict.accept(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+    
+    /**
+     * 缓存条目；value 为 null 表示负缓存
+     */
+    private static final class CacheEntry<V> {
+        private final V value;
+        private final long expiresAt;
+        // 元数据条目登记过 watch 的路径
+        private final List<String> dependencies;
+        
+        private CacheEntry(V value, long expiresAt) {
+            this(value, expiresAt, Collections.emptyList());
+        }
+        
+        private CacheEntry(V value, long expiresAt, List<String> dependencies) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.dependencies = dependencies;
+        }
+        
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+    
+    private static final class InterfaceMetadata {
+        private final Map<String, MetadataMethod> methods;
+        // type -> (字段名 -> 字段类型)
+        private final Map<String, Map<String, String>> typeProperties;
+        
+        private InterfaceMetadata(Map<String, MetadataMethod> methods, Map<String, Map<String, String>> typeProperties) {
+            this.methods = methods;
+            this.typeProperties = typeProperties;
+        }
+    }
 }
-
@@ -0,0 +1,416 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.core.service.DubboMethodMetadataLoader;
+import com.pajk.mcpmetainfo.persistence.entity.DubboMethodParameterEntity;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Provider 内存倒排索引
+ *
+ * <p>以接口为文档，索引接口名、方法名、应用名，以及数据库中的方法描述和参数名。
+ * 标识符按包路径和驼峰拆词（com.pajk.UserService -> com / pajk / userservice / user / service），
+ * 中文按单字切分。词项存放在有序跳表中，前缀查询为一次范围扫描，
+ * 查询耗时只和命中的词项、接口数相关，与注册中心中的 Provider 总数无关。</p>
+ *
+ * <p>多个查询词之间为 AND 关系；每个查询词取命中词项中的最高权重（完全匹配按两倍计），
+ * 各词得分相加后排序。地址单独建前缀索引，可按 IP 前缀搜索。</p>
+ *
+ * <p>写操作串行执行（ZooKeeper 事件线程），读操作无锁。</p>
+ */
+public final class ProviderSearchIndex {
+
+    static final int WEIGHT_INTERFACE_FULL = 20;
+    static final int WEIGHT_INTERFACE_NAME = 10;
+    static final int WEIGHT_METHOD = 6;
+    static final int WEIGHT_APPLICATION = 5;
+    static final int WEIGHT_PACKAGE = 3;
+    static final int WEIGHT_PARAMETER = 3;
+    static final int WEIGHT_DESCRIPTION = 2;
+    static final int WEIGHT_ADDRESS = 8;
+
+    // term -> (interfaceName -> weight)
+    private final ConcurrentSkipListMap<String, Map<String, Integer>> postings = new ConcurrentSkipListMap<>();
+
+    // address -> provider keys
+    private final ConcurrentSkipListMap<String, Set<String>> addressIndex = new ConcurrentSkipListMap<>();
+
+    // interfaceName -> 接口文档（有序，接口列表直接按字典序输出）
+    private final ConcurrentSkipListMap<String, InterfaceEntry> interfaces = new ConcurrentSkipListMap<>();
+
+    // provider key -> provider
+    private final Map<String, ProviderInfo> providers = new ConcurrentHashMap<>();
+
+    /**
+     * 添加或替换 Provider
+     */
+    public synchronized void add(String key, ProviderInfo provider) {
+        if (key == null || provider == null || provider.getInterfaceName() == null) {
+            return;
+        }
+        remove(key);
+        providers.put(key, provider);
+
+        InterfaceEntry entry = interfaces.computeIfAbsent(provider.getInterfaceName(), InterfaceEntry::new);
+        entry.providers.put(key, provider);
+        boolean changed = increment(entry.applications, provider.getApplication());
+        changed |= increment(entry.methods, provider.getMethods());
+        if (changed || entry.terms.isEmpty()) {
+            reindex(entry);
+        }
+
+        if (provider.getAddress() != null) {
+            addressIndex.computeIfAbsent(provider.getAddress().toLowerCase(Locale.ROOT), k -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    /**
+     * 移除 Provider，接口下没有 Provider 时整个接口移出索引
+     */
+    public synchronized ProviderInfo remove(String key) {
+        if (key == null) {
+            return null;
+        }
+        ProviderInfo provider = providers.remove(key);
+        if (provider == null) {
+            return null;
+        }
+
+        InterfaceEntry entry = interfaces.get(provider.getInterfaceName());
+        if (entry != null) {
+            entry.providers.remove(key);
+            if (entry.providers.isEmpty()) {
+                interfaces.remove(entry.interfaceName);
+                updatePostings(entry.interfaceName, entry.terms, Collections.emptyMap());
+            } else {
+                boolean changed = decrement(entry.applications, provider.getApplication());
+                changed |= decrement(entry.methods, provider.getMethods());
+                if (changed) {
+                    reindex(entry);
+                }
+            }
+        }
+
+        if (provider.getAddress() != null) {
+            String address = provider.getAddress().toLowerCase(Locale.ROOT);
+            Set<String> keys = addressIndex.get(address);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    addressIndex.remove(address);
+                }
+            }
+        }
+        return provider;
+    }
+
+    /**
+     * 更新接口的数据库方法元数据（方法名、方法描述、参数名、参数描述）
+     */
+    public synchronized void setMethodMetadata(String interfaceName, Collection<DubboMethodMetadataLoader.MethodMetadata> methods) {
+        InterfaceEntry entry = interfaceName != null ? interfaces.get(interfaceName) : null;
+        if (entry == null) {
+            return;
+        }
+        Map<String, Integer> terms = new HashMap<>();
+        if (methods != null) {
+            for (DubboMethodMetadataLoader.MethodMetadata method : methods) {
+                addTerms(terms, method.getMethodName(), WEIGHT_METHOD);
+                addTerms(terms, method.getMethod().getMethodDescription(), WEIGHT_DESCRIPTION);
+                for (DubboMethodParameterEntity parameter : method.getParameters()) {
+                    addTerms(terms, parameter.getParameterName(), WEIGHT_PARAMETER);
+                    addTerms(terms, parameter.getParameterDescription(), WEIGHT_DESCRIPTION);
+                }
+            }
+        }
+        if (!terms.equals(entry.metadataTerms)) {
+            entry.metadataTerms = terms;
+            reindex(entry);
+        }
+    }
+
+    /**
+     * 按接口名精确获取 Provider
+     */
+    public List<ProviderInfo> getProviders(String interfaceName) {
+        InterfaceEntry entry = interfaceName != null ? interfaces.get(interfaceName) : null;
+        return entry != null ? new ArrayList<>(entry.providers.values()) : new ArrayList<>();
+    }
+
+    /**
+     * 所有接口名（字典序）
+     */
+    public List<String> getInterfaceNames() {
+        return new ArrayList<>(interfaces.keySet());
+    }
+
+    public boolean containsInterface(String interfaceName) {
+        return interfaceName != null && interfaces.containsKey(interfaceName);
+    }
+
+    public int size() {
+        return providers.size();
+    }
+
+    /**
+     * 搜索 Provider，按相关度降序返回
+     */
+    public List<ProviderInfo> search(String query) {
+        List<String> tokens = queryTokens(query);
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 接口得分：每个查询词都必须命中
+        Map<String, Integer> interfaceScores = null;
+        for (String token : tokens) {
+            Map<String, Integer> tokenScores = new HashMap<>();
+            for (Map.Entry<String, Map<String, Integer>> posting : prefixRange(postings, token).entrySet()) {
+                boolean exact = posting.getKey().equals(token);
+                for (Map.Entry<String, Integer> doc : posting.getValue().entrySet()) {
+                    int score = exact ? doc.getValue() * 2 : doc.getValue();
+                    tokenScores.merge(doc.getKey(), score, Math::max);
+                }
+            }
+            if (interfaceScores == null) {
+                interfaceScores = tokenScores;
+            } else {
+                Map<String, Integer> intersection = new HashMap<>();
+                for (Map.Entry<String, Integer> scored : interfaceScores.entrySet()) {
+                    Integer score = tokenScores.get(scored.getKey());
+                    if (score != null) {
+                        intersection.put(scored.getKey(), scored.getValue() + score);
+                    }
+                }
+                interfaceScores = intersection;
+            }
+            if (interfaceScores.isEmpty()) {
+                break;
+            }
+        }
+
+        Map<String, Integer> providerScores = new HashMap<>();
+        for (Map.Entry<String, Integer> scored : interfaceScores.entrySet()) {
+            InterfaceEntry entry = interfaces.get(scored.getKey());
+            if (entry != null) {
+                for (String key : entry.providers.keySet()) {
+                    providerScores.put(key, scored.getValue());
+                }
+            }
+        }
+
+        // 地址按原始输入做前缀匹配（如 10.0.0. 或 10.0.0.1:20880）
+        String addressPrefix = query.trim().toLowerCase(Locale.ROOT);
+        for (Map.Entry<String, Set<String>> address : prefixRange(addressIndex, addressPrefix).entrySet()) {
+            int score = address.getKey().equals(addressPrefix) ? WEIGHT_ADDRESS * 2 : WEIGHT_ADDRESS;
+            for (String key : address.getValue()) {
+                providerScores.merge(key, score, Integer::sum);
+            }
+        }
+
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>(providerScores.entrySet());
+        List<ProviderInfo> result = new ArrayList<>(ranked.size());
+        ranked.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        for (Map.Entry<String, Integer> scored : ranked) {
+            ProviderInfo provider = providers.get(scored.getKey());
+            if (provider != null) {
+                result.add(provider);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 拆词：标识符保留整体、按 . _ $ 分段、再按驼峰和字母数字边界拆分；中文按单字切分。结果为小写。
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN) {
+                flushWord(word, tokens);
+                tokens.add(String.valueOf(c));
+            } else if (Character.isLetterOrDigit(c) || c == '.' || c == '_' || c == '$') {
+                word.append(c);
+            } else {
+                flushWord(word, tokens);
+            }
+        }
+        flushWord(word, tokens);
+        return tokens;
+    }
+
+    private static void flushWord(StringBuilder word, Set<String> tokens) {
+        if (word.length() == 0) {
+            return;
+        }
+        String identifier = trimSeparators(word.toString());
+        word.setLength(0);
+        if (identifier.isEmpty()) {
+            return;
+        }
+        tokens.add(identifier.toLowerCase(Locale.ROOT));
+        for (String segment : identifier.split("[._$]+")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            tokens.add(segment.toLowerCase(Locale.ROOT));
+            for (String part : splitCamelCase(segment)) {
+                tokens.add(part.toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    /**
+     * getUserById -> get / User / By / Id；HTTPServer2 -> HTTP / Server / 2
+     */
+    static List<String> splitCamelCase(String segment) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i < segment.length(); i++) {
+            char prev = segment.charAt(i - 1);
+            char c = segment.charAt(i);
+            boolean boundary = (Character.isLowerCase(prev) && Character.isUpperCase(c))
+                    || (Character.isUpperCase(prev) && Character.isUpperCase(c)
+                        && i + 1 < segment.length() && Character.isLowerCase(segment.charAt(i + 1)))
+                    || (Character.isDigit(prev) != Character.isDigit(c));
+            if (boundary) {
+                parts.add(segment.substring(start, i));
+                start = i;
+            }
+        }
+        parts.add(segment.substring(start));
+        return parts;
+    }
+
+    private static String trimSeparators(String word) {
+        int start = 0;
+        int end = word.length();
+        while (start < end && isSeparator(word.charAt(start))) {
+            start++;
+        }
+        while (end > start && isSeparator(word.charAt(end - 1))) {
+            end--;
+        }
+        return word.substring(start, end);
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '.' || c == '_' || c == '$';
+    }
+
+    /**
+     * 查询词：只保留标识符整体和中文单字，拆分出的子词已被文档侧的同名词项覆盖，
+     * 这样 "UserServ" 只产生一个查询词 userserv，前缀命中 userservice
+     */
+    private static List<String> queryTokens(String query) {
+        if (query == null || query.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN) {
+                addQueryWord(word, tokens);
+                tokens.add(String.valueOf(c));
+            } else if (Character.isLetterOrDigit(c) || isSeparator(c)) {
+                word.append(c);
+            } else {
+                addQueryWord(word, tokens);
+            }
+        }
+        addQueryWord(word, tokens);
+        return tokens;
+    }
+
+    private static void addQueryWord(StringBuilder word, List<String> tokens) {
+        String identifier = trimSeparators(word.toString());
+        word.setLength(0);
+        if (!identifier.isEmpty()) {
+            tokens.add(identifier.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private static <V> NavigableMap<String, V> prefixRange(ConcurrentSkipListMap<String, V> map, String prefix) {
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private void reindex(InterfaceEntry entry) {
+        Map<String, Integer> terms = new HashMap<>(entry.metadataTerms);
+        String interfaceName = entry.interfaceName;
+        terms.merge(interfaceName.toLowerCase(Locale.ROOT), WEIGHT_INTERFACE_FULL, Math::max);
+        int lastDot = interfaceName.lastIndexOf('.');
+        addTerms(terms, interfaceName.substring(0, Math.max(lastDot, 0)), WEIGHT_PACKAGE);
+        addTerms(terms, interfaceName.substring(lastDot + 1), WEIGHT_INTERFACE_NAME);
+        for (String application : entry.applications.keySet()) {
+            addTerms(terms, application, WEIGHT_APPLICATION);
+        }
+        for (String methods : entry.methods.keySet()) {
+            addTerms(terms, methods, WEIGHT_METHOD);
+        }
+        updatePostings(interfaceName, entry.terms, terms);
+        entry.terms = terms;
+    }
+
+    private void updatePostings(String interfaceName, Map<String, Integer> oldTerms, Map<String, Integer> newTerms) {
+        for (String term : oldTerms.keySet()) {
+            if (!newTerms.containsKey(term)) {
+                Map<String, Integer> docs = postings.get(term);
+                if (docs != null) {
+                    docs.remove(interfaceName);
+                    if (docs.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> term : newTerms.entrySet()) {
+            if (!term.getValue().equals(oldTerms.get(term.getKey()))) {
+                postings.computeIfAbsent(term.getKey(), k -> new ConcurrentHashMap<>()).put(interfaceName, term.getValue());
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Math::max);
+        }
+    }
+
+    private static boolean increment(Map<String, Integer> counts, String value) {
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+        return counts.merge(value, 1, Integer::sum) == 1;
+    }
+
+    private static boolean decrement(Map<String, Integer> counts, String value) {
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+        Integer remaining = counts.computeIfPresent(value, (k, count) -> count > 1 ? count - 1 : null);
+        return remaining == null;
+    }
+
+    private static final class InterfaceEntry {
+        private final String interfaceName;
+        private final Map<String, ProviderInfo> providers = new ConcurrentHashMap<>();
+        // 应用名 / methods 字符串 -> 引用它的 Provider 数，出现或消失时才重建词项
+        private final Map<String, Integer> applications = new HashMap<>();
+        private final Map<String, Integer> methods = new HashMap<>();
+        private Map<String, Integer> metadataTerms = Collections.emptyMap();
+        private Map<String, Integer> terms = Collections.emptyMap();
+
+        private InterfaceEntry(String interfaceName) {
+            this.interfaceName = interfaceName;
+        }
+    }
+}
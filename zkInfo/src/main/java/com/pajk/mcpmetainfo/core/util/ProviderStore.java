@@ -0,0 +1,290 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Provider 多索引存储
+ *
+ * <p>主表按 Provider key（zkPath）存放，同时维护按接口、接口+版本+分组、地址、应用四个二级索引，
+ * 以及在线数、在线应用数计数器，均在写入时增量更新。</p>
+ *
+ * <p>每个索引桶是按插入顺序的可变集合，写入只增删一个元素（O(1)），启动时批量写入大桶不会反复整桶复制；
+ * 读取返回桶的不可变快照，写入后第一次读取时重建一次，之后直接返回同一快照，
+ * 查询耗时只与结果大小有关，与注册中心中的 Provider 总数无关。全量列表同样是写入后第一次读取时重建的不可变快照。</p>
+ *
+ * <p>在线状态以写入存储时（或 {@link #setOnline} 时）的值计数；调用方不应绕过存储直接修改已存入 Provider 的在线状态。
+ * 写操作串行执行；读操作只在快照需要重建时短暂持有桶锁。</p>
+ */
+public final class ProviderStore {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Provider 对象 -> 条目，只在写操作（持锁）中访问
+    private final Map<ProviderInfo, Entry> entriesByProvider = new IdentityHashMap<>();
+    // 接口索引有序，接口列表直接按字典序输出
+    private final ConcurrentSkipListMap<String, Bucket> byInterface = new ConcurrentSkipListMap<>();
+    private final Map<String, Bucket> byService = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> byAddress = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> byApplication = new ConcurrentHashMap<>();
+    // 应用 -> 在线 Provider 数（只保存大于 0 的应用）
+    private final Map<String, Integer> onlineByApplication = new ConcurrentHashMap<>();
+
+    private volatile int onlineCount;
+    private volatile List<ProviderInfo> allView = Collections.emptyList();
+    private volatile boolean allViewStale;
+
+    private static final class Entry {
+        private final ProviderInfo provider;
+        private final String application;
+        private boolean online;
+
+        private Entry(ProviderInfo provider, String application) {
+            this.provider = provider;
+            this.application = application;
+            this.online = provider.isOnline();
+        }
+    }
+
+    /**
+     * 索引桶：成员集合只在写操作（持存储锁）中修改，快照在写入后第一次读取时重建
+     */
+    private static final class Bucket {
+        // 以条目（按对象身份比较）为元素，保留插入顺序
+        private final Set<Entry> members = new LinkedHashSet<>();
+        private volatile List<ProviderInfo> snapshot = Collections.emptyList();
+
+        private synchronized void add(Entry entry) {
+            members.add(entry);
+            snapshot = null;
+        }
+
+        /**
+         * @return 移除后桶是否为空
+         */
+        private synchronized boolean remove(Entry entry) {
+            members.remove(entry);
+            snapshot = null;
+            return members.isEmpty();
+        }
+
+        private List<ProviderInfo> view() {
+            List<ProviderInfo> view = snapshot;
+            if (view == null) {
+                synchronized (this) {
+                    view = snapshot;
+                    if (view == null) {
+                        List<ProviderInfo> providers = new ArrayList<>(members.size());
+                        for (Entry entry : members) {
+                            providers.add(entry.provider);
+                        }
+                        view = Collections.unmodifiableList(providers);
+                        snapshot = view;
+                    }
+                }
+            }
+            return view;
+        }
+    }
+
+    /**
+     * 添加或替换 Provider
+     *
+     * @param application 归属应用（由调用方按 application 字段或接口包名推导）
+     * @return 被替换的 Provider
+     */
+    public synchronized ProviderInfo put(String key, ProviderInfo provider, String application) {
+        ProviderInfo replaced = remove(key);
+        Entry entry = new Entry(provider, application);
+        entries.put(key, entry);
+        entriesByProvider.put(provider, entry);
+        if (provider.getInterfaceName() != null) {
+            append(byInterface, provider.getInterfaceName(), entry);
+            append(byService, serviceKey(provider.getInterfaceName(), provider.getVersion(), provider.getGroup()), entry);
+        }
+        if (provider.getAddress() != null) {
+            append(byAddress, provider.getAddress(), entry);
+        }
+        append(byApplication, application, entry);
+        if (entry.online) {
+            adjustOnline(application, 1);
+        }
+        allViewStale = true;
+        return replaced;
+    }
+
+    /**
+     * 移除 Provider
+     */
+    public synchronized ProviderInfo remove(String key) {
+        Entry entry = key != null ? entries.remove(key) : null;
+        if (entry == null) {
+            return null;
+        }
+        ProviderInfo provider = entry.provider;
+        entriesByProvider.remove(provider, entry);
+        if (provider.getInterfaceName() != null) {
+            detach(byInterface, provider.getInterfaceName(), entry);
+            detach(byService, serviceKey(provider.getInterfaceName(), provider.getVersion(), provider.getGroup()), entry);
+        }
+        if (provider.getAddress() != null) {
+            detach(byAddress, provider.getAddress(), entry);
+        }
+        detach(byApplication, entry.application, entry);
+        if (entry.online) {
+            adjustOnline(entry.application, -1);
+        }
+        allViewStale = true;
+        return provider;
+    }
+
+    /**
+     * 更新地址下所有 Provider 的在线状态
+     *
+     * @return 状态实际发生变化的 Provider
+     */
+    public synchronized List<ProviderInfo> setOnline(String address, boolean online) {
+        List<ProviderInfo> changed = new ArrayList<>();
+        for (ProviderInfo provider : getByAddress(address)) {
+            provider.setOnline(online);
+            Entry entry = entriesByProvider.get(provider);
+            if (entry != null && entry.online != online) {
+                entry.online = online;
+                adjustOnline(entry.application, online ? 1 : -1);
+                changed.add(provider);
+            }
+        }
+        return changed;
+    }
+
+    public ProviderInfo get(String key) {
+        Entry entry = key != null ? entries.get(key) : null;
+        return entry != null ? entry.provider : null;
+    }
+
+    public List<ProviderInfo> getByInterface(String interfaceName) {
+        return lookup(byInterface, interfaceName);
+    }
+
+    /**
+     * 按接口、版本、分组精确查询；版本或分组为空时视为通配，在接口桶内过滤
+     */
+    public List<ProviderInfo> getByService(String interfaceName, String version, String group) {
+        if (isEmpty(version) || isEmpty(group)) {
+            List<ProviderInfo> result = new ArrayList<>();
+            for (ProviderInfo provider : getByInterface(interfaceName)) {
+                if ((isEmpty(version) || version.equals(provider.getVersion()))
+                        && (isEmpty(group) || group.equals(provider.getGroup()))) {
+                    result.add(provider);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        }
+        return lookup(byService, serviceKey(interfaceName, version, group));
+    }
+
+    public List<ProviderInfo> getByAddress(String address) {
+        return lookup(byAddress, address);
+    }
+
+    public List<ProviderInfo> getByApplication(String application) {
+        return lookup(byApplication, application);
+    }
+
+    /**
+     * 所有接口名（字典序）
+     */
+    public List<String> getInterfaceNames() {
+        return new ArrayList<>(byInterface.keySet());
+    }
+
+    /**
+     * 所有 Provider 地址（去重）
+     */
+    public List<String> getAddresses() {
+        return new ArrayList<>(byAddress.keySet());
+    }
+
+    public List<String> getApplicationNames() {
+        return new ArrayList<>(byApplication.keySet());
+    }
+
+    /**
+     * 全部 Provider 的不可变快照
+     */
+    public List<ProviderInfo> getAll() {
+        if (allViewStale) {
+            synchronized (this) {
+                if (allViewStale) {
+                    List<ProviderInfo> all = new ArrayList<>(entries.size());
+                    for (Entry entry : entries.values()) {
+                        all.add(entry.provider);
+                    }
+                    allView = Collections.unmodifiableList(all);
+                    allViewStale = false;
+                }
+            }
+        }
+        return allView;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getOnlineCount() {
+        return onlineCount;
+    }
+
+    public int getApplicationCount() {
+        return byApplication.size();
+    }
+
+    /**
+     * 至少有一个在线 Provider 的应用数
+     */
+    public int getOnlineApplicationCount() {
+        return onlineByApplication.size();
+    }
+
+    private void adjustOnline(String application, int delta) {
+        onlineCount += delta;
+        onlineByApplication.compute(application, (k, count) -> {
+            int updated = (count == null ? 0 : count) + delta;
+            return updated > 0 ? updated : null;
+        });
+    }
+
+    private static List<ProviderInfo> lookup(Map<String, Bucket> index, String key) {
+        Bucket bucket = key != null ? index.get(key) : null;
+        return bucket != null ? bucket.view() : Collections.emptyList();
+    }
+
+    private static void append(Map<String, Bucket> index, String key, Entry entry) {
+        index.computeIfAbsent(key, k -> new Bucket()).add(entry);
+    }
+
+    private static void detach(Map<String, Bucket> index, String key, Entry entry) {
+        Bucket bucket = index.get(key);
+        if (bucket != null && bucket.remove(entry)) {
+            index.remove(key, bucket);
+        }
+    }
+
+    private static String serviceKey(String interfaceName, String version, String group) {
+        return interfaceName + ":" + Objects.toString(version, "") + ":" + Objects.toString(group, "");
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
@@ -0,0 +1,191 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dubbo Provider URL 解析器
+ *
+ * <p>一次扫描切出协议、地址、接口和参数，不使用正则 split；只有含转义字符的片段才走 URLDecoder。
+ * 参数键、版本、分组、应用名、方法列表等在注册中心里大量重复，经字符串池去重后所有 Provider 共享同一实例；
+ * 参数以 {@link CompactStringMap} 保存，不再为每个 Provider 分配 HashMap。</p>
+ *
+ * <p>时间戳、进程号等几乎不重复的值不入池；池达到上限后不再收录新字符串，避免被异常数据撑大。</p>
+ */
+public final class ProviderUrlParser {
+
+    private static final String DUBBO_PREFIX = "dubbo://";
+
+    /**
+     * 取值基本唯一、入池没有收益的参数
+     */
+    private static final Set<String> UNPOOLED_KEYS = Set.of("timestamp", "pid", "remote.application.timestamp");
+
+    private final Map<String, String> pool = new ConcurrentHashMap<>();
+    private final int maxPoolSize;
+
+    public ProviderUrlParser(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    /**
+     * 解析 ZooKeeper providers 下的节点名（整体 URL 编码一次的 Provider URL）
+     *
+     * @return 解析结果，非 dubbo 协议返回 null
+     */
+    public ProviderInfo parseNode(String nodeName, String serviceName) {
+        return parse(decodeNode(nodeName), serviceName);
+    }
+
+    /**
+     * 解析已解码的 Provider URL：dubbo://192.168.1.100:20880/com.example.Service?version=1.0.0&group=default&...
+     *
+     * @return 解析结果，非 dubbo 协议返回 null
+     */
+    public ProviderInfo parse(String providerUrl, String serviceName) {
+        if (providerUrl == null || !providerUrl.startsWith(DUBBO_PREFIX)) {
+            return null;
+        }
+        ProviderInfo provider = new ProviderInfo();
+        provider.setProtocol("dubbo");
+        provider.setInterfaceName(serviceName);
+        provider.setOnline(true);
+
+        int length = providerUrl.length();
+        int query = providerUrl.indexOf('?');
+        int baseEnd = query >= 0 ? query : length;
+
+        int start = DUBBO_PREFIX.length();
+        int slash = indexOf(providerUrl, '/', start, baseEnd);
+        provider.setAddress(intern(providerUrl.substring(start, slash >= 0 ? slash : baseEnd)));
+        if (slash >= 0) {
+            int interfaceEnd = indexOf(providerUrl, '/', slash + 1, baseEnd);
+            if (interfaceEnd < 0) {
+                interfaceEnd = baseEnd;
+            }
+            if (interfaceEnd > slash + 1) {
+                provider.setInterfaceName(intern(providerUrl.substring(slash + 1, interfaceEnd)));
+            }
+        }
+
+        CompactStringMap.Builder parameters = CompactStringMap.builder(24);
+        int position = query >= 0 ? query + 1 : length;
+        while (position < length) {
+            int end = indexOf(providerUrl, '&', position, length);
+            if (end < 0) {
+                end = length;
+            }
+            int equals = indexOf(providerUrl, '=', position, end);
+            if (equals > position && equals < end - 1) {
+                String key = intern(decode(providerUrl, position, equals));
+                String value = decode(providerUrl, equals + 1, end);
+                if (!UNPOOLED_KEYS.contains(key)) {
+                    value = intern(value);
+                }
+                parameters.put(key, value);
+                switch (key) {
+                    case "version" -> provider.setVersion(value);
+                    case "group" -> provider.setGroup(value);
+                    case "application" -> provider.setApplication(value);
+                    case "methods" -> provider.setMethods(value);
+                    default -> {
+                    }
+                }
+            }
+            position = end + 1;
+        }
+
+        CompactStringMap parameterMap = parameters.build();
+        if (provider.getApplication() == null || provider.getApplication().isEmpty()) {
+            // 兼容其他参数名
+            String application = parameterMap.get("dubbo.application.name");
+            if (application == null) {
+                application = parameterMap.get("application.name");
+            }
+            if (application != null && !application.isEmpty()) {
+                provider.setApplication(application);
+            }
+        }
+        provider.setParameters(parameterMap);
+        return provider;
+    }
+
+    /**
+     * 字符串池当前大小
+     */
+    public int getPoolSize() {
+        return pool.size();
+    }
+
+    private String intern(String value) {
+        String pooled = pool.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (pool.size() >= maxPoolSize) {
+            return value;
+        }
+        pooled = pool.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    /**
+     * 解码节点名：只含 ASCII 转义时逐字符解码，遇到多字节 UTF-8 转义交给 URLDecoder
+     */
+    static String decodeNode(String nodeName) {
+        int first = firstEscape(nodeName, 0, nodeName.length());
+        if (first < 0) {
+            return nodeName;
+        }
+        StringBuilder decoded = new StringBuilder(nodeName.length());
+        decoded.append(nodeName, 0, first);
+        for (int i = first; i < nodeName.length(); i++) {
+            char c = nodeName.charAt(i);
+            if (c == '+') {
+                decoded.append(' ');
+            } else if (c == '%' && i + 2 < nodeName.length()) {
+                int high = Character.digit(nodeName.charAt(i + 1), 16);
+                int low = Character.digit(nodeName.charAt(i + 2), 16);
+                if (high < 0 || low < 0 || high >= 8) {
+                    return URLDecoder.decode(nodeName, StandardCharsets.UTF_8);
+                }
+                decoded.append((char) (high << 4 | low));
+                i += 2;
+            } else if (c == '%') {
+                return URLDecoder.decode(nodeName, StandardCharsets.UTF_8);
+            } else {
+                decoded.append(c);
+            }
+        }
+        return decoded.toString();
+    }
+
+    private static String decode(String source, int start, int end) {
+        String segment = source.substring(start, end);
+        return firstEscape(source, start, end) >= 0 ? URLDecoder.decode(segment, StandardCharsets.UTF_8) : segment;
+    }
+
+    private static int firstEscape(String source, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (c == '%' || c == '+') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(String source, char target, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (source.charAt(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
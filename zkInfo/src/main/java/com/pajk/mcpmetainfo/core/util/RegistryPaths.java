@@ -0,0 +1,53 @@
+package com.pajk.mcpmetainfo.core.util;
+
+/**
+ * 多注册中心下的 Provider 路径
+ *
+ * <p>主注册中心（zookeeper.connect-string）的 Provider 沿用 ZooKeeper 原始路径；
+ * 额外注册中心（zookeeper.registries）的路径加上注册中心 id 前缀：{@code dc2:/dubbo/com.foo.Service/providers/...}。
+ * 同一 Provider 同时注册到多个注册中心时，ProviderService 和事件管道中各自是独立的节点，
+ * 一个注册中心的下线只移除该注册中心的节点。</p>
+ *
+ * <p>数据库节点按服务+地址存储，不区分注册中心：多个注册中心上报同一 Provider 时共用一行，后写入的覆盖先写入的。
+ * 注册中心节点删除不写数据库；按 zkPath 删除或标记离线数据库节点前，先检查是否还有其他在线节点上报同一服务和地址
+ * （{@code ProviderService#isReportedByOtherNode}），有则保留该行。</p>
+ */
+public final class RegistryPaths {
+
+    private static final char SEPARATOR = ':';
+
+    private RegistryPaths() {
+    }
+
+    /**
+     * 加上注册中心前缀；registryId 为空（主注册中心）时原样返回
+     */
+    public static String qualify(String registryId, String zkPath) {
+        if (registryId == null || registryId.isEmpty() || zkPath == null) {
+            return zkPath;
+        }
+        return registryId + SEPARATOR + zkPath;
+    }
+
+    /**
+     * 路径所属的注册中心 id，主注册中心返回 null
+     */
+    public static String registryOf(String zkPath) {
+        if (zkPath == null || zkPath.isEmpty() || zkPath.charAt(0) == '/') {
+            return null;
+        }
+        int separator = zkPath.indexOf(SEPARATOR);
+        if (separator <= 0 || separator + 1 >= zkPath.length() || zkPath.charAt(separator + 1) != '/') {
+            return null;
+        }
+        return zkPath.substring(0, separator);
+    }
+
+    /**
+     * 去掉注册中心前缀后的 ZooKeeper 路径
+     */
+    public static String nodePathOf(String zkPath) {
+        String registryId = registryOf(zkPath);
+        return registryId == null ? zkPath : zkPath.substring(registryId.length() + 1);
+    }
+}
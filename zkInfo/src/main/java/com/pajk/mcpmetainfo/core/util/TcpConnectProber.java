@@ -0,0 +1,266 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于单个 Selector 的 TCP 连通性探测器
+ *
+ * <p>一个守护线程用非阻塞 connect 探测任意数量的地址：建连成功即判定可达并立即关闭，
+ * 超时或被拒绝判定不可达。同时打开的连接数受 maxInFlight 限制。</p>
+ *
+ * <p>周期探测按地址去重：同一地址上一轮的探测尚未完成时不会重复排队；
+ * 每个地址在给定的时间窗口内随机错开发起，避免所有连接集中在同一时刻。</p>
+ *
+ * <p>结果回调在探测线程上执行，回调内不应做阻塞操作。</p>
+ */
+@Slf4j
+public final class TcpConnectProber implements Closeable {
+
+    /**
+     * 探测结果回调
+     */
+    public interface Listener {
+        void onResult(String address, boolean reachable);
+    }
+
+    private final int connectTimeoutMs;
+    private final int maxInFlight;
+    private final Listener listener;
+    private final Selector selector;
+    private final Thread thread;
+
+    private final Queue<Probe> incoming = new ConcurrentLinkedQueue<>();
+    // 周期探测中尚未完成的地址
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    // 以下只在探测线程中访问
+    private final PriorityQueue<Probe> due = new PriorityQueue<>((a, b) -> Long.compare(a.dueAt, b.dueAt));
+    private int inFlight;
+
+    private final AtomicLong connectsStarted = new AtomicLong();
+    private volatile boolean running = true;
+
+    private static final class Probe {
+        private final String address;
+        private final long dueAt;
+        private final CompletableFuture<Boolean> future;
+        private long deadline;
+        private SocketChannel channel;
+
+        private Probe(String address, long dueAt, CompletableFuture<Boolean> future) {
+            this.address = address;
+            this.dueAt = dueAt;
+            this.future = future;
+        }
+    }
+
+    public TcpConnectProber(int connectTimeoutMs, int maxInFlight, Listener listener) throws IOException {
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.maxInFlight = maxInFlight;
+        this.listener = listener;
+        this.selector = Selector.open();
+        this.thread = new Thread(this::run, "provider-prober");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 安排一轮周期探测：每个地址在 [0, spreadMs) 内随机时刻发起，上一轮未完成的地址跳过
+     *
+     * @return 实际排队的地址数
+     */
+    public int schedule(Collection<String> addresses, long spreadMs) {
+        long now = System.currentTimeMillis();
+        int scheduled = 0;
+        for (String address : addresses) {
+            if (address == null || address.isEmpty() || !pending.add(address)) {
+                continue;
+            }
+            long offset = spreadMs > 0 ? ThreadLocalRandom.current().nextLong(spreadMs) : 0;
+            incoming.add(new Probe(address, now + offset, null));
+            scheduled++;
+        }
+        if (scheduled > 0) {
+            selector.wakeup();
+        }
+        return scheduled;
+    }
+
+    /**
+     * 立即探测单个地址，结果同时通知回调
+     */
+    public CompletableFuture<Boolean> probe(String address) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        incoming.add(new Probe(address, System.currentTimeMillis(), future));
+        selector.wakeup();
+        return future;
+    }
+
+    /**
+     * 周期探测中尚未完成的地址数
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 累计发起的连接数
+     */
+    public long getConnectsStarted() {
+        return connectsStarted.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Probe probe;
+                while ((probe = incoming.poll()) != null) {
+                    due.add(probe);
+                }
+                long now = System.currentTimeMillis();
+                while (inFlight < maxInFlight && !due.isEmpty() && due.peek().dueAt <= now) {
+                    start(due.poll());
+                }
+
+                selector.select(selectTimeout(now));
+
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    Probe connecting = (Probe) key.attachment();
+                    boolean reachable;
+                    try {
+                        reachable = connecting.channel.finishConnect();
+                    } catch (IOException e) {
+                        reachable = false;
+                    }
+                    complete(connecting, reachable);
+                }
+                expire(System.currentTimeMillis());
+            } catch (Exception e) {
+                log.warn("⚠️ Provider prober loop error: {}", e.getMessage());
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid()) {
+                complete((Probe) key.attachment(), false);
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // 关闭阶段忽略
+        }
+    }
+
+    private void start(Probe probe) {
+        connectsStarted.incrementAndGet();
+        InetSocketAddress target = toSocketAddress(probe.address);
+        if (target == null || target.isUnresolved()) {
+            deliver(probe, false);
+            return;
+        }
+        inFlight++;
+        try {
+            probe.channel = SocketChannel.open();
+            probe.channel.configureBlocking(false);
+            if (probe.channel.connect(target)) {
+                complete(probe, true);
+                return;
+            }
+            probe.deadline = System.currentTimeMillis() + connectTimeoutMs;
+            probe.channel.register(selector, SelectionKey.OP_CONNECT, probe);
+        } catch (IOException e) {
+            complete(probe, false);
+        }
+    }
+
+    private void expire(long now) {
+        if (inFlight == 0) {
+            return;
+        }
+        for (SelectionKey key : selector.keys()) {
+            Probe probe = (Probe) key.attachment();
+            if (key.isValid() && probe.deadline <= now) {
+                complete(probe, false);
+            }
+        }
+    }
+
+    private long selectTimeout(long now) {
+        long timeout = 1_000;
+        if (!due.isEmpty() && inFlight < maxInFlight) {
+            timeout = Math.min(timeout, due.peek().dueAt - now);
+        }
+        if (inFlight > 0) {
+            // 超时检查的粒度
+            timeout = Math.min(timeout, 100);
+        }
+        return Math.max(1, timeout);
+    }
+
+    private void complete(Probe probe, boolean reachable) {
+        inFlight--;
+        if (probe.channel != null) {
+            try {
+                probe.channel.close();
+            } catch (IOException ignored) {
+                // 探测连接，关闭失败无影响
+            }
+        }
+        deliver(probe, reachable);
+    }
+
+    private void deliver(Probe probe, boolean reachable) {
+        if (probe.future != null) {
+            probe.future.complete(reachable);
+        } else {
+            pending.remove(probe.address);
+        }
+        try {
+            listener.onResult(probe.address, reachable);
+        } catch (Exception e) {
+            log.warn("⚠️ Probe listener failed for {}: {}", probe.address, e.getMessage());
+        }
+    }
+
+    private static InetSocketAddress toSocketAddress(String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0 || colon == address.length() - 1) {
+            return null;
+        }
+        try {
+            return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
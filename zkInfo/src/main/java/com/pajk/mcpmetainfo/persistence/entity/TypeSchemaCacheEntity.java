@@ -0,0 +1,53 @@
+package com.pajk.mcpmetainfo.persistence.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 参数类型 Schema 缓存实体
+ * 
+ * 对应数据库中的 zk_type_schema_cache 表，存储从 Provider API JAR 字节码解析出的
+ * 类型 JSON Schema，按类名 + JAR 校验和唯一
+ * 
+ * @author ZkInfo Team
+ * @version 1.0.0
+ * @since 2026-10-19
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TypeSchemaCacheEntity {
+    
+    /**
+     * 主键ID
+     */
+    private Long id;
+    
+    /**
+     * 类全限定名
+     */
+    private String className;
+    
+    /**
+     * 类所在 JAR 的校验和（MD5）
+     */
+    private String jarChecksum;
+    
+    /**
+     * 类型 JSON Schema（含嵌套对象）
+     */
+    private String schemaJson;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+    
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+}
@@ -4,6 +4,7 @@ import com.pajk.mcpmetainfo.persistence.entity.DubboMethodParameterEntity;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -11,6 +12,11 @@ public interface DubboMethodParameterMapper {
     
     void insert(DubboMethodParameterEntity parameter);
     
+    /**
+     * 多行插入或更新（唯一键 method_id + parameter_order）
+     */
+    int batchInsert(@Param("parameters") List<DubboMethodParameterEntity> parameters);
+    
     void update(DubboMethodParameterEntity parameter);
     
     void deleteById(@Param("id") Long id);
@@ -21,6 +27,11 @@ public interface DubboMethodParameterMapper {
     
     List<DubboMethodParameterEntity> findByMethodId(@Param("methodId") Long methodId);
     
+    /**
+     * 批量查询多个服务下全部方法的参数（按 method_id、parameter_order 排序）
+     */
+    List<DubboMethodParameterEntity> findByServiceIds(@Param("serviceIds") Collection<Long> serviceIds);
+    
     List<DubboMethodParameterEntity> findAll();
 }
 
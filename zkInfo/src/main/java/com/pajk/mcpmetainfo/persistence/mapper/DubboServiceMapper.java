@@ -4,6 +4,7 @@ import com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -61,6 +62,11 @@ public interface DubboServiceMapper {
      */
     List<DubboServiceEntity> findByInterfaceName(@Param("interfaceName") String interfaceName);
     
+    /**
+     * 批量根据接口名查询服务（按 id 排序）
+     */
+    List<DubboServiceEntity> findByInterfaceNames(@Param("interfaceNames") Collection<String> interfaceNames);
+    
     /**
      * 根据接口名查找最大版本的Dubbo服务
      * 
@@ -5,6 +5,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -12,6 +13,11 @@ public interface DubboServiceMethodMapper {
     
     void insert(DubboServiceMethodEntity method);
     
+    /**
+     * 多行插入或更新（唯一键 service_id + method_name）
+     */
+    int batchUpsert(@Param("methods") List<DubboServiceMethodEntity> methods);
+    
     void update(DubboServiceMethodEntity method);
 
     int updateDescription(@Param("id") Long id,
@@ -28,6 +34,11 @@ public interface DubboServiceMethodMapper {
     
     DubboServiceMethodEntity findByServiceIdAndMethodName(@Param("serviceId") Long serviceId, @Param("methodName") String methodName);
     
+    /**
+     * 批量查询多个服务的全部方法
+     */
+    List<DubboServiceMethodEntity> findByServiceIds(@Param("serviceIds") Collection<Long> serviceIds);
+    
     List<DubboServiceMethodEntity> findAll();
 }
 
@@ -29,6 +29,11 @@ public interface DubboServiceNodeMapper {
     
     List<DubboServiceNodeEntity> findByServiceId(@Param("serviceId") Long serviceId);
     
+    /**
+     * 批量查询多个服务的全部节点（调用方按批次传入服务ID）
+     */
+    List<DubboServiceNodeEntity> findByServiceIds(@Param("serviceIds") java.util.Collection<Long> serviceIds);
+    
     List<DubboServiceNodeEntity> findAll();
     
     /**
@@ -0,0 +1,40 @@
+package com.pajk.mcpmetainfo.persistence.mapper;
+
+import com.pajk.mcpmetainfo.persistence.entity.TypeSchemaCacheEntity;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 参数类型 Schema 缓存 Mapper
+ * 
+ * @author ZkInfo Team
+ * @version 1.0.0
+ * @since 2026-10-19
+ */
+@Mapper
+public interface TypeSchemaCacheMapper {
+    
+    /**
+     * 插入或更新类型 Schema（类名 + JAR 校验和唯一）
+     * 
+     * @param entity Schema 缓存实体
+     */
+    void insertOrUpdate(TypeSchemaCacheEntity entity);
+    
+    /**
+     * 根据类名和 JAR 校验和查找类型 Schema
+     * 
+     * @param className 类全限定名
+     * @param jarChecksum JAR 校验和
+     * @return Schema 缓存实体
+     */
+    TypeSchemaCacheEntity findByClassNameAndChecksum(@Param("className") String className,
+                                                     @Param("jarChecksum") String jarChecksum);
+    
+    /**
+     * 删除类的所有版本缓存
+     * 
+     * @param className 类全限定名
+     */
+    void deleteByClassName(@Param("className") String className);
+}
@@ -0,0 +1,14 @@
+use mcp_bridge;
+
+-- 参数类型 Schema 缓存表
+-- ASM 直接解析 Provider API JAR 得到的参数 POJO JSON Schema，按类名 + JAR 校验和缓存，JAR 变化后自动失效
+CREATE TABLE IF NOT EXISTS `zk_type_schema_cache` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+    `class_name` VARCHAR(500) NOT NULL COMMENT '类全限定名',
+    `jar_checksum` VARCHAR(64) NOT NULL COMMENT '类所在 JAR 的 MD5 校验和',
+    `schema_json` MEDIUMTEXT NOT NULL COMMENT '类型 JSON Schema（含嵌套对象/集合/Map）',
+    `gmt_created` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `gmt_modified` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_class_checksum` (`class_name`, `jar_checksum`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='参数类型Schema缓存表';
@@ -7,6 +7,7 @@ drop table if exists zk_interface_whitelist;
 drop table if exists zk_project;
 drop table if exists zk_project_service;
 drop table if exists zk_service_approval;
+drop table if exists zk_type_schema_cache;
 drop table if exists zk_virtual_project_endpoint;   
 CREATE TABLE `zk_approval_log` (
   `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
@@ -183,6 +184,17 @@ CREATE TABLE `zk_service_approval` (
   KEY `idx_applicant_id` (`applicant_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='服务审批表';
 
+CREATE TABLE `zk_type_schema_cache` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `class_name` varchar(500) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '类全限定名',
+  `jar_checksum` varchar(64) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '类所在 JAR 的 MD5 校验和',
+  `schema_json` mediumtext COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '类型 JSON Schema（含嵌套对象/集合/Map）',
+  `gmt_created` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `gmt_modified` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_class_checksum` (`class_name`,`jar_checksum`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='参数类型Schema缓存表';
+
 CREATE TABLE `zk_virtual_project_endpoint` (
   `id` bigint NOT NULL AUTO_INCREMENT COMMENT '映射ID',
   `virtual_project_id` bigint NOT NULL COMMENT '虚拟项目ID',
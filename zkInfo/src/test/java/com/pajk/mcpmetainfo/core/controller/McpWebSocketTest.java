@@ -1,234 +1,156 @@
-// package com.pajk.mcpmetainfo.core.controller;
-
-// import com.fasterxml.jackson.databind.ObjectMapper;
-// import com.pajk.mcpmetainfo.core.mcp.McpProtocol;
-// import com.pajk.mcpmetainfo.core.service.McpProtocolService;
-// import org.junit.jupiter.api.BeforeEach;
-// import org.junit.jupiter.api.Test;
-// import org.springframework.beans.factory.annotation.Autowired;
-// import org.springframework.boot.test.context.SpringBootTest;
-// import org.springframework.boot.test.mock.mockito.MockBean;
-// import org.springframework.test.context.ActiveProfiles;
-// import org.springframework.web.socket.*;
-// import org.springframework.web.socket.client.standard.StandardWebSocketClient;
-
-// import java.net.URI;
-// import java.util.Map;
-// import java.util.concurrent.CountDownLatch;
-// import java.util.concurrent.TimeUnit;
-
-// import static org.junit.jupiter.api.Assertions.*;
-// import static org.mockito.ArgumentMatchers.any;
-// import static org.mockito.Mockito.when;
-
-// /**
-//  * McpController WebSocket 测试
-//  * 测试 WebSocket 连接和消息处理
-//  */
-// @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
-// @ActiveProfiles("test")
-// class McpWebSocketTest {
-
-//     @MockBean
-//     private McpProtocolService mcpProtocolService;
-
-//     @Autowired
-//     private ObjectMapper objectMapper;
-
-//     private String webSocketUrl;
-//     private CountDownLatch latch;
-//     private String receivedMessage;
-
-//     @BeforeEach
-//     void setUp() {
-//         webSocketUrl = "ws://localhost:8080/mcp/ws";
-//         latch = new CountDownLatch(1);
-//         receivedMessage = null;
-//     }
-
-//     @Test
-//     void testWebSocketConnection() throws Exception {
-//         // 准备测试数据
-//         McpProtocol.JsonRpcRequest request = McpProtocol.JsonRpcRequest.builder()
-//                 .id("ws-test-1")
-//                 .method("tools/list")
-//                 .params(Map.of())
-//                 .build();
-
-//         McpProtocol.JsonRpcResponse response = McpProtocol.JsonRpcResponse.builder()
-//                 .id("ws-test-1")
-//                 .result(Map.of("tools", "success"))
-//                 .build();
-
-//         when(mcpProtocolService.handleRequest(any(McpProtocol.JsonRpcRequest.class)))
-//                 .thenReturn(reactor.core.publisher.Mono.just(response));
-
-//         // 创建 WebSocket 客户端
-//         StandardWebSocketClient client = new StandardWebSocketClient();
-        
-//         WebSocketSession session = client.doHandshake(new WebSocketHandler() {
-//             @Override
-//             public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-//                 System.out.println("WebSocket 连接建立");
-                
-//                 // 发送测试消息
-//                 String requestJson = objectMapper.writeValueAsString(request);
-//                 session.sendMessage(new TextMessage(requestJson));
-//             }
-
-//             @Override
-//             public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
-//                 System.out.println("收到消息: " + message.getPayload());
-//                 receivedMessage = message.getPayload().toString();
-//                 latch.countDown();
-//             }
-
-//             @Override
-//             public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
-//                 System.out.println("传输错误: " + exception.getMessage());
-//                 latch.countDown();
-//             }
-
-//             @Override
-//             public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
-//                 System.out.println("连接关闭: " + closeStatus);
-//             }
-
-//             @Override
-//             public boolean supportsPartialMessages() {
-//                 return false;
-//             }
-//         }, new org.springframework.web.socket.WebSocketHttpHeaders(), URI.create(webSocketUrl)).get();
-
-//         // 等待响应
-//         assertTrue(latch.await(5, TimeUnit.SECONDS), "WebSocket 响应超时");
-        
-//         // 验证响应
-//         assertNotNull(receivedMessage, "未收到 WebSocket 响应");
-//         assertTrue(receivedMessage.contains("ws-test-1"), "响应 ID 不匹配");
-//         assertTrue(receivedMessage.contains("success"), "响应内容不匹配");
-
-//         // 关闭连接
-//         session.close();
-//     }
-
-//     @Test
-//     void testWebSocketErrorHandling() throws Exception {
-//         // 准备错误测试数据
-//         McpProtocol.JsonRpcRequest request = McpProtocol.JsonRpcRequest.builder()
-//                 .id("ws-error-1")
-//                 .method("invalid/method")
-//                 .params(Map.of())
-//                 .build();
-
-//         McpProtocol.JsonRpcError error = McpProtocol.JsonRpcError.builder()
-//                 .code(-32601)
-//                 .message("Method not found")
-//                 .build();
-
-//         McpProtocol.JsonRpcResponse response = McpProtocol.JsonRpcResponse.builder()
-//                 .id("ws-error-1")
-//                 .error(error)
-//                 .build();
-
-//         when(mcpProtocolService.handleRequest(any(McpProtocol.JsonRpcRequest.class)))
-//                 .thenReturn(reactor.core.publisher.Mono.just(response));
-
-//         // 创建 WebSocket 客户端
-//         StandardWebSocketClient client = new StandardWebSocketClient();
-        
-//         WebSocketSession session = client.doHandshake(new WebSocketHandler() {
-//             @Override
-//             public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-//                 System.out.println("WebSocket 连接建立");
-                
-//                 // 发送错误测试消息
-//                 String requestJson = objectMapper.writeValueAsString(request);
-//                 session.sendMessage(new TextMessage(requestJson));
-//             }
-
-//             @Override
-//             public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
-//                 System.out.println("收到错误消息: " + message.getPayload());
-//                 receivedMessage = message.getPayload().toString();
-//                 latch.countDown();
-//             }
-
-//             @Override
-//             public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
-//                 System.out.println("传输错误: " + exception.getMessage());
-//                 latch.countDown();
-//             }
-
-//             @Override
-//             public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
-//                 System.out.println("连接关闭: " + closeStatus);
-//             }
-
-//             @Override
-//             public boolean supportsPartialMessages() {
-//                 return false;
-//             }
-//         }, new org.springframework.web.socket.WebSocketHttpHeaders(), URI.create(webSocketUrl)).get();
-
-//         // 等待响应
-//         assertTrue(latch.await(5, TimeUnit.SECONDS), "WebSocket 错误响应超时");
-        
-//         // 验证错误响应
-//         assertNotNull(receivedMessage, "未收到 WebSocket 错误响应");
-//         assertTrue(receivedMessage.contains("ws-error-1"), "错误响应 ID 不匹配");
-//         assertTrue(receivedMessage.contains("-32601"), "错误代码不匹配");
-//         assertTrue(receivedMessage.contains("Method not found"), "错误消息不匹配");
-
-//         // 关闭连接
-//         session.close();
-//     }
-
-//     @Test
-//     void testWebSocketWelcomeMessage() throws Exception {
-//         // 创建 WebSocket 客户端
-//         StandardWebSocketClient client = new StandardWebSocketClient();
-        
-//         WebSocketSession session = client.doHandshake(new WebSocketHandler() {
-//             @Override
-//             public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-//                 System.out.println("WebSocket 连接建立，等待欢迎消息");
-//             }
-
-//             @Override
-//             public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
-//                 System.out.println("收到欢迎消息: " + message.getPayload());
-//                 receivedMessage = message.getPayload().toString();
-//                 latch.countDown();
-//             }
-
-//             @Override
-//             public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
-//                 System.out.println("传输错误: " + exception.getMessage());
-//                 latch.countDown();
-//             }
-
-//             @Override
-//             public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
-//                 System.out.println("连接关闭: " + closeStatus);
-//             }
-
-//             @Override
-//             public boolean supportsPartialMessages() {
-//                 return false;
-//             }
-//         }, new org.springframework.web.socket.WebSocketHttpHeaders(), URI.create(webSocketUrl)).get();
-
-//         // 等待欢迎消息
-//         assertTrue(latch.await(3, TimeUnit.SECONDS), "WebSocket 欢迎消息超时");
-        
-//         // 验证欢迎消息
-//         assertNotNull(receivedMessage, "未收到 WebSocket 欢迎消息");
-//         assertTrue(receivedMessage.contains("欢迎使用zkInfo MCP服务"), "欢迎消息内容不匹配");
-//         assertTrue(receivedMessage.contains("sessionId"), "欢迎消息缺少 sessionId");
-//         assertTrue(receivedMessage.contains("protocolVersion"), "欢迎消息缺少 protocolVersion");
-
-//         // 关闭连接
-//         session.close();
-//     }
-// }
+package com.pajk.mcpmetainfo.core.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpmetainfo.core.config.McpWebSocketProperties;
+import com.pajk.mcpmetainfo.core.mcp.McpProtocol;
+import com.pajk.mcpmetainfo.core.service.McpProtocolService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * McpController WebSocket 处理器测试：in-flight 窗口、并发分发与乱序响应
+ */
+class McpWebSocketTest {
+
+    private McpProtocolService mcpProtocolService;
+    private McpWebSocketProperties properties;
+    private McpController.McpWebSocketHandler handler;
+    private WebSocketSession session;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<JsonNode> received = new LinkedBlockingQueue<>();
+    private final CountDownLatch slowGate = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mcpProtocolService = mock(McpProtocolService.class);
+        properties = new McpWebSocketProperties();
+        properties.setMaxInFlight(2);
+        handler = new McpController.McpWebSocketHandler(mcpProtocolService, objectMapper,
+                new ConcurrentHashMap<>(), properties);
+
+        Map<String, Object> attributes = new HashMap<>();
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("1");
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.getExtensions()).thenReturn(Collections.emptyList());
+        doAnswer(invocation -> {
+            TextMessage message = invocation.getArgument(0);
+            received.add(objectMapper.readTree(message.getPayload()));
+            return null;
+        }).when(session).sendMessage(any());
+
+        // 慢请求阻塞在分发线程上直到 slowGate 打开，其它请求立即返回
+        when(mcpProtocolService.handleRequest(any())).thenAnswer(invocation -> {
+            McpProtocol.JsonRpcRequest request = invocation.getArgument(0);
+            if ("fail".equals(request.getMethod())) {
+                return Mono.error(new IllegalStateException("boom"));
+            }
+            if ("slow".equals(request.getMethod())) {
+                return Mono.fromCallable(() -> {
+                    slowGate.await(10, TimeUnit.SECONDS);
+                    return result(request.getId());
+                });
+            }
+            return Mono.just(result(request.getId()));
+        });
+
+        handler.afterConnectionEstablished(session);
+        assertEquals("welcome", next().get("id").asText());
+    }
+
+    @AfterEach
+    void tearDown() {
+        slowGate.countDown();
+        handler.shutdown();
+    }
+
+    @Test
+    void testRequestsBeyondWindowGetServerBusy() throws Exception {
+        send("1", "slow");
+        send("2", "slow");
+        long start = System.nanoTime();
+        send("3", "slow");
+        // 默认不在读取线程上等待
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+
+        JsonNode busy = next();
+        assertEquals("3", busy.get("id").asText());
+        assertEquals(McpProtocol.ErrorCodes.SERVER_BUSY, busy.get("error").get("code").asInt());
+
+        slowGate.countDown();
+        assertEquals(Set.of("1", "2"), Set.of(next().get("id").asText(), next().get("id").asText()));
+    }
+
+    @Test
+    void testFastResponseOvertakesSlowOneOnSameConnection() throws Exception {
+        send("slow-1", "slow");
+        send("fast-1", "tools/list");
+
+        JsonNode first = next();
+        assertEquals("fast-1", first.get("id").asText());
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+
+        slowGate.countDown();
+        assertEquals("slow-1", next().get("id").asText());
+    }
+
+    @Test
+    void testWindowIsReleasedAfterError() throws Exception {
+        properties.setMaxInFlight(1);
+        handler.afterConnectionEstablished(session);
+        assertEquals("welcome", next().get("id").asText());
+
+        send("1", "fail");
+        JsonNode error = next();
+        assertEquals("1", error.get("id").asText());
+        assertEquals(McpProtocol.ErrorCodes.INTERNAL_ERROR, error.get("error").get("code").asInt());
+
+        // 窗口只有 1，失败请求若未释放许可，下一个请求会被拒绝
+        send("2", "tools/list");
+        JsonNode ok = next();
+        assertEquals("2", ok.get("id").asText());
+        assertNull(ok.get("error"));
+    }
+
+    private void send(String id, String method) throws Exception {
+        McpProtocol.JsonRpcRequest request = McpProtocol.JsonRpcRequest.builder()
+                .id(id)
+                .method(method)
+                .params(Map.of())
+                .build();
+        handler.handleMessage(session, new TextMessage(objectMapper.writeValueAsString(request)));
+    }
+
+    private JsonNode next() throws InterruptedException {
+        JsonNode message = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(message, "未收到 WebSocket 响应");
+        return message;
+    }
+
+    private static McpProtocol.JsonRpcResponse result(String id) {
+        return McpProtocol.JsonRpcResponse.builder()
+                .id(id)
+                .result(Map.of("ok", true))
+                .build();
+    }
+}
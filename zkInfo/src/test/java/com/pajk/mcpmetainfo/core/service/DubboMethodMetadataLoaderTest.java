@@ -0,0 +1,100 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.persistence.entity.DubboMethodParameterEntity;
+import com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity;
+import com.pajk.mcpmetainfo.persistence.entity.DubboServiceMethodEntity;
+import com.pajk.mcpmetainfo.persistence.mapper.DubboMethodParameterMapper;
+import com.pajk.mcpmetainfo.persistence.mapper.DubboServiceMapper;
+import com.pajk.mcpmetainfo.persistence.mapper.DubboServiceMethodMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class DubboMethodMetadataLoaderTest {
+
+    private DubboServiceMapper serviceMapper;
+    private DubboServiceMethodMapper methodMapper;
+    private DubboMethodParameterMapper parameterMapper;
+    private DubboMethodMetadataLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        serviceMapper = mock(DubboServiceMapper.class);
+        methodMapper = mock(DubboServiceMethodMapper.class);
+        parameterMapper = mock(DubboMethodParameterMapper.class);
+        loader = new DubboMethodMetadataLoader(serviceMapper, methodMapper, parameterMapper);
+
+        DubboServiceEntity service = new DubboServiceEntity();
+        service.setId(1L);
+        service.setInterfaceName("com.pajk.UserService");
+        when(serviceMapper.findByInterfaceNames(anyCollection())).thenReturn(List.of(service));
+        when(methodMapper.findByServiceIds(anyCollection())).thenReturn(List.of(
+                method(10L, "createUser", "com.pajk.User"),
+                method(11L, "getUser", "com.pajk.User")));
+        when(parameterMapper.findByServiceIds(anyCollection())).thenReturn(List.of(
+                parameter(10L, "user", "com.pajk.User", 0),
+                parameter(11L, "id", "java.lang.Long", 0),
+                parameter(11L, "withRoles", "boolean", 1)));
+    }
+
+    @Test
+    void testLoadByServiceIdsAssemblesSignaturesInMemory() {
+        Map<Long, Map<String, DubboMethodMetadataLoader.MethodMetadata>> result = loader.loadByServiceIds(List.of(1L));
+
+        Map<String, DubboMethodMetadataLoader.MethodMetadata> methods = result.get(1L);
+        assertEquals(2, methods.size());
+        assertEquals("com.pajk.User", methods.get("getUser").getReturnType());
+        assertEquals(List.of("id", "withRoles"), methods.get("getUser").getParameters().stream()
+                .map(DubboMethodParameterEntity::getParameterName).toList());
+        verify(methodMapper, times(1)).findByServiceIds(anyCollection());
+        verify(parameterMapper, times(1)).findByServiceIds(anyCollection());
+    }
+
+    @Test
+    void testPerMethodLookupsHitInterfaceCache() {
+        loader.preload(List.of("com.pajk.UserService", "com.pajk.OrderService"));
+
+        assertNotNull(loader.getMethod("com.pajk.UserService", "createUser"));
+        assertNotNull(loader.getMethod("com.pajk.UserService", "getUser"));
+        assertNull(loader.getMethod("com.pajk.UserService", "deleteUser"));
+        // 数据库中不存在的接口也缓存空结果
+        assertNull(loader.getMethod("com.pajk.OrderService", "getOrder"));
+
+        verify(serviceMapper, times(1)).findByInterfaceNames(anyCollection());
+        verify(methodMapper, times(1)).findByServiceIds(anyCollection());
+        verify(parameterMapper, times(1)).findByServiceIds(anyCollection());
+    }
+
+    @Test
+    void testToolsChangedEventInvalidatesInterface() {
+        loader.getMethod("com.pajk.UserService", "getUser");
+        loader.onToolsChanged(McpToolCatalogService.ToolsChangedEvent.forInterface("com.pajk.UserService"));
+        loader.getMethod("com.pajk.UserService", "getUser");
+
+        verify(methodMapper, times(2)).findByServiceIds(anyCollection());
+    }
+
+    private static DubboServiceMethodEntity method(Long id, String name, String returnType) {
+        DubboServiceMethodEntity method = new DubboServiceMethodEntity();
+        method.setId(id);
+        method.setServiceId(1L);
+        method.setMethodName(name);
+        method.setReturnType(returnType);
+        return method;
+    }
+
+    private static DubboMethodParameterEntity parameter(Long methodId, String name, String type, int order) {
+        DubboMethodParameterEntity parameter = new DubboMethodParameterEntity();
+        parameter.setMethodId(methodId);
+        parameter.setParameterName(name);
+        parameter.setParameterType(type);
+        parameter.setParameterOrder(order);
+        return parameter;
+    }
+}
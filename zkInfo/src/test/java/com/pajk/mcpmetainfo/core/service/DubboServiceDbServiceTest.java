@@ -0,0 +1,95 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity;
+import com.pajk.mcpmetainfo.persistence.entity.DubboServiceNodeEntity;
+import com.pajk.mcpmetainfo.persistence.mapper.DubboServiceMapper;
+import com.pajk.mcpmetainfo.persistence.mapper.DubboServiceNodeMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DubboServiceDbServiceTest {
+
+    private DubboServiceDbService dbService;
+    private DubboServiceMapper serviceMapper;
+    private DubboServiceNodeMapper nodeMapper;
+    private DubboServiceMethodService methodService;
+
+    @BeforeEach
+    void setUp() {
+        serviceMapper = mock(DubboServiceMapper.class);
+        nodeMapper = mock(DubboServiceNodeMapper.class);
+        methodService = mock(DubboServiceMethodService.class);
+        dbService = new DubboServiceDbService();
+        ReflectionTestUtils.setField(dbService, "dubboServiceMapper", serviceMapper);
+        ReflectionTestUtils.setField(dbService, "dubboServiceNodeMapper", nodeMapper);
+        ReflectionTestUtils.setField(dbService, "dubboServiceMethodService", methodService);
+    }
+
+    @Test
+    void testUnchangedNodesAreSkippedAndNewOnesBatched() {
+        ProviderInfo known = provider("10.0.0.1:20880");
+        ProviderInfo added = provider("10.0.0.2:20880");
+
+        DubboServiceEntity service = new DubboServiceEntity(known);
+        service.setId(1L);
+        when(serviceMapper.findByInterfaceNames(anyList())).thenReturn(List.of(service));
+        when(nodeMapper.findByServiceIds(anyCollection()))
+                .thenReturn(List.of(new DubboServiceNodeEntity(known, 1L, "1.0.0")));
+
+        int written = dbService.saveOrUpdateServicesWithNodes(List.of(known, added));
+
+        assertEquals(1, written);
+        // 服务已存在，不插入也不重新查询
+        verify(serviceMapper, never()).batchInsert(anyList());
+        verify(serviceMapper, times(1)).findByInterfaceNames(anyList());
+        verify(nodeMapper).batchInsert(argThat(nodes -> nodes.size() == 1
+                && "10.0.0.2:20880".equals(nodes.get(0).getAddress())));
+        verify(methodService).saveOrUpdateServiceMethods(argThat((Map<Long, ProviderInfo> m) -> m.keySet().equals(Set.of(1L))));
+    }
+
+    @Test
+    void testMissingServiceIsInsertedOnceForAllProviders() {
+        ProviderInfo first = provider("10.0.0.1:20880");
+        ProviderInfo second = provider("10.0.0.2:20880");
+
+        DubboServiceEntity inserted = new DubboServiceEntity(first);
+        inserted.setId(7L);
+        when(serviceMapper.findByInterfaceNames(anyList())).thenReturn(List.of(), List.of(inserted));
+        when(nodeMapper.findByServiceIds(anyCollection())).thenReturn(List.of());
+
+        int written = dbService.saveOrUpdateServicesWithNodes(List.of(first, second));
+
+        assertEquals(2, written);
+        verify(serviceMapper).batchInsert(argThat(services -> services.size() == 1));
+        verify(nodeMapper).batchInsert(argThat(nodes -> nodes.size() == 2));
+    }
+
+    @Test
+    void testSingleProviderEntryPointIsTransactional() throws Exception {
+        // 自调用绕过代理，单条入口必须自己声明事务
+        assertTrue(DubboServiceDbService.class.getMethod("saveOrUpdateServiceWithNode", ProviderInfo.class)
+                .isAnnotationPresent(Transactional.class));
+    }
+
+    private static ProviderInfo provider(String address) {
+        ProviderInfo providerInfo = new ProviderInfo();
+        providerInfo.setInterfaceName("com.pajk.user.UserService");
+        providerInfo.setProtocol("dubbo");
+        providerInfo.setVersion("1.0.0");
+        providerInfo.setApplication("user-service");
+        providerInfo.setAddress(address);
+        providerInfo.setZkPath("/dubbo/com.pajk.user.UserService/providers/" + address);
+        return providerInfo;
+    }
+}
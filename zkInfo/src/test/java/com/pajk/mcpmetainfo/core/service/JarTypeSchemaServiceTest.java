@@ -0,0 +1,152 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpmetainfo.persistence.entity.TypeSchemaCacheEntity;
+import com.pajk.mcpmetainfo.persistence.mapper.TypeSchemaCacheMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class JarTypeSchemaServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TypeSchemaCacheMapper mapper;
+    private JarTypeSchemaService service;
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(TypeSchemaCacheMapper.class);
+        service = new JarTypeSchemaService(new JarScannerService(), mapper, new ObjectMapper());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBuildsNestedSchemaFromBytecode() throws Exception {
+        service.registerJar(writeApiJar("api.jar", "quantity"));
+
+        Map<String, Object> schema = service.getSchema("com.pajk.demo.OrderRequest");
+
+        Map<String, Object> properties = (Map<String, Object>) schema.get("properties");
+        assertEquals(List.of("items", "attrs", "status", "parent", "id"), List.copyOf(properties.keySet()));
+        // 父类字段
+        assertEquals("int64", ((Map<String, Object>) properties.get("id")).get("format"));
+        // List<OrderItem> 展开为 array + 嵌套对象
+        Map<String, Object> items = (Map<String, Object>) properties.get("items");
+        assertEquals("array", items.get("type"));
+        Map<String, Object> item = (Map<String, Object>) items.get("items");
+        assertTrue(((Map<String, Object>) item.get("properties")).containsKey("quantity"));
+        assertEquals("items (List<OrderItem>)", items.get("description"));
+        // Map<String, String>
+        assertEquals("string", ((Map<String, Object>) ((Map<String, Object>) properties.get("attrs"))
+                .get("additionalProperties")).get("type"));
+        // 枚举
+        assertEquals(List.of("NEW", "PAID"), ((Map<String, Object>) properties.get("status")).get("enum"));
+        // 循环引用不再展开
+        assertFalse(((Map<String, Object>) properties.get("parent")).containsKey("properties"));
+    }
+
+    @Test
+    void testSchemaIsCachedInMemoryAndDatabase() throws Exception {
+        service.registerJar(writeApiJar("api.jar", "quantity"));
+
+        service.getSchema("com.pajk.demo.OrderItem");
+        service.getSchema("com.pajk.demo.OrderItem");
+
+        ArgumentCaptor<TypeSchemaCacheEntity> saved = ArgumentCaptor.forClass(TypeSchemaCacheEntity.class);
+        verify(mapper, times(1)).findByClassNameAndChecksum(eq("com.pajk.demo.OrderItem"), anyString());
+        verify(mapper, times(1)).insertOrUpdate(saved.capture());
+        assertEquals(32, saved.getValue().getJarChecksum().length());
+        assertTrue(saved.getValue().getSchemaJson().contains("\"skuId\""));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDatabaseHitSkipsExtractionAndJarChangeInvalidates() throws Exception {
+        File jar = writeApiJar("api.jar", "quantity");
+        service.registerJar(jar);
+        TypeSchemaCacheEntity cached = new TypeSchemaCacheEntity();
+        cached.setSchemaJson("{\"type\":\"object\",\"properties\":{\"cached\":{\"type\":\"string\"}}}");
+        when(mapper.findByClassNameAndChecksum(eq("com.pajk.demo.OrderItem"), anyString())).thenReturn(cached, (TypeSchemaCacheEntity) null);
+
+        Map<String, Object> fromDb = service.getSchema("com.pajk.demo.OrderItem");
+        assertTrue(((Map<String, Object>) fromDb.get("properties")).containsKey("cached"));
+        verify(mapper, never()).insertOrUpdate(any());
+
+        // 同名 JAR 内容变化后校验和变化，重新解析
+        service.registerJar(writeApiJar("api.jar", "count"));
+        Map<String, Object> reparsed = service.getSchema("com.pajk.demo.OrderItem");
+        assertTrue(((Map<String, Object>) reparsed.get("properties")).containsKey("count"));
+        verify(mapper, times(1)).insertOrUpdate(any());
+    }
+
+    @Test
+    void testUnknownClassReturnsNull() {
+        assertNull(service.getSchema("com.pajk.demo.Missing"));
+        assertFalse(service.contains("com.pajk.demo.Missing"));
+        verifyNoInteractions(mapper);
+    }
+
+    private File writeApiJar(String name, String quantityField) throws Exception {
+        File file = tempDir.resolve(name).toFile();
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(file))) {
+            put(jar, "com/pajk/demo/BaseEntity", pojo("com/pajk/demo/BaseEntity", "java/lang/Object",
+                    new String[][]{{"id", "Ljava/lang/Long;", null}}));
+            put(jar, "com/pajk/demo/OrderItem", pojo("com/pajk/demo/OrderItem", "java/lang/Object",
+                    new String[][]{{"skuId", "J", null}, {quantityField, "I", null}}));
+            put(jar, "com/pajk/demo/OrderRequest", pojo("com/pajk/demo/OrderRequest", "com/pajk/demo/BaseEntity",
+                    new String[][]{
+                            {"items", "Ljava/util/List;", "Ljava/util/List<Lcom/pajk/demo/OrderItem;>;"},
+                            {"attrs", "Ljava/util/Map;", "Ljava/util/Map<Ljava/lang/String;Ljava/lang/String;>;"},
+                            {"status", "Lcom/pajk/demo/OrderStatus;", null},
+                            {"parent", "Lcom/pajk/demo/OrderRequest;", null}}));
+            put(jar, "com/pajk/demo/OrderStatus", enumClass("com/pajk/demo/OrderStatus", "NEW", "PAID"));
+        }
+        return file;
+    }
+
+    private static byte[] pojo(String name, String superName, String[][] fields) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, superName, null);
+        cw.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "CONSTANT", "Ljava/lang/String;", null, "x").visitEnd();
+        for (String[] field : fields) {
+            cw.visitField(Opcodes.ACC_PRIVATE, field[0], field[1], field[2], null).visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static byte[] enumClass(String name, String... constants) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_ENUM,
+                name, "Ljava/lang/Enum<L" + name + ";>;", "java/lang/Enum", null);
+        for (String constant : constants) {
+            cw.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL | Opcodes.ACC_ENUM,
+                    constant, "L" + name + ";", null, null).visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void put(JarOutputStream jar, String className, byte[] bytes) throws Exception {
+        jar.putNextEntry(new JarEntry(className + ".class"));
+        jar.write(bytes);
+        jar.closeEntry();
+    }
+}
@@ -0,0 +1,73 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class McpListChangedNotifierTest {
+
+    private SseOutboundService outboundService;
+    private McpSessionManager sessionManager;
+    private McpListChangedNotifier notifier;
+
+    @BeforeEach
+    void setUp() {
+        outboundService = mock(SseOutboundService.class);
+        sessionManager = mock(McpSessionManager.class);
+        when(outboundService.getSessionIdsForEndpoint("user-mcp")).thenReturn(List.of("s1", "s2"));
+        when(sessionManager.sendEvent(anyString(), any())).thenReturn(SseOutboundService.OfferResult.QUEUED);
+        notifier = new McpListChangedNotifier(outboundService, sessionManager);
+        // 窗口足够长，由测试显式 flush
+        ReflectionTestUtils.setField(notifier, "notifyQuietMs", 60_000L);
+        ReflectionTestUtils.setField(notifier, "notifyMaxDelayMs", 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        notifier.shutdown();
+    }
+
+    @Test
+    void testBurstIsCoalescedIntoOneNotificationPerSession() {
+        notifier.onToolListChanged(new McpToolCatalogService.ToolListChangedEvent("user-mcp", "v1", "v2"));
+        notifier.onToolListChanged(new McpToolCatalogService.ToolListChangedEvent("user-mcp", "v2", "v3"));
+        notifier.onToolListChanged(new McpToolCatalogService.ToolListChangedEvent("user-mcp", "v3", "v4"));
+        verifyNoInteractions(sessionManager);
+
+        notifier.flush("user-mcp");
+
+        ArgumentCaptor<SseOutboundService.OutboundEvent> events = ArgumentCaptor.forClass(SseOutboundService.OutboundEvent.class);
+        verify(sessionManager).sendEvent(eq("s1"), events.capture());
+        verify(sessionManager).sendEvent(eq("s2"), events.capture());
+        assertSame(events.getAllValues().get(0), events.getAllValues().get(1));
+        assertEquals(McpListChangedNotifier.TOOLS_LIST_CHANGED_JSON, events.getValue().getData());
+    }
+
+    @Test
+    void testRevertedChangeIsNotNotified() {
+        // 节点下线后又上线，窗口结束时版本与窗口开始前一致
+        notifier.onToolListChanged(new McpToolCatalogService.ToolListChangedEvent("user-mcp", "v1", "v2"));
+        notifier.onToolListChanged(new McpToolCatalogService.ToolListChangedEvent("user-mcp", "v2", "v1"));
+
+        notifier.flush("user-mcp");
+
+        verifyNoInteractions(sessionManager);
+    }
+
+    @Test
+    void testNotificationFiresAfterQuietPeriod() {
+        ReflectionTestUtils.setField(notifier, "notifyQuietMs", 20L);
+
+        notifier.onToolListChanged(new McpToolCatalogService.ToolListChangedEvent("user-mcp", "v1", "v2"));
+
+        verify(sessionManager, timeout(2000).times(2)).sendEvent(anyString(), any());
+    }
+}
@@ -0,0 +1,80 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpmetainfo.core.mcp.McpProtocol;
+import com.pajk.mcpmetainfo.core.util.McpPageCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class McpProtocolServiceTest {
+
+    private McpProtocolService protocolService;
+
+    @BeforeEach
+    void setUp() {
+        protocolService = spy(new McpProtocolService(mock(McpConverterService.class), mock(McpExecutorService.class),
+                mock(McpResourcesService.class), mock(McpPromptsService.class), mock(McpLoggingService.class),
+                mock(VirtualProjectService.class), mock(VirtualProjectFileLoader.class), new ObjectMapper()));
+        ReflectionTestUtils.setField(protocolService, "pageSize", 1);
+    }
+
+    @Test
+    void testSchemaChangeGetsNewVersionAndOldCursorFinishesOnItsSnapshot() {
+        doReturn(List.of(tool("b.get", "old"), tool("a.get", "old"))).when(protocolService).getAllMcpTools();
+        McpProtocol.ListToolsResult first = listTools(null);
+        assertEquals("a.get", first.getTools().get(0).getName());
+        assertNotNull(first.getNextCursor());
+
+        // 工具名不变，只有描述变化：版本不同
+        doReturn(List.of(tool("a.get", "new"), tool("b.get", "new"))).when(protocolService).getAllMcpTools();
+        McpProtocol.ListToolsResult restarted = listTools(null);
+        assertNotEquals(McpPageCursor.decode(first.getNextCursor()).getVersion(),
+                McpPageCursor.decode(restarted.getNextCursor()).getVersion());
+
+        // 旧游标继续读取原快照
+        McpProtocol.ListToolsResult second = listTools(first.getNextCursor());
+        assertEquals("b.get", second.getTools().get(0).getName());
+        assertEquals("old", second.getTools().get(0).getDescription());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testExpiredCursorIsRejected() {
+        doReturn(List.of(tool("a.get", "d"), tool("b.get", "d"))).when(protocolService).getAllMcpTools();
+
+        McpProtocol.JsonRpcResponse response = protocolService.handleRequest(request(McpPageCursor.encode("0000", 1))).block();
+
+        assertNotNull(response.getError());
+        assertEquals(McpProtocol.ErrorCodes.INVALID_PARAMS, response.getError().getCode());
+        assertTrue(response.getError().getMessage().contains("has expired"));
+    }
+
+    private McpProtocol.ListToolsResult listTools(String cursor) {
+        McpProtocol.JsonRpcResponse response = protocolService.handleRequest(request(cursor)).block();
+        assertNull(response.getError());
+        return (McpProtocol.ListToolsResult) response.getResult();
+    }
+
+    private static McpProtocol.JsonRpcRequest request(String cursor) {
+        return McpProtocol.JsonRpcRequest.builder()
+                .id("1")
+                .method(McpProtocol.Methods.LIST_TOOLS)
+                .params(cursor != null ? Map.of("cursor", cursor) : null)
+                .build();
+    }
+
+    private static McpProtocol.McpTool tool(String name, String description) {
+        return McpProtocol.McpTool.builder()
+                .name(name)
+                .description(description)
+                .inputSchema(Map.of("type", "object"))
+                .build();
+    }
+}
@@ -0,0 +1,238 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpmetainfo.core.model.Project;
+import com.pajk.mcpmetainfo.core.model.ProjectService;
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.core.util.McpToolSchemaGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class McpToolCatalogServiceTest {
+
+    private EndpointResolver endpointResolver;
+    private ProviderService providerService;
+    private McpToolSchemaGenerator schemaGenerator;
+    private McpToolCatalogService catalogService;
+
+    @BeforeEach
+    void setUp() {
+        endpointResolver = mock(EndpointResolver.class);
+        providerService = mock(ProviderService.class);
+        ProjectManagementService projectManagementService = mock(ProjectManagementService.class);
+        schemaGenerator = mock(McpToolSchemaGenerator.class);
+
+        Project project = Project.builder().id(1L).build();
+        when(endpointResolver.resolveEndpoint("demo"))
+                .thenReturn(Optional.of(new EndpointResolver.EndpointInfo(project, null, "mcp-demo", false)));
+        when(projectManagementService.getProjectServices(1L)).thenReturn(List.of(
+                ProjectService.builder().serviceInterface("com.pajk.UserService").build()));
+        when(providerService.getProvidersByService("com.pajk.UserService", null, null))
+                .thenReturn(List.of(provider("getUser,createUser")));
+        when(schemaGenerator.createInputSchemaFromMethod(anyString(), anyString()))
+                .thenReturn(Map.of("type", "object"));
+
+        catalogService = new McpToolCatalogService(endpointResolver, mock(VirtualProjectRegistrationService.class),
+                projectManagementService, providerService, schemaGenerator, new ObjectMapper());
+        ReflectionTestUtils.setField(catalogService, "catalogEnabled", true);
+        ReflectionTestUtils.setField(catalogService, "maxAgeMs", 300_000L);
+        ReflectionTestUtils.setField(catalogService, "rebuildDelayMs", 10L);
+        ReflectionTestUtils.setField(catalogService, "pageSize", 200);
+    }
+
+    @AfterEach
+    void tearDown() {
+        catalogService.shutdown();
+    }
+
+    @Test
+    void testCatalogIsBuiltOnceAndSortedByName() throws Exception {
+        McpToolCatalogService.ToolCatalog first = catalogService.getCatalog("demo");
+        McpToolCatalogService.ToolCatalog second = catalogService.getCatalog("demo");
+
+        assertSame(first, second);
+        verify(endpointResolver, times(1)).resolveEndpoint("demo");
+        assertEquals("com.pajk.UserService.createUser", first.getTools().get(0).get("name"));
+        assertEquals(2, first.getToolJsons().size());
+
+        String response = catalogService.toToolsListResponse(catalogService.getToolsPage("demo", null), "7");
+        Map<?, ?> parsed = new ObjectMapper().readValue(response, Map.class);
+        assertEquals("7", parsed.get("id"));
+        assertEquals(2, ((List<?>) ((Map<?, ?>) parsed.get("result")).get("tools")).size());
+    }
+
+    @Test
+    void testProviderChangeRebuildsOnlyDependentEndpoint() throws Exception {
+        McpToolCatalogService.ToolCatalog before = catalogService.getCatalog("demo");
+
+        catalogService.onToolsChanged(McpToolCatalogService.ToolsChangedEvent.forInterface("com.pajk.OrderService"));
+        assertSame(before, catalogService.getCatalog("demo"));
+
+        when(providerService.getProvidersByService("com.pajk.UserService", null, null))
+                .thenReturn(List.of(provider("getUser")));
+        catalogService.onToolsChanged(McpToolCatalogService.ToolsChangedEvent.forInterface("com.pajk.UserService"));
+
+        // 后台重建完成后替换
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (catalogService.getCatalog("demo") == before && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        McpToolCatalogService.ToolCatalog after = catalogService.getCatalog("demo");
+        assertEquals(1, after.size());
+        assertNotEquals(before.getVersion(), after.getVersion());
+    }
+
+    @Test
+    void testStaleCatalogIsServedUntilBackgroundRebuild() throws Exception {
+        ReflectionTestUtils.setField(catalogService, "rebuildDelayMs", 300L);
+        McpToolCatalogService.ToolCatalog before = catalogService.getCatalog("demo");
+
+        when(providerService.getProvidersByService("com.pajk.UserService", null, null))
+                .thenReturn(List.of(provider("getUser")));
+        catalogService.onToolsChanged(McpToolCatalogService.ToolsChangedEvent.forInterface("com.pajk.UserService"));
+
+        // 合并窗口内的 tools/list 仍读取旧目录，不触发同步重建
+        for (int i = 0; i < 5; i++) {
+            assertSame(before, catalogService.getToolsPage("demo", null).getCatalog());
+        }
+        verify(endpointResolver, times(1)).resolveEndpoint("demo");
+
+        verify(endpointResolver, timeout(2_000).times(2)).resolveEndpoint("demo");
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (catalogService.getCatalog("demo") == before && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, catalogService.getCatalog("demo").size());
+    }
+
+    @Test
+    void testConcurrentMissesShareOneBuild() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Optional<EndpointResolver.EndpointInfo> info = endpointResolver.resolveEndpoint("demo");
+        reset(endpointResolver);
+        when(endpointResolver.resolveEndpoint("demo")).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return info;
+        });
+
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<McpToolCatalogService.ToolCatalog>> results = new ArrayList<>();
+            results.add(callers.submit(() -> catalogService.getCatalog("demo")));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(callers.submit(() -> catalogService.getCatalog("demo")));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            McpToolCatalogService.ToolCatalog first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<McpToolCatalogService.ToolCatalog> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            verify(endpointResolver, times(1)).resolveEndpoint("demo");
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCursorPagesStayOnSameVersionAfterUpdate() {
+        ReflectionTestUtils.setField(catalogService, "pageSize", 1);
+
+        McpToolCatalogService.ToolPage first = catalogService.getToolsPage("demo", null);
+        assertEquals("com.pajk.UserService.createUser", first.getTools().get(0).get("name"));
+        assertNotNull(first.getNextCursor());
+
+        // 翻页期间工具列表变化，旧游标仍读取原版本
+        when(providerService.getProvidersByService("com.pajk.UserService", null, null))
+                .thenReturn(List.of(provider("getUser")));
+        catalogService.invalidate("demo");
+
+        McpToolCatalogService.ToolPage second = catalogService.getToolsPage("demo", first.getNextCursor());
+        assertEquals("com.pajk.UserService.getUser", second.getTools().get(0).get("name"));
+        assertEquals(first.getCatalog().getVersion(), second.getCatalog().getVersion());
+        assertNull(second.getNextCursor());
+
+        assertThrows(IllegalArgumentException.class, () -> catalogService.getToolsPage("demo", "not-a-cursor"));
+    }
+
+    @Test
+    void testUnresolvedEndpointIsNotCached() {
+        when(endpointResolver.resolveEndpoint("missing")).thenReturn(Optional.empty());
+        assertEquals(0, catalogService.getCatalog("missing").size());
+        catalogService.getCatalog("missing");
+        verify(endpointResolver, times(2)).resolveEndpoint("missing");
+        assertEquals(0, catalogService.getCatalogCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRepeatedPojoSchemasAreDeduplicatedWithDefs() {
+        when(schemaGenerator.createInputSchemaFromMethod("com.pajk.UserService", "createUser"))
+                .thenReturn(Map.of("type", "object", "properties", Map.of(
+                        "creator", userSchema("creator (User)"),
+                        "user", userSchema("user (User)"))));
+
+        McpToolCatalogService.ToolCatalog catalog = catalogService.getCatalog("demo");
+
+        Map<String, Object> inputSchema = (Map<String, Object>) catalog.getTools().get(0).get("inputSchema");
+        Map<String, Object> user = (Map<String, Object>) ((Map<String, Object>) inputSchema.get("properties")).get("user");
+        assertEquals("#/$defs/User", user.get("$ref"));
+        assertEquals("user (User)", user.get("description"));
+        Map<String, Object> defs = (Map<String, Object>) inputSchema.get("$defs");
+        assertTrue(((Map<String, Object>) defs.get("User")).containsKey("properties"));
+        assertFalse(((Map<String, Object>) defs.get("User")).containsKey("description"));
+        // 没有重复结构的工具保持原样
+        assertEquals(Map.of("type", "object"), catalog.getTools().get(1).get("inputSchema"));
+
+        assertEquals(1, catalog.getSchemaReport().getSharedDefinitionCount());
+        assertTrue(catalog.getSchemaReport().getRefsBytes() < catalog.getSchemaReport().getInlineBytes());
+    }
+
+    @Test
+    void testInlineModeKeepsSchemasUnchanged() {
+        ReflectionTestUtils.setField(catalogService, "schemaRefs", "inline");
+        Map<String, Object> schema = Map.of("type", "object", "properties", Map.of(
+                "creator", userSchema("creator (User)"),
+                "user", userSchema("user (User)")));
+        when(schemaGenerator.createInputSchemaFromMethod("com.pajk.UserService", "createUser")).thenReturn(schema);
+
+        McpToolCatalogService.ToolCatalog catalog = catalogService.getCatalog("demo");
+
+        assertEquals(schema, catalog.getTools().get(0).get("inputSchema"));
+        assertEquals(1, catalog.getSchemaReport().getSharedDefinitionCount());
+    }
+
+    private static Map<String, Object> userSchema(String description) {
+        return Map.of("type", "object", "description", description, "properties", Map.of(
+                "id", Map.of("type", "integer", "format", "int64"),
+                "name", Map.of("type", "string"),
+                "email", Map.of("type", "string")));
+    }
+
+    private static ProviderInfo provider(String methods) {
+        ProviderInfo provider = new ProviderInfo();
+        provider.setInterfaceName("com.pajk.UserService");
+        provider.setMethods(methods);
+        return provider;
+    }
+}
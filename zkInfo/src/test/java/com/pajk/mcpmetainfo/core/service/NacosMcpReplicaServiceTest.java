@@ -0,0 +1,99 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.config.listener.Listener;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.listener.EventListener;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NacosMcpReplicaServiceTest {
+
+    private static final String SERVICE = "virtual-demo";
+    private static final String DATA_ID_V1 = "sid-1.0.0-mcp-tools.json";
+
+    private NamingService namingService;
+    private ConfigService configService;
+    private ApplicationEventPublisher eventPublisher;
+    private NacosMcpReplicaService replica;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        namingService = mock(NamingService.class);
+        configService = mock(ConfigService.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        replica = new NacosMcpReplicaService(namingService, configService, new ObjectMapper());
+        ReflectionTestUtils.setField(replica, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(replica, "serviceGroup", "mcp-server");
+        ReflectionTestUtils.setField(replica, "replicaEnabled", true);
+
+        when(namingService.selectInstances(SERVICE, "mcp-server", true)).thenReturn(List.of(instance("1.0.0")));
+        when(configService.getConfigAndSignListener(eq(DATA_ID_V1), eq("mcp-tools"), anyLong(), any(Listener.class)))
+                .thenReturn("{\"tools\":[{\"toolName\":\"com.pajk.UserService.getUser\"}]}");
+    }
+
+    @Test
+    void testToolsAreServedFromLocalReplica() throws Exception {
+        List<Map<String, Object>> first = replica.getTools(SERVICE);
+        List<Map<String, Object>> second = replica.getTools(SERVICE);
+
+        assertEquals("com.pajk.UserService.getUser", first.get(0).get("name"));
+        assertEquals(1, second.size());
+        verify(namingService, times(1)).selectInstances(SERVICE, "mcp-server", true);
+        verify(namingService).subscribe(eq(SERVICE), eq("mcp-server"), any(EventListener.class));
+        verify(configService, times(1)).getConfigAndSignListener(eq(DATA_ID_V1), eq("mcp-tools"), anyLong(), any(Listener.class));
+        verify(configService, never()).getConfig(anyString(), anyString(), anyLong());
+        assertEquals(java.util.Optional.of(SERVICE), replica.findServiceByInstance("10.0.0.1", 9091));
+    }
+
+    @Test
+    void testConfigPushUpdatesReplicaAndNotifies() throws Exception {
+        replica.getTools(SERVICE);
+        ArgumentCaptor<Listener> listener = ArgumentCaptor.forClass(Listener.class);
+        verify(configService).getConfigAndSignListener(eq(DATA_ID_V1), eq("mcp-tools"), anyLong(), listener.capture());
+
+        listener.getValue().receiveConfigInfo("{\"tools\":[{\"name\":\"a\"},{\"name\":\"b\"}]}");
+
+        assertEquals(2, replica.getTools(SERVICE).size());
+        ArgumentCaptor<McpToolCatalogService.ToolsChangedEvent> event =
+                ArgumentCaptor.forClass(McpToolCatalogService.ToolsChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(McpToolCatalogService.ToolsChangedEvent.Scope.SERVICE, event.getValue().getScope());
+        assertEquals(SERVICE, event.getValue().getKey());
+    }
+
+    @Test
+    void testVersionSwitchRebindsToolsConfig() throws Exception {
+        replica.getTools(SERVICE);
+        when(configService.getConfigAndSignListener(eq("sid-2.0.0-mcp-tools.json"), eq("mcp-tools"), anyLong(), any(Listener.class)))
+                .thenReturn("{\"tools\":[]}");
+
+        replica.onInstancesChanged(SERVICE, List.of(instance("2.0.0")));
+
+        assertTrue(replica.getTools(SERVICE).isEmpty());
+        verify(configService).removeListener(eq(DATA_ID_V1), eq("mcp-tools"), any(Listener.class));
+        verify(eventPublisher).publishEvent(any(McpToolCatalogService.ToolsChangedEvent.class));
+    }
+
+    private static Instance instance(String version) {
+        Instance instance = new Instance();
+        instance.setIp("10.0.0.1");
+        instance.setPort(9091);
+        instance.setHealthy(true);
+        instance.setEnabled(true);
+        instance.setMetadata(Map.of("serverId", "sid", "version", version));
+        return instance;
+    }
+}
@@ -0,0 +1,166 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.persistence.entity.DubboMethodParameterEntity;
+import com.pajk.mcpmetainfo.persistence.entity.DubboServiceMethodEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProviderServiceTest {
+
+    private ProviderService providerService;
+
+    @BeforeEach
+    void setUp() {
+        providerService = new ProviderService();
+        providerService.addProvider(provider("com.pajk.user.UserQueryService", "10.0.0.1:20880", "user-center", "getUserById,listUsers"));
+        providerService.addProvider(provider("com.pajk.user.UserQueryService", "10.0.0.2:20880", "user-center", "getUserById,listUsers"));
+        providerService.addProvider(provider("com.pajk.order.OrderService", "10.0.1.1:20880", "order-center", "createOrder,getOrderByUserId"));
+    }
+
+    @Test
+    void testSearchTokenizesCamelCaseAndPackageSegments() {
+        assertEquals(2, providerService.searchProviders("UserQuery").size());
+        assertEquals(2, providerService.searchProviders("query").size());
+        assertEquals(1, providerService.searchProviders("com.pajk.order").size());
+        assertEquals(1, providerService.searchProviders("order-center").size());
+        assertEquals(2, providerService.searchProviders("10.0.0.").size());
+        assertTrue(providerService.searchProviders("payment").isEmpty());
+    }
+
+    @Test
+    void testSearchRanksInterfaceNameAboveMethodName() {
+        List<ProviderInfo> result = providerService.searchProviders("user");
+
+        // OrderService 只通过方法名 getOrderByUserId 命中，排在接口名命中之后
+        assertEquals(3, result.size());
+        assertEquals("com.pajk.user.UserQueryService", result.get(0).getInterfaceName());
+        assertEquals("com.pajk.order.OrderService", result.get(2).getInterfaceName());
+    }
+
+    @Test
+    void testIndexFollowsProviderRemoval() {
+        providerService.removeProviderByZkPath("/dubbo/com.pajk.order.OrderService/providers/10.0.1.1:20880");
+
+        assertTrue(providerService.searchProviders("order").isEmpty());
+        assertTrue(providerService.getProvidersByInterface("com.pajk.order.OrderService").isEmpty());
+        assertEquals(List.of("com.pajk.user.UserQueryService"), providerService.getAllInterfaces());
+    }
+
+    @Test
+    void testMethodDescriptionsAndParametersAreSearchable() {
+        DubboMethodMetadataLoader loader = mock(DubboMethodMetadataLoader.class);
+        ReflectionTestUtils.setField(providerService, "methodMetadataLoader", loader);
+        DubboServiceMethodEntity method = new DubboServiceMethodEntity();
+        method.setMethodName("createOrder");
+        method.setMethodDescription("创建订单");
+        DubboMethodParameterEntity parameter = new DubboMethodParameterEntity();
+        parameter.setParameterName("couponCode");
+        when(loader.getMethods(anyString())).thenReturn(Map.of());
+        when(loader.getMethods("com.pajk.order.OrderService")).thenReturn(Map.of("createOrder",
+                new DubboMethodMetadataLoader.MethodMetadata(method, List.of(parameter))));
+
+        providerService.refreshSearchMetadata();
+
+        assertEquals(1, providerService.searchProviders("coupon").size());
+        assertEquals(1, providerService.searchProviders("订单").size());
+        verify(loader).preload(anyCollection());
+    }
+
+    @Test
+    void testOnlyToolShapeChangesPublishToolsChanged() {
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        ReflectionTestUtils.setField(providerService, "eventPublisher", publisher);
+
+        // 滚动发布：同形态节点上下线不影响工具列表
+        providerService.addProvider(provider("com.pajk.user.UserQueryService", "10.0.0.3:20880", "user-center", "listUsers,getUserById"));
+        providerService.removeProviderByZkPath("/dubbo/com.pajk.user.UserQueryService/providers/10.0.0.1:20880");
+        providerService.updateProvider(provider("com.pajk.user.UserQueryService", "10.0.0.2:20880", "user-center", "getUserById,listUsers"));
+        verifyNoInteractions(publisher);
+
+        // 新方法出现、最后一个节点下线才通知
+        providerService.addProvider(provider("com.pajk.user.UserQueryService", "10.0.0.4:20880", "user-center", "getUserById,listUsers,deleteUser"));
+        providerService.removeProviderByZkPath("/dubbo/com.pajk.order.OrderService/providers/10.0.1.1:20880");
+        verify(publisher, times(2)).publishEvent(any(McpToolCatalogService.ToolsChangedEvent.class));
+    }
+
+    @Test
+    void testStatusUpdateFollowsAddressIndex() {
+        providerService.updateProviderStatus("10.0.0.1:20880", false);
+
+        Map<String, Integer> stats = providerService.getOnlineStats();
+        assertEquals(3, stats.get("totalProviders"));
+        assertEquals(2, stats.get("onlineProviders"));
+        assertEquals(2, stats.get("onlineApplications"));
+        assertEquals(1, providerService.getApplicationByName("user-center").getOnlineProviderCount());
+        assertFalse(providerService.getProvidersByAddress("10.0.0.1:20880").get(0).isOnline());
+
+        providerService.updateProviderStatus("10.0.0.2:20880", false);
+        assertEquals(1, providerService.getOnlineStats().get("onlineApplications"));
+    }
+
+    @Test
+    void testRoutingPrefersLocalRegistry() {
+        ProviderInfo remote = provider("com.pajk.order.OrderService", "10.1.1.1:20880", "order-center", "createOrder");
+        remote.setZkPath("dc2:" + remote.getZkPath());
+        providerService.addProvider(remote);
+
+        // 未配置本机房注册中心时保持原顺序
+        assertEquals("10.0.1.1:20880",
+                providerService.getRoutableProviders("com.pajk.order.OrderService", null, null).get(0).getAddress());
+
+        ReflectionTestUtils.setField(providerService, "localRegistry", "dc2");
+        List<ProviderInfo> routable = providerService.getRoutableProviders("com.pajk.order.OrderService", null, null);
+        assertEquals(List.of("10.1.1.1:20880", "10.0.1.1:20880"), routable.stream().map(ProviderInfo::getAddress).toList());
+
+        // 数据库中的节点没有 zkPath，按同接口同地址的已知 Provider 判断注册中心
+        ProviderInfo fromDb = provider("com.pajk.order.OrderService", "10.1.1.1:20880", "order-center", "createOrder");
+        fromDb.setZkPath(null);
+        assertEquals("dc2", providerService.resolveRegistryId(fromDb));
+
+        ReflectionTestUtils.setField(providerService, "localRegistry", "default");
+        assertEquals("10.0.1.1:20880",
+                providerService.getRoutableProviders("com.pajk.order.OrderService", null, null).get(0).getAddress());
+        assertNull(providerService.resolveRegistryId(
+                providerService.getProvidersByAddress("10.0.1.1:20880").get(0)));
+    }
+
+    @Test
+    void testSharedDbNodeIsKeptWhileAnotherRegistryReportsIt() {
+        ProviderInfo primary = providerService.getProvidersByAddress("10.0.1.1:20880").get(0);
+        ProviderInfo remote = provider("com.pajk.order.OrderService", "10.0.1.1:20880", "order-center", "createOrder");
+        remote.setZkPath("dc2:" + remote.getZkPath());
+        providerService.addProvider(remote);
+
+        assertTrue(providerService.isReportedByOtherNode(primary, primary.getZkPath()));
+        assertTrue(providerService.isReportedByOtherNode(remote, remote.getZkPath()));
+        assertFalse(providerService.isReportedByOtherNode(
+                providerService.getProvidersByAddress("10.0.0.1:20880").get(0), "/dubbo/com.pajk.user.UserQueryService/providers/10.0.0.1:20880"));
+
+        // 另一个注册中心的节点离线或移除后，不再保留共用的数据库节点
+        providerService.updateProviderStatus("10.0.1.1:20880", false);
+        assertFalse(providerService.isReportedByOtherNode(primary, primary.getZkPath()));
+        providerService.updateProviderStatus("10.0.1.1:20880", true);
+        providerService.removeProviderByZkPath(remote.getZkPath());
+        assertFalse(providerService.isReportedByOtherNode(primary, primary.getZkPath()));
+    }
+
+    private static ProviderInfo provider(String interfaceName, String address, String application, String methods) {
+        ProviderInfo provider = new ProviderInfo();
+        provider.setInterfaceName(interfaceName);
+        provider.setAddress(address);
+        provider.setApplication(application);
+        provider.setMethods(methods);
+        provider.setZkPath("/dubbo/" + interfaceName + "/providers/" + address);
+        provider.setOnline(true);
+        return provider;
+    }
+}
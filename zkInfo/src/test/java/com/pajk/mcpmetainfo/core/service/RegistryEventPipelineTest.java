@@ -0,0 +1,114 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.config.ZooKeeperConfig;
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RegistryEventPipelineTest {
+
+    private static final String NODE_1 = "/dubbo/com.pajk.user.UserService/providers/dubbo%3A%2F%2F10.0.0.1%3A20880";
+    private static final String NODE_2 = "/dubbo/com.pajk.user.UserService/providers/dubbo%3A%2F%2F10.0.0.2%3A20880";
+
+    private ZooKeeperConfig config;
+    private DubboServiceDbService dubboServiceDbService;
+    private ProviderService providerService;
+    private SimpleMeterRegistry meterRegistry;
+    private RegistryEventPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        config = new ZooKeeperConfig();
+        dubboServiceDbService = mock(DubboServiceDbService.class);
+        providerService = mock(ProviderService.class);
+        DubboServiceEntity approved = new DubboServiceEntity();
+        approved.setApprovalStatus(DubboServiceEntity.ApprovalStatus.APPROVED);
+        when(dubboServiceDbService.findByServiceKey(any(ProviderInfo.class))).thenReturn(Optional.of(approved));
+        meterRegistry = new SimpleMeterRegistry();
+        pipeline = new RegistryEventPipeline(config, dubboServiceDbService, providerService, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void testLatestStateWinsWithinWindow() {
+        Map<String, RegistryEventPipeline.RegistryEvent> pending = new LinkedHashMap<>();
+        pipeline.merge(pending, event(CuratorCacheListener.Type.NODE_CREATED, NODE_1));
+        pipeline.merge(pending, event(CuratorCacheListener.Type.NODE_CHANGED, NODE_1));
+        pipeline.merge(pending, event(CuratorCacheListener.Type.NODE_CREATED, NODE_2));
+        pipeline.merge(pending, event(CuratorCacheListener.Type.NODE_DELETED, NODE_2));
+
+        assertEquals(2, pending.size());
+        // 新增后又更新仍按新增处理
+        assertEquals(CuratorCacheListener.Type.NODE_CREATED, pending.get(NODE_1).getType());
+        assertEquals(CuratorCacheListener.Type.NODE_DELETED, pending.get(NODE_2).getType());
+        assertEquals(2.0, meterRegistry.get("zk.registry.pipeline.coalesced").counter().count());
+    }
+
+    @Test
+    void testBatchLooksUpApprovalOncePerServiceKey() {
+        List<RegistryEventPipeline.RegistryEvent> batch = new ArrayList<>();
+        batch.add(event(CuratorCacheListener.Type.NODE_CREATED, NODE_1));
+        batch.add(event(CuratorCacheListener.Type.NODE_CREATED, NODE_2));
+        batch.add(event(CuratorCacheListener.Type.NODE_DELETED, "/dubbo/com.pajk.order.OrderService/providers/x"));
+
+        pipeline.applyBatch(batch);
+
+        verify(dubboServiceDbService, times(1)).saveOrUpdateServicesWithNodes(argThat(list -> list.size() == 2));
+        verify(dubboServiceDbService, times(1)).findByServiceKey(any(ProviderInfo.class));
+        verify(providerService, times(2)).addProvider(any(ProviderInfo.class));
+        verify(providerService).removeProviderByZkPath("/dubbo/com.pajk.order.OrderService/providers/x");
+        assertEquals(3, meterRegistry.get("zk.registry.pipeline.lag").timer().count());
+    }
+
+    @Test
+    void testSubmittedEventsAreAppliedAfterWindow() {
+        config.getPipeline().setBatchWindowMs(20);
+        pipeline.start();
+
+        pipeline.submit(event(CuratorCacheListener.Type.NODE_CREATED, NODE_1));
+        pipeline.submit(event(CuratorCacheListener.Type.NODE_CHANGED, NODE_1));
+
+        verify(providerService, timeout(2000)).addProvider(argThat(p -> NODE_1.equals(p.getZkPath())));
+        verify(providerService, never()).updateProvider(any(ProviderInfo.class));
+    }
+
+    @Test
+    void testDisabledPipelineCreatesNoThreads() {
+        config.getPipeline().setEnabled(false);
+        pipeline.init();
+
+        assertFalse(pipeline.isRunning());
+        assertEquals(0.0, meterRegistry.get("zk.registry.pipeline.nacos.queue.size").gauge().value());
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(t -> t.getName().startsWith("registry-pipeline-") && t.getName().endsWith("-default")));
+    }
+
+    private static RegistryEventPipeline.RegistryEvent event(CuratorCacheListener.Type type, String zkPath) {
+        ProviderInfo providerInfo = null;
+        if (type != CuratorCacheListener.Type.NODE_DELETED) {
+            providerInfo = new ProviderInfo();
+            providerInfo.setInterfaceName("com.pajk.user.UserService");
+            providerInfo.setVersion("1.0.0");
+            providerInfo.setZkPath(zkPath);
+        }
+        return new RegistryEventPipeline.RegistryEvent(type, zkPath, "com.pajk.user.UserService", providerInfo);
+    }
+}
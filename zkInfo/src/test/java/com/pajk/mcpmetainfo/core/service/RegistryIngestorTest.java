@@ -0,0 +1,137 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.config.ZooKeeperConfig;
+import com.pajk.mcpmetainfo.core.util.ProviderUrlParser;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RegistryIngestorTest {
+
+    private static final String USER = "com.pajk.user.UserService";
+    private static final String ORDER = "com.pajk.order.OrderService";
+
+    private TestingServer server;
+    private CuratorFramework admin;
+    private RegistryEventPipeline pipeline;
+    private RegistryIngestor ingestor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new TestingServer(true);
+        admin = CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(100));
+        admin.start();
+        admin.create().creatingParentsIfNeeded().forPath("/dubbo/" + USER + "/providers");
+        admin.create().creatingParentsIfNeeded().forPath("/dubbo/com.pajk.pay.PayService/providers");
+
+        ProviderUrlParser parser = new ProviderUrlParser(1000);
+        ZooKeeperService zooKeeperService = mock(ZooKeeperService.class);
+        when(zooKeeperService.parseProviderNode(anyString(), anyString()))
+                .thenAnswer(invocation -> parser.parseNode(invocation.getArgument(0), invocation.getArgument(1)));
+
+        ZooKeeperConfig.Registry registry = new ZooKeeperConfig.Registry();
+        registry.setId("dc2");
+        registry.setConnectString(server.getConnectString());
+        pipeline = mock(RegistryEventPipeline.class);
+        ingestor = new RegistryIngestor(registry,
+                CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(100)),
+                pipeline, zooKeeperService, null, null, () -> Set.of(USER, ORDER));
+        ingestor.start();
+        assertTrue(ingestor.awaitConnected(10, TimeUnit.SECONDS));
+        ingestor.startWatching();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!ingestor.isCacheInitialized() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(ingestor.isCacheInitialized());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ingestor.close();
+        admin.close();
+        server.close();
+    }
+
+    @Test
+    void testProviderEventsAreQualifiedWithRegistryId() throws Exception {
+        String node = node("10.1.0.1", USER);
+        String path = "/dubbo/" + USER + "/providers/" + node;
+        admin.create().forPath(path);
+
+        verify(pipeline, timeout(5_000)).submit(argThat(event -> event.getType() == CuratorCacheListener.Type.NODE_CREATED
+                && ("dc2:" + path).equals(event.getZkPath())
+                && "dc2".equals(event.getProviderInfo().getRegistryId())
+                && "10.1.0.1:20880".equals(event.getProviderInfo().getAddress())));
+
+        admin.delete().forPath(path);
+        verify(pipeline, timeout(5_000)).submit(argThat(event -> event.getType() == CuratorCacheListener.Type.NODE_DELETED
+                && ("dc2:" + path).equals(event.getZkPath())));
+    }
+
+    @Test
+    void testOnlyApprovedServicesAreIngested() throws Exception {
+        admin.create().forPath("/dubbo/com.pajk.pay.PayService/providers/" + node("10.1.0.2", "com.pajk.pay.PayService"));
+        // 启动后新出现的已审批服务
+        admin.create().creatingParentsIfNeeded().forPath("/dubbo/" + ORDER + "/providers");
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!ingestor.getWatchedServices().contains(ORDER) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        admin.create().forPath("/dubbo/" + ORDER + "/providers/" + node("10.1.0.3", ORDER));
+
+        verify(pipeline, timeout(5_000)).submit(argThat(event -> ORDER.equals(event.getServiceName())));
+        verify(pipeline, never()).submit(argThat(event -> "com.pajk.pay.PayService".equals(event.getServiceName())));
+        assertEquals(Set.of(USER, ORDER), ingestor.getWatchedServices());
+    }
+
+    @Test
+    void testConnectTimeoutMarksRegistryDegradedUntilConnected() throws Exception {
+        TestingServer lateServer = new TestingServer(false);
+        ZooKeeperConfig.Registry registry = new ZooKeeperConfig.Registry();
+        registry.setId("dc3");
+        registry.setConnectString(lateServer.getConnectString());
+        RegistryIngestor late = new RegistryIngestor(registry,
+                CuratorFrameworkFactory.newClient(lateServer.getConnectString(), new RetryOneTime(100)),
+                mock(RegistryEventPipeline.class), mock(ZooKeeperService.class), null, null, Set::of);
+        try {
+            late.start();
+            assertFalse(late.awaitConnected(200, TimeUnit.MILLISECONDS));
+            assertTrue(late.isDegraded());
+
+            CountDownLatch connected = new CountDownLatch(1);
+            late.whenConnected(connected::countDown);
+            lateServer.start();
+
+            assertTrue(connected.await(10, TimeUnit.SECONDS));
+            assertFalse(late.isDegraded());
+            // 已连接时立即执行
+            CountDownLatch again = new CountDownLatch(1);
+            late.whenConnected(again::countDown);
+            assertEquals(0, again.getCount());
+        } finally {
+            late.close();
+            lateServer.close();
+        }
+    }
+
+    private static String node(String ip, String service) {
+        return URLEncoder.encode("dubbo://" + ip + ":20880/" + service + "?application=demo&interface=" + service
+                + "&methods=get&version=1.0.0", StandardCharsets.UTF_8);
+    }
+}
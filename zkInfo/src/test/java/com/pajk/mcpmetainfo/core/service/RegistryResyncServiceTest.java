@@ -0,0 +1,162 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.config.ZooKeeperConfig;
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.curator.framework.state.ConnectionState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RegistryResyncServiceTest {
+
+    private static final String USER = "com.pajk.user.UserService";
+    private static final String ORDER = "com.pajk.order.OrderService";
+
+    private ZooKeeperService zooKeeperService;
+    private ProviderService providerService;
+
+    @BeforeEach
+    void setUp() {
+        zooKeeperService = mock(ZooKeeperService.class);
+        when(zooKeeperService.getConfig()).thenReturn(new ZooKeeperConfig());
+        when(zooKeeperService.getWatchedServices()).thenReturn(Set.of(USER, ORDER));
+
+        providerService = new ProviderService();
+        providerService.addProvider(provider(USER, "10.0.0.1:20880", "node-a"));
+        providerService.addProvider(provider(USER, "10.0.0.2:20880", "node-b"));
+        providerService.addProvider(provider(USER, "10.0.0.3:20880", "node-c"));
+        providerService.addProvider(provider(ORDER, "10.0.1.1:20880", "node-d"));
+    }
+
+    @Test
+    void testDiffKeepsUnchangedAndPairsReplacedNodes() {
+        RegistryResyncService.RegistrySnapshot snapshot = new RegistryResyncService.RegistrySnapshot();
+        snapshot.getReadServices().add(USER);
+        put(snapshot, provider(USER, "10.0.0.1:20880", "node-a"));
+        // 10.0.0.3 重新注册成了新节点，10.0.0.2 下线，10.0.0.4 新上线
+        put(snapshot, provider(USER, "10.0.0.3:20880", "node-c2"));
+        put(snapshot, provider(USER, "10.0.0.4:20880", "node-e"));
+
+        RegistryResyncService.Delta delta = RegistryResyncService.diff(snapshot, providerService.getAllProviders(), "/dubbo");
+
+        assertEquals(1, delta.getUnchanged());
+        assertEquals(List.of("10.0.0.4:20880"), delta.getAdded().stream().map(ProviderInfo::getAddress).toList());
+        assertEquals(List.of("10.0.0.2:20880"), delta.getRemoved().stream().map(ProviderInfo::getAddress).toList());
+        assertEquals(List.of(path(USER, "node-c2")), delta.getUpdated().stream().map(ProviderInfo::getZkPath).toList());
+        assertEquals(List.of(path(USER, "node-c")), delta.getReplacedPaths());
+    }
+
+    @Test
+    void testServiceThatFailedToReadIsNotTreatedAsRemoved() {
+        RegistryResyncService.RegistrySnapshot snapshot = new RegistryResyncService.RegistrySnapshot();
+        snapshot.getReadServices().add(ORDER);
+        put(snapshot, provider(ORDER, "10.0.1.1:20880", "node-d"));
+
+        RegistryResyncService.Delta delta = RegistryResyncService.diff(snapshot, providerService.getAllProviders(), "/dubbo");
+
+        assertEquals(1, delta.getUnchanged());
+        assertTrue(delta.getRemoved().isEmpty());
+        assertTrue(delta.getAdded().isEmpty());
+    }
+
+    @Test
+    void testReconnectReplayIsSuppressedAndOnlyDeltasAreDispatched() throws Exception {
+        RegistryResyncService service = spy(new RegistryResyncService(zooKeeperService, providerService));
+        RegistryResyncService.RegistrySnapshot snapshot = new RegistryResyncService.RegistrySnapshot();
+        snapshot.getReadServices().addAll(Set.of(USER, ORDER));
+        put(snapshot, provider(USER, "10.0.0.1:20880", "node-a"));
+        put(snapshot, provider(USER, "10.0.0.2:20880", "node-b"));
+        put(snapshot, provider(USER, "10.0.0.3:20880", "node-c"));
+        put(snapshot, provider(ORDER, "10.0.1.2:20880", "node-f"));
+        doReturn(snapshot).when(service).readSnapshot(anySet());
+
+        assertFalse(service.intercept(path(USER, "node-a")));
+        service.onStateChanged(ConnectionState.LOST);
+        // 恢复后缓存重放的事件全部被拦截
+        assertTrue(service.intercept(path(USER, "node-a")));
+        assertTrue(service.intercept(path(USER, "node-b")));
+        assertTrue(service.intercept(path(ORDER, "node-f")));
+
+        service.resync();
+
+        verify(zooKeeperService).dispatchProviderEvent(eq(CuratorCacheListener.Type.NODE_DELETED),
+                eq(path(ORDER, "node-d")), eq(ORDER), isNull());
+        verify(zooKeeperService).dispatchProviderEvent(eq(CuratorCacheListener.Type.NODE_CREATED),
+                eq(path(ORDER, "node-f")), eq(ORDER), any(ProviderInfo.class));
+        verify(zooKeeperService, times(2)).dispatchProviderEvent(any(), anyString(), anyString(), any());
+
+        RegistryResyncService.ResyncResult result = service.getLastResult();
+        assertEquals(3, result.getInterceptedEvents());
+        assertEquals(3, result.getUnchanged());
+        assertEquals(1, result.getAdded());
+        assertEquals(1, result.getRemoved());
+        assertFalse(service.isResyncing());
+        assertFalse(service.intercept(path(USER, "node-a")));
+    }
+
+    @Test
+    void testChangesBeforeCacheInitializationAreReconciled() throws Exception {
+        CuratorFramework client = mock(CuratorFramework.class, RETURNS_DEEP_STUBS);
+        when(client.getZookeeperClient().isConnected()).thenReturn(true);
+        when(zooKeeperService.getClient()).thenReturn(client);
+        // 初始化后的比对不受会话恢复重同步开关影响
+        ZooKeeperConfig config = new ZooKeeperConfig();
+        config.getResync().setEnabled(false);
+        when(zooKeeperService.getConfig()).thenReturn(config);
+
+        RegistryResyncService service = spy(new RegistryResyncService(zooKeeperService, providerService));
+        RegistryResyncService.RegistrySnapshot snapshot = new RegistryResyncService.RegistrySnapshot();
+        snapshot.getReadServices().addAll(Set.of(USER, ORDER));
+        put(snapshot, provider(USER, "10.0.0.1:20880", "node-a"));
+        put(snapshot, provider(USER, "10.0.0.2:20880", "node-b"));
+        put(snapshot, provider(USER, "10.0.0.3:20880", "node-c"));
+        put(snapshot, provider(ORDER, "10.0.1.1:20880", "node-d"));
+        // 全量加载之后、缓存初始化之前上线的节点
+        put(snapshot, provider(ORDER, "10.0.1.2:20880", "node-f"));
+        doReturn(snapshot).when(service).readSnapshot(anySet());
+
+        service.init();
+        try {
+            service.reconcileAfterCacheInitialized();
+            verify(zooKeeperService, timeout(5_000)).dispatchProviderEvent(eq(CuratorCacheListener.Type.NODE_CREATED),
+                    eq(path(ORDER, "node-f")), eq(ORDER), any(ProviderInfo.class));
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (service.getLastResult() == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(4, service.getLastResult().getUnchanged());
+            assertEquals(1, service.getLastResult().getAdded());
+            verify(zooKeeperService, times(1)).dispatchProviderEvent(any(), anyString(), anyString(), any());
+            assertFalse(service.isResyncing());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static void put(RegistryResyncService.RegistrySnapshot snapshot, ProviderInfo provider) {
+        snapshot.getProviders().put(provider.getZkPath(), provider);
+    }
+
+    private static String path(String service, String node) {
+        return "/dubbo/" + service + "/providers/" + node;
+    }
+
+    private static ProviderInfo provider(String service, String address, String node) {
+        ProviderInfo provider = new ProviderInfo();
+        provider.setInterfaceName(service);
+        provider.setAddress(address);
+        provider.setVersion("1.0.0");
+        provider.setApplication("demo");
+        provider.setOnline(true);
+        provider.setZkPath(path(service, node));
+        return provider;
+    }
+}
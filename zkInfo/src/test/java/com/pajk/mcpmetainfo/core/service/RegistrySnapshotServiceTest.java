@@ -0,0 +1,135 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RegistrySnapshotServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path snapshotFile;
+    private McpToolCatalogService catalogService;
+
+    @BeforeEach
+    void setUp() {
+        snapshotFile = tempDir.resolve("registry.snapshot");
+        catalogService = mock(McpToolCatalogService.class);
+        when(catalogService.getCatalogs()).thenReturn(List.of());
+    }
+
+    @Test
+    void testRestoresProvidersAndCatalogsWrittenByPreviousRun() {
+        ProviderService before = new ProviderService();
+        before.addProvider(provider("10.0.0.1:20880"));
+        before.addProvider(provider("10.0.0.2:20880"));
+        RegistrySnapshotService.CatalogEntry entry = new RegistrySnapshotService.CatalogEntry("user-endpoint", "mcp-user",
+                List.of("{\"name\":\"com.pajk.user.UserService.getUserById\"}"), Set.of("com.pajk.user.UserService"));
+        McpToolCatalogService.ToolCatalog catalog = mock(McpToolCatalogService.ToolCatalog.class);
+        when(catalog.getEndpoint()).thenReturn(entry.getEndpoint());
+        when(catalog.getMcpServiceName()).thenReturn(entry.getMcpServiceName());
+        when(catalog.getToolJsons()).thenReturn(entry.getToolJsons());
+        when(catalog.getInterfaces()).thenReturn(entry.getInterfaces());
+        when(catalogService.getCatalogs()).thenReturn(List.of(catalog));
+        service(before).writeSnapshot();
+
+        ProviderService after = new ProviderService();
+        service(after).restore();
+
+        assertEquals(2, after.getTotalProviderCount());
+        ProviderInfo restored = after.getProviderByZkPath("/dubbo/com.pajk.user.UserService/providers/10.0.0.1:20880");
+        assertEquals("1.0.0", restored.getVersion());
+        assertEquals(Map.of("timeout", "3000"), restored.getParameters());
+        verify(catalogService).restoreCatalog(eq("user-endpoint"), eq("mcp-user"),
+                argThat(tools -> "com.pajk.user.UserService.getUserById".equals(tools.get(0).get("name"))),
+                eq(Set.of("com.pajk.user.UserService")));
+    }
+
+    @Test
+    void testCorruptedSnapshotIsIgnored() throws Exception {
+        ProviderService before = new ProviderService();
+        before.addProvider(provider("10.0.0.1:20880"));
+        service(before).writeSnapshot();
+
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(snapshotFile, bytes);
+
+        assertNull(RegistrySnapshotService.read(snapshotFile));
+        ProviderService after = new ProviderService();
+        service(after).restore();
+        assertEquals(0, after.getTotalProviderCount());
+    }
+
+    @Test
+    void testReconcileRemovesProvidersNotConfirmedByZooKeeper() {
+        ProviderService before = new ProviderService();
+        before.addProvider(provider("10.0.0.1:20880"));
+        before.addProvider(provider("10.0.0.2:20880"));
+        service(before).writeSnapshot();
+
+        ProviderService after = new ProviderService();
+        RegistrySnapshotService snapshotService = service(after);
+        snapshotService.restore();
+        snapshotService.reconcile(Set.of("/dubbo/com.pajk.user.UserService/providers/10.0.0.1:20880"), Set.of());
+
+        assertEquals(1, after.getTotalProviderCount());
+        assertNull(after.getProviderByZkPath("/dubbo/com.pajk.user.UserService/providers/10.0.0.2:20880"));
+    }
+
+    @Test
+    void testReconcileOnlyTouchesProvidersOfThatRegistry() {
+        ProviderService before = new ProviderService();
+        before.addProvider(provider("10.0.0.1:20880"));
+        ProviderInfo remote = provider("10.1.0.1:20880");
+        remote.setZkPath("dc2:" + remote.getZkPath());
+        before.addProvider(remote);
+        service(before).writeSnapshot();
+
+        ProviderService after = new ProviderService();
+        RegistrySnapshotService snapshotService = service(after);
+        snapshotService.restore();
+        // 主注册中心拉取时 dc2 的 Provider 不在确认列表中，也不应被移除
+        snapshotService.reconcile(Set.of("/dubbo/com.pajk.user.UserService/providers/10.0.0.1:20880"), Set.of());
+        assertEquals(2, after.getTotalProviderCount());
+        assertEquals("dc2", after.getProviderByZkPath(remote.getZkPath()).getRegistryId());
+
+        snapshotService.reconcile("dc2", Set.of(), Set.of());
+        assertEquals(1, after.getTotalProviderCount());
+        assertNull(after.getProviderByZkPath(remote.getZkPath()));
+    }
+
+    private RegistrySnapshotService service(ProviderService providerService) {
+        RegistrySnapshotService service = new RegistrySnapshotService(providerService, catalogService, new ObjectMapper());
+        ReflectionTestUtils.setField(service, "snapshotPath", snapshotFile.toString());
+        return service;
+    }
+
+    private static ProviderInfo provider(String address) {
+        ProviderInfo providerInfo = new ProviderInfo();
+        providerInfo.setInterfaceName("com.pajk.user.UserService");
+        providerInfo.setAddress(address);
+        providerInfo.setProtocol("dubbo");
+        providerInfo.setVersion("1.0.0");
+        providerInfo.setApplication("user-service");
+        providerInfo.setMethods("getUserById");
+        providerInfo.setOnline(true);
+        providerInfo.setParameters(Map.of("timeout", "3000"));
+        providerInfo.setZkPath("/dubbo/com.pajk.user.UserService/providers/" + address);
+        return providerInfo;
+    }
+}
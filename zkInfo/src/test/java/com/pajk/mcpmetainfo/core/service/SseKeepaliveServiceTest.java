@@ -0,0 +1,86 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.config.McpSessionProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseKeepaliveServiceTest {
+
+    private SseKeepaliveService keepaliveService;
+
+    @BeforeEach
+    void setUp() {
+        McpSessionProperties properties = new McpSessionProperties();
+        properties.getHeartbeat().setInterval(Duration.ofMillis(200));
+        properties.getHeartbeat().setJitter(0.1);
+        properties.getHeartbeat().setTickDuration(Duration.ofMillis(10));
+        properties.getHeartbeat().setReapInterval(Duration.ofMillis(50));
+        keepaliveService = new SseKeepaliveService(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        keepaliveService.shutdown();
+    }
+
+    @Test
+    void testHeartbeatFiresPeriodically() throws Exception {
+        CountDownLatch beats = new CountDownLatch(3);
+        keepaliveService.register("s1", () -> {
+            beats.countDown();
+            return true;
+        }, null);
+
+        assertTrue(beats.await(3, TimeUnit.SECONDS));
+        assertEquals(1, keepaliveService.getActiveCount());
+    }
+
+    @Test
+    void testDeadConnectionIsReaped() throws Exception {
+        CountDownLatch reaped = new CountDownLatch(1);
+        keepaliveService.register("s1", () -> {
+            throw new java.io.IOException("Broken pipe");
+        }, reaped::countDown);
+
+        assertTrue(reaped.await(3, TimeUnit.SECONDS));
+        assertEquals(0, keepaliveService.getActiveCount());
+    }
+
+    @Test
+    void testRecentActivitySkipsHeartbeat() throws Exception {
+        AtomicInteger beats = new AtomicInteger();
+        keepaliveService.register("s1", () -> {
+            beats.incrementAndGet();
+            return true;
+        }, null);
+
+        long deadline = System.currentTimeMillis() + 800;
+        while (System.currentTimeMillis() < deadline) {
+            keepaliveService.recordActivity("s1");
+            Thread.sleep(20);
+        }
+        assertEquals(0, beats.get());
+    }
+
+    @Test
+    void testUnregisterStopsHeartbeat() throws Exception {
+        AtomicInteger beats = new AtomicInteger();
+        keepaliveService.register("s1", () -> {
+            beats.incrementAndGet();
+            return true;
+        }, null);
+        keepaliveService.unregister("s1");
+
+        Thread.sleep(500);
+        assertEquals(0, beats.get());
+        assertEquals(0, keepaliveService.getActiveCount());
+    }
+}
@@ -0,0 +1,103 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.config.McpSessionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseOutboundServiceTest {
+
+    private McpSessionProperties properties;
+    private SseKeepaliveService keepaliveService;
+    private SseOutboundService outboundService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new McpSessionProperties();
+        properties.getOutbound().setMaxQueueMessages(3);
+        properties.getOutbound().setWriterThreads(2);
+        keepaliveService = new SseKeepaliveService(properties);
+        outboundService = new SseOutboundService(properties, new SimpleMeterRegistry(), keepaliveService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboundService.shutdown();
+        keepaliveService.shutdown();
+    }
+
+    @Test
+    void testEventsWrittenInOrder() throws Exception {
+        List<String> written = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        outboundService.open("s1", "ep", event -> {
+            written.add(event.getData());
+            done.countDown();
+            return true;
+        }, null);
+
+        outboundService.offer("s1", SseOutboundService.OutboundEvent.response("a"));
+        outboundService.offer("s1", SseOutboundService.OutboundEvent.response("b"));
+        outboundService.offer("s1", SseOutboundService.OutboundEvent.response("c"));
+
+        assertTrue(done.await(3, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "b", "c"), written);
+    }
+
+    @Test
+    void testSlowConsumerDropsNotificationsThenDisconnects() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch disconnected = new CountDownLatch(1);
+        outboundService.open("s1", "ep", event -> {
+            blocked.countDown();
+            release.await();
+            return true;
+        }, disconnected::countDown);
+
+        // 第一条进入写线程并阻塞，后续消息在队列中堆积
+        assertEquals(SseOutboundService.OfferResult.QUEUED,
+                outboundService.offer("s1", SseOutboundService.OutboundEvent.response("r1")));
+        assertTrue(blocked.await(3, TimeUnit.SECONDS));
+        assertEquals(SseOutboundService.OfferResult.QUEUED,
+                outboundService.offer("s1", SseOutboundService.OutboundEvent.notification("n", "n1")));
+        assertEquals(SseOutboundService.OfferResult.QUEUED,
+                outboundService.offer("s1", SseOutboundService.OutboundEvent.response("r2")));
+
+        // 队列已满：新通知直接丢弃
+        assertEquals(SseOutboundService.OfferResult.DROPPED,
+                outboundService.offer("s1", SseOutboundService.OutboundEvent.notification("n", "n2")));
+        // 队列已满：响应挤掉排队中的通知
+        assertEquals(SseOutboundService.OfferResult.QUEUED,
+                outboundService.offer("s1", SseOutboundService.OutboundEvent.response("r3")));
+        // 没有可丢弃的通知，断开慢消费者
+        assertEquals(SseOutboundService.OfferResult.DISCONNECTED,
+                outboundService.offer("s1", SseOutboundService.OutboundEvent.response("r4")));
+
+        assertTrue(disconnected.await(3, TimeUnit.SECONDS));
+        assertFalse(outboundService.isOpen("s1"));
+        release.countDown();
+    }
+
+    @Test
+    void testWriteFailureDisconnects() throws Exception {
+        CountDownLatch disconnected = new CountDownLatch(1);
+        outboundService.open("s1", "ep", event -> {
+            throw new java.io.IOException("Broken pipe");
+        }, disconnected::countDown);
+
+        outboundService.offer("s1", SseOutboundService.OutboundEvent.response("r1"));
+
+        assertTrue(disconnected.await(3, TimeUnit.SECONDS));
+        assertEquals(SseOutboundService.OfferResult.NO_CHANNEL,
+                outboundService.offer("s1", SseOutboundService.OutboundEvent.response("r2")));
+    }
+}
@@ -0,0 +1,147 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.config.McpSessionProperties;
+import com.pajk.mcpmetainfo.core.session.RedisClient;
+import com.pajk.mcpmetainfo.core.session.SessionInstanceIdProvider;
+import com.pajk.mcpmetainfo.core.session.SessionMeta;
+import com.pajk.mcpmetainfo.core.session.SessionRedisRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SseReplayBufferTest {
+
+    private RedisClient redisClient;
+    private SseReplayBuffer replayBuffer;
+
+    @BeforeEach
+    void setUp() {
+        McpSessionProperties properties = new McpSessionProperties();
+        properties.getReplay().setCapacity(4);
+        redisClient = mock(RedisClient.class);
+        replayBuffer = new SseReplayBuffer(properties, redisClient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        replayBuffer.shutdown();
+    }
+
+    @Test
+    void testAppendAssignsMonotonicIdsAndReplaysMissedEvents() {
+        replayBuffer.attach("s1");
+        List<String> sent = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            replayBuffer.append("s1", SseOutboundService.OutboundEvent.response("r" + i), e -> sent.add(e.getId()));
+        }
+        String token = SseReplayBuffer.parseResumeToken(replayBuffer.currentEventId("s1"));
+        assertNotNull(token);
+        assertEquals(List.of("s1:" + token + ":1", "s1:" + token + ":2", "s1:" + token + ":3"), sent);
+        assertEquals("s1:" + token + ":3", replayBuffer.currentEventId("s1"));
+
+        List<String> replayed = new ArrayList<>();
+        int count = replayBuffer.replay("s1", "s1:1", e -> replayed.add(e.getData()));
+        assertEquals(2, count);
+        assertEquals(List.of("r2", "r3"), replayed);
+    }
+
+    @Test
+    void testReplayOnlyKeepsLatestCapacityEvents() {
+        replayBuffer.attach("s1");
+        for (int i = 1; i <= 6; i++) {
+            replayBuffer.append("s1", SseOutboundService.OutboundEvent.response("r" + i), e -> e);
+        }
+        List<String> replayed = new ArrayList<>();
+        // 只收到 endpoint 事件（Last-Event-ID 没有 seq），补发缓冲区中的全部事件
+        replayBuffer.replay("s1", "s1", e -> replayed.add(e.getData()));
+        assertEquals(List.of("r3", "r4", "r5", "r6"), replayed);
+    }
+
+    @Test
+    void testResumeFromRedisOnAnotherNode() {
+        when(redisClient.hgetAll("zkinfo:replay:s1")).thenReturn(Map.of(
+                "token", "tk",
+                "slot:1", "1|RESPONSE||r1",
+                "slot:2", "2|RESPONSE||r2|with|pipes"));
+
+        // 会话仍在其他节点连接中时不允许续传
+        assertNull(replayBuffer.tryResume("s1:tk:1", id -> true));
+        assertEquals("s1", replayBuffer.tryResume("s1:tk:1", id -> false));
+        List<String> replayed = new ArrayList<>();
+        replayBuffer.replay("s1", "s1:tk:1", e -> replayed.add(e.getId() + "=" + e.getData()));
+        assertEquals(List.of("s1:tk:2=r2|with|pipes"), replayed);
+
+        // 新事件延续 Redis 中的 seq
+        String id = replayBuffer.append("s1", SseOutboundService.OutboundEvent.response("r3"),
+                SseOutboundService.OutboundEvent::getId);
+        assertEquals("s1:tk:3", id);
+    }
+
+    @Test
+    void testResumeRequiresTokenAndDetachedSession() {
+        replayBuffer.attach("s1");
+        String eventId = replayBuffer.currentEventId("s1");
+
+        // 连接中的会话：即使令牌正确也不能被接管
+        assertNull(replayBuffer.tryResume(eventId, id -> false));
+
+        replayBuffer.detach("s1");
+        // sessionId 来自 URL，不足以续传
+        assertNull(replayBuffer.tryResume("s1:0", id -> false));
+        assertNull(replayBuffer.tryResume("s1", id -> false));
+        assertNull(replayBuffer.tryResume("s1:guessed:0", id -> false));
+
+        assertEquals("s1", replayBuffer.tryResume(eventId, id -> false));
+        // 续传后会话重新处于连接状态，同一令牌不能再次接管
+        assertNull(replayBuffer.tryResume(eventId, id -> false));
+    }
+
+    @Test
+    void testHijackOfAttachedSessionIsRejected() {
+        SessionRedisRepository sessionRepository = mock(SessionRedisRepository.class);
+        SessionInstanceIdProvider instanceIdProvider = mock(SessionInstanceIdProvider.class);
+        when(instanceIdProvider.getInstanceId()).thenReturn("node-1");
+        McpSessionManager sessionManager = new McpSessionManager(sessionRepository, instanceIdProvider,
+                mock(SseKeepaliveService.class), mock(SseOutboundService.class), replayBuffer);
+        SseEmitter owner = new SseEmitter();
+        sessionManager.registerSseEmitter("s1", "ep", owner);
+        when(sessionRepository.findSession("s1")).thenReturn(Optional.of(
+                new SessionMeta("s1", "node-1", null, null, "SSE", "ep", LocalDateTime.now(), true)));
+        String ownerEventId = sessionManager.currentEventId("s1");
+
+        // 只知道 URL 中的 sessionId，或拿到了事件 ID，都不能接管连接中的会话
+        assertNull(sessionManager.resolveResumableSessionId("s1:0"));
+        assertNull(sessionManager.resolveResumableSessionId("s1:" + Long.MAX_VALUE));
+        assertNull(sessionManager.resolveResumableSessionId(ownerEventId));
+        assertSame(owner, sessionManager.getSseEmitter("s1"));
+
+        // 原连接断开后，持有令牌的客户端可以续传
+        when(sessionRepository.findSession("s1")).thenReturn(Optional.empty());
+        sessionManager.removeSession("s1", owner);
+        assertEquals("s1", sessionManager.resolveResumableSessionId(ownerEventId));
+    }
+
+    @Test
+    void testParseLastEventId() {
+        assertEquals("abc-123", SseReplayBuffer.parseSessionId("abc-123:7"));
+        assertEquals(7, SseReplayBuffer.parseSeq("abc-123:7"));
+        assertNull(SseReplayBuffer.parseResumeToken("abc-123:7"));
+        assertEquals("abc-123", SseReplayBuffer.parseSessionId("abc-123:tk:7"));
+        assertEquals("tk", SseReplayBuffer.parseResumeToken("abc-123:tk:7"));
+        assertEquals(7, SseReplayBuffer.parseSeq("abc-123:tk:7"));
+        assertEquals("abc-123", SseReplayBuffer.parseSessionId("abc-123"));
+        assertEquals(0, SseReplayBuffer.parseSeq("abc-123"));
+        assertNull(SseReplayBuffer.parseSessionId(" "));
+        assertNull(replayBuffer.tryResume(null, id -> false));
+    }
+}
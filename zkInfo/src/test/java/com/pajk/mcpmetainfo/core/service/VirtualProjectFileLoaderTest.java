@@ -0,0 +1,93 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualProjectFileLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private VirtualProjectFileLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        loader = new VirtualProjectFileLoader(new ObjectMapper());
+        ReflectionTestUtils.setField(loader, "configuredDir", tempDir.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        loader.shutdown();
+    }
+
+    @Test
+    void testParsesFilesOnceAndReloadsOnlyChangedFile() throws Exception {
+        ReflectionTestUtils.setField(loader, "watchEnabled", false);
+        write("b-order.json", tool("createOrder", "[\"com.pajk.order.OrderRequest\"]"));
+        write("a-user.json", tool("getUserById", "[\"java.lang.Long\"]"));
+
+        loader.start();
+        assertEquals(List.of("getUserById", "createOrder"), names());
+        Map<String, Object> schema = loader.getTools().get(0).getInputSchema();
+        assertEquals("object", schema.get("type"));
+        long version = loader.getVersion();
+
+        // 内容未变化：不重建
+        loader.reload(tempDir.resolve("a-user.json"));
+        assertEquals(version, loader.getVersion());
+
+        write("a-user.json", tool("getUserByName", "[\"java.lang.String\"]"));
+        loader.reload(tempDir.resolve("a-user.json"));
+        assertEquals(List.of("getUserByName", "createOrder"), names());
+        assertEquals(version + 1, loader.getVersion());
+
+        // 解析失败保留上一次的定义
+        write("b-order.json", "{ broken");
+        loader.reload(tempDir.resolve("b-order.json"));
+        assertEquals(List.of("getUserByName", "createOrder"), names());
+
+        Files.delete(tempDir.resolve("b-order.json"));
+        loader.reload(tempDir.resolve("b-order.json"));
+        assertEquals(List.of("getUserByName"), names());
+    }
+
+    @Test
+    void testWatchServicePicksUpNewFile() throws Exception {
+        loader.start();
+        assertTrue(loader.getTools().isEmpty());
+
+        write("c-pay.json", tool("pay", "[\"java.lang.Long\"]"));
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (loader.getTools().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(List.of("pay"), names());
+    }
+
+    private List<String> names() {
+        return loader.getTools().stream().map(VirtualProjectFileLoader.ToolDefinition::getName).collect(Collectors.toList());
+    }
+
+    private void write(String fileName, String content) throws Exception {
+        Files.writeString(tempDir.resolve(fileName), content);
+    }
+
+    private static String tool(String name, String parameterTypes) {
+        return "{\"tools\":[{\"toolName\":\"" + name + "\",\"description\":\"" + name + "\","
+                + "\"inputSchema\":\"{\\\"type\\\":\\\"object\\\"}\",\"parameterTypes\":" + parameterTypes + "}]}";
+    }
+}
@@ -0,0 +1,90 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.alibaba.nacos.api.naming.NamingService;
+import com.pajk.mcpmetainfo.core.service.ZkInfoNodeDiscoveryService.ZkInfoNode;
+import com.pajk.mcpmetainfo.core.util.ConsistentHashRing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ZkInfoNodeRingServiceTest {
+
+    private ZkInfoNodeRingService ringService;
+
+    @BeforeEach
+    void setUp() {
+        ringService = new ZkInfoNodeRingService(mock(NamingService.class), mock(ZkInfoNodeDiscoveryService.class));
+        ReflectionTestUtils.setField(ringService, "placementEnabled", true);
+        ReflectionTestUtils.setField(ringService, "virtualNodes", 160);
+        ReflectionTestUtils.setField(ringService, "localAddress", "10.0.0.1:9091");
+    }
+
+    @Test
+    void testOwnerIsDeterministicAcrossRebuilds() {
+        ringService.rebuild(nodes("10.0.0.1", "10.0.0.2", "10.0.0.3"));
+        String owner = ringService.getOwner("endpoint-a").getAddress();
+
+        // 成员顺序不同，归属不变（各节点独立构建的环一致）
+        ZkInfoNodeRingService other = new ZkInfoNodeRingService(mock(NamingService.class), mock(ZkInfoNodeDiscoveryService.class));
+        ReflectionTestUtils.setField(other, "placementEnabled", true);
+        ReflectionTestUtils.setField(other, "virtualNodes", 160);
+        other.rebuild(nodes("10.0.0.3", "10.0.0.1", "10.0.0.2"));
+        assertEquals(owner, other.getOwner("endpoint-a").getAddress());
+    }
+
+    @Test
+    void testAddingNodeOnlyMovesKeysToNewNode() {
+        List<String> keys = IntStream.range(0, 2000).mapToObj(i -> "session-" + i).collect(Collectors.toList());
+        ConsistentHashRing<ZkInfoNode> before = ConsistentHashRing.build(nodes("10.0.0.1", "10.0.0.2", "10.0.0.3"), ZkInfoNode::getAddress, 160);
+        ConsistentHashRing<ZkInfoNode> after = ConsistentHashRing.build(nodes("10.0.0.1", "10.0.0.2", "10.0.0.3", "10.0.0.4"), ZkInfoNode::getAddress, 160);
+
+        int moved = 0;
+        for (String key : keys) {
+            String oldOwner = before.locate(key).getAddress();
+            String newOwner = after.locate(key).getAddress();
+            if (!oldOwner.equals(newOwner)) {
+                moved++;
+                assertEquals("10.0.0.4:9091", newOwner);
+            }
+        }
+        // 期望约 1/4 的 key 迁移
+        assertTrue(moved > keys.size() / 8 && moved < keys.size() * 3 / 8, "moved=" + moved);
+    }
+
+    @Test
+    void testEmptyMembershipKeepsCurrentRing() {
+        ringService.rebuild(nodes("10.0.0.1", "10.0.0.2"));
+        ringService.rebuild(new ArrayList<>());
+        assertEquals(2, ringService.getMembers().size());
+    }
+
+    @Test
+    void testRemoteOwnerExcludesLocalNode() {
+        ringService.rebuild(nodes("10.0.0.1"));
+        assertTrue(ringService.getRemoteOwner("endpoint-a").isEmpty());
+
+        ReflectionTestUtils.setField(ringService, "placementEnabled", false);
+        assertNull(ringService.getOwner("endpoint-a"));
+    }
+
+    private static List<ZkInfoNode> nodes(String... ips) {
+        List<ZkInfoNode> nodes = new ArrayList<>();
+        for (String ip : ips) {
+            ZkInfoNode node = new ZkInfoNode();
+            node.setIp(ip);
+            node.setPort(9091);
+            node.setHealthy(true);
+            node.setEnabled(true);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,88 @@
+package com.pajk.mcpmetainfo.core.service;
+
+import com.pajk.mcpmetainfo.core.config.ZooKeeperConfig;
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import com.pajk.mcpmetainfo.persistence.entity.DubboServiceEntity;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ZooKeeperRegistryCacheTest {
+
+    private static final String PROVIDER_PATH = "/dubbo/com.pajk.user.UserService/providers/"
+            + "dubbo%3A%2F%2F10.0.0.1%3A20880%2Fcom.pajk.user.UserService%3Fversion%3D1.0.0%26methods%3DgetUserById";
+
+    private ZooKeeperService zooKeeperService;
+    private ProviderService providerService;
+    private DubboServiceDbService dubboServiceDbService;
+
+    @BeforeEach
+    void setUp() {
+        providerService = mock(ProviderService.class);
+        dubboServiceDbService = mock(DubboServiceDbService.class);
+        DubboServiceEntity approved = new DubboServiceEntity();
+        approved.setInterfaceName("com.pajk.user.UserService");
+        approved.setApprovalStatus(DubboServiceEntity.ApprovalStatus.APPROVED);
+        when(dubboServiceDbService.findByServiceKey(any(ProviderInfo.class))).thenReturn(Optional.of(approved));
+        when(dubboServiceDbService.findApprovedServices()).thenReturn(List.of(approved));
+
+        zooKeeperService = new ZooKeeperService();
+        ReflectionTestUtils.setField(zooKeeperService, "config", new ZooKeeperConfig());
+        ReflectionTestUtils.setField(zooKeeperService, "providerService", providerService);
+        ReflectionTestUtils.setField(zooKeeperService, "dubboServiceDbService", dubboServiceDbService);
+    }
+
+    @Test
+    void testProviderEventsDispatchedOnlyForWatchedServices() {
+        dispatch(CuratorCacheListener.Type.NODE_CREATED, PROVIDER_PATH);
+        verifyNoInteractions(providerService);
+
+        zooKeeperService.watchService("com.pajk.user.UserService");
+        assertTrue(zooKeeperService.isPathCached("/dubbo/com.pajk.user.UserService/providers"));
+        assertFalse(zooKeeperService.isPathCached("/dubbo/com.pajk.order.OrderService/providers"));
+
+        dispatch(CuratorCacheListener.Type.NODE_CREATED, PROVIDER_PATH);
+        verify(dubboServiceDbService).saveOrUpdateServiceWithNode(argThat(p -> PROVIDER_PATH.equals(p.getZkPath())));
+        verify(providerService).addProvider(argThat(p -> "1.0.0".equals(p.getVersion())));
+
+        dispatch(CuratorCacheListener.Type.NODE_DELETED, PROVIDER_PATH);
+        verify(providerService).removeProviderByZkPath(PROVIDER_PATH);
+    }
+
+    @Test
+    void testNewApprovedServiceIsWatchedAndOtherCategoriesGoToListeners() {
+        List<String> consumerEvents = new ArrayList<>();
+        zooKeeperService.addRegistryListener(ZooKeeperService.RegistryCategory.CONSUMERS,
+                (type, serviceName, data) -> consumerEvents.add(type + " " + serviceName));
+
+        dispatch(CuratorCacheListener.Type.NODE_CREATED, "/dubbo/com.pajk.user.UserService");
+        assertTrue(zooKeeperService.isServiceWatched("com.pajk.user.UserService"));
+
+        dispatch(CuratorCacheListener.Type.NODE_CREATED, "/dubbo/com.pajk.user.UserService/consumers/consumer%3A%2F%2F10.0.0.2");
+        // 分类目录本身、更深层的节点（如元数据）不分发
+        dispatch(CuratorCacheListener.Type.NODE_CREATED, "/dubbo/com.pajk.user.UserService/consumers");
+        dispatch(CuratorCacheListener.Type.NODE_CREATED, "/dubbo/metadata/com.pajk.user.UserService/1.0.0/provider");
+
+        assertEquals(List.of("NODE_CREATED com.pajk.user.UserService"), consumerEvents);
+        verifyNoInteractions(providerService);
+    }
+
+    private void dispatch(CuratorCacheListener.Type type, String path) {
+        ChildData node = new ChildData(path, null, null);
+        if (type == CuratorCacheListener.Type.NODE_DELETED) {
+            zooKeeperService.dispatchRegistryEvent("/dubbo", type, node, null);
+        } else {
+            zooKeeperService.dispatchRegistryEvent("/dubbo", type, null, node);
+        }
+    }
+}
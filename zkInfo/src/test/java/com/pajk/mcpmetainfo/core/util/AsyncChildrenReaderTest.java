@@ -0,0 +1,114 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncChildrenReaderTest {
+
+    private TestingServer server;
+    private CuratorFramework client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new TestingServer(true);
+        client = CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(100));
+        client.start();
+        assertTrue(client.blockUntilConnected(10, TimeUnit.SECONDS));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    void testReadsAllPathsIncludingMissingOnes() throws Exception {
+        List<String> paths = createTree(20, 3);
+        paths.add("/dubbo/com.pajk.Missing/providers");
+
+        Map<String, Integer> childCounts = new HashMap<>();
+        new AsyncChildrenReader(client, 4, 10_000).read(paths, result -> {
+            assertTrue(result.isSuccess());
+            childCounts.put(result.getPath(), result.getChildren().size());
+        });
+
+        assertEquals(21, childCounts.size());
+        assertEquals(3, childCounts.get("/dubbo/com.pajk.Service0/providers"));
+        // 不存在的路径按空列表返回
+        assertEquals(0, childCounts.get("/dubbo/com.pajk.Missing/providers"));
+    }
+
+    /**
+     * 同步逐个读取与异步流水线读取的对比，默认不执行：
+     * mvn test -Dtest=AsyncChildrenReaderTest -Dzk.bootstrap.benchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "zk.bootstrap.benchmark", matches = "true")
+    void benchmarkSyncVersusAsync() throws Exception {
+        // 5000 个服务 × 10 个 Provider = 50k Provider 节点
+        List<String> paths = createTree(5000, 10);
+
+        long start = System.nanoTime();
+        int syncCount = 0;
+        for (String path : paths) {
+            syncCount += client.getChildren().forPath(path).size();
+        }
+        long syncMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        AtomicInteger asyncCount = new AtomicInteger();
+        start = System.nanoTime();
+        new AsyncChildrenReader(client, 1000, 60_000).read(paths,
+                result -> asyncCount.addAndGet(result.getChildren().size()));
+        long asyncMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.printf("sync: %d nodes in %dms, async: %d nodes in %dms (%.1fx)%n",
+                syncCount, syncMs, asyncCount.get(), asyncMs, (double) syncMs / Math.max(1, asyncMs));
+        assertEquals(syncCount, asyncCount.get());
+        assertTrue(asyncMs < syncMs);
+    }
+
+    /**
+     * 创建 /dubbo/{service}/providers/{provider} 结构，返回全部 providers 路径
+     */
+    private List<String> createTree(int services, int providersPerService) throws Exception {
+        List<String> nodes = new ArrayList<>();
+        List<String> providersPaths = new ArrayList<>();
+        for (int i = 0; i < services; i++) {
+            String providersPath = "/dubbo/com.pajk.Service" + i + "/providers";
+            providersPaths.add(providersPath);
+            for (int j = 0; j < providersPerService; j++) {
+                nodes.add(providersPath + "/dubbo%3A%2F%2F10.0." + (j / 250) + "." + (j % 250) + "%3A20880");
+            }
+        }
+        client.create().creatingParentsIfNeeded().forPath(nodes.get(0));
+        Semaphore inFlight = new Semaphore(1000);
+        CountDownLatch done = new CountDownLatch(nodes.size() - 1);
+        for (String node : nodes.subList(1, nodes.size())) {
+            inFlight.acquire();
+            client.create().creatingParentsIfNeeded().inBackground((c, event) -> {
+                inFlight.release();
+                done.countDown();
+            }).forPath(node);
+        }
+        assertTrue(done.await(5, TimeUnit.MINUTES));
+        return providersPaths;
+    }
+}
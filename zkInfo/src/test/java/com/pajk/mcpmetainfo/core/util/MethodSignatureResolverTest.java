@@ -0,0 +1,150 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import com.pajk.mcpmetainfo.core.service.DubboMethodMetadataLoader;
+import com.pajk.mcpmetainfo.core.service.ZooKeeperService;
+import com.pajk.mcpmetainfo.persistence.entity.DubboServiceMethodEntity;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.BackgroundPathable;
+import org.apache.curator.framework.api.ExistsBuilder;
+import org.apache.curator.framework.api.GetDataBuilder;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.data.Stat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MethodSignatureResolverTest {
+
+    private static final String METADATA_PATH = "/dubbo/metadata/com.pajk.user.UserService/1.0.0/user/provider/user-center";
+
+    private MethodSignatureResolver resolver;
+    private BackgroundPathable<Stat> existsPath;
+    private BackgroundPathable<byte[]> dataPath;
+    private GetDataBuilder getData;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        CuratorFramework client = mock(CuratorFramework.class);
+        ExistsBuilder exists = mock(ExistsBuilder.class);
+        getData = mock(GetDataBuilder.class);
+        existsPath = mock(BackgroundPathable.class);
+        dataPath = mock(BackgroundPathable.class);
+        when(client.checkExists()).thenReturn(exists);
+        when(client.getData()).thenReturn(getData);
+        when(exists.usingWatcher(any(Watcher.class))).thenReturn(existsPath);
+        when(getData.usingWatcher(any(Watcher.class))).thenReturn(dataPath);
+
+        ZooKeeperService zooKeeperService = mock(ZooKeeperService.class);
+        when(zooKeeperService.getClient()).thenReturn(client);
+        resolver = new MethodSignatureResolver();
+        ReflectionTestUtils.setField(resolver, "zooKeeperService", zooKeeperService);
+    }
+
+    @Test
+    void testMetadataIsReadOnceAndInvalidatedByWatch() throws Exception {
+        when(existsPath.forPath(METADATA_PATH)).thenReturn(new Stat());
+        when(dataPath.forPath(METADATA_PATH)).thenReturn(metadata("getUserById", "java.lang.Long"),
+                metadata("getUserById", "java.lang.String"));
+
+        MethodSignatureResolver.MetadataMethod method = resolver.getMetadataMethod(
+                "com.pajk.user.UserService", "1.0.0", "user", "user-center", "getUserById");
+        assertEquals(List.of("java.lang.Long"), method.getParameterTypes());
+        assertEquals(List.of("userId"), method.getParameterNames());
+        assertNull(resolver.getMetadataMethod("com.pajk.user.UserService", "1.0.0", "user", "user-center", "missing"));
+        assertEquals(List.of("name", "age"), List.copyOf(resolver.getMetadataTypeProperties("com.pajk.user.User").keySet()));
+        verify(dataPath, times(1)).forPath(METADATA_PATH);
+
+        // 节点数据变化：watch 失效缓存，下次重新读取
+        ArgumentCaptor<Watcher> watcher = ArgumentCaptor.forClass(Watcher.class);
+        verify(getData).usingWatcher(watcher.capture());
+        watcher.getValue().process(new WatchedEvent(Watcher.Event.EventType.NodeDataChanged,
+                Watcher.Event.KeeperState.SyncConnected, METADATA_PATH));
+
+        method = resolver.getMetadataMethod("com.pajk.user.UserService", "1.0.0", "user", "user-center", "getUserById");
+        assertEquals(List.of("java.lang.String"), method.getParameterTypes());
+        verify(dataPath, times(2)).forPath(METADATA_PATH);
+    }
+
+    @Test
+    void testMissingMetadataIsNegativelyCached() throws Exception {
+        assertNull(resolver.getMetadataMethod("com.pajk.user.UserService", "1.0.0", "user", "user-center", "getUserById"));
+        assertNull(resolver.getMetadataMethod("com.pajk.user.UserService", "1.0.0", "user", "user-center", "listUsers"));
+
+        // 四个候选路径各检查一次
+        verify(existsPath, times(4)).forPath(anyString());
+        verifyNoInteractions(dataPath);
+    }
+
+    @Test
+    void testSignatureCacheIsBoundedAndCachesMisses() {
+        // 数据库中不存在的方法同样缓存（负缓存），LRU 限制总条目数
+        DubboMethodMetadataLoader loader = mock(DubboMethodMetadataLoader.class);
+        ReflectionTestUtils.setField(resolver, "methodMetadataLoader", loader);
+        ReflectionTestUtils.setField(resolver, "maxSize", 2);
+
+        resolver.getMethodSignature("com.pajk.user.UserService", "a");
+        resolver.getMethodSignature("com.pajk.user.UserService", "b");
+        resolver.getMethodSignature("com.pajk.user.UserService", "c");
+        resolver.getMethodSignature("com.pajk.user.UserService", "c");
+
+        assertEquals(2, resolver.getCacheSize());
+        verify(loader, times(1)).getMethod("com.pajk.user.UserService", "c");
+    }
+
+    @Test
+    void testFoundSignaturesExpireSoOtherNodesWritesAreSeen() {
+        DubboMethodMetadataLoader loader = mock(DubboMethodMetadataLoader.class);
+        DubboMethodMetadataLoader.MethodMetadata method = mock(DubboMethodMetadataLoader.MethodMetadata.class);
+        when(method.getReturnType()).thenReturn("com.pajk.user.User");
+        when(method.getMethod()).thenReturn(new DubboServiceMethodEntity());
+        when(method.getParameters()).thenReturn(List.of());
+        when(loader.getMethod("com.pajk.user.UserService", "getUserById")).thenReturn(method);
+        ReflectionTestUtils.setField(resolver, "methodMetadataLoader", loader);
+
+        assertNotNull(resolver.getMethodSignature("com.pajk.user.UserService", "getUserById"));
+        assertNotNull(resolver.getMethodSignature("com.pajk.user.UserService", "getUserById"));
+        verify(loader, times(1)).getMethod("com.pajk.user.UserService", "getUserById");
+
+        // 过期后重新经 loader 读取（loader 自身按 TTL 刷新数据库）
+        ReflectionTestUtils.setField(resolver, "positiveTtlMs", -1L);
+        resolver.clearCache("com.pajk.user.UserService", "getUserById");
+        resolver.getMethodSignature("com.pajk.user.UserService", "getUserById");
+        resolver.getMethodSignature("com.pajk.user.UserService", "getUserById");
+        verify(loader, times(3)).getMethod("com.pajk.user.UserService", "getUserById");
+    }
+
+    @Test
+    void testEvictedMetadataReleasesWatchedPaths() throws Exception {
+        ReflectionTestUtils.setField(resolver, "maxSize", 1);
+        when(existsPath.forPath(METADATA_PATH)).thenReturn(new Stat());
+        when(dataPath.forPath(METADATA_PATH)).thenReturn(metadata("getUserById", "java.lang.Long"));
+
+        assertNotNull(resolver.getMetadataMethod("com.pajk.user.UserService", "1.0.0", "user", "user-center", "getUserById"));
+        assertEquals(1, resolver.getWatchedPathCount());
+
+        // 另一个应用的元数据（四个候选路径都不存在）挤出第一个条目，其路径依赖一起移除
+        assertNull(resolver.getMetadataMethod("com.pajk.user.UserService", "1.0.0", "user", "other", "getUserById"));
+        assertEquals(1, resolver.getCacheSize());
+        assertEquals(4, resolver.getWatchedPathCount());
+
+        resolver.clearCache();
+        assertEquals(0, resolver.getWatchedPathCount());
+    }
+
+    private static byte[] metadata(String methodName, String parameterType) {
+        return ("{\"methods\":[{\"name\":\"" + methodName + "\",\"parameterTypes\":[\"" + parameterType + "\"],"
+                + "\"parameterNames\":[\"userId\"],\"returnType\":\"com.pajk.user.User\"}],"
+                + "\"types\":[{\"type\":\"com.pajk.user.User\",\"properties\":{\"name\":\"java.lang.String\",\"age\":\"int\"}}]}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+}
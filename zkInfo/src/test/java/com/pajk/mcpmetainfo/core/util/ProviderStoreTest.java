@@ -0,0 +1,122 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderStoreTest {
+
+    private ProviderStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ProviderStore();
+        put(provider("com.pajk.UserService", "1.0.0", "g1", "10.0.0.1:20880", true), "user-center");
+        put(provider("com.pajk.UserService", "2.0.0", "g1", "10.0.0.2:20880", true), "user-center");
+        put(provider("com.pajk.OrderService", "1.0.0", "g1", "10.0.0.1:20880", false), "order-center");
+    }
+
+    @Test
+    void testSecondaryIndexesAndCounters() {
+        assertEquals(2, store.getByInterface("com.pajk.UserService").size());
+        assertEquals(1, store.getByService("com.pajk.UserService", "2.0.0", "g1").size());
+        assertEquals(2, store.getByService("com.pajk.UserService", null, "g1").size());
+        assertTrue(store.getByService("com.pajk.UserService", "3.0.0", "g1").isEmpty());
+        assertEquals(2, store.getByAddress("10.0.0.1:20880").size());
+        assertEquals(1, store.getByApplication("order-center").size());
+        assertEquals(List.of("com.pajk.OrderService", "com.pajk.UserService"), store.getInterfaceNames());
+
+        assertEquals(3, store.size());
+        assertEquals(2, store.getOnlineCount());
+        assertEquals(2, store.getApplicationCount());
+        assertEquals(1, store.getOnlineApplicationCount());
+    }
+
+    @Test
+    void testReplaceAndRemoveKeepIndexesConsistent() {
+        ProviderInfo replacement = provider("com.pajk.UserService", "1.0.1", "g1", "10.0.0.1:20880", false);
+        ProviderInfo replaced = put(replacement, "user-center");
+
+        assertEquals("1.0.0", replaced.getVersion());
+        assertEquals(3, store.size());
+        assertEquals(1, store.getOnlineCount());
+        assertTrue(store.getByService("com.pajk.UserService", "1.0.0", "g1").isEmpty());
+
+        store.remove(replacement.getZkPath());
+        store.remove("/dubbo/com.pajk.UserService/providers/10.0.0.2:20880");
+
+        assertTrue(store.getByInterface("com.pajk.UserService").isEmpty());
+        assertEquals(List.of("com.pajk.OrderService"), store.getInterfaceNames());
+        assertEquals(0, store.getOnlineCount());
+        assertEquals(1, store.getApplicationCount());
+        assertEquals(0, store.getOnlineApplicationCount());
+    }
+
+    @Test
+    void testSetOnlineTouchesOnlyProvidersAtAddress() {
+        List<ProviderInfo> changed = store.setOnline("10.0.0.1:20880", true);
+
+        assertEquals(1, changed.size());
+        assertEquals("com.pajk.OrderService", changed.get(0).getInterfaceName());
+        assertEquals(3, store.getOnlineCount());
+        assertEquals(2, store.getOnlineApplicationCount());
+
+        // 重复设置同一状态不重复计数
+        assertTrue(store.setOnline("10.0.0.1:20880", true).isEmpty());
+        store.setOnline("10.0.0.2:20880", false);
+        assertEquals(2, store.getOnlineCount());
+    }
+
+    @Test
+    void testReadersKeepTheirSnapshot() {
+        List<ProviderInfo> all = store.getAll();
+        List<ProviderInfo> users = store.getByInterface("com.pajk.UserService");
+
+        store.remove("/dubbo/com.pajk.UserService/providers/10.0.0.2:20880");
+
+        assertEquals(3, all.size());
+        assertEquals(2, users.size());
+        assertEquals(2, store.getAll().size());
+        assertThrows(UnsupportedOperationException.class, () -> all.add(users.get(0)));
+    }
+
+    @Test
+    void testLargeBucketSnapshotIsRebuiltOnlyAfterWrites() {
+        for (int i = 0; i < 5_000; i++) {
+            put(provider("com.pajk.PayService", "1.0.0", "g1", "10.1." + (i / 250) + "." + (i % 250) + ":20880", true), "pay-center");
+        }
+        List<ProviderInfo> snapshot = store.getByInterface("com.pajk.PayService");
+
+        assertEquals(5_000, snapshot.size());
+        assertEquals("10.1.0.0:20880", snapshot.get(0).getAddress());
+        assertSame(snapshot, store.getByInterface("com.pajk.PayService"));
+
+        for (int i = 0; i < 5_000; i += 2) {
+            store.remove("/dubbo/com.pajk.PayService/providers/10.1." + (i / 250) + "." + (i % 250) + ":20880");
+        }
+
+        assertEquals(5_000, snapshot.size());
+        assertEquals(2_500, store.getByInterface("com.pajk.PayService").size());
+        assertEquals("10.1.0.1:20880", store.getByInterface("com.pajk.PayService").get(0).getAddress());
+        assertEquals(2_500, store.getByApplication("pay-center").size());
+    }
+
+    private ProviderInfo put(ProviderInfo provider, String application) {
+        return store.put(provider.getZkPath(), provider, application);
+    }
+
+    private static ProviderInfo provider(String interfaceName, String version, String group, String address, boolean online) {
+        ProviderInfo provider = new ProviderInfo();
+        provider.setInterfaceName(interfaceName);
+        provider.setVersion(version);
+        provider.setGroup(group);
+        provider.setAddress(address);
+        provider.setOnline(online);
+        provider.setZkPath("/dubbo/" + interfaceName + "/providers/" + address);
+        return provider;
+    }
+}
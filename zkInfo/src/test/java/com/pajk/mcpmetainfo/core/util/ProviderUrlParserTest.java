@@ -0,0 +1,156 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import com.pajk.mcpmetainfo.core.model.ProviderInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.ref.Reference;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderUrlParserTest {
+
+    private static final String URL = "dubbo://10.0.0.1:20880/com.pajk.user.UserService?anyhost=true&application=user-center"
+            + "&dubbo=2.0.2&group=g1&interface=com.pajk.user.UserService&methods=getUserById,listUsers"
+            + "&pid=4242&side=provider&timestamp=1700000000000&version=1.0.0";
+
+    @Test
+    void testParsesEncodedNodeName() {
+        ProviderUrlParser parser = new ProviderUrlParser(1000);
+        ProviderInfo provider = parser.parseNode(URLEncoder.encode(URL, StandardCharsets.UTF_8), "fallback");
+
+        assertEquals("dubbo", provider.getProtocol());
+        assertEquals("10.0.0.1:20880", provider.getAddress());
+        assertEquals("com.pajk.user.UserService", provider.getInterfaceName());
+        assertEquals("1.0.0", provider.getVersion());
+        assertEquals("g1", provider.getGroup());
+        assertEquals("user-center", provider.getApplication());
+        assertEquals("getUserById,listUsers", provider.getMethods());
+        assertEquals("4242", provider.getParameters().get("pid"));
+        assertEquals(10, provider.getParameters().size());
+        assertTrue(provider.isOnline());
+    }
+
+    @Test
+    void testMatchesLegacyParserIncludingEscapedValues() {
+        String url = "dubbo://10.0.0.2:20880/com.pajk.order.OrderService?dubbo.application.name=order-center"
+                + "&desc=" + URLEncoder.encode("下单 服务", StandardCharsets.UTF_8) + "&empty=&version=2.0.0";
+        ProviderInfo provider = new ProviderUrlParser(1000).parseNode(URLEncoder.encode(url, StandardCharsets.UTF_8), "fallback");
+
+        assertEquals(legacyParse(url, "fallback"), new HashMap<>(provider.getParameters()));
+        assertEquals("order-center", provider.getApplication());
+        assertEquals("下单 服务", provider.getParameters().get("desc"));
+        assertNull(new ProviderUrlParser(1000).parse("rest://10.0.0.1:8080/com.pajk.Foo", "com.pajk.Foo"));
+    }
+
+    @Test
+    void testRepeatedStringsAreSharedButTimestampsAreNot() {
+        ProviderUrlParser parser = new ProviderUrlParser(1000);
+        ProviderInfo first = parser.parse(URL, "fallback");
+        ProviderInfo second = parser.parse(URL.replace("10.0.0.1", "10.0.0.9").replace("1700000000000", "1700000000001"), "fallback");
+
+        assertSame(first.getMethods(), second.getMethods());
+        assertSame(first.getApplication(), second.getApplication());
+        assertNotEquals(first.getParameters().get("timestamp"), second.getParameters().get("timestamp"));
+        assertFalse(first.getParameters() instanceof HashMap);
+
+        // 池满后不再收录
+        ProviderUrlParser tiny = new ProviderUrlParser(3);
+        tiny.parse(URL, "fallback");
+        assertEquals(3, tiny.getPoolSize());
+    }
+
+    /**
+     * 旧解析方式（正则 split + 每个 Provider 一个 HashMap）与新解析器的耗时、堆占用对比，默认不执行：
+     * mvn test -Dtest=ProviderUrlParserTest -Dzk.parser.benchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "zk.parser.benchmark", matches = "true")
+    void benchmarkLegacyVersusPooled() {
+        // 5000 个服务 × 20 个 Provider = 100k Provider
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            for (int j = 0; j < 20; j++) {
+                String url = "dubbo://10.0." + j + "." + (i % 250) + ":20880/com.pajk.service" + (i % 50) + ".Service" + i
+                        + "?anyhost=true&application=app-" + (i % 200) + "&deprecated=false&dubbo=2.0.2&dynamic=true"
+                        + "&generic=false&group=g" + (i % 3) + "&interface=com.pajk.service" + (i % 50) + ".Service" + i
+                        + "&methods=create,delete,get,list,update&pid=" + (1000 + j) + "&release=2.7.15&revision=1.0.0"
+                        + "&side=provider&threads=200&timeout=3000&timestamp=" + (1700000000000L + i * 20L + j) + "&version=1.0.0";
+                nodes.add(URLEncoder.encode(url, StandardCharsets.UTF_8));
+            }
+        }
+
+        for (int round = 0; round < 3; round++) {
+            legacyRun(nodes);
+            new ProviderUrlParser(200_000).parseNode(nodes.get(round), "warmup");
+        }
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        List<Map<String, String>> legacy = legacyRun(nodes);
+        long legacyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long legacyHeap = usedHeap() - heapBefore;
+        int legacyCount = legacy.size();
+        Reference.reachabilityFence(legacy);
+        legacy = null;
+
+        heapBefore = usedHeap();
+        start = System.nanoTime();
+        ProviderUrlParser parser = new ProviderUrlParser(200_000);
+        List<ProviderInfo> pooled = new ArrayList<>(nodes.size());
+        for (String node : nodes) {
+            pooled.add(parser.parseNode(node, "fallback"));
+        }
+        long pooledMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long pooledHeap = usedHeap() - heapBefore;
+        Reference.reachabilityFence(pooled);
+        Reference.reachabilityFence(nodes);
+
+        System.out.printf("legacy: %dms, %d KB retained; pooled: %dms, %d KB retained, %d pooled strings%n",
+                legacyMs, legacyHeap / 1024, pooledMs, pooledHeap / 1024, parser.getPoolSize());
+        assertEquals(legacyCount, pooled.size());
+        assertTrue(pooledHeap < legacyHeap);
+    }
+
+    private static List<Map<String, String>> legacyRun(List<String> nodes) {
+        List<Map<String, String>> result = new ArrayList<>(nodes.size());
+        for (String node : nodes) {
+            result.add(legacyParse(URLDecoder.decode(node, StandardCharsets.UTF_8), "fallback"));
+        }
+        return result;
+    }
+
+    /**
+     * 旧实现的参数解析逻辑
+     */
+    private static Map<String, String> legacyParse(String providerUrl, String serviceName) {
+        Map<String, String> parameters = new HashMap<>();
+        String[] parts = providerUrl.split("\\?");
+        if (parts.length > 1) {
+            for (String param : parts[1].split("&")) {
+                String[] kv = param.split("=");
+                if (kv.length == 2) {
+                    parameters.put(URLDecoder.decode(kv[0], StandardCharsets.UTF_8),
+                            URLDecoder.decode(kv[1], StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
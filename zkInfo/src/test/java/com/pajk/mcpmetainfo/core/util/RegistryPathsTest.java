@@ -0,0 +1,30 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistryPathsTest {
+
+    private static final String PATH = "/dubbo/com.pajk.user.UserService/providers/dubbo%3A%2F%2F10.0.0.1%3A20880";
+
+    @Test
+    void testPrimaryRegistryPathsAreUnchanged() {
+        assertSame(PATH, RegistryPaths.qualify(null, PATH));
+        assertSame(PATH, RegistryPaths.qualify("", PATH));
+        assertNull(RegistryPaths.registryOf(PATH));
+        assertSame(PATH, RegistryPaths.nodePathOf(PATH));
+        assertNull(RegistryPaths.registryOf(null));
+    }
+
+    @Test
+    void testQualifiedPathRoundTrips() {
+        String qualified = RegistryPaths.qualify("dc2", PATH);
+
+        assertEquals("dc2:" + PATH, qualified);
+        assertEquals("dc2", RegistryPaths.registryOf(qualified));
+        assertEquals(PATH, RegistryPaths.nodePathOf(qualified));
+        // 非路径格式的索引键（接口@地址）不视为带前缀
+        assertNull(RegistryPaths.registryOf("com.pajk.user.UserService@10.0.0.1:20880"));
+    }
+}
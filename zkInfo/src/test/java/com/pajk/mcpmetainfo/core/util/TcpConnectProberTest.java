@@ -0,0 +1,79 @@
+package com.pajk.mcpmetainfo.core.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TcpConnectProberTest {
+
+    private ServerSocket server;
+    private String liveAddress;
+    private String deadAddress;
+
+    private final Map<String, Boolean> results = new ConcurrentHashMap<>();
+    private CountDownLatch done;
+    private TcpConnectProber prober;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        liveAddress = "127.0.0.1:" + server.getLocalPort();
+        try (ServerSocket closed = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            deadAddress = "127.0.0.1:" + closed.getLocalPort();
+        }
+        prober = new TcpConnectProber(1000, 16, (address, reachable) -> {
+            results.put(address, reachable);
+            done.countDown();
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        prober.close();
+        server.close();
+    }
+
+    @Test
+    void testReportsReachableAndUnreachableAddresses() throws Exception {
+        done = new CountDownLatch(3);
+        prober.schedule(List.of(liveAddress, deadAddress, "not-an-address"), 200);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(results.get(liveAddress));
+        assertFalse(results.get(deadAddress));
+        assertFalse(results.get("not-an-address"));
+        assertEquals(0, prober.getPendingCount());
+    }
+
+    @Test
+    void testAddressStillPendingIsNotQueuedAgain() throws Exception {
+        done = new CountDownLatch(1);
+        assertEquals(1, prober.schedule(List.of(liveAddress, liveAddress), 500));
+        assertEquals(0, prober.schedule(List.of(liveAddress), 500));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(1, prober.getConnectsStarted());
+    }
+
+    @Test
+    void testImmediateProbeCompletesFutureAndNotifiesListener() throws Exception {
+        done = new CountDownLatch(1);
+
+        assertTrue(prober.probe(liveAddress).get(5, TimeUnit.SECONDS));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(results.get(liveAddress));
+        // 单次探测不占用周期探测的去重名额
+        assertEquals(1, prober.schedule(List.of(liveAddress), 0));
+    }
+}